@@ -0,0 +1,203 @@
+package com.feenk.jdt2famix;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps byte arrays in a folder under a key that is the hash of what they were
+ * made from, so that the same input never has to be processed twice, even
+ * across checkouts and branches.
+ *
+ * Several processes can share the folder. An entry is written to a temporary
+ * file and moved into place, so readers either see the whole entry or none.
+ * A read that finds the entry marks it as recently used. When the folder grows
+ * beyond its size, the least recently used entries are deleted, under a file
+ * lock so that processes do not evict at the same time. An entry deleted
+ * while another process wants it is simply a miss.
+ */
+public class ContentAddressedCache {
+
+	private static final String ENTRY_EXTENSION = ".entry";
+	private static final String LOCK_FILE_NAME = "eviction.lock";
+
+	private final Path directory;
+	private final long maximumBytes;
+	private long approximateBytes;
+	private int hits;
+	private int misses;
+
+	public ContentAddressedCache(Path directory, long maximumBytes) {
+		this.directory = directory;
+		this.maximumBytes = maximumBytes;
+		this.approximateBytes = entries().stream().mapToLong(Entry::size).sum();
+	}
+
+	/**
+	 * A hex SHA-256 of the parts. Each part is prefixed with its length, so that
+	 * moving bytes from one part to the next changes the key
+	 */
+	public static String keyOf(byte[]... parts) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (byte[] part : parts) {
+				digest.update(Integer.toString(part.length).getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+				digest.update(part);
+			}
+			StringBuilder key = new StringBuilder();
+			for (byte each : digest.digest())
+				key.append(String.format("%02x", each));
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Answers the entry, or null when there is none
+	 */
+	public byte[] get(String key) {
+		Path entry = entryPath(key);
+		byte[] content;
+		try {
+			content = Files.readAllBytes(entry);
+		} catch (NoSuchFileException e) {
+			misses++;
+			return null;
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		hits++;
+		try {
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (NoSuchFileException e) {
+			// evicted by another process after we read it
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return content;
+	}
+
+	public void put(String key, byte[] content) {
+		Path entry = entryPath(key);
+		Path temporary = entry.resolveSibling(key + "." + UUID.randomUUID() + ".tmp");
+		try {
+			Files.createDirectories(entry.getParent());
+			Files.write(temporary, content);
+			Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		approximateBytes += content.length;
+		if (approximateBytes > maximumBytes)
+			evict();
+	}
+
+	public int hits() {
+		return hits;
+	}
+
+	public int misses() {
+		return misses;
+	}
+
+	/**
+	 * Deletes the least recently used entries until the folder is down to three
+	 * quarters of its size, so that the next puts do not evict right away. The
+	 * entries of all processes count, so we list them again
+	 */
+	public void evict() {
+		try {
+			Files.createDirectories(directory);
+			try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE)) {
+				FileLock lock = channel.lock();
+				try {
+					List<Entry> entries = entries();
+					entries.sort(Comparator.comparing(Entry::lastUsed));
+					long bytes = entries.stream().mapToLong(Entry::size).sum();
+					for (Entry entry : entries) {
+						if (bytes <= maximumBytes * 3 / 4)
+							break;
+						Files.deleteIfExists(entry.path);
+						bytes -= entry.size;
+					}
+					approximateBytes = bytes;
+				} finally {
+					lock.release();
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public long sizeInBytes() {
+		return entries().stream().mapToLong(Entry::size).sum();
+	}
+
+	/**
+	 * Entries are spread over subfolders named after the first two characters of
+	 * their key, so that no folder gets too many files
+	 */
+	private Path entryPath(String key) {
+		return directory.resolve(key.substring(0, 2)).resolve(key + ENTRY_EXTENSION);
+	}
+
+	private List<Entry> entries() {
+		if (!Files.isDirectory(directory))
+			return new ArrayList<Entry>();
+		try (Stream<Path> files = Files.walk(directory, 2)) {
+			List<Entry> entries = new ArrayList<Entry>();
+			for (Path file : files.filter(file -> file.getFileName().toString().endsWith(ENTRY_EXTENSION))
+					.collect(Collectors.toList()))
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+					entries.add(new Entry(file, attributes.size(), attributes.lastModifiedTime()));
+				} catch (NoSuchFileException e) {
+					// evicted by another process while we listed the folder
+				}
+			return entries;
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static class Entry {
+		private final Path path;
+		private final long size;
+		private final FileTime lastUsed;
+
+		Entry(Path path, long size, FileTime lastUsed) {
+			this.path = path;
+			this.size = size;
+			this.lastUsed = lastUsed;
+		}
+
+		long size() {
+			return size;
+		}
+
+		FileTime lastUsed() {
+			return lastUsed;
+		}
+	}
+
+}
@@ -0,0 +1,173 @@
+package com.feenk.jdt2famix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+
+/**
+ * Parses batches of files on several threads. The files are sorted by their
+ * estimated cost, largest first, and grouped into several batches per thread,
+ * so that the large files start early and the small ones fill the gaps at the
+ * end instead of a large file keeping one thread busy after the others are
+ * done. The batches go to a {@link ForkJoinPool}, whose idle threads steal the
+ * waiting batches.
+ *
+ * The model is not thread safe, so the files are visited one at a time, under
+ * a lock. The threads run in parallel while JDT parses the files and resolves
+ * their bindings. Each file is timed, from the end of the previous file of its
+ * batch to the end of its visit, without the wait for the lock, and the timings
+ * go to the {@link FileCosts} for the next run.
+ */
+public class CostOrderedScheduler {
+
+	private static final int BATCHES_PER_THREAD = 4;
+
+	private final int threads;
+	private final FileCosts costs;
+
+	public CostOrderedScheduler(int threads, FileCosts costs) {
+		this.threads = threads;
+		this.costs = costs;
+	}
+
+	/**
+	 * Batches of about the same cost, in the order of their largest file. A file
+	 * that costs more than a batch gets a batch of its own
+	 */
+	public List<String[]> batchesOf(String[] paths, int maximumBatchSize) {
+		String[] sorted = paths.clone();
+		Arrays.sort(sorted, Comparator.comparingLong(costs::estimateOf).reversed());
+		long[] estimates = Arrays.stream(sorted).mapToLong(costs::estimateOf).toArray();
+		long targetCost = Math.max(1, Arrays.stream(estimates).sum() / ((long) threads * BATCHES_PER_THREAD));
+		List<String[]> batches = new ArrayList<String[]>();
+		int start = 0;
+		long batchCost = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			batchCost += estimates[i];
+			if (batchCost >= targetCost || i + 1 - start >= maximumBatchSize || i == sorted.length - 1) {
+				batches.add(Arrays.copyOfRange(sorted, start, i + 1));
+				start = i + 1;
+				batchCost = 0;
+			}
+		}
+		return batches;
+	}
+
+	/**
+	 * Parses each batch with the given parse function, which has to pass the files
+	 * to the requestor it gets
+	 */
+	public Report run(List<String[]> batches, FileASTRequestor requestor, Object lock,
+			BiConsumer<String[], FileASTRequestor> parse) {
+		Report report = new Report(threads, batches.size());
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long start = System.nanoTime();
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+			for (String[] batch : batches)
+				tasks.add(pool.submit(() -> {
+					long batchStart = System.nanoTime();
+					parse.accept(batch, new TimingRequestor(requestor, lock, report));
+					report.busyNanos.addAndGet(System.nanoTime() - batchStart);
+				}));
+			for (ForkJoinTask<?> task : tasks)
+				task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		report.wallNanos = System.nanoTime() - start;
+		return report;
+	}
+
+	private class TimingRequestor extends FileASTRequestor {
+		private final FileASTRequestor requestor;
+		private final Object lock;
+		private final Report report;
+		private long previousEnd = System.nanoTime();
+
+		TimingRequestor(FileASTRequestor requestor, Object lock, Report report) {
+			this.requestor = requestor;
+			this.lock = lock;
+			this.report = report;
+		}
+
+		@Override
+		public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+			long waitStart = System.nanoTime();
+			long visitStart;
+			synchronized (lock) {
+				visitStart = System.nanoTime();
+				requestor.acceptAST(sourceFilePath, ast);
+			}
+			long end = System.nanoTime();
+			report.lockWaitNanos.addAndGet(visitStart - waitStart);
+			costs.record(sourceFilePath, (waitStart - previousEnd) + (end - visitStart));
+			previousEnd = end;
+		}
+	}
+
+	/**
+	 * How well the threads were used. The utilization is the time the threads
+	 * spent working, without waiting for the lock, over the time they were there
+	 * for. The ideal time is the work divided by the threads
+	 */
+	public static class Report {
+		private final int threads;
+		private final int batches;
+		private long wallNanos;
+		private final AtomicLong busyNanos = new AtomicLong();
+		private final AtomicLong lockWaitNanos = new AtomicLong();
+
+		Report(int threads, int batches) {
+			this.threads = threads;
+			this.batches = batches;
+		}
+
+		public int threads() {
+			return threads;
+		}
+
+		public int batches() {
+			return batches;
+		}
+
+		public long wallNanos() {
+			return wallNanos;
+		}
+
+		public long workNanos() {
+			return busyNanos.get() - lockWaitNanos.get();
+		}
+
+		public long idealNanos() {
+			return workNanos() / threads;
+		}
+
+		public double utilization() {
+			return wallNanos == 0 ? 0 : (double) workNanos() / ((double) wallNanos * threads);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d batches on %d threads - %d ms, ideal %d ms, utilization %.0f%%", batches,
+					threads, wallNanos / 1_000_000, idealNanos() / 1_000_000, utilization() * 100);
+		}
+	}
+
+}
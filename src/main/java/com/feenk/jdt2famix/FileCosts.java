@@ -0,0 +1,72 @@
+package com.feenk.jdt2famix;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates how long a file takes to import. A file that was timed in an
+ * earlier run costs what it took then. Otherwise, its cost comes from its size,
+ * scaled by the time per byte of the timed files, so both kinds of estimates
+ * can be compared. Timings are saved as lines of nanoseconds and path,
+ * separated by a tab.
+ */
+public class FileCosts {
+
+	private final Map<String, Long> timings = new ConcurrentHashMap<String, Long>();
+	private double nanosPerByte = 1;
+
+	public long estimateOf(String path) {
+		Long timing = timings.get(path);
+		if (timing != null)
+			return timing;
+		return (long) (new File(path).length() * nanosPerByte);
+	}
+
+	public void record(String path, long nanos) {
+		timings.put(path, nanos);
+	}
+
+	public Map<String, Long> timings() {
+		return timings;
+	}
+
+	/**
+	 * Reads the timings of an earlier run, if there was one
+	 */
+	public FileCosts load(Path file) {
+		if (!Files.exists(file))
+			return this;
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int tab = line.indexOf('\t');
+				if (tab > 0)
+					timings.put(line.substring(tab + 1), Long.parseLong(line.substring(0, tab)));
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		long bytes = timings.keySet().stream().mapToLong(path -> new File(path).length()).sum();
+		long nanos = timings.values().stream().mapToLong(Long::longValue).sum();
+		if (bytes > 0 && nanos > 0)
+			nanosPerByte = (double) nanos / bytes;
+		return this;
+	}
+
+	public void save(Path file) {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (Map.Entry<String, Long> timing : timings.entrySet())
+				writer.write(timing.getValue() + "\t" + timing.getKey() + "\n");
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.feenk.jdt2famix;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the files of one import run. Each file gets an int id and its path
+ * relative to the ignored root path is computed only once, so all source
+ * anchors of a file share the same name string.
+ */
+public class FileTable {
+
+	private final String ignoredPrefix;
+	private final Map<String, Integer> idsByPath = new HashMap<String, Integer>();
+	private final List<String> names = new ArrayList<String>();
+
+	/**
+	 * Paths that start with the root path followed by a separator are stored
+	 * relative to it. An empty root path only strips the leading separator
+	 */
+	public FileTable(String ignoredRootPath) {
+		this.ignoredPrefix = normalized(ignoredRootPath) + "/";
+	}
+
+	public int idOf(String path) {
+		Integer id = idsByPath.get(path);
+		if (id != null)
+			return id;
+		int newId = names.size();
+		names.add(relativePathOf(path));
+		idsByPath.put(path, newId);
+		return newId;
+	}
+
+	public String nameOf(int id) {
+		return names.get(id);
+	}
+
+	public String nameOfPath(String path) {
+		return nameOf(idOf(path));
+	}
+
+	public List<String> names() {
+		return names;
+	}
+
+	public int size() {
+		return names.size();
+	}
+
+	/**
+	 * We compare prefixes literally on purpose. Root paths often contain characters
+	 * that have a meaning in regular expressions, such as dots
+	 */
+	public String relativePathOf(String path) {
+		String normalizedPath = normalized(path);
+		if (normalizedPath.startsWith(ignoredPrefix))
+			return normalizedPath.substring(ignoredPrefix.length());
+		return normalizedPath;
+	}
+
+	private static String normalized(String path) {
+		return path.replace('\\', '/');
+	}
+
+}
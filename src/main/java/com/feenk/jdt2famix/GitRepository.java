@@ -0,0 +1,186 @@
+package com.feenk.jdt2famix;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Asks the local git for the files of a repository at some revision. We run the
+ * git command instead of reading the repository ourselves, so that we do not
+ * need a git library and work with whatever the repository uses.
+ */
+public class GitRepository {
+
+	private final Path directory;
+
+	public GitRepository(Path directory) {
+		this.directory = directory;
+	}
+
+	public Path directory() {
+		return directory;
+	}
+
+	public static class Change {
+		public enum Kind {
+			ADDED, MODIFIED, DELETED
+		}
+
+		private final Kind kind;
+		private final String path;
+
+		Change(Kind kind, String path) {
+			this.kind = kind;
+			this.path = path;
+		}
+
+		public Kind kind() {
+			return kind;
+		}
+
+		/**
+		 * Relative to the root of the repository, with forward slashes
+		 */
+		public String path() {
+			return path;
+		}
+	}
+
+	/**
+	 * The files with the extension that differ between the two revisions. A
+	 * renamed file is deleted at its old path and added at its new one
+	 */
+	public List<Change> changedFiles(String fromRevision, String toRevision, String extension) {
+		String[] fields = new String(git("diff", "--name-status", "--no-renames", "-z", fromRevision, toRevision,
+				"--", "*" + extension), StandardCharsets.UTF_8).split("\0");
+		List<Change> changes = new ArrayList<Change>();
+		for (int i = 0; i + 1 < fields.length; i += 2) {
+			char status = fields[i].charAt(0);
+			Change.Kind kind = status == 'A' ? Change.Kind.ADDED
+					: status == 'D' ? Change.Kind.DELETED : Change.Kind.MODIFIED;
+			changes.add(new Change(kind, fields[i + 1]));
+		}
+		return changes;
+	}
+
+	public byte[] contentsAt(String revision, String path) {
+		return git("show", revision + ":" + path);
+	}
+
+	/**
+	 * The files with the extension in the tree of the revision
+	 */
+	public List<String> filesAt(String revision, String extension) {
+		List<String> paths = new ArrayList<String>();
+		for (String path : new String(git("ls-tree", "-r", "-z", "--name-only", revision), StandardCharsets.UTF_8)
+				.split("\0"))
+			if (path.endsWith(extension))
+				paths.add(path);
+		return paths;
+	}
+
+	/**
+	 * Writes the files as they are at the revision into the folder, at the same
+	 * relative paths. One git process serves all files, which matters when the
+	 * whole tree of a revision is written
+	 */
+	public void writeFilesAt(String revision, List<String> paths, Path folder) {
+		if (paths.isEmpty())
+			return;
+		List<String> command = Arrays.asList("git", "-C", directory.toString(), "cat-file", "--batch");
+		try {
+			Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+			Thread requests = new Thread(() -> {
+				try (Writer writer = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8)) {
+					for (String path : paths)
+						writer.write(revision + ":" + path + "\n");
+				} catch (IOException e) {
+					// git stopped reading, which the exit code reports
+				}
+			}, "git-cat-file");
+			requests.start();
+			try (InputStream in = new BufferedInputStream(process.getInputStream())) {
+				for (String path : paths) {
+					String header = readLine(in);
+					if (header.endsWith(" missing"))
+						throw new IllegalStateException("not in git - " + revision + ":" + path);
+					byte[] contents = new byte[Integer.parseInt(header.substring(header.lastIndexOf(' ') + 1))];
+					readFully(in, contents);
+					in.read();
+					Path file = folder.resolve(path);
+					Files.createDirectories(file.getParent());
+					Files.write(file, contents);
+				}
+			}
+			requests.join();
+			int exitCode = process.waitFor();
+			if (exitCode != 0)
+				throw new IllegalStateException("git failed with exit code " + exitCode + " - " + String.join(" ", command));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int read;
+		while ((read = in.read()) != '\n') {
+			if (read == -1)
+				throw new EOFException();
+			line.write(read);
+		}
+		return new String(line.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void readFully(InputStream in, byte[] bytes) throws IOException {
+		int offset = 0;
+		while (offset < bytes.length) {
+			int read = in.read(bytes, offset, bytes.length - offset);
+			if (read == -1)
+				throw new EOFException();
+			offset += read;
+		}
+	}
+
+	/**
+	 * Answers what git writes to its standard output. Its error output goes to
+	 * ours, so that the reason of a failure is not lost
+	 */
+	byte[] git(String... arguments) {
+		List<String> command = new ArrayList<String>(Arrays.asList("git", "-C", directory.toString()));
+		command.addAll(Arrays.asList(arguments));
+		try {
+			Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			try (InputStream in = process.getInputStream()) {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) != -1)
+					output.write(buffer, 0, read);
+			}
+			int exitCode = process.waitFor();
+			if (exitCode != 0)
+				throw new IllegalStateException("git failed with exit code " + exitCode + " - " + String.join(" ", command));
+			return output.toByteArray();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
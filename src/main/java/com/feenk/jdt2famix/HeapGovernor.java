@@ -0,0 +1,135 @@
+package com.feenk.jdt2famix;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Adapts the batch size of an import to the free heap, so that an import with
+ * little memory gets slower instead of running out of memory.
+ *
+ * The governor sets a usage threshold, as a fraction of the maximum, on the
+ * heap pools that support one, and the JVM notifies it when a pool is still
+ * above the threshold after a garbage collection. The notification only sets a
+ * flag, because it arrives on another thread. The import calls
+ * {@link #relieve()} between files and {@link #nextBatchSize()} between
+ * batches. Under pressure, the batch size is halved and the pressure actions
+ * run, for example to drop caches. When the heap is less than half as full as
+ * the threshold again, the batch size doubles back.
+ */
+public class HeapGovernor implements NotificationListener, AutoCloseable {
+
+	private static final Logger logger = LogManager.getLogger(HeapGovernor.class);
+
+	private final double threshold;
+	private final int minimumBatchSize;
+	private final int maximumBatchSize;
+	private int batchSize;
+	private final AtomicBoolean pressure = new AtomicBoolean();
+	private final Map<MemoryPoolMXBean, Long> previousThresholds = new LinkedHashMap<MemoryPoolMXBean, Long>();
+	private final List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+	private final List<Runnable> pressureActions = new ArrayList<Runnable>();
+	private int pressureCount;
+
+	public HeapGovernor(double threshold, int minimumBatchSize, int maximumBatchSize) {
+		this.threshold = threshold;
+		this.minimumBatchSize = minimumBatchSize;
+		this.maximumBatchSize = maximumBatchSize;
+		this.batchSize = maximumBatchSize;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()
+					&& pool.getUsage().getMax() > 0) {
+				previousThresholds.put(pool, pool.getCollectionUsageThreshold());
+				pool.setCollectionUsageThreshold((long) (pool.getUsage().getMax() * threshold));
+				pools.add(pool);
+			}
+		((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(this, null, null);
+	}
+
+	/**
+	 * Runs in the thread of the import, whenever there is pressure
+	 */
+	public void onPressure(Runnable action) {
+		pressureActions.add(action);
+	}
+
+	@Override
+	public void handleNotification(Notification notification, Object handback) {
+		if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType()))
+			pressure.set(true);
+	}
+
+	/**
+	 * Shrinks the batches and runs the pressure actions when there was a
+	 * notification since the last call
+	 */
+	public void relieve() {
+		if (!pressure.getAndSet(false))
+			return;
+		pressureCount++;
+		batchSize = Math.max(minimumBatchSize, batchSize / 2);
+		logger.trace("heap pressure - batch size " + batchSize);
+		pressureActions.forEach(Runnable::run);
+	}
+
+	public int nextBatchSize() {
+		if (pressure.get())
+			relieve();
+		else if (batchSize < maximumBatchSize && usedFraction() < threshold / 2) {
+			batchSize = (int) Math.min(maximumBatchSize, (long) batchSize * 2);
+			logger.trace("heap available - batch size " + batchSize);
+		}
+		return batchSize;
+	}
+
+	public int batchSize() {
+		return batchSize;
+	}
+
+	public int pressureCount() {
+		return pressureCount;
+	}
+
+	/**
+	 * The usage after the last collection, because the current usage includes
+	 * garbage
+	 */
+	private double usedFraction() {
+		double used = 0;
+		for (MemoryPoolMXBean pool : pools) {
+			MemoryUsage usage = pool.getCollectionUsage();
+			used = Math.max(used, (double) usage.getUsed() / pool.getUsage().getMax());
+		}
+		return used;
+	}
+
+	/**
+	 * Puts back the thresholds that the pools had before, and removes the
+	 * listener, which are global to the JVM
+	 */
+	@Override
+	public void close() {
+		previousThresholds.forEach(MemoryPoolMXBean::setCollectionUsageThreshold);
+		try {
+			((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(this);
+		} catch (ListenerNotFoundException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
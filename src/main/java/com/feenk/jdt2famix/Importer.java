@@ -1,12 +1,24 @@
 package com.feenk.jdt2famix;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.FileASTRequestor;
+import org.eclipse.jdt.core.dom.IBinding;
 
 public abstract class Importer {	
 	
@@ -16,7 +28,17 @@ public abstract class Importer {
 	 */
 	protected String ignoredRootPath;
 	public String pathWithoutIgnoredRootPath(String originalPath) { 
-		return originalPath.replaceAll("\\\\", "/").replaceFirst("^"+ignoredRootPath+"/", "");
+		return fileTable().relativePathOf(originalPath);
+	}
+
+	/**
+	 * The files of the current run, which source anchors refer to
+	 */
+	protected FileTable fileTable;
+	public FileTable fileTable() {
+		if (fileTable == null)
+			fileTable = new FileTable(ignoredRootPath == null ? "" : ignoredRootPath);
+		return fileTable;
 	}
 
 	/**
@@ -25,7 +47,171 @@ public abstract class Importer {
 	 * (2) {@link Classpath} with dependencies
 	 */
 	public void run(JavaFiles javaFiles, Classpath classpath) {
-		ignoredRootPath = javaFiles.ignoredRootPath().replaceAll("\\\\", "/");
+		ignoredRootPath = javaFiles.ignoredRootPath().replace('\\', '/');
+		fileTable = new FileTable(ignoredRootPath);
+		beforeParsing(javaFiles, classpath);
+		String[] paths = javaFiles.paths();
+		FileASTRequestor requestor = getRequestor(javaFiles);
+		int batchSize = nextBatchSize();
+		if (threads > 1) {
+			javaFiles.resolveOnDemand();
+			runInParallel(paths, classpath, javaFiles.sourcepathEntries(), requestor, batchSize);
+			return;
+		}
+		/*
+		 * A file of a later batch, or any other file when each one is parsed alone,
+		 * is not a compilation unit of the current parse, so the parser has to find
+		 * it on the sourcepath to resolve its types
+		 */
+		if (batchSize < paths.length || parsesEachFileAlone())
+			javaFiles.resolveOnDemand();
+		String[] sourcepathEntries = javaFiles.sourcepathEntries();
+		if (sourcePrefetcher != null)
+			sourcePrefetcher.prefetch(paths);
+		int start = 0;
+		while (start < paths.length) {
+			int end = (int) Math.min((long) start + batchSize, paths.length);
+			String[] batch = Arrays.copyOfRange(paths, start, end);
+			parse(batch, classpath, sourcepathEntries, requestor);
+			start = end;
+			if (start < paths.length)
+				batchSize = nextBatchSize();
+		}
+	}
+
+	/**
+	 * Parses the files on several threads, largest first, and visits them one at
+	 * a time. The batch size is the largest a batch can get
+	 */
+	private void runInParallel(String[] paths, Classpath classpath, String[] sourcepathEntries,
+			FileASTRequestor requestor, int batchSize) {
+		CostOrderedScheduler scheduler = new CostOrderedScheduler(threads, fileCosts);
+		List<String[]> batches = scheduler.batchesOf(paths, batchSize);
+		if (sourcePrefetcher != null)
+			sourcePrefetcher.prefetch(batches.stream().flatMap(Arrays::stream).toArray(String[]::new));
+		schedulingReport = scheduler.run(batches, requestor, this,
+				(batch, timed) -> parse(batch, classpath, sourcepathEntries, timed));
+	}
+
+	private void parse(String[] batch, Classpath classpath, String[] sourcepathEntries, FileASTRequestor requestor) {
+		if (parsesEachFileAlone()) {
+			parseEachFile(batch, classpath, sourcepathEntries, requestor);
+			return;
+		}
+		String[] encodings = Arrays.stream(batch).map(path -> "UTF-8").toArray(String[]::new);
+		newParser(classpath, sourcepathEntries).createASTs(batch, encodings, new String[0], requestor, null);
+	}
+
+	/**
+	 * JDT reads the files of a batch itself, because it only takes paths, and a
+	 * canceled batch loses all its files. So the contents read ahead, or a file
+	 * with a time budget, go to the parser one unit at a time
+	 */
+	private boolean parsesEachFileAlone() {
+		return sourcePrefetcher != null || timeBudgetMillis() > 0;
+	}
+
+	/**
+	 * Each unit resolves the other files from the sourcepath. The parser stops
+	 * when the file is over its time budget, and the file is reported with
+	 * {@link #parsingTimedOut(String)}. Like the batch parser, we skip the files
+	 * that cannot be read
+	 */
+	private void parseEachFile(String[] batch, Classpath classpath, String[] sourcepathEntries,
+			FileASTRequestor requestor) {
+		for (String path : batch) {
+			long start = System.nanoTime();
+			char[] source;
+			try {
+				source = withoutByteOrderMark(sourceOf(path));
+			} catch (IllegalStateException e) {
+				continue;
+			}
+			ASTParser parser = newParser(classpath, sourcepathEntries);
+			parser.setUnitName(path);
+			parser.setSource(source);
+			CompilationUnit unit;
+			try {
+				unit = (CompilationUnit) parser.createAST(
+						timeBudgetMillis() > 0 ? new DeadlineMonitor(start + timeBudgetMillis() * 1_000_000) : null);
+			} catch (OperationCanceledException e) {
+				synchronized (this) {
+					parsingTimedOut(path);
+				}
+				continue;
+			}
+			parsedFiles.put(path, new ParsedFile(source, start));
+			try {
+				requestor.acceptAST(path, unit);
+			} finally {
+				parsedFiles.remove(path);
+			}
+		}
+	}
+
+	private char[] sourceOf(String path) {
+		if (sourcePrefetcher != null)
+			return sourcePrefetcher.take(path);
+		try {
+			return new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8).toCharArray();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static char[] withoutByteOrderMark(char[] source) {
+		return source.length > 0 && source[0] == '\uFEFF' ? Arrays.copyOfRange(source, 1, source.length) : source;
+	}
+
+	/**
+	 * The contents that the parser got for the file it hands out, or null when the
+	 * parser read the file itself
+	 */
+	protected char[] parsedSourceOf(String path) {
+		ParsedFile parsedFile = path == null ? null : parsedFiles.get(path);
+		return parsedFile == null ? null : parsedFile.source;
+	}
+
+	/**
+	 * The {@link System#nanoTime()} at which the parser started the file it hands
+	 * out, or 0 when the file was parsed in a batch
+	 */
+	protected long parseStartOf(String path) {
+		ParsedFile parsedFile = path == null ? null : parsedFiles.get(path);
+		return parsedFile == null ? 0 : parsedFile.start;
+	}
+
+	private static class ParsedFile {
+		final char[] source;
+		final long start;
+
+		ParsedFile(char[] source, long start) {
+			this.source = source;
+			this.start = start;
+		}
+	}
+
+	/**
+	 * JDT asks the monitor whether to go on many times while it parses and
+	 * resolves a file
+	 */
+	private static class DeadlineMonitor extends NullProgressMonitor {
+		private final long deadline;
+
+		DeadlineMonitor(long deadline) {
+			this.deadline = deadline;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return System.nanoTime() > deadline;
+		}
+	}
+
+	/**
+	 * A parser can only create ASTs once, so each batch gets a new one
+	 */
+	private ASTParser newParser(Classpath classpath, String[] sourcepathEntries) {
 		ASTParser parser = ASTParser.newParser(AST.JLS8);
 		parser.setResolveBindings(true);
 		parser.setKind(ASTParser.K_COMPILATION_UNIT);
@@ -34,14 +220,31 @@ public abstract class Importer {
 		options.put(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_1_8);
 		options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_8);
 		options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
+		configureCompilerOptions(options);
 		parser.setCompilerOptions(options);
-		
-		parser.setEnvironment(classpath.paths(), new String[]{}, new String[]{}, true);
+		configureParser(parser);
+		String[] sourcepathEncodings = Arrays.stream(sourcepathEntries).map(entry -> "UTF-8").toArray(String[]::new);
+		parser.setEnvironment(classpath.paths(), sourcepathEntries, sourcepathEncodings, true);
+		return parser;
+	}
 
-		String[] paths = javaFiles.paths();
-		String[] encodings = Arrays.stream(paths).map(path -> "UTF-8").toArray(String[]::new);
-		
-		parser.createASTs(paths, encodings, new String[0], getRequestor(javaFiles), null);
+	/**
+	 * Resolves the bindings with the given keys in the environment of the parser,
+	 * which only parses the sources it needs. Keys that do not resolve are missing
+	 * from the answer
+	 */
+	protected Map<String, IBinding> resolveBindings(Collection<String> keys, Classpath classpath,
+			String[] sourcepathEntries) {
+		Map<String, IBinding> bindings = new HashMap<String, IBinding>();
+		newParser(classpath, sourcepathEntries).createASTs(new String[0], new String[0],
+				keys.toArray(new String[0]), new FileASTRequestor() {
+					@Override
+					public void acceptBinding(String key, IBinding binding) {
+						if (binding != null)
+							bindings.put(key, binding);
+					}
+				}, null);
+		return bindings;
 	}
 
 	public void run(JavaFiles javaFiles) {
@@ -54,6 +257,78 @@ public abstract class Importer {
 		this.run(javaFiles, new Classpath());
 	}
 
+	/**
+	 * Hook for subclasses that need different compiler options, for example to
+	 * skip work that they do not use
+	 */
+	protected void configureCompilerOptions(Map<String, String> options) {
+	}
+
+	protected void configureParser(ASTParser parser) {
+	}
+
+	/**
+	 * How long a file can take, from the start of its parse, before it is skipped.
+	 * Zero means no budget
+	 */
+	protected long timeBudgetMillis() {
+		return 0;
+	}
+
+	/**
+	 * Hook for subclasses to report a file that the parser gave up on because of
+	 * the {@link #timeBudgetMillis()}
+	 */
+	protected void parsingTimedOut(String path) {
+	}
+
+	/**
+	 * Hook for subclasses that can import some files without parsing them, and
+	 * take them out of the files to parse
+	 */
+	protected void beforeParsing(JavaFiles javaFiles, Classpath classpath) {
+	}
+
+	/**
+	 * How many files to parse together before the next batch. The parser keeps the
+	 * bindings of all the files of a batch until the batch is done, so smaller
+	 * batches need less memory, but take longer. By default, all files are parsed
+	 * in one batch
+	 */
+	protected int nextBatchSize() {
+		return Integer.MAX_VALUE;
+	}
+
+	private int threads = 1;
+	private FileCosts fileCosts = new FileCosts();
+	private CostOrderedScheduler.Report schedulingReport;
+
+	/**
+	 * Parses on the given number of threads, with the costs of the files estimated
+	 * by the given costs, which also get the timings of this run
+	 */
+	public void parseInParallel(int threads, FileCosts fileCosts) {
+		this.threads = threads;
+		this.fileCosts = fileCosts;
+	}
+
+	/**
+	 * How the threads of the last parallel run were used, or null
+	 */
+	public CostOrderedScheduler.Report schedulingReport() {
+		return schedulingReport;
+	}
+
+	/**
+	 * Reads the sources ahead of the parser, which then parses each file from
+	 * memory
+	 */
+	protected SourcePrefetcher sourcePrefetcher;
+	private final Map<String, ParsedFile> parsedFiles = new ConcurrentHashMap<String, ParsedFile>();
+	public void prefetchSources(SourcePrefetcher sourcePrefetcher) {
+		this.sourcePrefetcher = sourcePrefetcher;
+	}
+
 	protected abstract FileASTRequestor getRequestor(JavaFiles allJavaFiles);
 
 }
@@ -0,0 +1,90 @@
+package com.feenk.jdt2famix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A table of int columns stored outside of the Java heap, row after row, in
+ * chunks of a fixed number of rows. The table grows by adding chunks, so rows
+ * are never copied. Without a folder, the chunks are direct buffers. With a
+ * folder, they are memory-mapped files, so the operating system can page them
+ * out.
+ *
+ * Values that do not fit in an int, such as strings or entities, are stored as
+ * ids into a {@link StringTable} or into a list of entities.
+ */
+public class IntTable {
+
+	private static final int ROWS_PER_CHUNK = 1 << 16;
+
+	private final String name;
+	private final int columns;
+	private final Path directory;
+	private final List<IntBuffer> chunks = new ArrayList<IntBuffer>();
+	private int size;
+
+	public IntTable(String name, int columns) {
+		this(name, columns, null);
+	}
+
+	public IntTable(String name, int columns, Path directory) {
+		this.name = name;
+		this.columns = columns;
+		this.directory = directory;
+	}
+
+	/**
+	 * Adds a row with all columns set to zero, and answers its index
+	 */
+	public int addRow() {
+		if (size == chunks.size() * ROWS_PER_CHUNK)
+			chunks.add(newChunk(chunks.size()));
+		return size++;
+	}
+
+	public int get(int row, int column) {
+		return chunks.get(row / ROWS_PER_CHUNK).get((row % ROWS_PER_CHUNK) * columns + column);
+	}
+
+	public void set(int row, int column, int value) {
+		chunks.get(row / ROWS_PER_CHUNK).put((row % ROWS_PER_CHUNK) * columns + column, value);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * The bytes taken outside of the heap, including the unused rows of the last
+	 * chunk
+	 */
+	public long capacityInBytes() {
+		return (long) chunks.size() * ROWS_PER_CHUNK * columns * Integer.BYTES;
+	}
+
+	private IntBuffer newChunk(int index) {
+		int bytes = ROWS_PER_CHUNK * columns * Integer.BYTES;
+		if (directory == null)
+			return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder()).asIntBuffer();
+		try {
+			Files.createDirectories(directory);
+			Path file = directory.resolve(name + "-" + index + ".columns");
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes).order(ByteOrder.nativeOrder())
+						.asIntBuffer();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
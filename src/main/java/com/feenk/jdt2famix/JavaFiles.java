@@ -1,8 +1,17 @@
 package com.feenk.jdt2famix;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * This is a utility builder class that is used for defining which Java files should be used as input for the {@link Importer}  
@@ -10,10 +19,16 @@ import java.util.Collection;
 public class JavaFiles {
 	private Collection<String> javaFilePaths;
 	private String ignoredRootPath;
+	private Set<String> sourcepathEntries;
+	private Set<File> foldersWithKnownSourceFolder;
+
+	private static final Pattern PACKAGE_DECLARATION = Pattern.compile("^\\s*package\\s+([\\w.\\s]+?)\\s*;");
 
 	public JavaFiles() {
 		javaFilePaths = new ArrayList<String>();
 		ignoredRootPath = "";
+		sourcepathEntries = new LinkedHashSet<String>();
+		foldersWithKnownSourceFolder = new HashSet<File>();
 	}
 	
 	public void deepJavaFiles(String rootPath) {
@@ -21,6 +36,95 @@ public class JavaFiles {
 		javaFilePaths = deepJavaFilesIn(new File(rootPath));
 	}
 	
+	/**
+	 * Only the given files of the folder, by their path relative to it. The other
+	 * files of their source folders are only used to resolve types
+	 */
+	public void someJavaFiles(String rootPath, Collection<String> relativePaths) {
+		ignoredRootPath = rootPath;
+		javaFilePaths = new ArrayList<String>();
+		for (String relativePath : relativePaths)
+			javaFilePaths.add(new File(rootPath, relativePath).getAbsolutePath());
+		resolveOnDemand();
+	}
+
+	/**
+	 * Like {@link #deepJavaFiles(String)}, but only keeps the files selected by the
+	 * filter. The source folders of the other files become sourcepath entries, so
+	 * that the parser still resolves their types when the selected files need them
+	 */
+	public void deepJavaFiles(String rootPath, SourceFilter filter) {
+		deepJavaFiles(rootPath);
+		if (filter.isEmpty())
+			return;
+		Collection<String> selected = new ArrayList<String>();
+		String rootPrefix = new File(rootPath).getAbsolutePath().replace('\\', '/') + "/";
+		for (String path : javaFilePaths) {
+			String normalizedPath = path.replace('\\', '/');
+			String relativePath = normalizedPath.startsWith(rootPrefix) ? normalizedPath.substring(rootPrefix.length())
+					: normalizedPath;
+			String packageName = filter.hasPackageRules() ? packageDeclaredIn(new File(path)) : null;
+			if (filter.selects(relativePath, packageName))
+				selected.add(path);
+			else
+				addSourceFolderOf(new File(path), packageName);
+		}
+		javaFilePaths = selected;
+	}
+
+	/**
+	 * Adds the source folders of the files to import as sourcepath entries. The
+	 * parser then loads the other sources of these folders lazily, only when it
+	 * needs them to resolve a binding, instead of us passing every file
+	 */
+	public void resolveOnDemand() {
+		javaFilePaths.forEach(path -> addSourceFolderOf(new File(path), null));
+	}
+
+	/**
+	 * Does not import the files again, for example because they were already
+	 * visited before a checkpoint. Their source folders become sourcepath entries,
+	 * so that the parser still resolves their types
+	 */
+	public void skip(Collection<String> filePaths) {
+		Set<String> skipped = new HashSet<String>(filePaths);
+		Collection<String> remaining = new ArrayList<String>();
+		for (String path : javaFilePaths)
+			if (skipped.contains(path))
+				addSourceFolderOf(new File(path), null);
+			else
+				remaining.add(path);
+		javaFilePaths = remaining;
+	}
+
+	/**
+	 * Adds the source folders of other files, which are not imported, as sourcepath
+	 * entries. Files that do not exist are ignored
+	 */
+	public void sourceFoldersOf(Collection<String> filePaths) {
+		for (String path : filePaths) {
+			File file = new File(path);
+			if (file.isFile())
+				addSourceFolderOf(file, null);
+		}
+	}
+
+	public void sourcepathEntry(String folderPath) {
+		sourcepathEntries.add(new File(folderPath).getAbsolutePath());
+	}
+
+	/**
+	 * All files of a folder belong to the same package, so we only read the package
+	 * of one file per folder
+	 */
+	private void addSourceFolderOf(File file, String packageName) {
+		if (!foldersWithKnownSourceFolder.add(file.getAbsoluteFile().getParentFile()))
+			return;
+		String sourceFolder = sourceFolderOf(file, packageName == null ? packageDeclaredIn(file) : packageName);
+		if (sourceFolder != null)
+			sourcepathEntries.add(sourceFolder);
+	}
+
 	public void oneJavaFile(String filePath) {
 		javaFilePaths.add(filePath);
 	}
@@ -39,6 +143,84 @@ public class JavaFiles {
 		return all;
 	}
 	
+	/**
+	 * Answers the package declared in the file, or the empty string for the
+	 * default package. We skip a byte order mark and comments, and stop reading
+	 * at the package declaration or at the first other declaration
+	 */
+	static String packageDeclaredIn(File file) {
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			StringBuilder code = new StringBuilder();
+			boolean inComment = false;
+			String line = reader.readLine();
+			if (line != null && line.startsWith("\uFEFF"))
+				line = line.substring(1);
+			for (; line != null; line = reader.readLine()) {
+				inComment = appendWithoutComments(line, inComment, code);
+				Matcher matcher = PACKAGE_DECLARATION.matcher(code);
+				if (matcher.find())
+					return matcher.group(1).replaceAll("\\s", "");
+				String declarations = code.toString().trim();
+				if (declarations.startsWith("import") || declarations.contains(";") || declarations.contains("{"))
+					return "";
+			}
+			return "";
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Appends the line without its comments, and answers whether it ends inside a
+	 * block comment
+	 */
+	private static boolean appendWithoutComments(String line, boolean inComment, StringBuilder code) {
+		int index = 0;
+		while (index < line.length()) {
+			if (inComment) {
+				int end = line.indexOf("*/", index);
+				if (end < 0)
+					return true;
+				index = end + 2;
+				inComment = false;
+				code.append(' ');
+				continue;
+			}
+			int lineComment = line.indexOf("//", index);
+			int blockComment = line.indexOf("/*", index);
+			if (lineComment >= 0 && (blockComment < 0 || lineComment < blockComment)) {
+				code.append(line, index, lineComment);
+				break;
+			}
+			if (blockComment < 0) {
+				code.append(line, index, line.length());
+				break;
+			}
+			code.append(line, index, blockComment);
+			index = blockComment + 2;
+			inComment = true;
+		}
+		code.append('\n');
+		return inComment;
+	}
+
+	/**
+	 * The folder that contains the folders of the package. Files that are not in
+	 * the folder of their package cannot be found by the parser anyway
+	 */
+	private static String sourceFolderOf(File file, String packageName) {
+		File folder = file.getAbsoluteFile().getParentFile();
+		if (!packageName.isEmpty()) {
+			String[] segments = packageName.split("\\.");
+			for (int i = segments.length - 1; i >= 0; i--) {
+				if (folder == null || !folder.getName().equals(segments[i]))
+					return null;
+				folder = folder.getParentFile();
+			}
+		}
+		return folder == null ? null : folder.getPath();
+	}
+
 	/**
 	 * The collection of file paths  
 	 */
@@ -57,6 +239,14 @@ public class JavaFiles {
 		return ignoredRootPath;
 	}
 	
+	/**
+	 * The folders in which the parser looks for the sources of types that are not
+	 * in the files to import
+	 */
+	public String[] sourcepathEntries() {
+		return sourcepathEntries.toArray(new String[0]);
+	}
+
 	public int size() {
 		return javaFilePaths.size();
 	}
@@ -0,0 +1,340 @@
+package com.feenk.jdt2famix;
+
+import static com.feenk.jdt2famix.ValueCodec.isPrimitiveValue;
+import static com.feenk.jdt2famix.ValueCodec.readString;
+import static com.feenk.jdt2famix.ValueCodec.readValue;
+import static com.feenk.jdt2famix.ValueCodec.writeString;
+import static com.feenk.jdt2famix.ValueCodec.writeValue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.feenk.jdt2famix.model.WriteBarrier;
+
+import ch.akuhn.fame.Repository;
+import ch.akuhn.fame.fm3.MetaDescription;
+import ch.akuhn.fame.fm3.PropertyDescription;
+
+/**
+ * Saves a Fame repository to a folder as a sequence of segment files, so that a
+ * long import can continue after a crash from the last segment instead of from
+ * scratch.
+ *
+ * Each segment only holds what changed since the previous segment: the
+ * elements created since then, the older elements whose properties changed,
+ * and the older elements that were removed. The snapshot observes the
+ * repository to learn about the elements that come and go, and listens to the
+ * {@link WriteBarrier} to learn about the older elements that are written. A
+ * segment also holds the paths of the files visited since the previous
+ * segment, and the entries of named indexes (such as the accumulators of the
+ * importer) that point to new elements.
+ *
+ * A segment is first written to a temporary file and then moved into place, so
+ * a crash while writing leaves the previous segments intact.
+ */
+public class ModelSnapshot implements StagingRepository.Observer, WriteBarrier.Listener {
+
+	private static final int MAGIC = 0x4A32464D;
+	private static final int VERSION = 3;
+
+	private static final byte END = 0;
+	private static final byte PROPERTIES = 1;
+	private static final byte INDEX_ENTRY = 2;
+	private static final byte REMOVED = 3;
+
+	private static final String SEGMENT_EXTENSION = ".segment";
+
+	private final Path directory;
+	private final Map<Object, Integer> ids = new IdentityHashMap<Object, Integer>();
+	private int nextId;
+	private List<Object> added = new ArrayList<Object>();
+	private Set<Object> changed = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+	private List<Integer> removedIds = new ArrayList<Integer>();
+	private int segmentCount;
+	private final Map<MetaDescription, List<PropertyDescription>> properties = new HashMap<MetaDescription, List<PropertyDescription>>();
+
+	public ModelSnapshot(Path directory) {
+		this.directory = directory;
+		this.segmentCount = segments().size();
+	}
+
+	public Path directory() {
+		return directory;
+	}
+
+	public int segmentCount() {
+		return segmentCount;
+	}
+
+	@Override
+	public void added(Object element) {
+		added.add(element);
+	}
+
+	@Override
+	public void removed(Set<Object> elements) {
+		for (Object element : elements) {
+			Integer id = ids.remove(element);
+			if (id != null) {
+				removedIds.add(id);
+				changed.remove(element);
+			}
+		}
+	}
+
+	/**
+	 * Only the writes to elements that are already saved matter, because new
+	 * elements are saved whole
+	 */
+	@Override
+	public void beforeWrite(Object element) {
+		if (ids.containsKey(element))
+			changed.add(element);
+	}
+
+	/**
+	 * Writes the changes of the repository since the previous segment. The first
+	 * segment holds all elements of the repository, the later ones only those
+	 * that the snapshot saw coming, see {@link StagingRepository#observeWith}
+	 */
+	public void writeSegment(Repository repository, Collection<String> visitedPaths,
+			Map<String, ? extends Map<String, ?>> indexes) {
+		boolean isFirst = nextId == 0;
+		if (isFirst)
+			deleteSegments();
+		int firstNewId = nextId;
+		List<Object> newElements = new ArrayList<Object>();
+		for (Object element : isFirst ? repository.getElements() : added)
+			if (!ids.containsKey(element) && repository.getElements().contains(element)) {
+				ids.put(element, nextId++);
+				newElements.add(element);
+			}
+		Path segment = segmentPath(segmentCount + 1);
+		Path temporary = directory.resolve(segment.getFileName() + ".tmp");
+		try {
+			Files.createDirectories(directory);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(visitedPaths.size());
+				for (String path : visitedPaths)
+					writeString(out, path);
+				out.writeInt(newElements.size());
+				for (Object element : newElements)
+					writeString(out, repository.descriptionOf(element).getFullname());
+				for (Object element : newElements)
+					writeProperties(out, repository, element, false);
+				for (Object element : changed)
+					writeProperties(out, repository, element, true);
+				for (int id : removedIds) {
+					out.writeByte(REMOVED);
+					out.writeInt(id);
+				}
+				for (Map.Entry<String, ? extends Map<String, ?>> index : indexes.entrySet())
+					for (Map.Entry<String, ?> entry : index.getValue().entrySet()) {
+						Integer id = ids.get(entry.getValue());
+						if (id != null && id >= firstNewId) {
+							out.writeByte(INDEX_ENTRY);
+							writeString(out, index.getKey());
+							writeString(out, entry.getKey());
+							out.writeInt(id);
+						}
+					}
+				out.writeByte(END);
+			}
+			Files.move(temporary, segment, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		segmentCount++;
+		added = new ArrayList<Object>();
+		changed = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		removedIds = new ArrayList<Integer>();
+	}
+
+	/**
+	 * Reads all segments into the empty repository. Later segments can also be
+	 * written after this, and they only hold the changes since the last segment
+	 * read. The elements that were removed are unlinked like they were in the
+	 * saved model
+	 */
+	public Restored restoreInto(StagingRepository repository) {
+		Restored restored = new Restored();
+		List<Object> elements = new ArrayList<Object>();
+		BitSet removedIds = new BitSet();
+		for (Path segment : segments())
+			readSegment(segment, repository, elements, removedIds, restored);
+		for (Object element : elements)
+			repository.add(element);
+		Set<Object> removed = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		for (int id = removedIds.nextSetBit(0); id >= 0; id = removedIds.nextSetBit(id + 1))
+			removed.add(elements.get(id));
+		repository.remove(removed);
+		for (Map<String, Object> index : restored.indexes.values())
+			index.values().removeIf(removed::contains);
+		for (int id = 0; id < elements.size(); id++)
+			if (!removedIds.get(id))
+				ids.put(elements.get(id), id);
+		nextId = elements.size();
+		return restored;
+	}
+
+	public static class Restored {
+		private final List<String> visitedPaths = new ArrayList<String>();
+		private final Map<String, Map<String, Object>> indexes = new HashMap<String, Map<String, Object>>();
+
+		public List<String> visitedPaths() {
+			return visitedPaths;
+		}
+
+		public Map<String, Object> index(String name) {
+			return indexes.getOrDefault(name, new HashMap<String, Object>());
+		}
+	}
+
+	private void readSegment(Path segment, Repository repository, List<Object> elements, BitSet removedIds,
+			Restored restored) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IllegalStateException("not a model snapshot segment - " + segment);
+			int pathCount = in.readInt();
+			for (int i = 0; i < pathCount; i++)
+				restored.visitedPaths.add(readString(in));
+			int newElementCount = in.readInt();
+			for (int i = 0; i < newElementCount; i++) {
+				MetaDescription meta = repository.getMetamodel().get(readString(in));
+				elements.add(meta.newInstance());
+			}
+			for (byte record = in.readByte(); record != END; record = in.readByte()) {
+				if (record == PROPERTIES)
+					readProperties(in, repository, elements);
+				else if (record == INDEX_ENTRY)
+					restored.indexes.computeIfAbsent(readString(in), name -> new HashMap<String, Object>())
+							.put(readString(in), elements.get(in.readInt()));
+				else if (record == REMOVED)
+					removedIds.set(in.readInt());
+				else
+					throw new IllegalStateException("corrupt model snapshot segment - " + segment);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * New elements only write the properties that have a value. Changed elements
+	 * write all properties, because a property might have lost its value
+	 */
+	private void writeProperties(DataOutputStream out, Repository repository, Object element, boolean all)
+			throws IOException {
+		List<PropertyDescription> propertiesOfElement = propertiesOf(repository.descriptionOf(element));
+		List<Collection<Object>> values = new ArrayList<Collection<Object>>();
+		int count = 0;
+		for (PropertyDescription property : propertiesOfElement) {
+			Collection<Object> value = knownValuesOf(property, element);
+			values.add(value);
+			if (all || !value.isEmpty())
+				count++;
+		}
+		out.writeByte(PROPERTIES);
+		out.writeInt(ids.get(element));
+		out.writeShort(count);
+		for (int i = 0; i < propertiesOfElement.size(); i++) {
+			Collection<Object> value = values.get(i);
+			if (!all && value.isEmpty())
+				continue;
+			out.writeShort(i);
+			out.writeInt(value.size());
+			for (Object each : value)
+				writeValue(out, each, ids::get);
+		}
+	}
+
+	private void readProperties(DataInputStream in, Repository repository, List<Object> elements) throws IOException {
+		Object element = elements.get(in.readInt());
+		List<PropertyDescription> propertiesOfElement = propertiesOf(repository.descriptionOf(element));
+		int count = in.readShort();
+		for (int i = 0; i < count; i++) {
+			PropertyDescription property = propertiesOfElement.get(in.readShort());
+			int size = in.readInt();
+			List<Object> value = new ArrayList<Object>(size);
+			for (int j = 0; j < size; j++)
+				value.add(readValue(in, elements::get));
+			if (property.isMultivalued())
+				property.writeAll(element, value);
+			else
+				property.writeAll(element, value.isEmpty() ? Arrays.asList((Object) null) : value);
+		}
+	}
+
+	/**
+	 * References to elements that are not in the repository are dropped, like the
+	 * MSE export cannot write them either
+	 */
+	private Collection<Object> knownValuesOf(PropertyDescription property, Object element) {
+		Collection<Object> values = property.readAll(element);
+		if (property.isPrimitive())
+			return values;
+		return values.stream().filter(value -> isPrimitiveValue(value) || ids.containsKey(value))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Derived properties are the opposites of other properties, so they are set
+	 * when the other properties are set
+	 */
+	private List<PropertyDescription> propertiesOf(MetaDescription meta) {
+		return properties.computeIfAbsent(meta,
+				m -> m.allAttributes().stream().filter(property -> !property.isDerived())
+						.sorted(Comparator.comparing(PropertyDescription::getName)).collect(Collectors.toList()));
+	}
+
+	private List<Path> segments() {
+		if (!Files.isDirectory(directory))
+			return new ArrayList<Path>();
+		try (Stream<Path> children = Files.list(directory)) {
+			return children.filter(child -> child.getFileName().toString().endsWith(SEGMENT_EXTENSION)).sorted()
+					.collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Segments left by an earlier import that was not resumed do not belong to
+	 * this model
+	 */
+	private void deleteSegments() {
+		try {
+			for (Path segment : segments())
+				Files.delete(segment);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		segmentCount = 0;
+	}
+
+	private Path segmentPath(int number) {
+		return directory.resolve(String.format("%08d", number) + SEGMENT_EXTENSION);
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.feenk.jdt2famix;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Restricts {@link JavaFiles} to the sources of selected packages or paths.
+ *
+ * A file is selected when it matches at least one include (or when there are no
+ * includes at all) and no exclude. A package rule matches the package and all
+ * its subpackages. A path rule is a glob, as in
+ * {@link java.nio.file.FileSystem#getPathMatcher(String)}, matched against the
+ * path of the file relative to the root folder, with forward slashes.
+ */
+public class SourceFilter {
+
+	private final List<String> includedPackages = new ArrayList<String>();
+	private final List<String> excludedPackages = new ArrayList<String>();
+	private final List<PathMatcher> includedPaths = new ArrayList<PathMatcher>();
+	private final List<PathMatcher> excludedPaths = new ArrayList<PathMatcher>();
+
+	public SourceFilter includePackages(String... packageNames) {
+		includedPackages.addAll(Arrays.asList(packageNames));
+		return this;
+	}
+
+	public SourceFilter excludePackages(String... packageNames) {
+		excludedPackages.addAll(Arrays.asList(packageNames));
+		return this;
+	}
+
+	public SourceFilter includePaths(String... globs) {
+		Arrays.stream(globs).forEach(glob -> includedPaths.add(matcherFor(glob)));
+		return this;
+	}
+
+	public SourceFilter excludePaths(String... globs) {
+		Arrays.stream(globs).forEach(glob -> excludedPaths.add(matcherFor(glob)));
+		return this;
+	}
+
+	public boolean isEmpty() {
+		return includedPackages.isEmpty() && excludedPackages.isEmpty() && includedPaths.isEmpty()
+				&& excludedPaths.isEmpty();
+	}
+
+	/**
+	 * Only rules on packages need the package of the file, which has to be read
+	 * from the file
+	 */
+	public boolean hasPackageRules() {
+		return !includedPackages.isEmpty() || !excludedPackages.isEmpty();
+	}
+
+	public boolean selects(String relativePath, String packageName) {
+		boolean included = (includedPackages.isEmpty() && includedPaths.isEmpty())
+				|| matchesPackage(includedPackages, packageName) || matchesPath(includedPaths, relativePath);
+		return included && !matchesPackage(excludedPackages, packageName)
+				&& !matchesPath(excludedPaths, relativePath);
+	}
+
+	private static boolean matchesPackage(List<String> packageNames, String packageName) {
+		if (packageName == null)
+			return false;
+		for (String each : packageNames)
+			if (packageName.equals(each) || packageName.startsWith(each + "."))
+				return true;
+		return false;
+	}
+
+	private static boolean matchesPath(List<PathMatcher> matchers, String relativePath) {
+		for (PathMatcher each : matchers)
+			if (each.matches(Paths.get(relativePath)))
+				return true;
+		return false;
+	}
+
+	private static PathMatcher matcherFor(String glob) {
+		return FileSystems.getDefault().getPathMatcher("glob:" + glob);
+	}
+
+}
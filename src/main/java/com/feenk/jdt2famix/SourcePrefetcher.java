@@ -0,0 +1,123 @@
+package com.feenk.jdt2famix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the sources on separate threads ahead of the parser, so that the import
+ * does not wait for slow storage. At most a window of files is read and not yet
+ * taken, which keeps the memory bounded, and each file taken makes room for the
+ * next one in the order, so the reads overlap the parsing. Large files are
+ * memory-mapped instead of copied into a byte array before decoding.
+ */
+public class SourcePrefetcher implements AutoCloseable {
+
+	private final int window;
+	private final long mappedFileSize;
+	private final ExecutorService readers;
+	private final Deque<String> order = new ArrayDeque<String>();
+	private final Map<String, Future<char[]>> prefetched = new HashMap<String, Future<char[]>>();
+	private final Set<String> taken = new HashSet<String>();
+
+	public SourcePrefetcher(int readerThreads, int window, long mappedFileSize) {
+		this.window = window;
+		this.mappedFileSize = mappedFileSize;
+		this.readers = Executors.newFixedThreadPool(readerThreads, runnable -> {
+			Thread thread = new Thread(runnable, "source-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Queues the files in the order in which they will be taken, and starts
+	 * reading the first window of them
+	 */
+	public synchronized void prefetch(String[] paths) {
+		order.addAll(Arrays.asList(paths));
+		fill();
+	}
+
+	/**
+	 * Answers the contents of the file, from memory when it was read ahead, and
+	 * starts reading the next file of the order
+	 */
+	public char[] take(String path) {
+		Future<char[]> future;
+		synchronized (this) {
+			future = prefetched.remove(path);
+			if (future == null)
+				taken.add(path);
+			fill();
+		}
+		if (future == null)
+			return read(path);
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	public synchronized int prefetchedCount() {
+		return prefetched.size();
+	}
+
+	/**
+	 * A file that was taken before its turn is not read again
+	 */
+	private void fill() {
+		while (prefetched.size() < window && !order.isEmpty()) {
+			String path = order.poll();
+			if (!taken.remove(path))
+				prefetched.computeIfAbsent(path, each -> CompletableFuture.supplyAsync(() -> read(each), readers));
+		}
+	}
+
+	private char[] read(String path) {
+		Path file = Paths.get(path);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer bytes = size >= mappedFileSize ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+					: ByteBuffer.wrap(Files.readAllBytes(file));
+			CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+			return Arrays.copyOfRange(chars.array(), chars.arrayOffset() + chars.position(),
+					chars.arrayOffset() + chars.limit());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		order.clear();
+		prefetched.clear();
+		taken.clear();
+		readers.shutdownNow();
+	}
+
+}
@@ -0,0 +1,162 @@
+package com.feenk.jdt2famix;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import ch.akuhn.fame.MetaRepository;
+import ch.akuhn.fame.Repository;
+import ch.akuhn.fame.fm3.PropertyDescription;
+
+import com.feenk.jdt2famix.model.WriteBarrier;
+
+/**
+ * A repository that can stage the elements added from some point on, and later
+ * either keep them with {@link #commit()} or take them out again with
+ * {@link #rollback()}. The importer stages the elements of each file, so that a
+ * file that fails half way does not leave half a model behind. While staging,
+ * the repository listens to the {@link WriteBarrier} and keeps the properties of
+ * an older element before its first write, so that a rollback also undoes the
+ * writes to the elements that stay.
+ *
+ * An {@link Observer} learns about the elements that enter and leave the
+ * repository, such as the {@link ModelSnapshot} that only saves what changed.
+ */
+@SuppressWarnings("unchecked")
+public class StagingRepository extends Repository implements WriteBarrier.Listener {
+
+	public interface Observer {
+		void added(Object element);
+
+		void removed(Set<Object> elements);
+	}
+
+	private List<Object> staged;
+	private Set<Object> stagedSet;
+	private Map<Object, Map<PropertyDescription, Collection<Object>>> written;
+	private Observer observer;
+
+	public StagingRepository(MetaRepository metamodel) {
+		super(metamodel);
+	}
+
+	public void observeWith(Observer observer) {
+		this.observer = observer;
+	}
+
+	@Override
+	public void add(Object element) {
+		if ((staged != null || observer != null) && !getElements().contains(element)) {
+			if (staged != null) {
+				staged.add(element);
+				stagedSet.add(element);
+			}
+			if (observer != null)
+				observer.added(element);
+		}
+		super.add(element);
+	}
+
+	public void stage() {
+		staged = new ArrayList<Object>();
+		stagedSet = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		written = new IdentityHashMap<Object, Map<PropertyDescription, Collection<Object>>>();
+		WriteBarrier.addListener(this);
+	}
+
+	/**
+	 * Derived properties are the opposites of other properties, so restoring the
+	 * other properties restores them too
+	 */
+	@Override
+	public void beforeWrite(Object element) {
+		if (written == null || stagedSet.contains(element) || written.containsKey(element)
+				|| !getElements().contains(element))
+			return;
+		Map<PropertyDescription, Collection<Object>> values;
+		values = new LinkedHashMap<PropertyDescription, Collection<Object>>();
+		for (PropertyDescription property : descriptionOf(element).allAttributes())
+			if (!property.isDerived())
+				values.put(property, new ArrayList<Object>(property.readAll(element)));
+		written.put(element, values);
+	}
+
+	/**
+	 * Whether the element was added since {@link #stage()}
+	 */
+	public boolean isStaged(Object element) {
+		return stagedSet != null && stagedSet.contains(element);
+	}
+
+	public boolean isStaging() {
+		return staged != null;
+	}
+
+	/**
+	 * Keeps the staged elements, and answers them
+	 */
+	public List<Object> commit() {
+		List<Object> committed = staged;
+		stopStaging();
+		return committed;
+	}
+
+	/**
+	 * Takes the staged elements out of the repository and answers them. We unlink
+	 * them from the elements that stay by clearing their references, which also
+	 * updates the opposite properties of the elements that stay. The elements that
+	 * stay then get back the properties they had before their first write, such as
+	 * a stub that became a full type
+	 */
+	public Set<Object> rollback() {
+		Set<Object> discarded = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		discarded.addAll(staged);
+		Map<Object, Map<PropertyDescription, Collection<Object>>> writtenElements = written;
+		stopStaging();
+		remove(discarded);
+		writtenElements.forEach((element, values) -> values.forEach((property, value) -> {
+			List<Object> kept = value.stream().filter(each -> !discarded.contains(each)).collect(Collectors.toList());
+			if (property.isMultivalued())
+				property.writeAll(element, kept);
+			else
+				property.writeAll(element, kept.isEmpty() ? Collections.singletonList(null) : kept);
+		}));
+		return discarded;
+	}
+
+	private void stopStaging() {
+		WriteBarrier.removeListener(this);
+		staged = null;
+		stagedSet = null;
+		written = null;
+	}
+
+	/**
+	 * Takes the elements out of the repository, unlinked as in {@link #rollback()}
+	 */
+	public void remove(Set<Object> elements) {
+		for (Object element : elements)
+			unlink(element);
+		getElements().removeAll(elements);
+		if (observer != null)
+			observer.removed(elements);
+	}
+
+	private void unlink(Object element) {
+		for (PropertyDescription property : descriptionOf(element).allAttributes()) {
+			if (property.isDerived() || property.isPrimitive())
+				continue;
+			if (property.isMultivalued())
+				property.writeAll(element, Collections.emptyList());
+			else if (property.read(element) != null)
+				property.writeAll(element, Collections.singletonList(null));
+		}
+	}
+
+}
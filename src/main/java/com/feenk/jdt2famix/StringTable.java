@@ -0,0 +1,166 @@
+package com.feenk.jdt2famix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gives each distinct string an int id, so that an {@link IntTable} can store
+ * strings. Each string is kept once, however often it is stored.
+ *
+ * Like the {@link IntTable}, the table keeps its strings outside of the Java
+ * heap: their UTF-8 bytes go in chunks, which are direct buffers or, with a
+ * folder, memory-mapped files. An int table holds where each string starts,
+ * and an open addressing hash table in a direct buffer finds the id of a
+ * string. Only the string answered by {@link #stringAt(int)} is on the heap.
+ */
+public class StringTable {
+
+	public static final int NO_STRING = -1;
+
+	private static final int BYTES_PER_CHUNK = 1 << 20;
+	private static final int INITIAL_SLOTS = 1 << 10;
+
+	private static final int CHUNK = 0;
+	private static final int OFFSET = 1;
+	private static final int LENGTH = 2;
+	private static final int HASH = 3;
+	private static final int COLUMNS = 4;
+
+	private final String name;
+	private final Path directory;
+	private final IntTable index;
+	private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+	private int chunkFill;
+	private IntBuffer slots = newSlots(INITIAL_SLOTS);
+
+	public StringTable() {
+		this("strings", null);
+	}
+
+	public StringTable(String name, Path directory) {
+		this.name = name;
+		this.directory = directory;
+		this.index = new IntTable(name + "-index", COLUMNS, directory);
+	}
+
+	public int idOf(String string) {
+		if (string == null)
+			return NO_STRING;
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		int hash = string.hashCode();
+		int mask = slots.capacity() - 1;
+		for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+			int id = slots.get(slot) - 1;
+			if (id == NO_STRING) {
+				id = append(bytes, hash);
+				slots.put(slot, id + 1);
+				if (size() * 2 > slots.capacity())
+					growSlots();
+				return id;
+			}
+			if (index.get(id, HASH) == hash && equalsAt(id, bytes))
+				return id;
+		}
+	}
+
+	public String stringAt(int id) {
+		if (id == NO_STRING)
+			return null;
+		byte[] bytes = new byte[index.get(id, LENGTH)];
+		ByteBuffer chunk = chunks.get(index.get(id, CHUNK)).duplicate();
+		chunk.position(index.get(id, OFFSET));
+		chunk.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * The bytes taken outside of the heap, including the unused parts of the
+	 * chunks
+	 */
+	public long capacityInBytes() {
+		long bytes = index.capacityInBytes() + (long) slots.capacity() * Integer.BYTES;
+		for (ByteBuffer chunk : chunks)
+			bytes += chunk.capacity();
+		return bytes;
+	}
+
+	/**
+	 * A string that does not fit in the rest of the last chunk starts a new one,
+	 * which is larger than usual for a string larger than a chunk
+	 */
+	private int append(byte[] bytes, int hash) {
+		if (chunks.isEmpty() || chunkFill + bytes.length > chunks.get(chunks.size() - 1).capacity()) {
+			chunks.add(newChunk(chunks.size(), Math.max(BYTES_PER_CHUNK, bytes.length)));
+			chunkFill = 0;
+		}
+		ByteBuffer chunk = chunks.get(chunks.size() - 1).duplicate();
+		chunk.position(chunkFill);
+		chunk.put(bytes);
+		int id = index.addRow();
+		index.set(id, CHUNK, chunks.size() - 1);
+		index.set(id, OFFSET, chunkFill);
+		index.set(id, LENGTH, bytes.length);
+		index.set(id, HASH, hash);
+		chunkFill += bytes.length;
+		return id;
+	}
+
+	private boolean equalsAt(int id, byte[] bytes) {
+		if (index.get(id, LENGTH) != bytes.length)
+			return false;
+		ByteBuffer chunk = chunks.get(index.get(id, CHUNK));
+		int offset = index.get(id, OFFSET);
+		for (int i = 0; i < bytes.length; i++)
+			if (chunk.get(offset + i) != bytes[i])
+				return false;
+		return true;
+	}
+
+	private void growSlots() {
+		IntBuffer newSlots = newSlots(slots.capacity() * 2);
+		int mask = newSlots.capacity() - 1;
+		for (int id = 0; id < size(); id++) {
+			int slot = index.get(id, HASH) & mask;
+			while (newSlots.get(slot) != 0)
+				slot = (slot + 1) & mask;
+			newSlots.put(slot, id + 1);
+		}
+		slots = newSlots;
+	}
+
+	/**
+	 * A slot holds the id plus one, so that a fresh buffer is all empty slots
+	 */
+	private static IntBuffer newSlots(int count) {
+		return ByteBuffer.allocateDirect(count * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+
+	private ByteBuffer newChunk(int number, int bytes) {
+		if (directory == null)
+			return ByteBuffer.allocateDirect(bytes);
+		try {
+			Files.createDirectories(directory);
+			Path file = directory.resolve(name + "-" + number + ".strings");
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
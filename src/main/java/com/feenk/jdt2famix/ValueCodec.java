@@ -0,0 +1,81 @@
+package com.feenk.jdt2famix;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Writes and reads the values of Fame properties for the formats that save a
+ * model or a part of it, such as the {@link ModelSnapshot}. Primitive values
+ * are written as they are, and references to elements as the int id that the
+ * format gives them.
+ */
+public class ValueCodec {
+
+	private static final byte INTEGER_VALUE = 'L';
+	private static final byte DECIMAL_VALUE = 'D';
+	private static final byte STRING_VALUE = 'S';
+	private static final byte BOOLEAN_VALUE = 'B';
+	private static final byte REFERENCE_VALUE = 'R';
+
+	public static boolean isPrimitiveValue(Object value) {
+		return value instanceof String || value instanceof Boolean || value instanceof Number;
+	}
+
+	public static void writeValue(DataOutputStream out, Object value, ToIntFunction<Object> ids) throws IOException {
+		if (value instanceof String) {
+			out.writeByte(STRING_VALUE);
+			writeString(out, (String) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN_VALUE);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof Double || value instanceof Float) {
+			out.writeByte(DECIMAL_VALUE);
+			out.writeDouble(((Number) value).doubleValue());
+		} else if (value instanceof Number) {
+			out.writeByte(INTEGER_VALUE);
+			out.writeLong(((Number) value).longValue());
+		} else {
+			out.writeByte(REFERENCE_VALUE);
+			out.writeInt(ids.applyAsInt(value));
+		}
+	}
+
+	/**
+	 * Integers that fit are answered as Integer, like Fame reads them from an MSE
+	 */
+	public static Object readValue(DataInputStream in, IntFunction<Object> elements) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case STRING_VALUE:
+			return readString(in);
+		case BOOLEAN_VALUE:
+			return in.readBoolean();
+		case DECIMAL_VALUE:
+			return in.readDouble();
+		case INTEGER_VALUE:
+			long value = in.readLong();
+			return value == (int) value ? (Object) Integer.valueOf((int) value) : (Object) Long.valueOf(value);
+		case REFERENCE_VALUE:
+			return elements.apply(in.readInt());
+		default:
+			throw new IllegalStateException("corrupt value - " + tag);
+		}
+	}
+
+	public static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	public static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
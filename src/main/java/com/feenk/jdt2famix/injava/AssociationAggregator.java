@@ -0,0 +1,176 @@
+package com.feenk.jdt2famix.injava;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.feenk.jdt2famix.Famix;
+import com.feenk.jdt2famix.model.famix.Association;
+import com.feenk.jdt2famix.model.famix.Attribute;
+import com.feenk.jdt2famix.model.famix.Invocation;
+import com.feenk.jdt2famix.model.famix.Method;
+import com.feenk.jdt2famix.model.famix.NamedEntity;
+import com.feenk.jdt2famix.model.famix.SourcedEntity;
+
+/**
+ * Used by the {@link InJavaImporter} when associations are aggregated. Instead
+ * of one association per call or access site, there is one association per
+ * (source, target) pair, and its occurrences property counts the sites.
+ *
+ * The association keeps the AST positions of its first site. Optionally, the
+ * positions of all the sites are kept in one int array per association, as
+ * consecutive (start, stop) pairs. There is no need for a file, because the
+ * source of an invocation or of an access is a method, and a method lives in
+ * one file.
+ */
+public class AssociationAggregator {
+
+	private final boolean keepsSites;
+	private final Map<Key, Association> associations = new LinkedHashMap<Key, Association>();
+	private final Map<Association, int[]> sites = new IdentityHashMap<Association, int[]>();
+
+	public AssociationAggregator(boolean keepsSites) {
+		this.keepsSites = keepsSites;
+	}
+
+	public boolean keepsSites() {
+		return keepsSites;
+	}
+
+	/**
+	 * Answers the association already created for the pair and counts one more
+	 * occurrence, or answers null when this is the first occurrence, in which case
+	 * the caller creates the association and passes it to
+	 * {@link #add(SourcedEntity, Object, Object, Association)}
+	 */
+	public Association occurrenceOf(SourcedEntity source, Object target, Object kind) {
+		Association association = associations.get(new Key(source, target, kind));
+		if (association != null)
+			association.setOccurrences(association.getOccurrencesAsInt() + 1);
+		return association;
+	}
+
+	public void add(SourcedEntity source, Object target, Object kind, Association association) {
+		association.setOccurrences(1);
+		associations.put(new Key(source, target, kind), association);
+	}
+
+	/**
+	 * Puts back an association restored from a checkpoint, keeping its
+	 * occurrences. The sites of restored associations are not kept
+	 */
+	public void restore(SourcedEntity source, Object target, Object kind, Association association) {
+		associations.put(new Key(source, target, kind), association);
+	}
+
+	/**
+	 * Forgets the associations that were taken out of the model
+	 */
+	public void discard(Set<Object> discardedAssociations) {
+		associations.values().removeIf(discardedAssociations::contains);
+		sites.keySet().removeIf(discardedAssociations::contains);
+	}
+
+	/**
+	 * Records the positions of one site. The AST positions of the association
+	 * itself are only set for the first site
+	 */
+	public void addSite(Association association, int start, int stop) {
+		if (association.getAstStartPositionAsInt() == Integer.MIN_VALUE) {
+			association.setAstStartPosition(start);
+			association.setAstStopPosition(stop);
+		}
+		if (!keepsSites)
+			return;
+		int[] positions = sites.get(association);
+		int size = positions == null ? 0 : positions[0];
+		if (positions == null)
+			positions = new int[5];
+		else if (positions.length < size * 2 + 3)
+			positions = Arrays.copyOf(positions, positions.length * 2 - 1);
+		positions[size * 2 + 1] = start;
+		positions[size * 2 + 2] = stop;
+		positions[0] = size + 1;
+		sites.put(association, positions);
+	}
+
+	/**
+	 * Answers the (start, stop) pairs of the sites of the association in the order
+	 * in which they were visited, or an empty array when sites are not kept
+	 */
+	public int[] sitesOf(Association association) {
+		int[] positions = sites.get(association);
+		if (positions == null)
+			return new int[0];
+		return Arrays.copyOfRange(positions, 1, positions[0] * 2 + 1);
+	}
+
+	/**
+	 * Writes one row per kept site, with the kind of the association, its source
+	 * and its target, in the order in which the associations were created
+	 */
+	public void exportSitesCSV(String fileName) {
+		try (Writer writer = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8)) {
+			writer.write("kind,source,target,start,stop\n");
+			for (Map.Entry<Key, Association> entry : associations.entrySet()) {
+				Key key = entry.getKey();
+				String kind = key.kind == Invocation.class ? "invocation" : Boolean.TRUE.equals(key.kind) ? "write"
+						: "read";
+				int[] positions = sitesOf(entry.getValue());
+				for (int i = 0; i < positions.length; i += 2)
+					writer.write(kind + "," + quoted(nameOf(key.source)) + "," + quoted(nameOf(key.target)) + ","
+							+ positions[i] + "," + positions[i + 1] + "\n");
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String nameOf(Object entity) {
+		if (entity instanceof Method)
+			return Famix.qualifiedNameOf((Method) entity);
+		if (entity instanceof Attribute)
+			return Famix.qualifiedNameOf((Attribute) entity);
+		if (entity instanceof NamedEntity)
+			return ((NamedEntity) entity).getName();
+		return String.valueOf(entity);
+	}
+
+	private static String quoted(String value) {
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static class Key {
+		private final SourcedEntity source;
+		private final Object target;
+		private final Object kind;
+
+		Key(SourcedEntity source, Object target, Object kind) {
+			this.source = source;
+			this.target = target;
+			this.kind = kind;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key))
+				return false;
+			Key key = (Key) other;
+			return source == key.source && Objects.equals(target, key.target) && Objects.equals(kind, key.kind);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * System.identityHashCode(source) + Objects.hashCode(target)) + Objects.hashCode(kind);
+		}
+	}
+
+}
@@ -27,8 +27,15 @@ public class AstRequestor extends FileASTRequestor {
 				+ "/" + allJavaFileCount + " - "
 				+ sourceFilePath);
 		importer.setCurrentFilePath(sourceFilePath);
-		ast.accept(new AstVisitor(importer));
+		importer.beginFile();
+		try {
+			ast.accept(new AstVisitor(importer));
+			importer.commitFile();
+		} catch (RuntimeException e) {
+			importer.discardFile(sourceFilePath, e);
+		}
 		importer.setCurrentFilePath(null);
+		importer.fileVisited(sourceFilePath);
 	}
 
 }
@@ -53,7 +53,7 @@ import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 import org.eclipse.jdt.core.dom.WhileStatement;
 
-import com.feenk.jdt2famix.model.famix.Access;
+import com.feenk.jdt2famix.injava.ExtractionProfile.Facet;
 import com.feenk.jdt2famix.model.famix.AnnotationInstance;
 import com.feenk.jdt2famix.model.famix.AnnotationType;
 import com.feenk.jdt2famix.model.famix.AnnotationTypeAttribute;
@@ -94,6 +94,15 @@ public class AstVisitor extends ASTVisitor {
 		importer.logNullBinding(string, extraData, lineNumber);
 	}
 
+	/**
+	 * Every node is a chance to notice that the file is over its time budget
+	 */
+	@Override
+	public boolean preVisit2(ASTNode node) {
+		importer.checkTimeBudget();
+		return true;
+	}
+
 	//////// PACKAGES
 
 	@Override
@@ -196,7 +205,7 @@ public class AstVisitor extends ASTVisitor {
 		ITypeBinding binding = node.resolveBinding();
 		Type type;
 		if (binding != null)
-			type = importer.createTypeFromTypeBinding(binding);
+			type = importer.createTypeFromAnonymousBinding(binding);
 		else {
 			type = importer.createTypeNamedInUnknownNamespace("");
 			logNullBinding("anonymous type declaration", node.getParent().toString().replaceAll("\n", " "),
@@ -302,6 +311,8 @@ public class AstVisitor extends ASTVisitor {
 	 */
 	@Override
 	public boolean visit(MarkerAnnotation node) {
+		if (!importer.extracts(Facet.ANNOTATIONS))
+			return false;
 		addTypeAnnotationSourceAnchor(node);
 		return true;
 	}
@@ -312,6 +323,8 @@ public class AstVisitor extends ASTVisitor {
 	 */
 	@Override
 	public boolean visit(NormalAnnotation node) {
+		if (!importer.extracts(Facet.ANNOTATIONS))
+			return false;
 		addTypeAnnotationSourceAnchor(node);
 		return true;
 	}
@@ -362,6 +375,8 @@ public class AstVisitor extends ASTVisitor {
 	 */
 	@Override
 	public boolean visit(SingleMemberAnnotation node) {
+		if (!importer.extracts(Facet.ANNOTATIONS))
+			return false;
 		addTypeAnnotationSourceAnchor(node);
 		return true;
 	}
@@ -376,15 +391,23 @@ public class AstVisitor extends ASTVisitor {
 			Method method;
 			if (binding != null) {
 				method = importer.ensureMethodFromMethodBindingToCurrentContainer(binding);
-				Arrays.stream(binding.getExceptionTypes())
-						.forEach(e -> importer.createDeclaredExceptionFromTypeBinding(e, method));
+				if (importer.extracts(Facet.EXCEPTIONS))
+					Arrays.stream(binding.getExceptionTypes())
+							.forEach(e -> importer.createDeclaredExceptionFromTypeBinding(e, method));
 			} else {
 				logNullBinding("method declaration", node.getName(),
 						((CompilationUnit) node.getRoot()).getLineNumber(node.getStartPosition()));
 				method = importer.ensureMethodFromMethodDeclaration(node);
 			}
 			method.setIsStub(false);
-			method.setCyclomaticComplexity(1);
+			if (node.getBody() != null && !importer.extracts(Facet.METHOD_BODIES)) {
+				/*
+				 * JDT gives us an empty body, so we do not pretend to know the complexity
+				 */
+				method.setIsBodyIgnored(true);
+				method.setCyclomaticComplexity((Number) null);
+			} else
+				method.setCyclomaticComplexity(1);
 			importer.pushOnContainerStack(method);
 			node.parameters().stream().forEach(
 					p -> importer.ensureParameterFromSingleVariableDeclaration((SingleVariableDeclaration) p, method));
@@ -443,8 +466,7 @@ public class AstVisitor extends ASTVisitor {
 		VariableDeclarationFragment lastFragment = (VariableDeclarationFragment) field.fragments()
 				.get(field.fragments().size() - 1);
 		if (lastFragment.getInitializer() != null) {
-			Access access = importer.createAccessFromExpression(fragment.getName());
-			access.setIsWrite(true);
+			importer.createWriteAccessFromExpression(fragment.getName());
 			importer.createAccessFromExpression((Expression) lastFragment.getInitializer());
 		}
 		attribute.setIsStub(false);
@@ -482,11 +504,14 @@ public class AstVisitor extends ASTVisitor {
 	@Override
 	public boolean visit(MethodInvocation node) {
 		if (importer.topOfContainerStack() instanceof Method) {
-			Invocation invocation = importer.createInvocationFromMethodBinding(node.resolveMethodBinding(),
-					node.toString().trim());
-			importer.createLightweightSourceAnchor(invocation, node.getName());
 			importer.createAccessFromExpression(node.getExpression());
-			invocation.setReceiver(importer.ensureStructuralEntityFromExpression(node.getExpression()));
+			if (importer.extracts(Facet.INVOCATIONS)) {
+				Invocation invocation = importer.createInvocationFromMethodBinding(node.resolveMethodBinding(),
+						importer.sourceOf(node));
+				importer.createLightweightSourceAnchor(invocation, node.getName());
+				if (invocation.getReceiver() == null)
+					invocation.setReceiver(importer.ensureStructuralEntityFromExpression(node.getExpression()));
+			}
 			node.arguments().stream().forEach(arg -> importer.createAccessFromExpression((Expression) arg));
 		}
 		return true;
@@ -498,9 +523,11 @@ public class AstVisitor extends ASTVisitor {
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean visit(SuperMethodInvocation node) {
-		Invocation invocation = importer.createInvocationFromMethodBinding(node.resolveMethodBinding(),
-				node.toString().trim());
-		importer.createLightweightSourceAnchor(invocation, node.getName());
+		if (importer.extracts(Facet.INVOCATIONS)) {
+			Invocation invocation = importer.createInvocationFromMethodBinding(node.resolveMethodBinding(),
+					importer.sourceOf(node));
+			importer.createLightweightSourceAnchor(invocation, node.getName());
+		}
 		node.arguments().stream().forEach(arg -> importer.createAccessFromExpression((Expression) arg));
 		return true;
 	}
@@ -511,10 +538,15 @@ public class AstVisitor extends ASTVisitor {
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean visit(ConstructorInvocation node) {
-		Invocation invocation = importer.createInvocationFromMethodBinding(node.resolveConstructorBinding(),
-				node.toString().trim());
-//		importer.createSourceAnchor(invocation, node.getStartPosition() + 1, node.getStartPosition() + "this".length());
-		invocation.setAstStartPosition(node.getStartPosition() + 1);
+		if (importer.extracts(Facet.INVOCATIONS)) {
+			Invocation invocation = importer.createInvocationFromMethodBinding(node.resolveConstructorBinding(),
+					importer.sourceOf(node));
+			if (importer.associationAggregator() != null)
+				importer.createLightweightSourceAnchor(invocation, node.getStartPosition() + 1,
+						node.getStartPosition() + "this".length());
+			else
+				invocation.setAstStartPosition(node.getStartPosition() + 1);
+		}
 		node.arguments().stream().forEach(arg -> importer.createAccessFromExpression((Expression) arg));
 		return true;
 	}
@@ -525,11 +557,15 @@ public class AstVisitor extends ASTVisitor {
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean visit(SuperConstructorInvocation node) {
-		Invocation invocation = importer.createInvocationFromMethodBinding(node.resolveConstructorBinding(),
-				node.toString().trim());
-//		importer.createSourceAnchor(invocation, node.getStartPosition() + 1,
-//				node.getStartPosition() + "super".length());
-		invocation.setAstStartPosition(node.getStartPosition() + 1);
+		if (importer.extracts(Facet.INVOCATIONS)) {
+			Invocation invocation = importer.createInvocationFromMethodBinding(node.resolveConstructorBinding(),
+					importer.sourceOf(node));
+			if (importer.associationAggregator() != null)
+				importer.createLightweightSourceAnchor(invocation, node.getStartPosition() + 1,
+						node.getStartPosition() + "super".length());
+			else
+				invocation.setAstStartPosition(node.getStartPosition() + 1);
+		}
 		node.arguments().stream().forEach(arg -> importer.createAccessFromExpression((Expression) arg));
 		return true;
 	}
@@ -540,14 +576,16 @@ public class AstVisitor extends ASTVisitor {
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean visit(ClassInstanceCreation node) {
-		IMethodBinding binding = node.resolveConstructorBinding();
-		if (binding != null) {
-			Invocation invocation = importer.createInvocationFromMethodBinding(binding, node.toString().trim());
-			importer.createLightweightSourceAnchor(invocation, node.getType());
-		} else {
-			String name = node.getType().toString();
-			importer.ensureBasicMethod(name, name, importer.ensureTypeNamedInUnknownNamespace(name),
-					m -> importer.createInvocationToMethod(m, node.toString().trim()));
+		if (importer.extracts(Facet.INVOCATIONS)) {
+			IMethodBinding binding = node.resolveConstructorBinding();
+			if (binding != null) {
+				Invocation invocation = importer.createInvocationFromMethodBinding(binding, importer.sourceOf(node));
+				importer.createLightweightSourceAnchor(invocation, node.getType());
+			} else {
+				String name = node.getType().toString();
+				importer.ensureBasicMethod(name, name, importer.ensureTypeNamedInUnknownNamespace(name),
+						m -> importer.createInvocationToMethod(m, importer.sourceOf(node)));
+			}
 		}
 
 		node.arguments().stream().forEach(arg -> importer.createAccessFromExpression((Expression) arg));
@@ -567,8 +605,7 @@ public class AstVisitor extends ASTVisitor {
 
 	@Override
 	public boolean visit(Assignment node) {
-		Access writeAccess = importer.createAccessFromExpression((Expression) node.getLeftHandSide());
-		writeAccess.setIsWrite(true);
+		importer.createWriteAccessFromExpression((Expression) node.getLeftHandSide());
 		importer.createAccessFromExpression((Expression) node.getRightHandSide());
 		return true;
 	}
@@ -730,6 +767,8 @@ public class AstVisitor extends ASTVisitor {
 	public boolean visit(CatchClause node) {
 		importer.topFromContainerStack(Method.class).incCyclomaticComplexity();
 		;
+		if (!importer.extracts(Facet.EXCEPTIONS))
+			return true;
 		CaughtException caughtException = new CaughtException();
 		ITypeBinding binding = node.getException().getType().resolveBinding();
 		if (binding != null) {
@@ -743,6 +782,8 @@ public class AstVisitor extends ASTVisitor {
 
 	@Override
 	public boolean visit(ThrowStatement node) {
+		if (!importer.extracts(Facet.EXCEPTIONS))
+			return true;
 		ITypeBinding binding = node.getExpression().resolveTypeBinding();
 		if (binding != null) {
 			ThrownException thrownException = new ThrownException();
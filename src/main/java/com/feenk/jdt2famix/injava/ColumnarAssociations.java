@@ -0,0 +1,280 @@
+package com.feenk.jdt2famix.injava;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.feenk.jdt2famix.IntTable;
+import com.feenk.jdt2famix.StringTable;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
+import com.feenk.jdt2famix.model.famix.Access;
+import com.feenk.jdt2famix.model.famix.BehaviouralEntity;
+import com.feenk.jdt2famix.model.famix.Invocation;
+import com.feenk.jdt2famix.model.famix.NamedEntity;
+import com.feenk.jdt2famix.model.famix.StructuralEntity;
+
+import ch.akuhn.fame.parser.ParseClient;
+
+/**
+ * Holds invocations and accesses as rows of int columns outside of the heap,
+ * instead of as objects in the repository. In a large code base these are most
+ * of the model, and an object with its references and collections costs
+ * several times more than a row.
+ *
+ * The entities at the ends of an association stay in the repository, and the
+ * columns refer to them by an id. The signatures are ids into a string table,
+ * which is outside of the heap as well. The rows are read through flyweight
+ * views, which have the same getters as {@link Invocation} and {@link Access},
+ * and which move from row to row instead of being created for each row.
+ *
+ * The collections of associations of those entities, such as the outgoing
+ * invocations of a method, no longer hold the associations that moved, so they
+ * refuse to be read (see {@link CompactMultivalueSet#movedTo(String)}). The
+ * associations are only read through the views.
+ */
+public class ColumnarAssociations {
+
+	private static final int NONE = -1;
+
+	private static final int SENDER = 0;
+	private static final int CANDIDATE = 1;
+	private static final int SIGNATURE = 2;
+	private static final int RECEIVER = 3;
+	private static final int INVOCATION_START = 4;
+	private static final int INVOCATION_STOP = 5;
+	private static final int INVOCATION_OCCURRENCES = 6;
+	private static final int INVOCATION_COLUMNS = 7;
+
+	private static final int ACCESSOR = 0;
+	private static final int VARIABLE = 1;
+	private static final int IS_WRITE = 2;
+	private static final int ACCESS_START = 3;
+	private static final int ACCESS_STOP = 4;
+	private static final int ACCESS_OCCURRENCES = 5;
+	private static final int ACCESS_COLUMNS = 6;
+
+	private final IntTable invocations;
+	private final IntTable accesses;
+	private final StringTable strings;
+	private final Map<Object, Integer> entityIds = new IdentityHashMap<Object, Integer>();
+	private final List<Object> entities = new ArrayList<Object>();
+
+	/**
+	 * Without a folder, the columns are in direct buffers. With a folder, they are
+	 * in memory-mapped files in that folder
+	 */
+	public ColumnarAssociations(Path directory) {
+		invocations = new IntTable("invocations", INVOCATION_COLUMNS, directory);
+		accesses = new IntTable("accesses", ACCESS_COLUMNS, directory);
+		strings = new StringTable("signatures", directory);
+	}
+
+	/**
+	 * An invocation of the importer has at most one candidate
+	 */
+	public void add(Invocation invocation) {
+		int row = invocations.addRow();
+		invocations.set(row, SENDER, idOf(invocation.getSender()));
+		invocations.set(row, CANDIDATE,
+				invocation.getCandidates().isEmpty() ? NONE : idOf(invocation.getCandidates().iterator().next()));
+		invocations.set(row, SIGNATURE, strings.idOf(invocation.getSignature()));
+		invocations.set(row, RECEIVER, idOf(invocation.getReceiver()));
+		invocations.set(row, INVOCATION_START, invocation.getAstStartPositionAsInt());
+		invocations.set(row, INVOCATION_STOP, invocation.getAstStopPositionAsInt());
+		invocations.set(row, INVOCATION_OCCURRENCES, invocation.getOccurrencesAsInt());
+		if (invocation.getSender() != null)
+			moved(invocation.getSender().getOutgoingInvocations());
+		invocation.getCandidates().forEach(candidate -> moved(candidate.getIncomingInvocations()));
+		if (invocation.getReceiver() != null)
+			moved(invocation.getReceiver().getReceivingInvocations());
+	}
+
+	public void add(Access access) {
+		int row = accesses.addRow();
+		accesses.set(row, ACCESSOR, idOf(access.getAccessor()));
+		accesses.set(row, VARIABLE, idOf(access.getVariable()));
+		accesses.set(row, IS_WRITE, Boolean.TRUE.equals(access.getIsWrite()) ? 1 : 0);
+		accesses.set(row, ACCESS_START, access.getAstStartPositionAsInt());
+		accesses.set(row, ACCESS_STOP, access.getAstStopPositionAsInt());
+		accesses.set(row, ACCESS_OCCURRENCES, access.getOccurrencesAsInt());
+		if (access.getAccessor() != null)
+			moved(access.getAccessor().getAccesses());
+		if (access.getVariable() != null)
+			moved(access.getVariable().getIncomingAccesses());
+	}
+
+	private static void moved(Collection<?> associations) {
+		if (associations instanceof CompactMultivalueSet)
+			((CompactMultivalueSet<?>) associations).movedTo("the columns of ColumnarAssociations");
+	}
+
+	public int invocationCount() {
+		return invocations.size();
+	}
+
+	public int accessCount() {
+		return accesses.size();
+	}
+
+	public long capacityInBytes() {
+		return invocations.capacityInBytes() + accesses.capacityInBytes() + strings.capacityInBytes();
+	}
+
+	/**
+	 * The view passed to the action is the same for all rows, so it must not be
+	 * kept
+	 */
+	public void forEachInvocation(Consumer<InvocationView> action) {
+		InvocationView view = new InvocationView();
+		for (view.row = 0; view.row < invocations.size(); view.row++)
+			action.accept(view);
+	}
+
+	public void forEachAccess(Consumer<AccessView> action) {
+		AccessView view = new AccessView();
+		for (view.row = 0; view.row < accesses.size(); view.row++)
+			action.accept(view);
+	}
+
+	private int idOf(Object entity) {
+		if (entity == null)
+			return NONE;
+		return entityIds.computeIfAbsent(entity, e -> {
+			entities.add(e);
+			return entities.size() - 1;
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T entityAt(int id) {
+		return id == NONE ? null : (T) entities.get(id);
+	}
+
+	private static Number numberOrNull(int value) {
+		return value == Integer.MIN_VALUE ? null : Integer.valueOf(value);
+	}
+
+	public class InvocationView {
+		private int row;
+
+		public int row() {
+			return row;
+		}
+
+		public BehaviouralEntity getSender() {
+			return entityAt(invocations.get(row, SENDER));
+		}
+
+		public Collection<BehaviouralEntity> getCandidates() {
+			BehaviouralEntity candidate = entityAt(invocations.get(row, CANDIDATE));
+			return candidate == null ? Collections.<BehaviouralEntity>emptyList() : Collections.singletonList(candidate);
+		}
+
+		public String getSignature() {
+			return strings.stringAt(invocations.get(row, SIGNATURE));
+		}
+
+		public NamedEntity getReceiver() {
+			return entityAt(invocations.get(row, RECEIVER));
+		}
+
+		public Number getAstStartPosition() {
+			return numberOrNull(invocations.get(row, INVOCATION_START));
+		}
+
+		public Number getAstStopPosition() {
+			return numberOrNull(invocations.get(row, INVOCATION_STOP));
+		}
+
+		public Number getOccurrences() {
+			return numberOrNull(invocations.get(row, INVOCATION_OCCURRENCES));
+		}
+	}
+
+	public class AccessView {
+		private int row;
+
+		public int row() {
+			return row;
+		}
+
+		public BehaviouralEntity getAccessor() {
+			return entityAt(accesses.get(row, ACCESSOR));
+		}
+
+		public StructuralEntity getVariable() {
+			return entityAt(accesses.get(row, VARIABLE));
+		}
+
+		public Boolean getIsWrite() {
+			return accesses.get(row, IS_WRITE) == 1;
+		}
+
+		public Number getAstStartPosition() {
+			return numberOrNull(accesses.get(row, ACCESS_START));
+		}
+
+		public Number getAstStopPosition() {
+			return numberOrNull(accesses.get(row, ACCESS_STOP));
+		}
+
+		public Number getOccurrences() {
+			return numberOrNull(accesses.get(row, ACCESS_OCCURRENCES));
+		}
+	}
+
+	/**
+	 * Writes the rows as MSE elements with the serial numbers that follow the
+	 * ones of the repository. Like the exporter of Fame, we skip empty values and
+	 * false booleans
+	 */
+	void exportMSE(ParseClient printer, Map<Object, Integer> serials) {
+		int[] serial = { serials.size() + 1 };
+		forEachInvocation(invocation -> {
+			printer.beginElement("FAMIX.Invocation");
+			printer.serial(serial[0]++);
+			reference(printer, "sender", invocation.getSender(), serials);
+			invocation.getCandidates().forEach(candidate -> reference(printer, "candidates", candidate, serials));
+			primitive(printer, "signature", invocation.getSignature());
+			reference(printer, "receiver", invocation.getReceiver(), serials);
+			primitive(printer, "astStartPosition", invocation.getAstStartPosition());
+			primitive(printer, "astStopPosition", invocation.getAstStopPosition());
+			primitive(printer, "occurrences", invocation.getOccurrences());
+			printer.endElement("FAMIX.Invocation");
+		});
+		forEachAccess(access -> {
+			printer.beginElement("FAMIX.Access");
+			printer.serial(serial[0]++);
+			reference(printer, "accessor", access.getAccessor(), serials);
+			reference(printer, "variable", access.getVariable(), serials);
+			if (access.getIsWrite())
+				primitive(printer, "isWrite", true);
+			primitive(printer, "astStartPosition", access.getAstStartPosition());
+			primitive(printer, "astStopPosition", access.getAstStopPosition());
+			primitive(printer, "occurrences", access.getOccurrences());
+			printer.endElement("FAMIX.Access");
+		});
+	}
+
+	private static void reference(ParseClient printer, String name, Object entity, Map<Object, Integer> serials) {
+		if (entity == null || !serials.containsKey(entity))
+			return;
+		printer.beginAttribute(name);
+		printer.reference(serials.get(entity));
+		printer.endAttribute(name);
+	}
+
+	private static void primitive(ParseClient printer, String name, Object value) {
+		if (value == null)
+			return;
+		printer.beginAttribute(name);
+		printer.primitive(value);
+		printer.endAttribute(name);
+	}
+
+}
@@ -0,0 +1,340 @@
+package com.feenk.jdt2famix.injava;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.feenk.jdt2famix.Famix;
+import com.feenk.jdt2famix.model.famix.ContainerEntity;
+import com.feenk.jdt2famix.model.famix.Method;
+import com.feenk.jdt2famix.model.famix.Namespace;
+import com.feenk.jdt2famix.model.famix.ParameterizedType;
+import com.feenk.jdt2famix.model.famix.Type;
+
+/**
+ * Accumulates type-to-type and package-to-package dependencies while the
+ * {@link InJavaImporter} creates the model, so that we do not need a separate
+ * pass over a (possibly huge) model to compute dependency matrices.
+ *
+ * Types and namespaces get a dense int id the first time they take part in a
+ * dependency. Edges are counted per {@link Kind} in open addressing tables keyed
+ * by the primitive (source, target) id pair, so recording a dependency does not
+ * allocate.
+ *
+ * The dependencies of a file can be staged, like its entities in the
+ * {@link com.feenk.jdt2famix.StagingRepository}, so that a file that fails does
+ * not leave its dependencies behind.
+ *
+ * The matrices can be exported as CSV or as a compact binary file.
+ */
+public class DependencyGraph {
+
+	public enum Kind {
+		INHERITANCE, INVOCATION, ACCESS, DECLARED_TYPE, ANNOTATION
+	}
+
+	private static final int KINDS = Kind.values().length;
+	private static final int BINARY_MAGIC = 0x4A44_4750; // "JDGP"
+	private static final int BINARY_VERSION = 1;
+
+	private final Map<Type, Integer> typeIds = new IdentityHashMap<Type, Integer>();
+	private final List<Type> typesById = new ArrayList<Type>();
+	private int[] namespaceIdOfType = new int[64];
+
+	private final Map<Namespace, Integer> namespaceIds = new IdentityHashMap<Namespace, Integer>();
+	private final List<Namespace> namespacesById = new ArrayList<Namespace>();
+
+	private final EdgeTable typeEdges = new EdgeTable();
+	private final EdgeTable namespaceEdges = new EdgeTable();
+
+	private boolean staging;
+	private final List<Type> stagedSources = new ArrayList<Type>();
+	private final List<Type> stagedTargets = new ArrayList<Type>();
+	private final List<Kind> stagedKinds = new ArrayList<Kind>();
+
+	public void add(Type source, Type target, Kind kind) {
+		if (source == null || target == null)
+			return;
+		if (staging) {
+			stagedSources.add(source);
+			stagedTargets.add(target);
+			stagedKinds.add(kind);
+			return;
+		}
+		int sourceId = idOf(normalized(source));
+		int targetId = idOf(normalized(target));
+		typeEdges.increment(sourceId, targetId, kind.ordinal());
+		namespaceEdges.increment(namespaceIdOfType[sourceId], namespaceIdOfType[targetId], kind.ordinal());
+	}
+
+	/**
+	 * Keeps the dependencies added from now on apart until {@link #commit()} or
+	 * {@link #rollback()}
+	 */
+	public void stage() {
+		staging = true;
+	}
+
+	public void commit() {
+		staging = false;
+		for (int i = 0; i < stagedKinds.size(); i++)
+			add(stagedSources.get(i), stagedTargets.get(i), stagedKinds.get(i));
+		rollback();
+	}
+
+	public void rollback() {
+		staging = false;
+		stagedSources.clear();
+		stagedTargets.clear();
+		stagedKinds.clear();
+	}
+
+	/**
+	 * Returns how many dependencies of the given kind were recorded from source to
+	 * target
+	 */
+	public int count(Type source, Type target, Kind kind) {
+		Integer sourceId = typeIds.get(normalized(source));
+		Integer targetId = typeIds.get(normalized(target));
+		if (sourceId == null || targetId == null)
+			return 0;
+		return typeEdges.count(sourceId, targetId, kind.ordinal());
+	}
+
+	public int count(Namespace source, Namespace target, Kind kind) {
+		Integer sourceId = namespaceIds.get(source);
+		Integer targetId = namespaceIds.get(target);
+		if (sourceId == null || targetId == null)
+			return 0;
+		return namespaceEdges.count(sourceId, targetId, kind.ordinal());
+	}
+
+	public int numberOfTypeDependencies() {
+		return typeEdges.size();
+	}
+
+	public int numberOfNamespaceDependencies() {
+		return namespaceEdges.size();
+	}
+
+	/**
+	 * We do not want one node for each List<String>, List<Integer> ... so
+	 * dependencies to parameterized types go to their parameterizable class
+	 */
+	private Type normalized(Type type) {
+		if (type instanceof ParameterizedType && ((ParameterizedType) type).getParameterizableClass() != null)
+			return ((ParameterizedType) type).getParameterizableClass();
+		return type;
+	}
+
+	private int idOf(Type type) {
+		Integer id = typeIds.get(type);
+		if (id != null)
+			return id;
+		int newId = typesById.size();
+		typeIds.put(type, newId);
+		typesById.add(type);
+		if (newId == namespaceIdOfType.length)
+			namespaceIdOfType = Arrays.copyOf(namespaceIdOfType, newId * 2);
+		namespaceIdOfType[newId] = idOf(namespaceOf(type));
+		return newId;
+	}
+
+	private int idOf(Namespace namespace) {
+		Integer id = namespaceIds.get(namespace);
+		if (id != null)
+			return id;
+		int newId = namespacesById.size();
+		namespaceIds.put(namespace, newId);
+		namespacesById.add(namespace);
+		return newId;
+	}
+
+	/**
+	 * Inner, anonymous and local types belong to the namespace of their outermost
+	 * type
+	 */
+	private Namespace namespaceOf(Type type) {
+		ContainerEntity container = type.getContainer();
+		while (container != null && !(container instanceof Namespace)) {
+			if (container instanceof Type)
+				container = ((Type) container).getContainer();
+			else if (container instanceof Method)
+				container = ((Method) container).getParentType();
+			else
+				container = null;
+		}
+		return (Namespace) container;
+	}
+
+	// EXPORT
+
+	public void exportCSV(String fileName) {
+		try (Writer writer = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8)) {
+			writer.write("level,source,target,inheritance,invocation,access,declaredType,annotation\n");
+			List<String> typeNames = qualifiedTypeNames();
+			typeEdges.forEach((source, target, counts, offset) -> writeCSVLine(writer, "type", typeNames.get(source),
+					typeNames.get(target), counts, offset));
+			List<String> namespaceNames = qualifiedNamespaceNames();
+			namespaceEdges.forEach((source, target, counts, offset) -> writeCSVLine(writer, "package",
+					namespaceNames.get(source), namespaceNames.get(target), counts, offset));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void writeCSVLine(Writer writer, String level, String source, String target, int[] counts, int offset)
+			throws IOException {
+		StringBuilder line = new StringBuilder();
+		line.append(level).append(',').append(quoted(source)).append(',').append(quoted(target));
+		for (int kind = 0; kind < KINDS; kind++)
+			line.append(',').append(counts[offset + kind]);
+		writer.write(line.append('\n').toString());
+	}
+
+	private String quoted(String value) {
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * The binary format is: magic, version, number of kinds, and then for types
+	 * and for namespaces: the number of names, the names, the number of edges, and
+	 * each edge as source id, target id and one count per kind
+	 */
+	public void exportBinary(String fileName) {
+		try (DataOutputStream stream = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(Paths.get(fileName))))) {
+			stream.writeInt(BINARY_MAGIC);
+			stream.writeInt(BINARY_VERSION);
+			stream.writeInt(KINDS);
+			writeBinaryLevel(stream, qualifiedTypeNames(), typeEdges);
+			writeBinaryLevel(stream, qualifiedNamespaceNames(), namespaceEdges);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void writeBinaryLevel(DataOutputStream stream, List<String> names, EdgeTable edges) throws IOException {
+		stream.writeInt(names.size());
+		for (String name : names)
+			stream.writeUTF(name);
+		stream.writeInt(edges.size());
+		edges.forEach((source, target, counts, offset) -> {
+			stream.writeInt(source);
+			stream.writeInt(target);
+			for (int kind = 0; kind < KINDS; kind++)
+				stream.writeInt(counts[offset + kind]);
+		});
+	}
+
+	private List<String> qualifiedTypeNames() {
+		List<String> names = new ArrayList<String>(typesById.size());
+		for (Type type : typesById)
+			names.add(Famix.qualifiedNameOf(type));
+		return names;
+	}
+
+	private List<String> qualifiedNamespaceNames() {
+		List<String> names = new ArrayList<String>(namespacesById.size());
+		for (Namespace namespace : namespacesById)
+			names.add(namespace == null ? InJavaImporter.UNKNOWN_NAME : Famix.qualifiedNameOf(namespace));
+		return names;
+	}
+
+	// EDGES
+
+	private interface EdgeVisitor {
+		void visit(int source, int target, int[] counts, int offset) throws IOException;
+	}
+
+	/**
+	 * Open addressing table from a (source, target) pair packed in a long to one
+	 * counter per kind
+	 */
+	private static class EdgeTable {
+		private static final long EMPTY = -1L;
+
+		private long[] keys;
+		private int[] counts;
+		private int size;
+
+		EdgeTable() {
+			allocate(64);
+		}
+
+		private void allocate(int capacity) {
+			keys = new long[capacity];
+			Arrays.fill(keys, EMPTY);
+			counts = new int[capacity * KINDS];
+		}
+
+		private static long keyOf(int source, int target) {
+			return ((long) source << 32) | (target & 0xFFFFFFFFL);
+		}
+
+		private int slotOf(long key) {
+			int mask = keys.length - 1;
+			long mixed = key * 0x9E3779B97F4A7C15L;
+			int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+			while (keys[slot] != EMPTY && keys[slot] != key)
+				slot = (slot + 1) & mask;
+			return slot;
+		}
+
+		void increment(int source, int target, int kind) {
+			long key = keyOf(source, target);
+			int slot = slotOf(key);
+			if (keys[slot] == EMPTY) {
+				if ((size + 1) * 4 > keys.length * 3) {
+					grow();
+					slot = slotOf(key);
+				}
+				keys[slot] = key;
+				size++;
+			}
+			counts[slot * KINDS + kind]++;
+		}
+
+		int count(int source, int target, int kind) {
+			int slot = slotOf(keyOf(source, target));
+			if (keys[slot] == EMPTY)
+				return 0;
+			return counts[slot * KINDS + kind];
+		}
+
+		int size() {
+			return size;
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			int[] oldCounts = counts;
+			allocate(oldKeys.length * 2);
+			for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+				if (oldKeys[oldSlot] == EMPTY)
+					continue;
+				int slot = slotOf(oldKeys[oldSlot]);
+				keys[slot] = oldKeys[oldSlot];
+				System.arraycopy(oldCounts, oldSlot * KINDS, counts, slot * KINDS, KINDS);
+			}
+		}
+
+		void forEach(EdgeVisitor visitor) throws IOException {
+			for (int slot = 0; slot < keys.length; slot++) {
+				if (keys[slot] == EMPTY)
+					continue;
+				visitor.visit((int) (keys[slot] >>> 32), (int) keys[slot], counts, slot * KINDS);
+			}
+		}
+	}
+
+}
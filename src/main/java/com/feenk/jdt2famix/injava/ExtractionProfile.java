@@ -0,0 +1,95 @@
+package com.feenk.jdt2famix.injava;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Tells the {@link InJavaImporter} which facets of the model to extract.
+ * Namespaces, types, methods, attributes, parameters and inheritances are
+ * always extracted. Without {@link Facet#METHOD_BODIES}, JDT does not even parse
+ * the bodies of methods, so nothing that comes from a body is extracted. The
+ * other facets cost time and memory, and many jobs do not need them.
+ *
+ * Profiles are immutable. Start from one of the named profiles and switch
+ * single facets with {@link #with(Facet...)} and {@link #without(Facet...)}.
+ */
+public class ExtractionProfile {
+
+	public enum Facet {
+		COMMENTS, LOCAL_VARIABLES, ANNOTATIONS, SOURCE_ANCHORS, INVOCATIONS, ACCESSES, EXCEPTIONS, METHOD_BODIES;
+
+		public static Facet named(String name) {
+			return valueOf(name.trim().toUpperCase().replace('-', '_'));
+		}
+	}
+
+	/**
+	 * Everything, which is what the importer always did
+	 */
+	public static final ExtractionProfile FULL = new ExtractionProfile(EnumSet.allOf(Facet.class));
+
+	/**
+	 * Everything that makes types depend on each other, without the details inside
+	 * methods that are not dependencies
+	 */
+	public static final ExtractionProfile ARCHITECTURE = new ExtractionProfile(EnumSet.of(Facet.ANNOTATIONS,
+			Facet.INVOCATIONS, Facet.ACCESSES, Facet.EXCEPTIONS, Facet.METHOD_BODIES));
+
+	/**
+	 * Only the invocations between methods
+	 */
+	public static final ExtractionProfile CALLGRAPH = new ExtractionProfile(
+			EnumSet.of(Facet.INVOCATIONS, Facet.METHOD_BODIES));
+
+	/**
+	 * The API surface, without parsing method bodies
+	 */
+	public static final ExtractionProfile DECLARATIONS = new ExtractionProfile(
+			EnumSet.of(Facet.COMMENTS, Facet.ANNOTATIONS, Facet.SOURCE_ANCHORS, Facet.EXCEPTIONS));
+
+	public static ExtractionProfile named(String name) {
+		switch (name.trim().toLowerCase()) {
+		case "full":
+			return FULL;
+		case "architecture":
+			return ARCHITECTURE;
+		case "callgraph":
+			return CALLGRAPH;
+		case "declarations":
+			return DECLARATIONS;
+		default:
+			throw new IllegalArgumentException("unknown extraction profile - " + name);
+		}
+	}
+
+	private final Set<Facet> facets;
+
+	private ExtractionProfile(EnumSet<Facet> facets) {
+		this.facets = Collections.unmodifiableSet(facets);
+	}
+
+	public boolean has(Facet facet) {
+		return facets.contains(facet);
+	}
+
+	public Set<Facet> facets() {
+		return facets;
+	}
+
+	public ExtractionProfile with(Facet... facets) {
+		EnumSet<Facet> newFacets = EnumSet.noneOf(Facet.class);
+		newFacets.addAll(this.facets);
+		newFacets.addAll(Arrays.asList(facets));
+		return new ExtractionProfile(newFacets);
+	}
+
+	public ExtractionProfile without(Facet... facets) {
+		EnumSet<Facet> newFacets = EnumSet.noneOf(Facet.class);
+		newFacets.addAll(this.facets);
+		newFacets.removeAll(Arrays.asList(facets));
+		return new ExtractionProfile(newFacets);
+	}
+
+}
@@ -0,0 +1,375 @@
+package com.feenk.jdt2famix.injava;
+
+import static com.feenk.jdt2famix.ValueCodec.isPrimitiveValue;
+import static com.feenk.jdt2famix.ValueCodec.readString;
+import static com.feenk.jdt2famix.ValueCodec.readValue;
+import static com.feenk.jdt2famix.ValueCodec.writeString;
+import static com.feenk.jdt2famix.ValueCodec.writeValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.feenk.jdt2famix.StagingRepository;
+import com.feenk.jdt2famix.model.WriteBarrier;
+import com.feenk.jdt2famix.model.famix.Enum;
+import com.feenk.jdt2famix.model.famix.EnumValue;
+import com.feenk.jdt2famix.model.famix.UnknownVariable;
+
+import ch.akuhn.fame.MetaRepository;
+import ch.akuhn.fame.Repository;
+import ch.akuhn.fame.fm3.MetaDescription;
+import ch.akuhn.fame.fm3.PropertyDescription;
+
+/**
+ * What the visit of one file adds to the model, in a form that can be replayed
+ * into another model without visiting the file again.
+ *
+ * The facts of a file are the entities it created, with all their properties,
+ * and the properties it changed on entities that other files created. Entities
+ * that several files share, such as types and methods, are identified by their
+ * key in the indexes of the importer, so that a replay finds them in the model,
+ * or creates them as stubs when no file created them yet. Enum values are
+ * identified by their enum and name. References to entities that the file
+ * neither created nor looked up in an index are not kept.
+ *
+ * The same contents can be at another path in another checkout, so the name of
+ * the file in the source anchors is replaced by the name it has in the replay.
+ *
+ * The facts also hold the shapes of the source types that the file refers to,
+ * so that the importer can tell whether they changed before a replay.
+ */
+class FileFacts {
+
+	private static final int MAGIC = 0x4A324646;
+	static final int VERSION = 3;
+
+	private static final byte NEW = 1;
+	private static final byte OLD = 2;
+
+	private static final byte LOCAL = 'L';
+	private static final byte KEYED = 'K';
+	private static final byte ENUM_VALUE = 'E';
+	private static final byte UNKNOWN_VARIABLE = 'U';
+
+	private static final byte END = 0;
+	private static final byte PROPERTIES = 1;
+
+	private static final byte CREATION = 'C';
+	private static final byte CHANGES = 'X';
+
+	private static final String IS_STUB = "isStub";
+	private static final String FILE_NAME = "fileName";
+
+	/**
+	 * The importer tells the recorder about each entity it finds or puts in one of
+	 * its indexes, and about the other entities it reuses, such as enum values.
+	 * The recorder also listens to the {@link WriteBarrier}: the first time the
+	 * file writes an entity that another file created, the recorder keeps its
+	 * values, to find later what the file changed. Entities that are only read
+	 * cost no copy
+	 */
+	static class Recorder implements WriteBarrier.Listener {
+		private final StagingRepository repository;
+		private final String fileName;
+		private final Map<Object, String[]> keys = new IdentityHashMap<Object, String[]>();
+		private final Set<Object> observed = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		private final Map<Object, Map<String, List<Object>>> valuesBefore = new IdentityHashMap<Object, Map<String, List<Object>>>();
+		private final Map<String, String> referencedTypes = new TreeMap<String, String>();
+
+		Recorder(StagingRepository repository, String fileName) {
+			this.repository = repository;
+			this.fileName = fileName;
+		}
+
+		void observed(String index, String key, Object element) {
+			if (index != null)
+				keys.putIfAbsent(element, new String[] { index, key });
+			observed.add(element);
+		}
+
+		void referenced(String typeKey, String shape) {
+			referencedTypes.put(typeKey, shape);
+		}
+
+		@Override
+		public void beforeWrite(Object element) {
+			if (!valuesBefore.containsKey(element) && repository.getElements().contains(element)
+					&& !repository.isStaged(element))
+				valuesBefore.put(element, valuesOf(element));
+		}
+
+		/**
+		 * Answers the facts, given the entities that the file created
+		 */
+		byte[] finish(List<Object> newElements) {
+			Set<Object> created = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+			created.addAll(newElements);
+			Map<Object, Integer> nodeIds = new IdentityHashMap<Object, Integer>();
+			List<Object> nodes = new ArrayList<Object>();
+			for (Object element : newElements)
+				addNode(element, nodes, nodeIds);
+			Set<Object> old = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+			old.addAll(observed);
+			old.addAll(valuesBefore.keySet());
+			for (Object element : old)
+				if (!created.contains(element) && repository.getElements().contains(element) && identifiable(element))
+					addNode(element, nodes, nodeIds);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (DataOutputStream out = new DataOutputStream(bytes)) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				writeString(out, fileName);
+				out.writeInt(referencedTypes.size());
+				for (Map.Entry<String, String> type : referencedTypes.entrySet()) {
+					writeString(out, type.getKey());
+					writeString(out, type.getValue());
+				}
+				out.writeInt(nodes.size());
+				for (Object node : nodes) {
+					out.writeByte(created.contains(node) ? NEW : OLD);
+					writeString(out, repository.descriptionOf(node).getFullname());
+					writeIdentity(out, node, nodeIds);
+				}
+				for (Object node : nodes) {
+					Map<String, List<Object>> values = valuesOf(node);
+					if (created.contains(node)) {
+						writeProperties(out, nodeIds.get(node), CHANGES, values, nodeIds, false);
+						continue;
+					}
+					Map<String, List<Object>> before = valuesBefore.getOrDefault(node, values);
+					Map<String, List<Object>> changed = new LinkedHashMap<String, List<Object>>();
+					values.forEach((name, value) -> {
+						if (!value.equals(before.get(name)))
+							changed.put(name, value);
+					});
+					writeProperties(out, nodeIds.get(node), CREATION, before, nodeIds, false);
+					writeProperties(out, nodeIds.get(node), CHANGES, changed, nodeIds, true);
+				}
+				out.writeByte(END);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			return bytes.toByteArray();
+		}
+
+		private static void addNode(Object element, List<Object> nodes, Map<Object, Integer> nodeIds) {
+			nodeIds.put(element, nodes.size());
+			nodes.add(element);
+		}
+
+		private boolean identifiable(Object element) {
+			if (keys.containsKey(element) || element instanceof UnknownVariable)
+				return true;
+			if (element instanceof EnumValue) {
+				Enum parentEnum = ((EnumValue) element).getParentEnum();
+				return parentEnum != null && keys.containsKey(parentEnum);
+			}
+			return false;
+		}
+
+		private void writeIdentity(DataOutputStream out, Object node, Map<Object, Integer> nodeIds)
+				throws IOException {
+			String[] key = keys.get(node);
+			if (key != null) {
+				out.writeByte(KEYED);
+				writeString(out, key[0]);
+				writeString(out, key[1]);
+			} else if (node instanceof UnknownVariable)
+				out.writeByte(UNKNOWN_VARIABLE);
+			else if (node instanceof EnumValue && keys.containsKey(((EnumValue) node).getParentEnum())) {
+				out.writeByte(ENUM_VALUE);
+				out.writeInt(nodeIds.get(((EnumValue) node).getParentEnum()));
+				writeString(out, ((EnumValue) node).getName());
+			} else
+				out.writeByte(LOCAL);
+		}
+
+		/**
+		 * Derived properties are the opposites of other properties, so they are set
+		 * when the other properties are set
+		 */
+		private Map<String, List<Object>> valuesOf(Object element) {
+			Map<String, List<Object>> values = new LinkedHashMap<String, List<Object>>();
+			for (PropertyDescription property : repository.descriptionOf(element).allAttributes())
+				if (!property.isDerived())
+					values.put(property.getName(), new ArrayList<Object>(property.readAll(element)));
+			return values;
+		}
+
+		/**
+		 * Properties without a value are only written when they lost their value
+		 */
+		private static void writeProperties(DataOutputStream out, int node, byte section,
+				Map<String, List<Object>> values, Map<Object, Integer> nodeIds, boolean withEmpty) throws IOException {
+			Map<String, List<Object>> known = new LinkedHashMap<String, List<Object>>();
+			values.forEach((name, value) -> {
+				List<Object> knownValue = new ArrayList<Object>();
+				for (Object each : value)
+					if (isPrimitiveValue(each) || nodeIds.containsKey(each))
+						knownValue.add(each);
+				if (withEmpty || !knownValue.isEmpty())
+					known.put(name, knownValue);
+			});
+			out.writeByte(PROPERTIES);
+			out.writeInt(node);
+			out.writeByte(section);
+			out.writeShort(known.size());
+			for (Map.Entry<String, List<Object>> property : known.entrySet()) {
+				writeString(out, property.getKey());
+				out.writeInt(property.getValue().size());
+				for (Object value : property.getValue())
+					writeValue(out, value, nodeIds::get);
+			}
+		}
+	}
+
+	/**
+	 * Answers the shapes of the source types that the file referred to, by their
+	 * binding keys, or null when these are not the facts of a file
+	 */
+	static Map<String, String> referencedTypesOf(byte[] facts) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(facts))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return null;
+			readString(in);
+			return readReferencedTypes(in);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static Map<String, String> readReferencedTypes(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		Map<String, String> referencedTypes = new TreeMap<String, String>();
+		for (int i = 0; i < count; i++)
+			referencedTypes.put(readString(in), readString(in));
+		return referencedTypes;
+	}
+
+	/**
+	 * Replays the facts into the model of the importer. Entities that the file
+	 * only refers to and that are not in the model yet are created as stubs.
+	 * Single values overwrite those in the model, and multiple values are added to
+	 * them
+	 */
+	static void replay(byte[] facts, InJavaImporter importer, String fileName) {
+		Repository repository = importer.repository();
+		MetaRepository metamodel = repository.getMetamodel();
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(facts))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IllegalStateException("not the facts of a file");
+			String recordedFileName = readString(in);
+			readReferencedTypes(in);
+			int nodeCount = in.readInt();
+			byte[] kinds = new byte[nodeCount];
+			MetaDescription[] metas = new MetaDescription[nodeCount];
+			byte[] identities = new byte[nodeCount];
+			String[][] keys = new String[nodeCount][];
+			int[] parentEnums = new int[nodeCount];
+			for (int i = 0; i < nodeCount; i++) {
+				kinds[i] = in.readByte();
+				metas[i] = metamodel.get(readString(in));
+				identities[i] = in.readByte();
+				if (identities[i] == KEYED)
+					keys[i] = new String[] { readString(in), readString(in) };
+				else if (identities[i] == ENUM_VALUE) {
+					parentEnums[i] = in.readInt();
+					keys[i] = new String[] { null, readString(in) };
+				}
+			}
+			Object[] elements = new Object[nodeCount];
+			boolean[] created = new boolean[nodeCount];
+			/*
+			 * Enum values are found through their enum, so the enums come first
+			 */
+			for (byte pass : new byte[] { KEYED, ENUM_VALUE })
+				for (int i = 0; i < nodeCount; i++) {
+					if ((identities[i] == ENUM_VALUE) != (pass == ENUM_VALUE))
+						continue;
+					Object existing = null;
+					if (identities[i] == KEYED)
+						existing = importer.index(keys[i][0]).named(keys[i][1]);
+					else if (identities[i] == UNKNOWN_VARIABLE)
+						existing = importer.unknownVariable();
+					else if (identities[i] == ENUM_VALUE)
+						existing = importer.existingEnumValue((Enum) elements[parentEnums[i]], keys[i][1]);
+					created[i] = existing == null;
+					elements[i] = existing == null ? metas[i].newInstance() : existing;
+				}
+			Map<MetaDescription, Map<String, PropertyDescription>> properties = new HashMap<MetaDescription, Map<String, PropertyDescription>>();
+			for (byte record = in.readByte(); record != END; record = in.readByte()) {
+				if (record != PROPERTIES)
+					throw new IllegalStateException("corrupt facts of a file");
+				int node = in.readInt();
+				byte section = in.readByte();
+				Object element = elements[node];
+				Map<String, PropertyDescription> propertiesOfElement = properties.computeIfAbsent(
+						repository.descriptionOf(element), FileFacts::propertiesByName);
+				boolean applies = section == CHANGES || created[node];
+				if (section == CHANGES && created[node] && kinds[node] == OLD
+						&& propertiesOfElement.containsKey(IS_STUB))
+					write(propertiesOfElement.get(IS_STUB), element, Collections.<Object>singletonList(true));
+				int count = in.readShort();
+				for (int i = 0; i < count; i++) {
+					PropertyDescription property = propertiesOfElement.get(readString(in));
+					int size = in.readInt();
+					List<Object> value = new ArrayList<Object>(size);
+					for (int j = 0; j < size; j++)
+						value.add(readValue(in, index -> elements[index]));
+					if (!applies || property == null)
+						continue;
+					if (FILE_NAME.equals(property.getName()) && value.equals(Collections.singletonList(recordedFileName)))
+						value = Collections.<Object>singletonList(fileName);
+					write(property, element, value);
+				}
+			}
+			for (int i = 0; i < nodeCount; i++) {
+				if (!created[i])
+					continue;
+				if (identities[i] == KEYED)
+					importer.index(keys[i][0]).add(keys[i][1], elements[i]);
+				else
+					repository.add(elements[i]);
+				if (elements[i] instanceof EnumValue)
+					importer.rememberEnumValue((EnumValue) elements[i]);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void write(PropertyDescription property, Object element, List<Object> value) {
+		if (!property.isMultivalued()) {
+			property.writeAll(element, value.isEmpty() ? Collections.singletonList(null) : value);
+			return;
+		}
+		Collection<Object> current = property.readAll(element);
+		List<Object> union = new ArrayList<Object>(current);
+		for (Object each : value)
+			if (!current.contains(each))
+				union.add(each);
+		property.writeAll(element, union);
+	}
+
+	private static Map<String, PropertyDescription> propertiesByName(MetaDescription meta) {
+		Map<String, PropertyDescription> byName = new HashMap<String, PropertyDescription>();
+		for (PropertyDescription property : meta.allAttributes())
+			if (!property.isDerived())
+				byName.put(property.getName(), property);
+		return byName;
+	}
+
+}
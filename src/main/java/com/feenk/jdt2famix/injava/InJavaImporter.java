@@ -3,21 +3,35 @@ package com.feenk.jdt2famix.injava;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.StringJoiner;
+import java.util.TreeSet;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.AnnotationTypeMemberDeclaration;
 import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
 import org.eclipse.jdt.core.dom.BodyDeclaration;
@@ -37,22 +51,34 @@ import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.IVariableBinding;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Modifier;
-import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.ParenthesizedExpression;
 import org.eclipse.jdt.core.dom.QualifiedName;
 import org.eclipse.jdt.core.dom.SimpleName;
 import org.eclipse.jdt.core.dom.SimpleType;
 import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 
+import com.feenk.jdt2famix.Classpath;
+import com.feenk.jdt2famix.ContentAddressedCache;
 import com.feenk.jdt2famix.Famix;
+import com.feenk.jdt2famix.GitRepository;
+import com.feenk.jdt2famix.HeapGovernor;
 import com.feenk.jdt2famix.Importer;
 import com.feenk.jdt2famix.JavaFiles;
+import com.feenk.jdt2famix.ModelSnapshot;
+import com.feenk.jdt2famix.StagingRepository;
+import com.feenk.jdt2famix.injava.ExtractionProfile.Facet;
+import com.feenk.jdt2famix.model.Modifiers;
+import com.feenk.jdt2famix.model.WriteBarrier;
+import com.feenk.jdt2famix.model.famix.AbstractFileAnchor;
 import com.feenk.jdt2famix.model.famix.Access;
 import com.feenk.jdt2famix.model.famix.AnnotationInstance;
 import com.feenk.jdt2famix.model.famix.AnnotationInstanceAttribute;
 import com.feenk.jdt2famix.model.famix.AnnotationType;
 import com.feenk.jdt2famix.model.famix.AnnotationTypeAttribute;
+import com.feenk.jdt2famix.model.famix.Association;
 import com.feenk.jdt2famix.model.famix.Attribute;
+import com.feenk.jdt2famix.model.famix.BehaviouralEntity;
 import com.feenk.jdt2famix.model.famix.Class;
 import com.feenk.jdt2famix.model.famix.Comment;
 import com.feenk.jdt2famix.model.famix.ContainerEntity;
@@ -73,14 +99,19 @@ import com.feenk.jdt2famix.model.famix.ParameterType;
 import com.feenk.jdt2famix.model.famix.ParameterizableClass;
 import com.feenk.jdt2famix.model.famix.ParameterizedType;
 import com.feenk.jdt2famix.model.famix.PrimitiveType;
+import com.feenk.jdt2famix.model.famix.SourceAnchor;
 import com.feenk.jdt2famix.model.famix.SourcedEntity;
 import com.feenk.jdt2famix.model.famix.StructuralEntity;
 import com.feenk.jdt2famix.model.famix.Type;
 import com.feenk.jdt2famix.model.famix.UnknownVariable;
+import com.feenk.jdt2famix.model.file.FILEModel;
+import com.feenk.jdt2famix.model.file.File;
 import com.feenk.jdt2famix.model.java.JavaModel;
 
 import ch.akuhn.fame.MetaRepository;
 import ch.akuhn.fame.Repository;
+import ch.akuhn.fame.fm3.PropertyDescription;
+import ch.akuhn.fame.internal.MSEPrinter;
 
 /**
  * The core class that holds the logic of creating the model It looks like a god
@@ -106,7 +137,7 @@ public class InJavaImporter extends Importer {
 	private Type unknownType;
 	private UnknownVariable unknownVariable;
 
-	private Repository repository;
+	private StagingRepository repository;
 
 	public Repository repository() {
 		return repository;
@@ -138,14 +169,131 @@ public class InJavaImporter extends Importer {
 
 	private NamedEntityAccumulator<Parameter> parameters;
 
+	/**
+	 * Only created when {@link #trackDependencies()} is called, because most
+	 * imports do not need it
+	 */
+	private DependencyGraph dependencyGraph;
+
+	public DependencyGraph dependencyGraph() {
+		return dependencyGraph;
+	}
+
+	public DependencyGraph trackDependencies() {
+		if (extractionCache != null)
+			throw new IllegalStateException("dependencies are not kept in the extraction cache");
+		if (dependencyGraph == null)
+			dependencyGraph = new DependencyGraph();
+		return dependencyGraph;
+	}
+
+	/**
+	 * When set, the importer only streams metrics and does not keep the model
+	 * (see {@link MetricsAstRequestor})
+	 */
+	private MetricsWriter metricsWriter;
+
+	public void streamMetricsTo(MetricsWriter metricsWriter) {
+		if (columnarAssociations != null || spillsAssociations)
+			throw new IllegalStateException("metrics read the invocations, which are stored in columns");
+		this.metricsWriter = metricsWriter;
+	}
+
+	private ExtractionProfile extractionProfile = ExtractionProfile.FULL;
+
+	public void setExtractionProfile(ExtractionProfile extractionProfile) {
+		this.extractionProfile = extractionProfile;
+	}
+
+	public ExtractionProfile extractionProfile() {
+		return extractionProfile;
+	}
+
+	public boolean extracts(Facet facet) {
+		return extractionProfile.has(facet);
+	}
+
+	/**
+	 * When set, invocations and accesses are aggregated per (source, target) pair
+	 * instead of being created per site
+	 */
+	private AssociationAggregator associationAggregator;
+
+	public void aggregateAssociations(boolean keepSites) {
+		if (columnarAssociations != null || spillsAssociations)
+			throw new IllegalStateException("aggregated associations cannot be stored in columns");
+		if (extractionCache != null)
+			throw new IllegalStateException("aggregated associations cannot be kept in the extraction cache");
+		this.associationAggregator = new AssociationAggregator(keepSites);
+	}
+
+	public AssociationAggregator associationAggregator() {
+		return associationAggregator;
+	}
+
 	private String currentFilePath;
 
 	public String getCurrentFilePath() {
 		return currentFilePath;
 	}
 
+	/**
+	 * The name of the current file relative to the ignored root path. It comes from
+	 * the file table, so all anchors of a file share it
+	 */
+	private String currentFileName;
+
+	/**
+	 * The contents of the current file, from which we slice the text of nodes (see
+	 * {@link #sourceOf(ASTNode)})
+	 */
+	private String currentSource;
+
 	public void setCurrentFilePath(String currentFilePath) {
 		this.currentFilePath = currentFilePath;
+		this.currentFileName = currentFilePath == null ? null : fileTable().nameOfPath(currentFilePath);
+		this.currentSource = currentFilePath == null ? null : readSource(currentFilePath);
+		this.accessesBySite.clear();
+	}
+
+	private String readSource(String filePath) {
+		char[] parsedSource = parsedSourceOf(filePath);
+		if (parsedSource != null)
+			return new String(parsedSource);
+		if (sourcePrefetcher != null)
+			try {
+				return withoutByteOrderMark(new String(sourcePrefetcher.take(filePath)));
+			} catch (IllegalStateException e) {
+				logger.error("could not read source - " + filePath);
+				return null;
+			}
+		try {
+			return withoutByteOrderMark(new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			logger.error("could not read source - " + filePath);
+			return null;
+		}
+	}
+
+	/**
+	 * The parser skips the byte order mark of a UTF-8 file, so its positions do
+	 * not count it
+	 */
+	private static String withoutByteOrderMark(String source) {
+		return source.startsWith("\uFEFF") ? source.substring(1) : source;
+	}
+
+	/**
+	 * Answers the text of the node as written in the current file. We slice the
+	 * source instead of using toString(), because that flattens the whole subtree
+	 * again for every nested node. Without the source we fall back to toString()
+	 */
+	public String sourceOf(ASTNode node) {
+		int start = node.getStartPosition();
+		int end = start + node.getLength();
+		if (currentSource == null || start < 0 || end > currentSource.length())
+			return node.toString().trim();
+		return currentSource.substring(start, end).trim();
 	}
 
 	/**
@@ -154,12 +302,44 @@ public class InJavaImporter extends Importer {
 	 */
 	private Deque<ContainerEntity> containerStack = new ArrayDeque<ContainerEntity>();
 
+	/**
+	 * The methods, types and enums of the container stack, in the same order. They
+	 * let us answer the closest container of these kinds without scanning the
+	 * container stack, which is what most lookups ask for
+	 */
+	private Deque<Method> methodStack = new ArrayDeque<Method>();
+	private Deque<Type> typeStack = new ArrayDeque<Type>();
+	private Deque<Enum> enumStack = new ArrayDeque<Enum>();
+
+	/**
+	 * The parameters of the methods on the container stack by name. A map is only
+	 * built when we look up a parameter of the method
+	 */
+	private Map<Method, Map<String, Parameter>> parametersOfOpenMethods =
+			new IdentityHashMap<Method, Map<String, Parameter>>();
+
 	public void pushOnContainerStack(ContainerEntity namespace) {
 		this.containerStack.push(namespace);
+		if (namespace instanceof Method)
+			methodStack.push((Method) namespace);
+		if (namespace instanceof Type)
+			typeStack.push((Type) namespace);
+		if (namespace instanceof Enum)
+			enumStack.push((Enum) namespace);
 	}
 
 	public ContainerEntity popFromContainerStack() {
-		return this.containerStack.pop();
+		ContainerEntity top = this.containerStack.pop();
+		if (top instanceof Method) {
+			methodStack.pop();
+			if (!methodStack.contains(top))
+				parametersOfOpenMethods.remove(top);
+		}
+		if (top instanceof Type)
+			typeStack.pop();
+		if (top instanceof Enum)
+			enumStack.pop();
+		return top;
 	}
 
 	public ContainerEntity topOfContainerStack() {
@@ -168,6 +348,12 @@ public class InJavaImporter extends Importer {
 
 	@SuppressWarnings("unchecked")
 	public <T> T topFromContainerStack(java.lang.Class<T> clazz) {
+		if (clazz == Method.class)
+			return (T) methodStack.peek();
+		if (clazz == Type.class)
+			return (T) typeStack.peek();
+		if (clazz == Enum.class)
+			return (T) enumStack.peek();
 		for (Iterator<ContainerEntity> iterator = containerStack.iterator(); iterator.hasNext();) {
 			ContainerEntity next = iterator.next();
 			if (clazz.isInstance(next))
@@ -176,25 +362,1000 @@ public class InJavaImporter extends Importer {
 		return null;
 	}
 
+	private final MetaRepository metaRepository;
+
+	/**
+	 * Method signatures by binding key. The same method is typically referenced
+	 * from many places, and its signature does not change during an import. The
+	 * keys do not depend on the model, so these survive {@link #resetModel()}, but
+	 * not a new run
+	 */
+	private Map<String, String> methodSignatures = new HashMap<String, String>();
+
 	public InJavaImporter() {
-		MetaRepository metaRepository = new MetaRepository();
+		metaRepository = new MetaRepository();
 		FAMIXModel.importInto(metaRepository);
 		JavaModel.importInto(metaRepository);
-		repository = new Repository(metaRepository);
+		FILEModel.importInto(metaRepository);
+		resetModel();
+	}
+
+	/**
+	 * Drops the model built so far and starts from an empty one. The metrics only
+	 * mode calls this after each file so that the memory does not grow with the
+	 * size of the code base
+	 */
+	public void resetModel() {
+		startModelIn(new StagingRepository(metaRepository));
 		repository.add(new JavaSourceLanguage());
+	}
+
+	private void startModelIn(StagingRepository repository) {
+		this.repository = repository;
+		if (snapshot != null)
+			repository.observeWith(snapshot);
 
 		namespaces = new NamedEntityAccumulator<Namespace>(repository);
 		types = new NamedEntityAccumulator<Type>(repository);
 		methods = new NamedEntityAccumulator<Method>(repository);
 		attributes = new NamedEntityAccumulator<Attribute>(repository);
 		parameters = new NamedEntityAccumulator<Parameter>(repository);
+
+		unknownNamespace = null;
+		unknownType = null;
+		unknownVariable = null;
+		files = new HashMap<String, File>();
+		enumValues = new IdentityHashMap<Enum, Map<String, EnumValue>>();
+		if (associationAggregator != null)
+			associationAggregator = new AssociationAggregator(associationAggregator.keepsSites());
+		typesToRelink.clear();
+	}
+
+	@Override
+	public void run(JavaFiles javaFiles, Classpath classpath) {
+		dropCaches();
+		boolean listens = snapshot != null || extractionCache != null;
+		if (listens)
+			WriteBarrier.addListener(writes);
+		try {
+			super.run(javaFiles, classpath);
+			if (snapshot != null && !pathsSinceCheckpoint.isEmpty())
+				checkpoint();
+		} finally {
+			if (listens)
+				WriteBarrier.removeListener(writes);
+		}
+	}
+
+	private final WriteBarrier.Listener writes = this::beforeWrite;
+
+	/**
+	 * While the importer runs, the checkpoints and the recorder of the extraction
+	 * cache learn which entities are written
+	 */
+	private void beforeWrite(Object element) {
+		if (snapshot != null)
+			snapshot.beforeWrite(element);
+		if (recorder != null)
+			recorder.beforeWrite(element);
+	}
+
+	/**
+	 * Without comments, there is no need for JDT to parse the tags of Javadoc
+	 * comments
+	 */
+	@Override
+	protected void configureCompilerOptions(Map<String, String> options) {
+		if (!extracts(Facet.COMMENTS))
+			options.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.DISABLED);
+	}
+
+	@Override
+	protected void configureParser(ASTParser parser) {
+		parser.setIgnoreMethodBodies(!extracts(Facet.METHOD_BODIES));
 	}
 
 	@Override
 	protected FileASTRequestor getRequestor(JavaFiles allJavaFiles) {
+		if (metricsWriter != null)
+			return new MetricsAstRequestor(this, allJavaFiles, metricsWriter);
 		return new AstRequestor(this, allJavaFiles);
 	}
 
+	// CHECKPOINTS
+
+	private static final String NAMESPACES_INDEX = "namespaces";
+	private static final String TYPES_INDEX = "types";
+	private static final String METHODS_INDEX = "methods";
+	private static final String ATTRIBUTES_INDEX = "attributes";
+	private static final String PARAMETERS_INDEX = "parameters";
+
+	private ModelSnapshot snapshot;
+	private int checkpointEveryFiles;
+	private List<String> pathsSinceCheckpoint = new ArrayList<String>();
+
+	/**
+	 * Saves the model to the folder after every so many files and at the end of
+	 * the run, so that an import that crashes can continue with {@link #resume()}.
+	 * Each checkpoint only writes what changed since the previous one. Changes to
+	 * the entities already saved are only seen while the importer runs
+	 */
+	public void checkpointTo(Path directory, int everyFiles) {
+		if (spillsAssociations)
+			throw new IllegalStateException("checkpoints do not save the associations stored in columns");
+		snapshot = new ModelSnapshot(directory);
+		repository.observeWith(snapshot);
+		checkpointEveryFiles = everyFiles;
+		pathsSinceCheckpoint = new ArrayList<String>();
+	}
+
+	void fileVisited(String path) {
+		if (heapGovernor != null)
+			heapGovernor.relieve();
+		if (snapshot == null)
+			return;
+		pathsSinceCheckpoint.add(path);
+		if (pathsSinceCheckpoint.size() >= checkpointEveryFiles)
+			checkpoint();
+	}
+
+	public void checkpoint() {
+		Map<String, Map<String, ?>> indexes = new HashMap<String, Map<String, ?>>();
+		indexes.put(NAMESPACES_INDEX, namespaces.entries());
+		indexes.put(TYPES_INDEX, types.entries());
+		indexes.put(METHODS_INDEX, methods.entries());
+		indexes.put(ATTRIBUTES_INDEX, attributes.entries());
+		indexes.put(PARAMETERS_INDEX, parameters.entries());
+		snapshot.writeSegment(repository, pathsSinceCheckpoint, indexes);
+		pathsSinceCheckpoint = new ArrayList<String>();
+	}
+
+	/**
+	 * Replaces the model with the one saved in the checkpoint folder, and answers
+	 * the paths of the files that were already visited and should not be imported
+	 * again (see {@link JavaFiles#skip(Collection)}). The dependency graph and the
+	 * sites of aggregated associations are not saved, so they only cover the files
+	 * visited after resuming
+	 */
+	public List<String> resume() {
+		if (snapshot.segmentCount() == 0)
+			return new ArrayList<String>();
+		return restoreFrom(snapshot).visitedPaths();
+	}
+
+	/**
+	 * Starts from the model saved in the checkpoint folder of another import,
+	 * without writing to that folder
+	 */
+	public void startFrom(Path checkpointFolder) {
+		ModelSnapshot base = new ModelSnapshot(checkpointFolder);
+		if (base.segmentCount() == 0)
+			throw new IllegalStateException("no model saved in - " + checkpointFolder);
+		restoreFrom(base);
+	}
+
+	private ModelSnapshot.Restored restoreFrom(ModelSnapshot snapshot) {
+		StagingRepository restoredRepository = new StagingRepository(metaRepository);
+		ModelSnapshot.Restored restored = snapshot.restoreInto(restoredRepository);
+		startModelIn(restoredRepository);
+		namespaces.restore(restored.index(NAMESPACES_INDEX));
+		types.restore(restored.index(TYPES_INDEX));
+		methods.restore(restored.index(METHODS_INDEX));
+		attributes.restore(restored.index(ATTRIBUTES_INDEX));
+		parameters.restore(restored.index(PARAMETERS_INDEX));
+		unknownNamespace = namespaces.named(UNKNOWN_NAME);
+		unknownVariable = repository.all(UnknownVariable.class).stream().findFirst().orElse(null);
+		repository.all(File.class).forEach(file -> files.put(file.getName(), file));
+		for (Enum each : repository.all(Enum.class)) {
+			Map<String, EnumValue> valuesByName = new HashMap<String, EnumValue>();
+			each.getValues().forEach(value -> valuesByName.put(value.getName(), value));
+			enumValues.put(each, valuesByName);
+		}
+		if (associationAggregator != null)
+			restoreAggregatedAssociations();
+		return restored;
+	}
+
+	private void restoreAggregatedAssociations() {
+		for (Invocation invocation : repository.all(Invocation.class))
+			if (invocation.getOccurrences() != null)
+				associationAggregator.restore(invocation.getSender(),
+						invocation.getCandidates().isEmpty() ? invocation.getSignature()
+								: invocation.getCandidates().iterator().next(),
+						Invocation.class, invocation);
+		for (Access access : repository.all(Access.class))
+			if (access.getOccurrences() != null)
+				associationAggregator.restore(access.getAccessor(), access.getVariable(), access.getIsWrite(),
+						access);
+	}
+
+	// MEMORY
+
+	private int batchSize = Integer.MAX_VALUE;
+	private HeapGovernor heapGovernor;
+
+	/**
+	 * Parses the files in batches of this size instead of all at once
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Lets the governor choose the batch sizes. Under heap pressure, the importer
+	 * drops its memos, spills the associations when it was told to with
+	 * {@link #spillAssociationsUnderPressure(Path)}, and, when checkpoints are on,
+	 * writes a checkpoint, so that the work done so far is on disk if the import
+	 * still runs out of memory. The other entities stay in memory, because the
+	 * files still to come refer to them
+	 */
+	public void governHeap(HeapGovernor governor) {
+		heapGovernor = governor;
+		governor.onPressure(this::dropCaches);
+		governor.onPressure(this::spillAssociations);
+		governor.onPressure(() -> {
+			if (snapshot != null && !pathsSinceCheckpoint.isEmpty())
+				checkpoint();
+		});
+	}
+
+	private boolean spillsAssociations;
+	private Path spillDirectory;
+
+	/**
+	 * The first time the heap is under pressure, the invocations and accesses of
+	 * the files imported so far move into columns, and those of the later files
+	 * follow once they are imported, as with
+	 * {@link #storeAssociationsInColumns(Path)}. Checkpoints do not save the
+	 * columns, so they cannot be combined
+	 */
+	public void spillAssociationsUnderPressure(Path directory) {
+		if (associationAggregator != null)
+			throw new IllegalStateException("aggregated associations cannot be stored in columns");
+		if (metricsWriter != null)
+			throw new IllegalStateException("metrics read the invocations, which are stored in columns");
+		if (snapshot != null)
+			throw new IllegalStateException("checkpoints do not save the associations stored in columns");
+		spillsAssociations = true;
+		spillDirectory = directory;
+	}
+
+	private void spillAssociations() {
+		if (!spillsAssociations || columnarAssociations != null)
+			return;
+		logger.trace("heap pressure - moving the invocations and accesses to columns");
+		columnarAssociations = new ColumnarAssociations(spillDirectory);
+		moveAssociationsToColumns(Stream.concat(repository.all(Invocation.class).stream(),
+				repository.all(Access.class).stream()).collect(Collectors.toList()));
+	}
+
+	@Override
+	protected int nextBatchSize() {
+		return heapGovernor == null ? batchSize : heapGovernor.nextBatchSize();
+	}
+
+	public void dropCaches() {
+		methodSignatures = new HashMap<String, String>();
+		typeShapes = new HashMap<String, String>();
+	}
+
+	// COLUMNS
+
+	private ColumnarAssociations columnarAssociations;
+
+	public ColumnarAssociations columnarAssociations() {
+		return columnarAssociations;
+	}
+
+	/**
+	 * Moves the invocations and accesses of each file, once the file is imported,
+	 * out of the repository into columns outside of the heap, so that they do not
+	 * have to fit in the heap. They are still exported with the MSE file. Without
+	 * a folder, the columns are in direct buffers, otherwise in memory-mapped files.
+	 * Aggregated associations are updated by later files, so they cannot move, and
+	 * checkpoints do not save the columns. The entities refuse to answer the
+	 * associations that moved, so the metrics, which read them, cannot be
+	 * streamed
+	 */
+	public ColumnarAssociations storeAssociationsInColumns(Path directory) {
+		if (associationAggregator != null)
+			throw new IllegalStateException("aggregated associations cannot be stored in columns");
+		if (metricsWriter != null)
+			throw new IllegalStateException("metrics read the invocations, which are stored in columns");
+		columnarAssociations = new ColumnarAssociations(directory);
+		return columnarAssociations;
+	}
+
+	private void moveAssociationsToColumns(List<?> elements) {
+		Set<Object> moved = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		for (Object element : elements)
+			if (element instanceof Invocation) {
+				columnarAssociations.add((Invocation) element);
+				moved.add(element);
+			} else if (element instanceof Access) {
+				columnarAssociations.add((Access) element);
+				moved.add(element);
+			}
+		repository.remove(moved);
+	}
+
+	// FAILURES
+
+	private ProblemReport problemReport = new ProblemReport();
+	private long timeBudgetMillis;
+	private long deadline;
+
+	public ProblemReport problemReport() {
+		return problemReport;
+	}
+
+	/**
+	 * Files that take longer than this to parse, resolve and visit are skipped and
+	 * reported in the {@link #problemReport()}. With a budget, each file is parsed
+	 * on its own so that the parser can stop at the deadline. Zero means no budget
+	 */
+	public void setTimeBudgetPerFile(long millis) {
+		timeBudgetMillis = millis;
+	}
+
+	@Override
+	protected long timeBudgetMillis() {
+		return timeBudgetMillis;
+	}
+
+	@Override
+	protected void parsingTimedOut(String filePath) {
+		report(filePath, new TimeBudgetExceededException(timeBudgetMillis));
+		fileVisited(filePath);
+	}
+
+	/**
+	 * Stages what the visit of a file adds to the model, so that a file that fails
+	 * can be taken out again with {@link #discardFile(String, RuntimeException)}
+	 */
+	void beginFile() {
+		repository.stage();
+		if (dependencyGraph != null)
+			dependencyGraph.stage();
+		if (extractionCache != null && cacheKeys.containsKey(currentFilePath))
+			startRecording();
+		long start = parseStartOf(currentFilePath);
+		deadline = timeBudgetMillis > 0 ? (start != 0 ? start : System.nanoTime()) + timeBudgetMillis * 1_000_000 : 0;
+	}
+
+	void checkTimeBudget() {
+		if (deadline != 0 && System.nanoTime() > deadline)
+			throw new TimeBudgetExceededException(timeBudgetMillis);
+	}
+
+	void commitFile() {
+		List<Object> committed = repository.commit();
+		if (dependencyGraph != null)
+			dependencyGraph.commit();
+		if (recorder != null)
+			recordFacts(committed);
+		if (columnarAssociations != null)
+			moveAssociationsToColumns(committed);
+	}
+
+	/**
+	 * Takes the entities created while visiting the file out of the model and the
+	 * indexes of the importer, undoes what the visit wrote to older entities and
+	 * drops the dependencies of the file, and reports the file
+	 */
+	void discardFile(String filePath, RuntimeException failure) {
+		rollbackFile();
+		report(filePath, failure);
+	}
+
+	private void report(String filePath, RuntimeException failure) {
+		boolean timedOut = failure instanceof TimeBudgetExceededException;
+		String fileName = fileTable().nameOfPath(filePath);
+		logger.error((timedOut ? "skipping file - " : "failed to import file - ") + fileName, failure);
+		problemReport.add(fileName, timedOut ? ProblemReport.Kind.TIMED_OUT : ProblemReport.Kind.FAILED,
+				timedOut ? failure.getMessage() : failure.toString());
+	}
+
+	private void rollbackFile() {
+		stopRecording();
+		forget(repository.rollback());
+		if (dependencyGraph != null)
+			dependencyGraph.rollback();
+		containerStack.clear();
+		methodStack.clear();
+		typeStack.clear();
+		enumStack.clear();
+		parametersOfOpenMethods.clear();
+	}
+
+	/**
+	 * Takes the entities that were taken out of the repository out of the indexes
+	 * of the importer
+	 */
+	private void forget(Set<Object> discarded) {
+		namespaces.discard(discarded);
+		types.discard(discarded);
+		methods.discard(discarded);
+		attributes.discard(discarded);
+		parameters.discard(discarded);
+		if (discarded.contains(unknownNamespace))
+			unknownNamespace = null;
+		if (discarded.contains(unknownType))
+			unknownType = null;
+		if (discarded.contains(unknownVariable))
+			unknownVariable = null;
+		files.values().removeIf(discarded::contains);
+		enumValues.keySet().removeIf(discarded::contains);
+		enumValues.values().forEach(valuesByName -> valuesByName.values().removeIf(discarded::contains));
+		if (associationAggregator != null)
+			associationAggregator.discard(discarded);
+		typesToRelink.removeAll(discarded);
+	}
+
+	// PATCHES
+
+	/**
+	 * The properties through which an entity belongs to another one, so that it
+	 * goes when the other one goes
+	 */
+	private static final Set<String> OWNER_PROPERTIES = new HashSet<String>(Arrays.asList("sender", "accessor",
+			"subclass", "container", "parentBehaviouralEntity", "definingMethod", "annotatedEntity",
+			"parentAnnotationInstance", "element", "source"));
+
+	/**
+	 * The types of forgotten files lose their inheritances, which are created
+	 * again from the binding when the type is met again
+	 */
+	private final Set<Type> typesToRelink = Collections.newSetFromMap(new IdentityHashMap<Type, Boolean>());
+
+	/**
+	 * Takes what the files contributed out of the model, before importing their
+	 * new versions, or because they were deleted. Entities that other files can
+	 * refer to, such as types, methods and enum values, stay and become stubs
+	 * again, so that the references to them stay intact. The other entities that
+	 * are anchored in the files go, with the entities that belong to them or to the
+	 * entities that became stubs, such as invocations, accesses, local variables,
+	 * comments and inheritances. Answers the stubs that may not be referenced
+	 * anymore: the entities that became stubs and the ones the removed entities
+	 * referred to
+	 */
+	public List<NamedEntity> forgetFiles(Collection<String> fileNames) {
+		if (columnarAssociations != null)
+			throw new IllegalStateException("associations stored in columns cannot be forgotten");
+		Set<String> names = new HashSet<String>(fileNames);
+		Set<Object> shared = sharedEntities();
+		Set<Object> owners = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		Set<Object> removed = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		List<NamedEntity> stubs = new ArrayList<NamedEntity>();
+		for (SourcedEntity entity : repository.all(SourcedEntity.class)) {
+			SourceAnchor anchor = entity.getSourceAnchor();
+			if (!(anchor instanceof AbstractFileAnchor) || !names.contains(((AbstractFileAnchor) anchor).getFileName()))
+				continue;
+			owners.add(entity);
+			if (shared.contains(entity))
+				stubs.add((NamedEntity) entity);
+			else
+				removed.add(entity);
+		}
+		removed.addAll(ownedBy(owners, shared));
+		names.stream().map(files::get).filter(file -> file != null).forEach(removed::add);
+		for (NamedEntity stub : stubs) {
+			stub.setSourceAnchor(null);
+			stub.setIsStub(true);
+			if (stub instanceof Type)
+				typesToRelink.add((Type) stub);
+		}
+		stubs.addAll(stubsReferencedBy(removed));
+		removeElements(removed);
+		return stubs;
+	}
+
+	/**
+	 * Takes the elements out of the model and the indexes
+	 */
+	void removeElements(Set<Object> elements) {
+		repository.remove(elements);
+		forget(elements);
+	}
+
+	/**
+	 * The entities that other files can refer to, and that are therefore found
+	 * through the indexes of the importer
+	 */
+	Set<Object> sharedEntities() {
+		Set<Object> shared = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		Stream.of(namespaces, types, methods, attributes, parameters).forEach(index -> shared.addAll(index.entries().values()));
+		enumValues.values().forEach(valuesByName -> shared.addAll(valuesByName.values()));
+		if (unknownVariable != null)
+			shared.add(unknownVariable);
+		return shared;
+	}
+
+	/**
+	 * The entities that belong to the owners, directly or through other entities,
+	 * without the shared ones
+	 */
+	Set<Object> ownedBy(Set<Object> owners, Set<Object> shared) {
+		Map<Object, List<Object>> ownedElements = ownedElementsByOwner();
+		Set<Object> owned = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		Deque<Object> toVisit = new ArrayDeque<Object>(owners);
+		while (!toVisit.isEmpty())
+			for (Object element : ownedElements.getOrDefault(toVisit.pop(), Collections.emptyList()))
+				if (!owners.contains(element) && !shared.contains(element) && owned.add(element))
+					toVisit.push(element);
+		return owned;
+	}
+
+	/**
+	 * The elements that belong to each entity, from one pass over the model
+	 */
+	private Map<Object, List<Object>> ownedElementsByOwner() {
+		Map<Object, List<Object>> ownedElements = new IdentityHashMap<Object, List<Object>>();
+		for (Object element : repository.all(Object.class))
+			for (Object owner : ownersOf(element))
+				ownedElements.computeIfAbsent(owner, each -> new ArrayList<Object>()).add(element);
+		return ownedElements;
+	}
+
+	/**
+	 * Answers the entity to which the element belongs, among the candidates, or
+	 * null
+	 */
+	Object ownerOf(Object element, Set<Object> candidates) {
+		for (Object owner : ownersOf(element))
+			if (candidates == null || candidates.contains(owner))
+				return owner;
+		return null;
+	}
+
+	private List<Object> ownersOf(Object element) {
+		List<Object> owners = new ArrayList<Object>();
+		for (PropertyDescription property : repository.descriptionOf(element).allAttributes())
+			if (OWNER_PROPERTIES.contains(property.getName()) && !property.isMultivalued() && !property.isPrimitive()) {
+				Object owner = property.read(element);
+				if (owner != null)
+					owners.add(owner);
+			}
+		return owners;
+	}
+
+	/**
+	 * Takes the stubs out of the model when nothing else refers to them anymore,
+	 * such as the types of deleted files, and then the stubs that only the removed
+	 * ones referred to. A stub stays when an element outside of the unreferenced
+	 * ones refers to it, directly or through other stubs
+	 */
+	private void removeUnreferenced(Collection<? extends NamedEntity> stubs) {
+		Map<Object, List<Object>> referrers = null;
+		Set<Object> removed = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		List<NamedEntity> candidates = new ArrayList<NamedEntity>(stubs);
+		while (!candidates.isEmpty()) {
+			Set<Object> unreferenced = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+			candidates.stream().filter(stub -> !isDeclared(stub) && repository.getElements().contains(stub))
+					.forEach(unreferenced::add);
+			if (unreferenced.isEmpty())
+				return;
+			if (referrers == null)
+				referrers = referrersOfStubs();
+			Deque<Object> referenced = new ArrayDeque<Object>();
+			for (Object stub : unreferenced)
+				for (Object referrer : referrers.getOrDefault(stub, Collections.emptyList()))
+					if (!unreferenced.contains(referrer) && !removed.contains(referrer)) {
+						referenced.push(stub);
+						break;
+					}
+			unreferenced.removeAll(referenced);
+			while (!referenced.isEmpty())
+				for (Object value : referencesOf(referenced.pop()))
+					if (unreferenced.remove(value))
+						referenced.push(value);
+			candidates = stubsReferencedBy(unreferenced);
+			removed.addAll(unreferenced);
+			removeElements(unreferenced);
+		}
+	}
+
+	/**
+	 * The elements that refer to each stub, from one pass over the model. Only
+	 * stubs can become unreferenced, so the other entities are left out
+	 */
+	private Map<Object, List<Object>> referrersOfStubs() {
+		Map<Object, List<Object>> referrers = new IdentityHashMap<Object, List<Object>>();
+		for (Object element : repository.all(Object.class))
+			for (Object value : referencesOf(element))
+				if (value instanceof NamedEntity && !isDeclared(value))
+					referrers.computeIfAbsent(value, each -> new ArrayList<Object>()).add(element);
+		return referrers;
+	}
+
+	private List<NamedEntity> stubsReferencedBy(Collection<Object> elements) {
+		List<NamedEntity> stubs = new ArrayList<NamedEntity>();
+		for (Object element : elements)
+			for (Object value : referencesOf(element))
+				if (value instanceof NamedEntity && !isDeclared(value)
+						&& !elements.contains(value))
+					stubs.add((NamedEntity) value);
+		return stubs;
+	}
+
+	private List<Object> referencesOf(Object element) {
+		List<Object> references = new ArrayList<Object>();
+		for (PropertyDescription property : repository.descriptionOf(element).allAttributes())
+			if (!property.isDerived() && !property.isPrimitive())
+				for (Object value : property.readAll(element))
+					if (value != null)
+						references.add(value);
+		return references;
+	}
+
+	/**
+	 * Brings the model, imported from the root of the git repository at one
+	 * revision, to another revision, by importing only the java files that
+	 * changed in between. The changed files are taken from git into a temporary
+	 * folder, so that they get the same names as in the model, with the other java
+	 * files of their source folders, from which the parser resolves the other
+	 * types. Everything is read at the new revision, whatever the working tree
+	 * holds
+	 */
+	public ModelDelta patch(GitRepository git, String fromRevision, String toRevision, Classpath classpath) {
+		List<GitRepository.Change> changes = git.changedFiles(fromRevision, toRevision, ".java");
+		List<String> presentNames = namesOf(changes, false);
+		Path folder = null;
+		try {
+			folder = Files.createTempDirectory("jdt2famix-patch");
+			git.writeFilesAt(toRevision, presentNames, folder);
+			JavaFiles javaFiles = new JavaFiles();
+			javaFiles.someJavaFiles(folder.toString(), presentNames);
+			git.writeFilesAt(toRevision, otherFilesOfSourceFolders(git, toRevision, javaFiles, folder, presentNames),
+					folder);
+			return patch(changes, javaFiles, classpath);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		} finally {
+			deleteFolder(folder);
+		}
+	}
+
+	/**
+	 * The java files of the revision that are in the sourcepath entries of the
+	 * java files, which are in the folder, without the ones already written
+	 */
+	private static List<String> otherFilesOfSourceFolders(GitRepository git, String revision, JavaFiles javaFiles,
+			Path folder, List<String> writtenNames) {
+		Path root = folder.toAbsolutePath();
+		List<String> prefixes = new ArrayList<String>();
+		for (String entry : javaFiles.sourcepathEntries()) {
+			Path sourceFolder = Paths.get(entry);
+			if (sourceFolder.startsWith(root))
+				prefixes.add(root.relativize(sourceFolder).toString().replace('\\', '/'));
+		}
+		Set<String> written = new HashSet<String>(writtenNames);
+		return git.filesAt(revision, ".java").stream().filter(name -> !written.contains(name))
+				.filter(name -> prefixes.stream().anyMatch(prefix -> prefix.isEmpty() || name.startsWith(prefix + "/")))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Forgets the changed files and imports the java files, which are their new
+	 * versions
+	 */
+	ModelDelta patch(List<GitRepository.Change> changes, JavaFiles javaFiles, Classpath classpath) {
+		List<String> changedNames = namesOf(changes, true);
+		Map<String, Map<String, Object>> before = declaredEntities();
+		List<NamedEntity> stubs = forgetFiles(changedNames);
+		run(javaFiles, classpath);
+		removeUnreferenced(stubs);
+		return ModelDelta.between(before, declaredEntities(), new HashSet<String>(changedNames));
+	}
+
+	private static List<String> namesOf(List<GitRepository.Change> changes, boolean withDeleted) {
+		return changes.stream().filter(change -> withDeleted || change.kind() != GitRepository.Change.Kind.DELETED)
+				.map(GitRepository.Change::path).collect(Collectors.toList());
+	}
+
+	/**
+	 * The entities of the indexes that are declared in the model, and not only
+	 * referenced, by index name and key
+	 */
+	Map<String, Map<String, Object>> declaredEntities() {
+		Map<String, Map<String, Object>> declared = new LinkedHashMap<String, Map<String, Object>>();
+		for (String indexName : Arrays.asList(NAMESPACES_INDEX, TYPES_INDEX, METHODS_INDEX, ATTRIBUTES_INDEX,
+				PARAMETERS_INDEX)) {
+			Map<String, Object> entities = new HashMap<String, Object>();
+			index(indexName).entries().forEach((key, entity) -> {
+				if (isDeclared(entity))
+					entities.put(key, entity);
+			});
+			declared.put(indexName, entities);
+		}
+		return declared;
+	}
+
+	/**
+	 * Whether the entity is declared in the sources, and not only referenced.
+	 * Declared attributes are marked as stubs, so their source anchor tells
+	 */
+	static boolean isDeclared(Object entity) {
+		if (!(entity instanceof NamedEntity))
+			return false;
+		NamedEntity namedEntity = (NamedEntity) entity;
+		return Boolean.FALSE.equals(namedEntity.getIsStub()) || namedEntity.getSourceAnchor() != null;
+	}
+
+	static void deleteFolder(Path folder) {
+		if (folder == null)
+			return;
+		try (Stream<Path> paths = Files.walk(folder)) {
+			for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+				Files.deleteIfExists(path);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// SHARDS
+
+	/**
+	 * Adds the model of another importer, for example of another shard of the
+	 * same sources, unifying the entities they share. See {@link ModelMerger}
+	 */
+	public void mergeFrom(InJavaImporter shard) {
+		if (columnarAssociations != null || shard.columnarAssociations != null)
+			throw new IllegalStateException("associations stored in columns cannot be merged");
+		ModelMerger.merge(this, shard);
+	}
+
+	// CACHE
+
+	private ContentAddressedCache extractionCache;
+	private byte[] cacheFingerprint;
+	private Map<String, String> cacheKeys = new HashMap<String, String>();
+	private FileFacts.Recorder recorder;
+
+	/**
+	 * Keeps the facts extracted from each file in the cache, under a key made of
+	 * the contents of the file, the classpath, the extraction profile and the
+	 * version of the importer. A later run that finds the key replays the facts
+	 * instead of parsing and visiting the file, unless one of the source types
+	 * that the file refers to changed its shape or stopped resolving. Dependencies
+	 * and aggregated associations are not kept in the facts, so they cannot be
+	 * used with the cache
+	 */
+	public void cacheExtractionsIn(ContentAddressedCache cache) {
+		if (dependencyGraph != null)
+			throw new IllegalStateException("dependencies are not kept in the extraction cache");
+		if (associationAggregator != null)
+			throw new IllegalStateException("aggregated associations cannot be kept in the extraction cache");
+		extractionCache = cache;
+	}
+
+	public ContentAddressedCache extractionCache() {
+		return extractionCache;
+	}
+
+	/**
+	 * Replays the files found in the cache, and parses the others. A cache entry
+	 * that cannot be replayed is rolled back, and its file is parsed
+	 */
+	@Override
+	protected void beforeParsing(JavaFiles javaFiles, Classpath classpath) {
+		cacheKeys = new HashMap<String, String>();
+		typeShapes = new HashMap<String, String>();
+		if (extractionCache == null || metricsWriter != null)
+			return;
+		cacheFingerprint = fingerprintOf(classpath);
+		Map<String, byte[]> cachedFacts = new LinkedHashMap<String, byte[]>();
+		for (String path : javaFiles.paths()) {
+			String key = cacheKeyOf(path);
+			cacheKeys.put(path, key);
+			byte[] facts = extractionCache.get(key);
+			if (facts != null)
+				cachedFacts.put(path, facts);
+		}
+		Map<String, String> currentShapes = currentShapesOfTypesReferencedBy(cachedFacts.values(), javaFiles,
+				classpath);
+		List<String> replayed = new ArrayList<String>();
+		cachedFacts.forEach((path, facts) -> {
+			Map<String, String> referencedTypes = FileFacts.referencedTypesOf(facts);
+			if (referencedTypes == null || !referencedTypes.entrySet().stream()
+					.allMatch(type -> type.getValue().equals(currentShapes.get(type.getKey()))))
+				logger.trace("types changed since the file was cached - " + fileTable().nameOfPath(path));
+			else if (replay(path, facts)) {
+				replayed.add(path);
+				cacheKeys.remove(path);
+			}
+		});
+		javaFiles.skip(replayed);
+	}
+
+	/**
+	 * The parser resolves the types from the source folders of all the files of
+	 * the import, as it does when the files are parsed in several batches
+	 */
+	private Map<String, String> currentShapesOfTypesReferencedBy(Collection<byte[]> cachedFacts,
+			JavaFiles javaFiles, Classpath classpath) {
+		Set<String> keys = new HashSet<String>();
+		for (byte[] facts : cachedFacts) {
+			Map<String, String> referencedTypes = FileFacts.referencedTypesOf(facts);
+			if (referencedTypes != null)
+				keys.addAll(referencedTypes.keySet());
+		}
+		Map<String, String> shapes = new HashMap<String, String>();
+		if (keys.isEmpty())
+			return shapes;
+		JavaFiles visibleSources = new JavaFiles();
+		Arrays.stream(javaFiles.paths()).forEach(visibleSources::oneJavaFile);
+		Arrays.stream(javaFiles.sourcepathEntries()).forEach(visibleSources::sourcepathEntry);
+		visibleSources.resolveOnDemand();
+		Map<String, IBinding> bindings = resolveBindings(keys, classpath, visibleSources.sourcepathEntries());
+		for (String key : keys) {
+			IBinding binding = bindings.get(key);
+			shapes.put(key, shapeOf(binding instanceof ITypeBinding ? (ITypeBinding) binding : null));
+		}
+		return shapes;
+	}
+
+	private boolean replay(String path, byte[] facts) {
+		String fileName = fileTable().nameOfPath(path);
+		logger.trace("replaying cached file - " + fileName);
+		beginFile();
+		try {
+			FileFacts.replay(facts, this, fileName);
+			commitFile();
+		} catch (RuntimeException e) {
+			logger.error("could not replay cached file - " + fileName, e);
+			rollbackFile();
+			return false;
+		}
+		fileVisited(path);
+		return true;
+	}
+
+	private String cacheKeyOf(String path) {
+		try {
+			return ContentAddressedCache.keyOf(cacheFingerprint, Files.readAllBytes(Paths.get(path)));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Jars are told apart by their size and time, folders by the digest of their
+	 * files
+	 */
+	private byte[] fingerprintOf(Classpath classpath) {
+		StringBuilder fingerprint = new StringBuilder();
+		String version = InJavaImporter.class.getPackage().getImplementationVersion();
+		fingerprint.append(version == null ? "development" : version).append('\n');
+		fingerprint.append(FileFacts.VERSION).append('\n');
+		fingerprint.append(new TreeSet<Facet>(extractionProfile.facets())).append('\n');
+		for (String path : classpath.paths()) {
+			java.io.File file = new java.io.File(path);
+			fingerprint.append(path);
+			if (file.isFile())
+				fingerprint.append(' ').append(file.length()).append(' ').append(file.lastModified());
+			else if (file.isDirectory())
+				fingerprint.append(' ').append(digestOfFolder(file.toPath()));
+			fingerprint.append('\n');
+		}
+		return fingerprint.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String digestOfFolder(Path folder) {
+		try (Stream<Path> files = Files.walk(folder)) {
+			List<byte[]> parts = new ArrayList<byte[]>();
+			for (Path file : files.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+				parts.add(folder.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+				parts.add(Files.readAllBytes(file));
+			}
+			return ContentAddressedCache.keyOf(parts.toArray(new byte[0][]));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static final String MISSING_SHAPE = "missing";
+
+	/**
+	 * Shapes of source types by binding key. The shape of a type does not change
+	 * during a run
+	 */
+	private Map<String, String> typeShapes = new HashMap<String, String>();
+
+	/**
+	 * The facts of a file depend on the source types it refers to, so the recorder
+	 * keeps their shapes. Types of the classpath are covered by the fingerprint,
+	 * and local and anonymous types are in the file itself
+	 */
+	private void referTo(ITypeBinding binding) {
+		if (recorder == null || binding == null)
+			return;
+		if (binding.isArray())
+			binding = binding.getElementType();
+		if (binding.isParameterizedType())
+			Arrays.stream(binding.getTypeArguments()).forEach(this::referTo);
+		ITypeBinding type = binding.getTypeDeclaration();
+		if (type.isPrimitive() || type.isTypeVariable() || type.isWildcardType() || type.isCapture()
+				|| type.isAnonymous() || type.isLocal() || type.isNullType() || type.getKey() == null
+				|| !(type.isFromSource() || type.isRecovered()))
+			return;
+		recorder.referenced(type.getKey(), memoized(typeShapes, type.getKey(), () -> shapeOf(type)));
+	}
+
+	/**
+	 * What another file can learn about the type: its kind, modifiers,
+	 * supertypes, and the keys and modifiers of its members. The keys of methods
+	 * and fields hold their parameter, return and field types
+	 */
+	private static String shapeOf(ITypeBinding type) {
+		if (type == null || type.isRecovered())
+			return MISSING_SHAPE;
+		StringBuilder shape = new StringBuilder();
+		shape.append(type.getKey()).append(' ').append(type.getModifiers()).append(' ')
+				.append(type.isInterface()).append(type.isEnum()).append(type.isAnnotation()).append('\n');
+		if (type.getSuperclass() != null)
+			shape.append(type.getSuperclass().getKey());
+		Arrays.stream(type.getInterfaces()).forEach(each -> shape.append(' ').append(each.getKey()));
+		shape.append('\n');
+		List<String> members = new ArrayList<String>();
+		for (IMethodBinding method : type.getDeclaredMethods())
+			members.add(method.getKey() + ' ' + method.getModifiers());
+		for (IVariableBinding field : type.getDeclaredFields())
+			members.add(field.getKey() + ' ' + field.getModifiers());
+		for (ITypeBinding memberType : type.getDeclaredTypes())
+			members.add(memberType.getKey() + ' ' + memberType.getModifiers());
+		members.stream().sorted().forEach(member -> shape.append(member).append('\n'));
+		return ContentAddressedCache.keyOf(shape.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void startRecording() {
+		FileFacts.Recorder fileRecorder = new FileFacts.Recorder(repository, currentFileName);
+		recorder = fileRecorder;
+		namespaces.observeWith((key, entity) -> fileRecorder.observed(NAMESPACES_INDEX, key, entity));
+		types.observeWith((key, entity) -> fileRecorder.observed(TYPES_INDEX, key, entity));
+		methods.observeWith((key, entity) -> fileRecorder.observed(METHODS_INDEX, key, entity));
+		attributes.observeWith((key, entity) -> fileRecorder.observed(ATTRIBUTES_INDEX, key, entity));
+		parameters.observeWith((key, entity) -> fileRecorder.observed(PARAMETERS_INDEX, key, entity));
+	}
+
+	private void recordFacts(List<Object> committed) {
+		byte[] facts = recorder.finish(committed);
+		stopRecording();
+		extractionCache.put(cacheKeys.remove(currentFilePath), facts);
+	}
+
+	private void stopRecording() {
+		recorder = null;
+		Stream.of(namespaces, types, methods, attributes, parameters).forEach(index -> index.observeWith(null));
+	}
+
+	/**
+	 * Tells the recorder about an entity that the importer reuses without looking
+	 * it up in an index
+	 */
+	private void observed(String index, String key, Object entity) {
+		if (recorder != null)
+			recorder.observed(index, key, entity);
+	}
+
+	@SuppressWarnings("unchecked")
+	NamedEntityAccumulator<Object> index(String name) {
+		switch (name) {
+		case NAMESPACES_INDEX:
+			return (NamedEntityAccumulator<Object>) (NamedEntityAccumulator<?>) namespaces;
+		case TYPES_INDEX:
+			return (NamedEntityAccumulator<Object>) (NamedEntityAccumulator<?>) types;
+		case METHODS_INDEX:
+			return (NamedEntityAccumulator<Object>) (NamedEntityAccumulator<?>) methods;
+		case ATTRIBUTES_INDEX:
+			return (NamedEntityAccumulator<Object>) (NamedEntityAccumulator<?>) attributes;
+		case PARAMETERS_INDEX:
+			return (NamedEntityAccumulator<Object>) (NamedEntityAccumulator<?>) parameters;
+		default:
+			throw new IllegalArgumentException("unknown index - " + name);
+		}
+	}
+
 	// NAMESPACE
 
 	public Namespace ensureNamespaceFromPackageBinding(IPackageBinding binding) {
@@ -235,6 +1396,10 @@ public class InJavaImporter extends Importer {
 	}
 
 	public Namespace unknownNamespace() {
+		if (unknownNamespace == null && namespaces.has(UNKNOWN_NAME))
+			unknownNamespace = namespaces.named(UNKNOWN_NAME);
+		else if (unknownNamespace != null)
+			observed(NAMESPACES_INDEX, UNKNOWN_NAME, unknownNamespace);
 		if (unknownNamespace == null) {
 			unknownNamespace = new Namespace();
 			unknownNamespace.setName(UNKNOWN_NAME);
@@ -246,21 +1411,38 @@ public class InJavaImporter extends Importer {
 
 	// TYPE
 
+	private boolean keysTypesForMerging;
+
+	/**
+	 * Keys the types so that imports of parts of the sources can be merged, which
+	 * the qualified names do not allow, as described in
+	 * {@link #keyOfTypeBinding(ITypeBinding)}. Anonymous types are then named
+	 * after their binary name, such as A$1, whether they are declared or only
+	 * referenced. Without it, referenced anonymous and local types are unified
+	 * in one stub, and declared anonymous types are named by their position in
+	 * their container, such as $1
+	 */
+	public void keyTypesForMerging() {
+		keysTypesForMerging = true;
+	}
+
 	public Type ensureTypeFromTypeBinding(ITypeBinding binding) {
-		String qualifiedName = binding.getQualifiedName();
-		if (types.has(qualifiedName))
-			return types.named(qualifiedName);
+		referTo(binding);
+		String qualifiedName = keysTypesForMerging ? keyOfTypeBinding(binding) : binding.getQualifiedName();
+		if (types.has(qualifiedName)) {
+			Type type = types.named(qualifiedName);
+			if (!typesToRelink.isEmpty() && typesToRelink.remove(type))
+				createInheritancesFromTypeBinding(type, binding);
+			return type;
+		}
 		Type type = createTypeFromTypeBinding(binding);
-		type.setName(binding.getName());
+		type.setName(keysTypesForMerging && binding.isAnonymous() ? nameOfAnonymousType(qualifiedName)
+				: binding.getName());
 		types.add(qualifiedName, type);
 		type.setIsStub(true);
 		extractBasicModifiersFromBinding(binding.getModifiers(), type);
 		type.setContainer(ensureContainerEntityForTypeBinding(binding));
-		if (binding.getSuperclass() != null)
-			createInheritanceFromSubtypeToSuperTypeBinding(type, binding.getSuperclass());
-		for (ITypeBinding interfaceBinding : binding.getInterfaces()) {
-			createInheritanceFromSubtypeToSuperTypeBinding(type, interfaceBinding);
-		}
+		createInheritancesFromTypeBinding(type, binding);
 		if (binding.isParameterizedType()) {
 			/*
 			 * This if duplicates the condition from the create method because we want to
@@ -284,6 +1466,39 @@ public class InJavaImporter extends Importer {
 		return type;
 	}
 
+	/**
+	 * Types keyed for merging are known by their qualified name, except when it
+	 * does not tell them apart. Anonymous and local types have none, so they are
+	 * known by their binary name, which is made of the declaring type and their
+	 * occurrence in it, such as p.A$1. The qualified name of a type variable is only its name, so the
+	 * types that mention one are known by their binding key, which includes where
+	 * the variable is declared. Either key is the same in every import of the
+	 * sources, whichever file meets the type first
+	 */
+	private static String keyOfTypeBinding(ITypeBinding binding) {
+		String qualifiedName = binding.getQualifiedName();
+		if (qualifiedName.isEmpty() && binding.getBinaryName() != null)
+			return binding.getBinaryName();
+		if (mentionsTypeVariable(binding) && binding.getKey() != null)
+			return binding.getKey();
+		return qualifiedName;
+	}
+
+	private static String nameOfAnonymousType(String binaryName) {
+		return binaryName.substring(binaryName.lastIndexOf('.') + 1);
+	}
+
+	private static boolean mentionsTypeVariable(ITypeBinding binding) {
+		if (binding.isTypeVariable())
+			return true;
+		if (binding.isArray())
+			return mentionsTypeVariable(binding.getElementType());
+		if (binding.isWildcardType())
+			return binding.getBound() != null && mentionsTypeVariable(binding.getBound());
+		return binding.isParameterizedType()
+				&& Arrays.stream(binding.getTypeArguments()).anyMatch(InJavaImporter::mentionsTypeVariable);
+	}
+
 	public AnnotationInstance createAnnotationInstanceFromAnnotationBinding(NamedEntity entity,
 			IAnnotationBinding annotationInstanceBinding) {
 		ITypeBinding annotationTypeBinding = annotationInstanceBinding.getAnnotationType();
@@ -301,6 +1516,7 @@ public class InJavaImporter extends Importer {
 			ITypeBinding annotationTypeBinding, AnnotationInstance annotationInstance) {
 		AnnotationType annotationType = (AnnotationType) ensureTypeFromTypeBinding(annotationTypeBinding);
 		annotationInstance.setAnnotationType(annotationType);
+		recordDependency(annotationInstance.getAnnotatedEntity(), annotationType, DependencyGraph.Kind.ANNOTATION);
 		IMemberValuePairBinding[] allMemberValuePairs = annotationInstanceBinding.getAllMemberValuePairs();
 		for (IMemberValuePairBinding memberValueBinding : allMemberValuePairs) {
 			try {
@@ -342,6 +1558,21 @@ public class InJavaImporter extends Importer {
 		return value.toString();
 	}
 
+	/**
+	 * Bindings of erroneous code can have no key, in which case we compute the
+	 * string every time
+	 */
+	private static String memoized(Map<String, String> memo, String key, Supplier<String> computation) {
+		if (key == null)
+			return computation.get();
+		String value = memo.get(key);
+		if (value == null) {
+			value = computation.get();
+			memo.put(key, value);
+		}
+		return value;
+	}
+
 	private AnnotationTypeAttribute ensureAnnotationTypeAttribute(Type parentType, String name) {
 		String qualifiedName = Famix.qualifiedNameOf(parentType) + NAME_SEPARATOR + name;
 		if (attributes().has(qualifiedName))
@@ -407,19 +1638,20 @@ public class InJavaImporter extends Importer {
 	public Type unknownType() {
 		if (unknownType == null) {
 			unknownType = ensureTypeNamedInUnknownNamespace(UNKNOWN_NAME);
-		}
+		} else
+			observed(TYPES_INDEX, UNKNOWN_NAME + NAME_SEPARATOR + UNKNOWN_NAME, unknownType);
 		return unknownType;
 	}
 
+	/**
+	 * We check for an existing type before creating one, because creating it also
+	 * adds it to the types of the unknown namespace
+	 */
 	public Type ensureTypeNamedInUnknownNamespace(String name) {
-		Type type = createTypeNamedInUnknownNamespace(name);
-		String qualifiedName = Famix.qualifiedNameOf(type);
+		String qualifiedName = Famix.qualifiedNameOf(unknownNamespace()) + NAME_SEPARATOR + name;
 		if (types.has(qualifiedName))
 			return types.named(qualifiedName);
-		else {
-			types.add(Famix.qualifiedNameOf(type), type);
-			return type;
-		}
+		return types.add(qualifiedName, createTypeNamedInUnknownNamespace(name));
 	}
 
 	public Type createTypeNamedInUnknownNamespace(String name) {
@@ -430,14 +1662,30 @@ public class InJavaImporter extends Importer {
 		return type;
 	}
 
+	/**
+	 * When the types are keyed for merging, the declaration of an anonymous type
+	 * takes over the stub of the references to it that came first. The stub loses
+	 * its inheritances, which the declaration creates from its source
+	 */
+	Type createTypeFromAnonymousBinding(ITypeBinding binding) {
+		if (!keysTypesForMerging || !types.has(keyOfTypeBinding(binding)))
+			return createTypeFromTypeBinding(binding);
+		Type stub = types.named(keyOfTypeBinding(binding));
+		repository.remove(new HashSet<Object>(stub.getSuperInheritances()));
+		return stub;
+	}
+
 	public Type ensureTypeFromAnonymousDeclaration(Type type, AnonymousClassDeclaration node) {
+		ITypeBinding binding = node.resolveBinding();
+		boolean keyedByBinding = keysTypesForMerging && binding != null && binding.getBinaryName() != null;
 		type.setContainer(topOfContainerStack());
-		type.setName("$" + topOfContainerStack().getTypes().size());
+		type.setName(keyedByBinding ? nameOfAnonymousType(binding.getBinaryName())
+				: "$" + topOfContainerStack().getTypes().size());
 		if (node.getParent() instanceof ClassInstanceCreation)
 			createInheritanceFromSubtypeToSuperDomType(type, ((ClassInstanceCreation) node.getParent()).getType());
 		if (node.getParent() instanceof EnumConstantDeclaration)
 			createInheritanceFromSubtypeToSuperType(type, topFromContainerStack(Enum.class));
-		types.add(Famix.qualifiedNameOf(type), type);
+		types.add(keyedByBinding ? keyOfTypeBinding(binding) : Famix.qualifiedNameOf(type), type);
 		return type;
 	}
 
@@ -446,6 +1694,14 @@ public class InJavaImporter extends Importer {
 	/**
 	 * We use this one when we have the super type binding
 	 */
+	private void createInheritancesFromTypeBinding(Type type, ITypeBinding binding) {
+		if (binding.getSuperclass() != null)
+			createInheritanceFromSubtypeToSuperTypeBinding(type, binding.getSuperclass());
+		for (ITypeBinding interfaceBinding : binding.getInterfaces()) {
+			createInheritanceFromSubtypeToSuperTypeBinding(type, interfaceBinding);
+		}
+	}
+
 	private Inheritance createInheritanceFromSubtypeToSuperTypeBinding(Type subType, ITypeBinding superBinding) {
 		return createInheritanceFromSubtypeToSuperType(subType, ensureTypeFromTypeBinding(superBinding));
 	}
@@ -466,6 +1722,7 @@ public class InJavaImporter extends Importer {
 		Inheritance inheritance = new Inheritance();
 		inheritance.setSuperclass(superType);
 		inheritance.setSubclass(subType);
+		recordDependency(subType, superType, DependencyGraph.Kind.INHERITANCE);
 		repository.add(inheritance);
 		return inheritance;
 	}
@@ -482,20 +1739,25 @@ public class InJavaImporter extends Importer {
 	}
 
 	public Method ensureMethodFromMethodBinding(IMethodBinding binding, Type parentType) {
-		StringJoiner signatureJoiner = new StringJoiner(", ", "(", ")");
-		Arrays.stream(binding.getParameterTypes()).forEach(p -> signatureJoiner.add((String) p.getQualifiedName()));
+		referTo(binding.getDeclaringClass());
 		String methodName = binding.getName();
-		String signature = methodName + signatureJoiner.toString();
+		String signature = memoized(methodSignatures, binding.getKey(), () -> signatureOf(binding));
 		return ensureBasicMethod(methodName, signature, parentType, m -> setUpMethodFromMethodBinding(m, binding));
 	}
 
+	private static String signatureOf(IMethodBinding binding) {
+		StringJoiner signatureJoiner = new StringJoiner(", ", "(", ")");
+		Arrays.stream(binding.getParameterTypes()).forEach(p -> signatureJoiner.add((String) p.getQualifiedName()));
+		return binding.getName() + signatureJoiner.toString();
+	}
+
 	private void setUpMethodFromMethodBinding(Method method, IMethodBinding binding) {
 		if (binding.isConstructor())
 			method.setKind(CONSTRUCTOR_KIND);
 		ITypeBinding returnType = binding.getReturnType();
 		if ((returnType != null) && !(returnType.isPrimitive() && returnType.getName().equals("void")))
 			// we do not want to set void as a return type
-			method.setDeclaredType(ensureTypeFromTypeBinding(returnType));
+			setDeclaredType(method, ensureTypeFromTypeBinding(returnType));
 		extractBasicModifiersFromBinding(binding.getModifiers(), method);
 		if (Modifier.isStatic(binding.getModifiers()))
 			method.setHasClassScope(true);
@@ -513,7 +1775,7 @@ public class InJavaImporter extends Importer {
 
 	private void setUpMethodFromMethodDeclaration(Method method, MethodDeclaration node) {
 		if (node.getReturnType2() != null)
-			method.setDeclaredType(ensureTypeFromDomType(node.getReturnType2()));
+			setDeclaredType(method, ensureTypeFromDomType(node.getReturnType2()));
 	}
 
 	public Method ensureInitializerMethod() {
@@ -552,29 +1814,35 @@ public class InJavaImporter extends Importer {
 		parameters.add(qualifiedName, parameter);
 		parameter.setName(name);
 		parameter.setParentBehaviouralEntity(method);
-		parameter.setDeclaredType(ensureTypeFromDomType(variableDeclaration.getType()));
+		if (parametersOfOpenMethods.containsKey(method))
+			parametersOfOpenMethods.get(method).put(name, parameter);
+		setDeclaredType(parameter, ensureTypeFromDomType(variableDeclaration.getType()));
 		IVariableBinding binding = variableDeclaration.resolveBinding();
 		if (binding != null) {
 			// We only recover the final modifier
 			if (Modifier.isFinal(binding.getModifiers()))
-				parameter.addModifiers("final");
+				parameter.addModifierFlags(Modifiers.FINAL);
 		}
 		return parameter;
 	}
 
 	public Parameter ensureParameterWithinCurrentMethodFromVariableBinding(IVariableBinding binding) {
-		if (topOfContainerStack() instanceof Method) {
-			Method method = (Method) topOfContainerStack();
-			if (method != null) {
-				Optional<Parameter> possibleParameter = method.getParameters().stream()
-						.filter(p -> p.getName().equals(binding.getName())).findAny();
-				if (possibleParameter.isPresent())
-					return possibleParameter.get();
-			}
-		}
+		if (topOfContainerStack() instanceof Method)
+			return parametersByNameOf((Method) topOfContainerStack()).get(binding.getName());
 		return null;
 	}
 
+	private Map<String, Parameter> parametersByNameOf(Method method) {
+		Map<String, Parameter> parametersByName = parametersOfOpenMethods.get(method);
+		if (parametersByName == null) {
+			parametersByName = new HashMap<String, Parameter>();
+			for (Parameter parameter : method.getParameters())
+				parametersByName.put(parameter.getName(), parameter);
+			parametersOfOpenMethods.put(method, parametersByName);
+		}
+		return parametersByName;
+	}
+
 	// ATTRIBUTE
 
 	/**
@@ -632,7 +1900,7 @@ public class InJavaImporter extends Importer {
 		Attribute attribute = new Attribute();
 		attribute.setName(name);
 		attribute.setParentType(parentType);
-		attribute.setDeclaredType(declaredType);
+		setDeclaredType(attribute, declaredType);
 		attributes.add(qualifiedName, attribute);
 		return attribute;
 	}
@@ -644,13 +1912,13 @@ public class InJavaImporter extends Importer {
 	 */
 	public void ensureLocalVariableFromFragment(VariableDeclarationFragment fragment,
 			org.eclipse.jdt.core.dom.Type type) {
-		if (topOfContainerStack() instanceof Method) {
+		if (topOfContainerStack() instanceof Method && extracts(Facet.LOCAL_VARIABLES)) {
 			LocalVariable localVariable = new LocalVariable();
 			localVariable.setName(fragment.getName().toString());
-			localVariable.setDeclaredType(ensureTypeFromDomType(type));
 			// CHECK: We might want to recover the modifiers (e.g., final)
 			localVariable.setIsStub(true);
 			((Method) topOfContainerStack()).addLocalVariables(localVariable);
+			setDeclaredType(localVariable, ensureTypeFromDomType(type));
 			repository.add(localVariable);
 		}
 	}
@@ -669,17 +1937,40 @@ public class InJavaImporter extends Importer {
 		return ensureBasicEnumValue(parentEnum, enumValueName);
 	}
 
+	/**
+	 * The values of each enum by name, so that huge enums do not make the lookup
+	 * quadratic
+	 */
+	private Map<Enum, Map<String, EnumValue>> enumValues;
+
 	private EnumValue ensureBasicEnumValue(Enum parentEnum, String enumValueName) {
-		if (parentEnum != null && parentEnum.getValues().stream().anyMatch(v -> v.getName().equals(enumValueName)))
-			return parentEnum.getValues().stream().filter(v -> v.getName().equals(enumValueName)).findAny().get();
+		Map<String, EnumValue> valuesByName = parentEnum == null ? null
+				: enumValues.computeIfAbsent(parentEnum, e -> new HashMap<String, EnumValue>());
+		if (valuesByName != null && valuesByName.containsKey(enumValueName)) {
+			observed(null, null, valuesByName.get(enumValueName));
+			return valuesByName.get(enumValueName);
+		}
 		EnumValue enumValue = new EnumValue();
 		enumValue.setName(enumValueName);
 		enumValue.setParentEnum(parentEnum);
 		enumValue.setIsStub(true);
 		repository.add(enumValue);
+		if (valuesByName != null)
+			valuesByName.put(enumValueName, enumValue);
 		return enumValue;
 	}
 
+	EnumValue existingEnumValue(Enum parentEnum, String enumValueName) {
+		Map<String, EnumValue> valuesByName = enumValues.get(parentEnum);
+		return valuesByName == null ? null : valuesByName.get(enumValueName);
+	}
+
+	void rememberEnumValue(EnumValue enumValue) {
+		if (enumValue.getParentEnum() != null)
+			enumValues.computeIfAbsent(enumValue.getParentEnum(), e -> new HashMap<String, EnumValue>())
+					.putIfAbsent(enumValue.getName(), enumValue);
+	}
+
 	// ANNOTATION TYPE ATTRIBUTE
 
 	public AnnotationTypeAttribute ensureAnnotationTypeAttributeFromDeclaration(AnnotationTypeMemberDeclaration node) {
@@ -699,7 +1990,7 @@ public class InJavaImporter extends Importer {
 		ITypeBinding returnType = binding.getReturnType();
 		if ((returnType != null) && !(returnType.isPrimitive() && returnType.getName().equals("void"))) {
 			// we do not want to set void as a return type
-			attribute.setDeclaredType(ensureTypeFromTypeBinding(returnType));
+			setDeclaredType(attribute, ensureTypeFromTypeBinding(returnType));
 		}
 		return attribute;
 	}
@@ -711,9 +2002,8 @@ public class InJavaImporter extends Importer {
 	 * be different types of nodes (funny JDT).
 	 */
 	public Invocation createInvocationFromMethodBinding(IMethodBinding binding, String signature) {
-
-		Invocation invocation = new Invocation();
-		invocation.setSender((Method) topOfContainerStack());
+		Method sender = (Method) topOfContainerStack();
+		Method candidate = null;
 		if (binding != null && binding.getMethodDeclaration() != null) {
 			IMethodBinding methodDeclarationBinding = binding.getMethodDeclaration();
 			ITypeBinding declaringClass = null;
@@ -722,64 +2012,128 @@ public class InJavaImporter extends Importer {
 			else
 				declaringClass = binding.getDeclaringClass();
 			Type ensureTypeFromTypeBinding = ensureTypeFromTypeBinding(declaringClass);
-			invocation.addCandidates(ensureMethodFromMethodBinding(methodDeclarationBinding, ensureTypeFromTypeBinding));
+			candidate = ensureMethodFromMethodBinding(methodDeclarationBinding, ensureTypeFromTypeBinding);
+			recordDependency(sender, ensureTypeFromTypeBinding, DependencyGraph.Kind.INVOCATION);
 		}
-		invocation.setSignature(signature);
-		repository.add(invocation);
-		return invocation;
+		return createInvocation(sender, candidate, signature);
 	}
 
 	public Invocation createInvocationToMethod(Method method, String signature) {
+		Method sender = (Method) topOfContainerStack();
+		recordDependency(sender, method.getParentType(), DependencyGraph.Kind.INVOCATION);
+		return createInvocation(sender, method, signature);
+	}
+
+	/**
+	 * When associations are aggregated, an invocation without candidate is
+	 * identified by its signature
+	 */
+	private Invocation createInvocation(Method sender, Method candidate, String signature) {
+		Object target = candidate == null ? signature : candidate;
+		if (associationAggregator != null) {
+			Invocation existing = (Invocation) associationAggregator.occurrenceOf(sender, target, Invocation.class);
+			if (existing != null)
+				return existing;
+		}
 		Invocation invocation = new Invocation();
-		invocation.setSender((Method) topOfContainerStack());
-		invocation.addCandidates(method);
+		invocation.setSender(sender);
+		if (candidate != null)
+			invocation.addCandidates(candidate);
 		invocation.setSignature(signature);
 		repository.add(invocation);
+		if (associationAggregator != null)
+			associationAggregator.add(sender, target, Invocation.class, invocation);
 		return invocation;
 	}
 
+	/**
+	 * The receiver of an invocation is also an access site, so we answer the
+	 * variable of the access created for it instead of resolving the name again
+	 */
 	public StructuralEntity ensureStructuralEntityFromExpression(Expression expression) {
-		if (expression instanceof SimpleName) {
-			IBinding simpleNameBinding = ((SimpleName) expression).resolveBinding();
-			if (simpleNameBinding instanceof IVariableBinding) {
-				IVariableBinding binding = ((IVariableBinding) simpleNameBinding).getVariableDeclaration();
-				if (binding.isField())
-					return ensureAttributeForVariableBinding(binding);
-				if (binding.isParameter())
-					return ensureParameterWithinCurrentMethodFromVariableBinding(binding);
-				if (binding.isEnumConstant())
-					return ensureEnumValueFromVariableBinding(binding);
-			}
+		if (!(expression instanceof SimpleName))
+			return null;
+		if (!extracts(Facet.ACCESSES))
+			return ensureStructuralEntityFromSimpleName((SimpleName) expression);
+		Access access = createAccessFromExpression(expression);
+		return access == null ? null : access.getVariable();
+	}
+
+	private StructuralEntity ensureStructuralEntityFromSimpleName(SimpleName name) {
+		IBinding simpleNameBinding = name.resolveBinding();
+		if (simpleNameBinding instanceof IVariableBinding) {
+			IVariableBinding binding = ((IVariableBinding) simpleNameBinding).getVariableDeclaration();
+			if (binding.isField())
+				return ensureAttributeForVariableBinding(binding);
+			if (binding.isParameter())
+				return ensureParameterWithinCurrentMethodFromVariableBinding(binding);
+			if (binding.isEnumConstant())
+				return ensureEnumValueFromVariableBinding(binding);
 		}
 		return null;
 	}
 
 	// ACCESS
 
+	/**
+	 * The access created for each access site of the current compilation unit, or
+	 * null when the site does not access a field, a parameter or an enum constant.
+	 * The visitor reaches the same name from several nodes, for example from an
+	 * invocation and then from its receiver, and the binding of each site is
+	 * resolved only once
+	 */
+	private Map<ASTNode, Access> accessesBySite = new IdentityHashMap<ASTNode, Access>();
+
+	/**
+	 * Answers the access of the variable named by the expression, or null when the
+	 * expression does not name a field, a parameter or an enum constant. Each site
+	 * leads to at most one access, regardless of how many times we are asked
+	 */
 	public Access createAccessFromExpression(Expression expression) {
-		// is this not horrible?
-		if (expression instanceof Name) {
-			SimpleName simpleName;
-			if (expression instanceof SimpleName)
-				simpleName = (SimpleName) expression;
-			else
-				simpleName = ((QualifiedName) expression).getName();
-			IBinding simpleNameBinding = simpleName.resolveBinding();
-			if (simpleNameBinding instanceof IVariableBinding) {
-				IVariableBinding variableBinding = ((IVariableBinding) simpleNameBinding).getVariableDeclaration();
-				return createAccessFromVariableBinding(variableBinding, simpleName);
-			}
-		}
-		if (expression instanceof FieldAccess) {
-			FieldAccess access = (FieldAccess) expression;
-			IVariableBinding variableBinding = access.resolveFieldBinding();
-			return createAccessFromVariableBinding(variableBinding, access);
+		return createAccessFromExpression(expression, false);
+	}
+
+	public Access createWriteAccessFromExpression(Expression expression) {
+		return createAccessFromExpression(expression, true);
+	}
+
+	private Access createAccessFromExpression(Expression expression, boolean isWrite) {
+		if (!extracts(Facet.ACCESSES))
+			return null;
+		ASTNode site = accessSiteOf(expression);
+		if (site == null)
+			return null;
+		if (accessesBySite.containsKey(site))
+			return accessesBySite.get(site);
+		Access access = null;
+		if (site instanceof FieldAccess)
+			access = createAccessFromVariableBinding(((FieldAccess) site).resolveFieldBinding(), site, isWrite);
+		else {
+			IBinding simpleNameBinding = ((SimpleName) site).resolveBinding();
+			if (simpleNameBinding instanceof IVariableBinding)
+				access = createAccessFromVariableBinding(
+						((IVariableBinding) simpleNameBinding).getVariableDeclaration(), site, isWrite);
 		}
-		return new Access();
+		accessesBySite.put(site, access);
+		return access;
+	}
+
+	/**
+	 * The site is the simple name or the field access that names the variable. We
+	 * look through parentheses so that (a) and a are the same site
+	 */
+	private static ASTNode accessSiteOf(Expression expression) {
+		Expression unwrapped = expression;
+		while (unwrapped instanceof ParenthesizedExpression)
+			unwrapped = ((ParenthesizedExpression) unwrapped).getExpression();
+		if (unwrapped instanceof SimpleName || unwrapped instanceof FieldAccess)
+			return unwrapped;
+		if (unwrapped instanceof QualifiedName)
+			return ((QualifiedName) unwrapped).getName();
+		return null;
 	}
 
-	private Access createAccessFromVariableBinding(IVariableBinding binding, ASTNode node) {
-		Access access = new Access();
+	private Access createAccessFromVariableBinding(IVariableBinding binding, ASTNode node, boolean isWrite) {
 		StructuralEntity variable = unknownVariable();
 		if (binding != null) {
 			/*
@@ -791,7 +2145,7 @@ public class InJavaImporter extends Importer {
 			boolean isEnumConstant = binding.isEnumConstant();
 			if (!isField && !isParameter && !isEnumConstant)
 				// we only consider fields, parameters and enum constants
-				return access;
+				return null;
 			if (isField)
 				variable = ensureAttributeForVariableBinding(binding);
 			if (isParameter)
@@ -799,10 +2153,9 @@ public class InJavaImporter extends Importer {
 			if (isEnumConstant)
 				variable = ensureEnumValueFromVariableBinding(binding);
 		}
-		access.setVariable(variable);
-		access.setIsWrite(false);
+		Method accessor = null;
 		if (topOfContainerStack() instanceof Method)
-			access.setAccessor((Method) topOfContainerStack());
+			accessor = (Method) topOfContainerStack();
 		if (topOfContainerStack() instanceof Type)
 			/*
 			 * This is ugly, but it happens when we have an access from within an annotation
@@ -810,9 +2163,24 @@ public class InJavaImporter extends Importer {
 			 * 
 			 * @Annotation(name="something" + AClass.DEFAULT)
 			 */
-			access.setAccessor(ensureInitializerMethod());
+			accessor = ensureInitializerMethod();
+		if (variable instanceof Attribute)
+			recordDependency(accessor, ((Attribute) variable).getParentType(), DependencyGraph.Kind.ACCESS);
+		if (variable instanceof EnumValue)
+			recordDependency(accessor, ((EnumValue) variable).getParentEnum(), DependencyGraph.Kind.ACCESS);
+		Access access = null;
+		if (associationAggregator != null)
+			access = (Access) associationAggregator.occurrenceOf(accessor, variable, isWrite);
+		if (access == null) {
+			access = new Access();
+			access.setVariable(variable);
+			access.setIsWrite(isWrite);
+			access.setAccessor(accessor);
+			repository.add(access);
+			if (associationAggregator != null)
+				associationAggregator.add(accessor, variable, isWrite, access);
+		}
 		createLightweightSourceAnchor(access, node);
-		repository.add(access);
 		return access;
 	}
 
@@ -820,7 +2188,8 @@ public class InJavaImporter extends Importer {
 		if (unknownVariable == null) {
 			unknownVariable = new UnknownVariable();
 			repository.add(unknownVariable);
-		}
+		} else
+			observed(null, null, unknownVariable);
 		return unknownVariable;
 	}
 
@@ -836,41 +2205,94 @@ public class InJavaImporter extends Importer {
 
 	// SOURCE ANCHOR
 
+	/**
+	 * An aggregated association stands for several sites, so we let the aggregator
+	 * decide what to keep
+	 */
 	public void createLightweightSourceAnchor(SourcedEntity sourcedEntity, ASTNode node) {
-		sourcedEntity.setAstStartPosition(node.getStartPosition() + 1);
-		sourcedEntity.setAstStopPosition(node.getStartPosition() + node.getLength());
+		createLightweightSourceAnchor(sourcedEntity, node.getStartPosition() + 1,
+				node.getStartPosition() + node.getLength());
+	}
+
+	public void createLightweightSourceAnchor(SourcedEntity sourcedEntity, int start, int stop) {
+		if (associationAggregator != null && sourcedEntity instanceof Association) {
+			associationAggregator.addSite((Association) sourcedEntity, start, stop);
+			return;
+		}
+		sourcedEntity.setAstStartPosition(start);
+		sourcedEntity.setAstStopPosition(stop);
 	}
 	
 	public void createSourceAnchor(SourcedEntity sourcedEntity, ASTNode node) {
 		this.createSourceAnchor(sourcedEntity, node.getStartPosition() + 1, node.getStartPosition() + node.getLength());
 	}
 
+	/**
+	 * Without source anchors, we still keep the positions in the entity, because
+	 * they cost no object
+	 */
 	public void createSourceAnchor(SourcedEntity sourcedEntity, int start, int stop) {
+		if (!extracts(Facet.SOURCE_ANCHORS)) {
+			sourcedEntity.setAstStartPosition(start);
+			sourcedEntity.setAstStopPosition(stop);
+			return;
+		}
 		IndexedFileAnchor fileAnchor = new IndexedFileAnchor();
 		fileAnchor.setStartPos(start);
 		fileAnchor.setEndPos(stop);
-		fileAnchor.setFileName(pathWithoutIgnoredRootPath(currentFilePath));
+		fileAnchor.setFileName(currentFileName);
 		sourcedEntity.setAstStartPosition(start);
 		sourcedEntity.setAstStopPosition(stop);
 		sourcedEntity.setSourceAnchor(fileAnchor);
 		repository.add(fileAnchor);
 	}
 
+	// FILE
+
+	private Map<String, File> files;
+
+	/**
+	 * Creates, on demand, one {@link File} per imported file and links it to the
+	 * entities anchored in that file. Entities are not linked while importing,
+	 * because most users only need the anchors. After {@link #resume()}, the files
+	 * visited before the checkpoint are only known from the anchors
+	 */
+	public Collection<File> ensureFiles() {
+		fileTable().names().forEach(this::ensureFileNamed);
+		for (SourcedEntity entity : repository.all(SourcedEntity.class))
+			if (entity.getSourceAnchor() instanceof AbstractFileAnchor) {
+				String fileName = ((AbstractFileAnchor) entity.getSourceAnchor()).getFileName();
+				if (fileName != null)
+					ensureFileNamed(fileName).addEntities(entity);
+			}
+		return files.values();
+	}
+
+	private File ensureFileNamed(String fileName) {
+		return files.computeIfAbsent(fileName, name -> {
+			File file = new File();
+			file.setName(name);
+			repository.add(file);
+			return file;
+		});
+	}
+
 	// COMMENT
 
 	public void ensureCommentFromBodyDeclaration(SourcedEntity entity, BodyDeclaration node) {
+		if (!extracts(Facet.COMMENTS))
+			return;
 		if (node.getJavadoc() != null)
-			createBasicComment(entity, node.getJavadoc().toString());
+			createBasicComment(entity, sourceOf(node.getJavadoc()));
 		else {
 			// if there is no javadoc, we look for single line or multi line comments before
 			// the node
 			CompilationUnit root = (CompilationUnit) node.getRoot();
 			int firstLeadingCommentIndex = root.firstLeadingCommentIndex(node);
 			if (firstLeadingCommentIndex >= 0)
-				// There seems to be a problem here: JDT does not seem to provide the contents
-				// of the comments.
-				// Only the types (one line or multi line).
-				createBasicComment(entity, root.getCommentList().get(firstLeadingCommentIndex).toString());
+				// JDT does not provide the contents of line and block comments, only their
+				// positions, so we take the contents from the source
+				createBasicComment(entity, sourceOf((ASTNode) root.getCommentList().get(firstLeadingCommentIndex)));
 		}
 	}
 
@@ -881,32 +2303,58 @@ public class InJavaImporter extends Importer {
 		repository.add(comment);
 	}
 
+	// DEPENDENCIES
+
+	private void setDeclaredType(BehaviouralEntity behaviouralEntity, Type declaredType) {
+		behaviouralEntity.setDeclaredType(declaredType);
+		recordDependency(behaviouralEntity, declaredType, DependencyGraph.Kind.DECLARED_TYPE);
+	}
+
+	private void setDeclaredType(StructuralEntity structuralEntity, Type declaredType) {
+		structuralEntity.setDeclaredType(declaredType);
+		recordDependency(structuralEntity, declaredType, DependencyGraph.Kind.DECLARED_TYPE);
+	}
+
+	private void recordDependency(NamedEntity source, Type target, DependencyGraph.Kind kind) {
+		if (dependencyGraph != null)
+			dependencyGraph.add(owningTypeOf(source), target, kind);
+	}
+
+	/**
+	 * The type in which the entity is defined. For types, this is the type itself.
+	 */
+	private Type owningTypeOf(NamedEntity entity) {
+		if (entity instanceof Type)
+			return (Type) entity;
+		if (entity instanceof Method)
+			return ((Method) entity).getParentType();
+		if (entity instanceof Attribute)
+			return ((Attribute) entity).getParentType();
+		if (entity instanceof EnumValue)
+			return ((EnumValue) entity).getParentEnum();
+		if (entity instanceof Parameter)
+			return owningTypeOf(((Parameter) entity).getParentBehaviouralEntity());
+		if (entity instanceof LocalVariable)
+			return owningTypeOf(((LocalVariable) entity).getParentBehaviouralEntity());
+		return null;
+	}
+
 	// UTILS
 
+	/**
+	 * JDT modifier flags use the same bits as {@link Modifiers}, so we only mask
+	 * the ones we extract and add the package visibility when there is no other
+	 * visibility
+	 */
+	private static final int BASIC_MODIFIER_FLAGS = Modifiers.PUBLIC | Modifiers.PROTECTED | Modifiers.PRIVATE
+			| Modifiers.FINAL | Modifiers.ABSTRACT | Modifiers.NATIVE | Modifiers.SYNCHRONIZED | Modifiers.TRANSIENT
+			| Modifiers.VOLATILE;
+
 	private void extractBasicModifiersFromBinding(int modifiers, NamedEntity entity) {
-		Boolean publicModifier = Modifier.isPublic(modifiers);
-		Boolean protectedModifier = Modifier.isProtected(modifiers);
-		Boolean privateModifier = Modifier.isPrivate(modifiers);
-		if (publicModifier)
-			entity.addModifiers("public");
-		if (protectedModifier)
-			entity.addModifiers("protected");
-		if (privateModifier)
-			entity.addModifiers("private");
-		if (!(publicModifier || protectedModifier || privateModifier))
-			entity.addModifiers("package");
-		if (Modifier.isFinal(modifiers))
-			entity.addModifiers("final");
-		if (Modifier.isAbstract(modifiers))
-			entity.addModifiers("abstract");
-		if (Modifier.isNative(modifiers))
-			entity.addModifiers("native");
-		if (Modifier.isSynchronized(modifiers))
-			entity.addModifiers("synchronized");
-		if (Modifier.isTransient(modifiers))
-			entity.addModifiers("transient");
-		if (Modifier.isVolatile(modifiers))
-			entity.addModifiers("volatile");
+		int flags = modifiers & BASIC_MODIFIER_FLAGS;
+		if ((flags & (Modifiers.PUBLIC | Modifiers.PROTECTED | Modifiers.PRIVATE)) == 0)
+			flags |= Modifiers.PACKAGE;
+		entity.addModifierFlags(flags);
 		/*
 		 * We do not extract the static modifier here because we want to set the
 		 * hasClassScope property and we do that specifically only for attributes and
@@ -918,12 +2366,34 @@ public class InJavaImporter extends Importer {
 
 	public void exportMSE(String fileName) {
 		try {
-			repository.exportMSE(Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8));
+			if (columnarAssociations == null)
+				repository.exportMSE(Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8));
+			else
+				exportMSEWithColumns(Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8));
 		} catch (IOException e) {
 			throw new IllegalStateException(e);
 		}
 	}
 
+	/**
+	 * The exporter of Fame numbers the elements in the order of the repository,
+	 * starting from 1, so the rows of the columns can refer to them. The rows
+	 * follow these numbers, after the last element. A test re-imports the file
+	 * to pin this on the version of Fame we use
+	 */
+	public void exportMSEWithColumns(Appendable stream) {
+		Map<Object, Integer> serials = new IdentityHashMap<Object, Integer>();
+		for (Object element : repository.getElements())
+			serials.put(element, serials.size() + 1);
+		repository.accept(new MSEPrinter(stream) {
+			@Override
+			public void endDocument() {
+				columnarAssociations.exportMSE(this, serials);
+				super.endDocument();
+			}
+		});
+	}
+
 	public void logNullBinding(String string, Object extraData, int lineNumber) {
 		logger.error("unresolved " + string + " - " + extraData + " - " + currentFilePath + " - line " + lineNumber);
 	}
@@ -1,36 +1,456 @@
 package com.feenk.jdt2famix.injava;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.feenk.jdt2famix.Classpath;
+import com.feenk.jdt2famix.ContentAddressedCache;
+import com.feenk.jdt2famix.FileCosts;
+import com.feenk.jdt2famix.GitRepository;
+import com.feenk.jdt2famix.HeapGovernor;
 import com.feenk.jdt2famix.JavaFiles;
+import com.feenk.jdt2famix.SourcePrefetcher;
+import com.feenk.jdt2famix.SourceFilter;
+import com.feenk.jdt2famix.injava.ExtractionProfile.Facet;
 
 public class Main {
 
     private static final Logger logger = LogManager.getLogger(Main.class);
+
+	private static final double HEAP_PRESSURE_THRESHOLD = 0.8;
+	private static final int MINIMUM_BATCH_SIZE = 10;
+	private static final int DEFAULT_MAXIMUM_BATCH_SIZE = 1000;
+	private static final int DEFAULT_PREFETCH_WINDOW = 64;
+	private static final int PREFETCH_THREADS = 4;
+	private static final long MAPPED_FILE_SIZE = 1 << 20;
+	private static final long DEFAULT_CACHE_MEGABYTES = 1024;
+	private static final String[] DEPENDENCIES_FORMATS = { "csv", "binary" };
 	
+	/**
+	 * Usage: jdt2famix [options] [rootFolder]
+	 * 
+	 * --dependencies=csv|binary also exports the type and package dependency
+	 * matrices next to the MSE file, but not with --history or --patch
+	 * 
+	 * --metrics=csv|ndjson only streams the metrics of types and methods, without
+	 * building the model and without exporting the MSE file, so it cannot be
+	 * combined with --dependencies, --cache, --checkpoint, --history or --patch
+	 * 
+	 * --aggregate creates one invocation or access per source and target, with
+	 * the number of sites in its occurrences property. --aggregate-with-sites also
+	 * exports the position of each site in a sites CSV file
+	 * 
+	 * --profile=full|architecture|callgraph|declarations chooses the facets of the
+	 * model to extract, and --with=facet,... and --without=facet,... switch single
+	 * facets (comments, local-variables, annotations, source-anchors, invocations,
+	 * accesses, exceptions, method-bodies) on top of the profile. The
+	 * declarations profile does not parse method bodies at all
+	 * 
+	 * --include-packages=a.b,... --exclude-packages=a.b,... --include-paths=glob,...
+	 * --exclude-paths=glob,... only import the selected sources. The other
+	 * sources are only used to resolve types
+	 * 
+	 * --sourcepath=folder,... adds source folders, for example of other modules,
+	 * from which the parser loads the sources it needs to resolve types, without
+	 * importing them
+	 * 
+	 * --checkpoint=folder saves the model to the folder every 500 files, or every
+	 * --checkpoint-every=N files, and --resume continues a crashed import from the
+	 * last checkpoint in the folder, without importing the visited files again.
+	 * The history and patches do not checkpoint
+	 * 
+	 * --time-budget=seconds skips the files whose parse and visit take longer,
+	 * and parses each file on its own. Files that are skipped or whose import
+	 * fails are listed in a problems CSV file
+	 * 
+	 * --batch-size=N parses N files at a time instead of all at once, which needs
+	 * less memory. --govern-heap adapts the batch size, up to N or 1000, to the
+	 * free heap and, when the heap is nearly full, drops the memos and moves the
+	 * invocations and accesses into columns, as with --columns, unless the
+	 * associations are aggregated or checkpointed
+	 * 
+	 * --columns[=folder] stores invocations and accesses in columns outside of the
+	 * heap, in memory-mapped files when a folder is given
+	 * 
+	 * --threads=N parses on N threads, the largest files first. --costs=file reads
+	 * the timings of the files from an earlier run, to order them better than by
+	 * their size, and saves the timings of this run
+	 * 
+	 * --prefetch[=N] reads up to N sources, or 64, on separate threads ahead of
+	 * the parser, which parses each file from memory
+	 * 
+	 * --cache=folder keeps the facts extracted from each file in the folder, and
+	 * replays them instead of importing a file with the same contents again,
+	 * unless the source types that the file refers to changed. The folder is
+	 * shared by all imports and keeps its size below 1024 MB, or
+	 * --cache-size=MB
+	 * 
+	 * --patch=folder --from=revision --to=revision starts from the model saved in
+	 * the checkpoint folder of an import of the git repository at the root folder,
+	 * and only imports the java files that changed between the revisions. It
+	 * exports the patched model and the added, removed and changed entities in a
+	 * delta CSV file. The sources are read from git at the new revision, so the
+	 * working tree does not matter
+	 * 
+	 * --history=revision,... imports the revisions of the git repository at the
+	 * root folder one after the other, each one only importing the java files
+	 * changed since the previous one. It exports one MSE file per revision and a
+	 * history CSV file with the revisions in which each declared entity exists
+	 * 
+	 * --shards=N splits the files into N shards in the folder given by
+	 * --shard-folder=folder, or name-shards, imports each shard in a worker
+	 * process of its own, with --worker-heap=size, and merges their models. With
+	 * --plan-only, the workers are not started, so that they can run elsewhere
+	 * with --shard=folder/shard-i and the same other options, and
+	 * --merge-shards merges their models afterwards. Shards cannot export
+	 * dependencies or stream metrics
+	 */
 	public static void main(String[] args) {
 		InJavaImporter importer = new InJavaImporter();
-		String pathName;
-		if (args.length > 0)
-			pathName = args[0];
-		else 
-			pathName = ".";
+		String pathName = ".";
+		String dependenciesFormat = null;
+		String metricsFormat = null;
+		SourceFilter sourceFilter = new SourceFilter();
+		String[] sourcepath = new String[0];
+		String checkpointFolder = null;
+		int checkpointEvery = 500;
+		boolean resume = false;
+		int batchSize = 0;
+		boolean governHeap = false;
+		int threads = 1;
+		String costsFileName = null;
+		int prefetchWindow = 0;
+		String cacheFolder = null;
+		long cacheMegabytes = DEFAULT_CACHE_MEGABYTES;
+		String patchedCheckpointFolder = null;
+		String fromRevision = null;
+		String toRevision = "HEAD";
+		String[] historyRevisions = null;
+		int shards = 0;
+		String shardFolderName = null;
+		String workerHeap = null;
+		boolean planOnly = false;
+		String shardToImport = null;
+		boolean mergeShards = false;
+		List<String> workerArguments = new ArrayList<String>();
+		List<String> facetSwitches = new ArrayList<String>();
+		for (String arg : args) {
+			if (!isCoordinatorOption(arg))
+				workerArguments.add(arg);
+			if (arg.startsWith("--dependencies="))
+				dependenciesFormat = arg.substring("--dependencies=".length());
+			else if (arg.startsWith("--metrics="))
+				metricsFormat = arg.substring("--metrics=".length());
+			else if (arg.equals("--aggregate"))
+				importer.aggregateAssociations(false);
+			else if (arg.equals("--aggregate-with-sites"))
+				importer.aggregateAssociations(true);
+			else if (arg.startsWith("--profile="))
+				importer.setExtractionProfile(ExtractionProfile.named(arg.substring("--profile=".length())));
+			else if (arg.startsWith("--with=") || arg.startsWith("--without="))
+				facetSwitches.add(arg);
+			else if (arg.startsWith("--include-packages="))
+				sourceFilter.includePackages(valuesIn(arg.substring("--include-packages=".length())));
+			else if (arg.startsWith("--exclude-packages="))
+				sourceFilter.excludePackages(valuesIn(arg.substring("--exclude-packages=".length())));
+			else if (arg.startsWith("--include-paths="))
+				sourceFilter.includePaths(valuesIn(arg.substring("--include-paths=".length())));
+			else if (arg.startsWith("--exclude-paths="))
+				sourceFilter.excludePaths(valuesIn(arg.substring("--exclude-paths=".length())));
+			else if (arg.startsWith("--sourcepath="))
+				sourcepath = valuesIn(arg.substring("--sourcepath=".length()));
+			else if (arg.startsWith("--checkpoint="))
+				checkpointFolder = arg.substring("--checkpoint=".length());
+			else if (arg.startsWith("--checkpoint-every="))
+				checkpointEvery = Integer.parseInt(arg.substring("--checkpoint-every=".length()));
+			else if (arg.equals("--resume"))
+				resume = true;
+			else if (arg.startsWith("--batch-size="))
+				batchSize = Integer.parseInt(arg.substring("--batch-size=".length()));
+			else if (arg.equals("--columns"))
+				importer.storeAssociationsInColumns(null);
+			else if (arg.startsWith("--columns="))
+				importer.storeAssociationsInColumns(Paths.get(arg.substring("--columns=".length())));
+			else if (arg.startsWith("--threads="))
+				threads = Integer.parseInt(arg.substring("--threads=".length()));
+			else if (arg.startsWith("--costs="))
+				costsFileName = arg.substring("--costs=".length());
+			else if (arg.startsWith("--cache="))
+				cacheFolder = arg.substring("--cache=".length());
+			else if (arg.startsWith("--cache-size="))
+				cacheMegabytes = Long.parseLong(arg.substring("--cache-size=".length()));
+			else if (arg.startsWith("--patch="))
+				patchedCheckpointFolder = arg.substring("--patch=".length());
+			else if (arg.startsWith("--shards="))
+				shards = Integer.parseInt(arg.substring("--shards=".length()));
+			else if (arg.startsWith("--shard-folder="))
+				shardFolderName = arg.substring("--shard-folder=".length());
+			else if (arg.startsWith("--worker-heap="))
+				workerHeap = arg.substring("--worker-heap=".length());
+			else if (arg.equals("--plan-only"))
+				planOnly = true;
+			else if (arg.startsWith("--shard="))
+				shardToImport = arg.substring("--shard=".length());
+			else if (arg.equals("--merge-shards"))
+				mergeShards = true;
+			else if (arg.startsWith("--history="))
+				historyRevisions = valuesIn(arg.substring("--history=".length()));
+			else if (arg.startsWith("--from="))
+				fromRevision = arg.substring("--from=".length());
+			else if (arg.startsWith("--to="))
+				toRevision = arg.substring("--to=".length());
+			else if (arg.equals("--prefetch"))
+				prefetchWindow = DEFAULT_PREFETCH_WINDOW;
+			else if (arg.startsWith("--prefetch="))
+				prefetchWindow = Integer.parseInt(arg.substring("--prefetch=".length()));
+			else if (arg.equals("--govern-heap"))
+				governHeap = true;
+			else if (arg.startsWith("--time-budget="))
+				importer.setTimeBudgetPerFile(Long.parseLong(arg.substring("--time-budget=".length())) * 1000);
+			else
+				pathName = arg;
+		}
+		/*
+		 * The facets are switched on top of the profile, wherever the profile is given
+		 */
+		for (String facetSwitch : facetSwitches)
+			if (facetSwitch.startsWith("--with="))
+				importer.setExtractionProfile(
+						importer.extractionProfile().with(facetsIn(facetSwitch.substring("--with=".length()))));
+			else
+				importer.setExtractionProfile(
+						importer.extractionProfile().without(facetsIn(facetSwitch.substring("--without=".length()))));
+		boolean sharded = shards > 0 || mergeShards || shardToImport != null;
+		if (sharded && (dependenciesFormat != null || metricsFormat != null))
+			throw new IllegalArgumentException("shards cannot export dependencies or stream metrics");
+		if (dependenciesFormat != null && !Arrays.asList(DEPENDENCIES_FORMATS).contains(dependenciesFormat))
+			throw new IllegalArgumentException("unknown dependencies format - " + dependenciesFormat);
+		if (metricsFormat != null && Arrays.stream(MetricsWriter.Format.values()).map(Enum::name)
+				.noneMatch(metricsFormat.toUpperCase()::equals))
+			throw new IllegalArgumentException("unknown metrics format - " + metricsFormat);
+		boolean revisions = historyRevisions != null || patchedCheckpointFolder != null;
+		if (revisions && dependenciesFormat != null)
+			throw new IllegalArgumentException("the history and patches cannot export dependencies");
+		if (revisions && checkpointFolder != null)
+			throw new IllegalArgumentException("the history and patches cannot checkpoint");
+		if (metricsFormat != null && (dependenciesFormat != null || cacheFolder != null || checkpointFolder != null
+				|| revisions))
+			throw new IllegalArgumentException("metrics are streamed without a model, so they cannot be combined "
+					+ "with dependencies, the cache, checkpoints, the history or patches");
+		if (batchSize > 0)
+			importer.setBatchSize(batchSize);
+		HeapGovernor heapGovernor = null;
+		if (governHeap) {
+			heapGovernor = new HeapGovernor(HEAP_PRESSURE_THRESHOLD, MINIMUM_BATCH_SIZE,
+					batchSize > 0 ? batchSize : DEFAULT_MAXIMUM_BATCH_SIZE);
+			importer.governHeap(heapGovernor);
+		}
+		SourcePrefetcher sourcePrefetcher = null;
+		if (prefetchWindow > 0) {
+			sourcePrefetcher = new SourcePrefetcher(PREFETCH_THREADS, prefetchWindow, MAPPED_FILE_SIZE);
+			importer.prefetchSources(sourcePrefetcher);
+		}
+		FileCosts fileCosts = new FileCosts();
+		if (costsFileName != null)
+			fileCosts.load(Paths.get(costsFileName));
+		if (threads > 1)
+			importer.parseInParallel(threads, fileCosts);
 		Path path = Paths.get(pathName).toAbsolutePath().normalize();
-		String mseFileName = path.getName(path.getNameCount() - 1) + ".mse";
+		String baseName = path.getName(path.getNameCount() - 1).toString();
 		JavaFiles javaFiles = new JavaFiles();
-		javaFiles.deepJavaFiles(path.toString());
+		javaFiles.deepJavaFiles(path.toString(), sourceFilter);
+		Arrays.stream(sourcepath).forEach(javaFiles::sourcepathEntry);
 		Classpath classpath = new Classpath();
 		classpath.deepJarFiles(path.toString());
+		if (metricsFormat == null) {
+			if (dependenciesFormat != null)
+				importer.trackDependencies();
+			if (cacheFolder != null)
+				importer.cacheExtractionsIn(new ContentAddressedCache(Paths.get(cacheFolder), cacheMegabytes << 20));
+		}
+		try {
+			if (metricsFormat != null)
+				streamMetrics(importer, javaFiles, classpath, baseName, metricsFormat, fileCosts, costsFileName);
+			else if (shardToImport != null)
+				importShard(importer, Paths.get(shardToImport), javaFiles, classpath);
+			else if (shards > 0 || mergeShards)
+				importInShards(importer, Paths.get(shardFolderName != null ? shardFolderName : baseName + "-shards"),
+						shards, planOnly, workerHeap, workerArguments, javaFiles, fileCosts, baseName);
+			else if (historyRevisions != null)
+				importHistory(importer, path, historyRevisions, classpath, baseName);
+			else if (patchedCheckpointFolder != null)
+				patch(importer, path, Paths.get(patchedCheckpointFolder), fromRevision, toRevision, classpath,
+						baseName);
+			else {
+				if (governHeap && checkpointFolder == null && importer.associationAggregator() == null)
+					importer.spillAssociationsUnderPressure(null);
+				importRootFolder(importer, path, javaFiles, classpath, checkpointFolder, checkpointEvery, resume,
+						dependenciesFormat, fileCosts, costsFileName, baseName);
+			}
+		} finally {
+			close(heapGovernor, sourcePrefetcher);
+		}
+		logger.trace("done");
+	}
+
+	private static void importShard(InJavaImporter importer, Path shardFolder, JavaFiles javaFiles,
+			Classpath classpath) {
+		logger.trace("importing shard - " + shardFolder);
+		ShardedImport.importShard(importer, shardFolder, javaFiles, classpath);
+	}
+
+	/**
+	 * Plans the shards and runs one worker per shard, unless only planning or
+	 * merging, and merges the models of the shards
+	 */
+	private static void importInShards(InJavaImporter importer, Path shardsFolder, int shards, boolean planOnly,
+			String workerHeap, List<String> workerArguments, JavaFiles javaFiles, FileCosts fileCosts,
+			String baseName) {
+		ShardedImport sharded = new ShardedImport(shardsFolder);
+		if (shards > 0) {
+			List<Path> shardFolders = sharded.plan(javaFiles.paths(), shards, fileCosts);
+			if (planOnly) {
+				logger.trace("planned " + shardFolders.size() + " shards - " + shardFolders);
+				return;
+			}
+			sharded.runWorkers(shardFolders,
+					workerHeap == null ? new ArrayList<String>() : Arrays.asList("-Xmx" + workerHeap),
+					workerArguments);
+		}
+		InJavaImporter merged = ShardedImport.merge(sharded.shardFolders(), () -> {
+			InJavaImporter shard = new InJavaImporter();
+			shard.setExtractionProfile(importer.extractionProfile());
+			return shard;
+		});
+		logger.trace("exporting - " + baseName + ".mse");
+		merged.exportMSE(baseName + ".mse");
+	}
+
+	private static void importHistory(InJavaImporter importer, Path path, String[] revisions, Classpath classpath,
+			String baseName) {
+		RevisionHistory history = new RevisionHistory(importer, new GitRepository(path));
+		history.importRevisions(Arrays.asList(revisions), classpath, (revision, revisionImporter) -> {
+			String revisionFileName = baseName + "-" + revision.replaceAll("[^\\w.-]", "_") + ".mse";
+			logger.trace("exporting - " + revisionFileName);
+			revisionImporter.exportMSE(revisionFileName);
+		});
+		logger.trace("exporting - " + baseName + "-history.csv");
+		history.exportCSV(baseName + "-history.csv");
+		exportProblems(importer, baseName);
+	}
+
+	private static void patch(InJavaImporter importer, Path path, Path checkpointFolder, String fromRevision,
+			String toRevision, Classpath classpath, String baseName) {
+		if (fromRevision == null)
+			throw new IllegalArgumentException("--patch needs --from=revision");
+		importer.startFrom(checkpointFolder);
+		logger.trace("patching from " + fromRevision + " to " + toRevision + " - " + path.toString());
+		ModelDelta delta = importer.patch(new GitRepository(path), fromRevision, toRevision, classpath);
+		logger.trace("exporting - " + baseName + ".mse");
+		importer.exportMSE(baseName + ".mse");
+		logger.trace("exporting - " + baseName + "-delta.csv");
+		delta.exportCSV(baseName + "-delta.csv");
+		exportProblems(importer, baseName);
+	}
+
+	private static void importRootFolder(InJavaImporter importer, Path path, JavaFiles javaFiles,
+			Classpath classpath, String checkpointFolder, int checkpointEvery, boolean resume,
+			String dependenciesFormat, FileCosts fileCosts, String costsFileName, String baseName) {
+		if (checkpointFolder != null) {
+			importer.checkpointTo(Paths.get(checkpointFolder), checkpointEvery);
+			if (resume) {
+				List<String> visitedPaths = importer.resume();
+				logger.trace("resuming after " + visitedPaths.size() + " visited files");
+				javaFiles.skip(visitedPaths);
+			}
+		}
 		logger.trace("importing root folder - " + path.toString());
 		importer.run(javaFiles, classpath);
-		logger.trace("exporting - " + mseFileName);
-		importer.exportMSE(mseFileName);
-		logger.trace("done");
+		reportScheduling(importer, fileCosts, costsFileName);
+		logger.trace("exporting - " + baseName + ".mse");
+		importer.exportMSE(baseName + ".mse");
+		exportProblems(importer, baseName);
+		AssociationAggregator associationAggregator = importer.associationAggregator();
+		if (associationAggregator != null && associationAggregator.keepsSites()) {
+			logger.trace("exporting - " + baseName + "-sites.csv");
+			associationAggregator.exportSitesCSV(baseName + "-sites.csv");
+		}
+		if ("csv".equals(dependenciesFormat)) {
+			logger.trace("exporting - " + baseName + "-dependencies.csv");
+			importer.dependencyGraph().exportCSV(baseName + "-dependencies.csv");
+		}
+		if ("binary".equals(dependenciesFormat)) {
+			logger.trace("exporting - " + baseName + "-dependencies.bin");
+			importer.dependencyGraph().exportBinary(baseName + "-dependencies.bin");
+		}
+	}
+
+	/**
+	 * The options that only concern the coordinator of shards, which the workers
+	 * do not get
+	 */
+	private static boolean isCoordinatorOption(String arg) {
+		return Stream.of("--shards=", "--shard-folder=", "--worker-heap=", "--plan-only", "--merge-shards",
+				"--checkpoint", "--resume").anyMatch(arg::startsWith);
+	}
+
+	private static void close(AutoCloseable... closeables) {
+		for (AutoCloseable closeable : closeables)
+			try {
+				if (closeable != null)
+					closeable.close();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+	}
+
+	private static void reportScheduling(InJavaImporter importer, FileCosts fileCosts, String costsFileName) {
+		if (importer.schedulingReport() == null)
+			return;
+		logger.trace("parsed - " + importer.schedulingReport());
+		if (costsFileName != null)
+			fileCosts.save(Paths.get(costsFileName));
+	}
+
+	private static void exportProblems(InJavaImporter importer, String baseName) {
+		if (importer.problemReport().isEmpty())
+			return;
+		logger.trace("exporting - " + baseName + "-problems.csv");
+		importer.problemReport().exportCSV(baseName + "-problems.csv");
+	}
+
+	private static Facet[] facetsIn(String commaSeparatedNames) {
+		return Arrays.stream(valuesIn(commaSeparatedNames)).map(Facet::named).toArray(Facet[]::new);
+	}
+
+	private static String[] valuesIn(String commaSeparatedValues) {
+		return commaSeparatedValues.split(",");
+	}
+
+	private static void streamMetrics(InJavaImporter importer, JavaFiles javaFiles, Classpath classpath,
+			String baseName, String metricsFormat, FileCosts fileCosts, String costsFileName) {
+		MetricsWriter.Format format = MetricsWriter.Format.valueOf(metricsFormat.toUpperCase());
+		String metricsFileName = baseName + "-metrics." + metricsFormat.toLowerCase();
+		logger.trace("streaming metrics - " + metricsFileName);
+		try (MetricsWriter metricsWriter = new MetricsWriter(
+				Files.newBufferedWriter(Paths.get(metricsFileName), StandardCharsets.UTF_8), format)) {
+			importer.streamMetricsTo(metricsWriter);
+			importer.run(javaFiles, classpath);
+			reportScheduling(importer, fileCosts, costsFileName);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		exportProblems(importer, baseName);
 	}
 
 }
@@ -0,0 +1,28 @@
+package com.feenk.jdt2famix.injava;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import com.feenk.jdt2famix.JavaFiles;
+
+/**
+ * Visits each file with the regular {@link AstVisitor}, streams the metrics of
+ * the types and methods declared in the file, and then drops the model of the
+ * file. This way, the memory stays flat regardless of the size of the code base
+ */
+public class MetricsAstRequestor extends AstRequestor {
+
+	private MetricsWriter metricsWriter;
+
+	public MetricsAstRequestor(InJavaImporter importer, JavaFiles allJavaFiles, MetricsWriter metricsWriter) {
+		super(importer, allJavaFiles);
+		this.metricsWriter = metricsWriter;
+	}
+
+	@Override
+	public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+		super.acceptAST(sourceFilePath, ast);
+		metricsWriter.writeMetricsOf(importer, ast, importer.fileTable().nameOfPath(sourceFilePath));
+		importer.resetModel();
+	}
+
+}
@@ -0,0 +1,324 @@
+package com.feenk.jdt2famix.injava;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import com.feenk.jdt2famix.Famix;
+import com.feenk.jdt2famix.model.famix.BehaviouralEntity;
+import com.feenk.jdt2famix.model.famix.IndexedFileAnchor;
+import com.feenk.jdt2famix.model.famix.Invocation;
+import com.feenk.jdt2famix.model.famix.Method;
+import com.feenk.jdt2famix.model.famix.SourcedEntity;
+import com.feenk.jdt2famix.model.famix.Type;
+
+/**
+ * Streams one record per type and per method declared in a file, as soon as
+ * the file was visited. The records hold: lines, cyclomatic complexity (for
+ * types, the sum over their methods), number of parameters, number of methods
+ * and attributes and fan-out (distinct invoked methods, or distinct other
+ * invoked types).
+ *
+ * Fan-in is only known after all files are visited, so we keep one counter per
+ * qualified name and write it as methodFanIn and typeFanIn records when the
+ * writer is closed. Beyond a number of names, the counters are written to a
+ * temporary file, sorted by name, and the files are merged at the end, so that
+ * the memory does not grow with the code base.
+ */
+public class MetricsWriter implements Closeable {
+
+	public enum Format {
+		CSV, NDJSON
+	}
+
+	private static final String[] COLUMNS = { "kind", "name", "file", "lines", "cyclomaticComplexity", "parameters",
+			"methods", "attributes", "fanOut", "fanIn" };
+
+	private final Writer writer;
+	private final Format format;
+
+	private static final int FAN_INS_IN_MEMORY = 1 << 20;
+
+	private final FanInCounts methodFanIn;
+	private final FanInCounts typeFanIn;
+
+	public MetricsWriter(Writer writer, Format format) {
+		this(writer, format, FAN_INS_IN_MEMORY);
+	}
+
+	MetricsWriter(Writer writer, Format format, int fanInsInMemory) {
+		this.writer = writer;
+		this.format = format;
+		methodFanIn = new FanInCounts(fanInsInMemory);
+		typeFanIn = new FanInCounts(fanInsInMemory);
+		if (format == Format.CSV)
+			write(String.join(",", COLUMNS) + "\n");
+	}
+
+	public void writeMetricsOf(InJavaImporter importer, CompilationUnit ast, String fileName) {
+		List<Type> declaredTypes = importer.types().stream().filter(t -> !isStub(t.getIsStub()))
+				.sorted(Comparator.comparingInt(Type::getAstStartPositionAsInt)).collect(Collectors.toList());
+		for (Type type : declaredTypes) {
+			List<Method> declaredMethods = type.getMethods().stream().filter(m -> !isStub(m.getIsStub()))
+					.sorted(Comparator.comparingInt(Method::getAstStartPositionAsInt))
+					.collect(Collectors.toList());
+			writeTypeMetrics(type, declaredMethods, ast, fileName);
+			for (Method method : declaredMethods)
+				writeMethodMetrics(method, ast, fileName);
+		}
+		flush();
+	}
+
+	private void writeTypeMetrics(Type type, List<Method> declaredMethods, CompilationUnit ast, String fileName) {
+		int cyclomaticComplexity = 0;
+		Set<String> invokedTypes = new LinkedHashSet<String>();
+		for (Method method : declaredMethods) {
+			cyclomaticComplexity += method.getCyclomaticComplexityAsInt();
+			for (Invocation invocation : method.getOutgoingInvocations())
+				for (BehaviouralEntity candidate : invocation.getCandidates())
+					if (candidate instanceof Method && ((Method) candidate).getParentType() != type)
+						invokedTypes.add(Famix.qualifiedNameOf(((Method) candidate).getParentType()));
+		}
+		for (String invokedType : invokedTypes)
+			typeFanIn.add(invokedType);
+		writeRecord("type", Famix.qualifiedNameOf(type), fileName, linesOf(type, ast), cyclomaticComplexity, null,
+				declaredMethods.size(), type.getAttributes().size(), invokedTypes.size(), null);
+	}
+
+	private void writeMethodMetrics(Method method, CompilationUnit ast, String fileName) {
+		Set<String> invokedMethods = new LinkedHashSet<String>();
+		for (Invocation invocation : method.getOutgoingInvocations())
+			for (BehaviouralEntity candidate : invocation.getCandidates())
+				if (candidate instanceof Method)
+					invokedMethods.add(Famix.qualifiedNameOf((Method) candidate));
+		for (String invokedMethod : invokedMethods)
+			methodFanIn.add(invokedMethod);
+		writeRecord("method", Famix.qualifiedNameOf(method), fileName, linesOf(method, ast),
+				method.getCyclomaticComplexityAsInt(), method.getParameters().size(), null, null,
+				invokedMethods.size(), null);
+	}
+
+	/**
+	 * We count the lines of the whole declaration as given by the source anchor.
+	 * The positions of the anchor are 1-based, while the compilation unit uses
+	 * 0-based positions
+	 */
+	private Integer linesOf(SourcedEntity entity, CompilationUnit ast) {
+		if (!(entity.getSourceAnchor() instanceof IndexedFileAnchor))
+			return null;
+		IndexedFileAnchor anchor = (IndexedFileAnchor) entity.getSourceAnchor();
+		int startLine = ast.getLineNumber(anchor.getStartPosAsInt() - 1);
+		int stopLine = ast.getLineNumber(anchor.getEndPosAsInt() - 1);
+		if (startLine < 0 || stopLine < 0)
+			return null;
+		return stopLine - startLine + 1;
+	}
+
+	private static boolean isStub(Boolean isStub) {
+		return isStub == null || isStub;
+	}
+
+	// FAN-IN
+
+	/**
+	 * Counts per name, in memory up to a number of names. Then the counts are
+	 * written as a run of "name TAB count" lines sorted by name, and the runs are
+	 * merged by name when the counts are read
+	 */
+	private static class FanInCounts {
+
+		private final int limit;
+		private Map<String, Integer> counts = new HashMap<String, Integer>();
+		private final List<Path> runs = new ArrayList<Path>();
+
+		FanInCounts(int limit) {
+			this.limit = limit;
+		}
+
+		void add(String name) {
+			counts.merge(name, 1, Integer::sum);
+			if (counts.size() >= limit)
+				spill();
+		}
+
+		private void spill() {
+			try {
+				Path run = Files.createTempFile("fan-in", ".run");
+				runs.add(run);
+				try (Writer runWriter = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+					for (Map.Entry<String, Integer> entry : new TreeMap<String, Integer>(counts).entrySet())
+						runWriter.write(entry.getKey() + '\t' + entry.getValue() + '\n');
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			counts = new HashMap<String, Integer>();
+		}
+
+		void forEach(BiConsumer<String, Integer> action) {
+			if (runs.isEmpty()) {
+				counts.forEach(action);
+				return;
+			}
+			spill();
+			List<BufferedReader> readers = new ArrayList<BufferedReader>();
+			try {
+				PriorityQueue<RunLine> heads = new PriorityQueue<RunLine>();
+				for (Path run : runs) {
+					BufferedReader reader = Files.newBufferedReader(run, StandardCharsets.UTF_8);
+					readers.add(reader);
+					RunLine.next(reader, heads);
+				}
+				while (!heads.isEmpty()) {
+					String name = heads.peek().name;
+					int count = 0;
+					while (!heads.isEmpty() && heads.peek().name.equals(name)) {
+						RunLine head = heads.poll();
+						count += head.count;
+						RunLine.next(head.reader, heads);
+					}
+					action.accept(name, count);
+				}
+				for (BufferedReader reader : readers)
+					reader.close();
+				for (Path run : runs)
+					Files.delete(run);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	private static class RunLine implements Comparable<RunLine> {
+
+		private final String name;
+		private final int count;
+		private final BufferedReader reader;
+
+		private RunLine(String line, BufferedReader reader) {
+			int tab = line.lastIndexOf('\t');
+			this.name = line.substring(0, tab);
+			this.count = Integer.parseInt(line.substring(tab + 1));
+			this.reader = reader;
+		}
+
+		static void next(BufferedReader reader, PriorityQueue<RunLine> heads) throws IOException {
+			String line = reader.readLine();
+			if (line != null)
+				heads.add(new RunLine(line, reader));
+		}
+
+		@Override
+		public int compareTo(RunLine other) {
+			return name.compareTo(other.name);
+		}
+	}
+
+	// RECORDS
+
+	private void writeRecord(String kind, String name, String file, Integer lines, Integer cyclomaticComplexity,
+			Integer parameters, Integer methods, Integer attributes, Integer fanOut, Integer fanIn) {
+		Object[] values = { kind, name, file, lines, cyclomaticComplexity, parameters, methods, attributes, fanOut,
+				fanIn };
+		if (format == Format.CSV)
+			write(csvLineOf(values));
+		else
+			write(jsonLineOf(values));
+	}
+
+	private String csvLineOf(Object[] values) {
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0)
+				line.append(',');
+			if (values[i] instanceof String)
+				line.append('"').append(((String) values[i]).replace("\"", "\"\"")).append('"');
+			else if (values[i] != null)
+				line.append(values[i]);
+		}
+		return line.append('\n').toString();
+	}
+
+	/**
+	 * Missing values are left out of the JSON object
+	 */
+	private String jsonLineOf(Object[] values) {
+		StringBuilder line = new StringBuilder("{");
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null)
+				continue;
+			if (line.length() > 1)
+				line.append(',');
+			line.append('"').append(COLUMNS[i]).append("\":");
+			if (values[i] instanceof String)
+				appendJsonString(line, (String) values[i]);
+			else
+				line.append(values[i]);
+		}
+		return line.append("}\n").toString();
+	}
+
+	private void appendJsonString(StringBuilder builder, String value) {
+		builder.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\')
+				builder.append('\\').append(c);
+			else if (c < 0x20)
+				builder.append(String.format("\\u%04x", (int) c));
+			else
+				builder.append(c);
+		}
+		builder.append('"');
+	}
+
+	private void write(String string) {
+		try {
+			writer.write(string);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void flush() {
+		try {
+			writer.flush();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes the fan-in records and closes the underlying writer
+	 */
+	@Override
+	public void close() {
+		typeFanIn.forEach((name, fanIn) -> writeRecord("typeFanIn", name, null, null, null, null, null, null, null,
+				fanIn));
+		methodFanIn.forEach((name, fanIn) -> writeRecord("methodFanIn", name, null, null, null, null, null, null,
+				null, fanIn));
+		try {
+			writer.close();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
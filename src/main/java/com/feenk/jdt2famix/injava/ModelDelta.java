@@ -0,0 +1,109 @@
+package com.feenk.jdt2famix.injava;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.feenk.jdt2famix.model.famix.AbstractFileAnchor;
+import com.feenk.jdt2famix.model.famix.SourcedEntity;
+
+/**
+ * The declared namespaces, types, methods, attributes and parameters that a
+ * {@link InJavaImporter#patch} added, removed or declared again in a changed
+ * file. Entities that are only referenced, and therefore stubs, do not count
+ */
+public class ModelDelta {
+
+	public enum Kind {
+		ADDED, REMOVED, CHANGED
+	}
+
+	public static class Change {
+		private final Kind kind;
+		private final String index;
+		private final String key;
+
+		Change(Kind kind, String index, String key) {
+			this.kind = kind;
+			this.index = index;
+			this.key = key;
+		}
+
+		public Kind kind() {
+			return kind;
+		}
+
+		/**
+		 * The name of the index of the importer, such as types or methods
+		 */
+		public String index() {
+			return index;
+		}
+
+		/**
+		 * The key of the entity in the index, such as the qualified name of a type
+		 */
+		public String key() {
+			return key;
+		}
+	}
+
+	private final List<Change> changes = new ArrayList<Change>();
+
+	static ModelDelta between(Map<String, Map<String, Object>> before, Map<String, Map<String, Object>> after,
+			Set<String> changedFileNames) {
+		ModelDelta delta = new ModelDelta();
+		for (String index : after.keySet()) {
+			Map<String, Object> entitiesBefore = new TreeMap<String, Object>(before.get(index));
+			Map<String, Object> entitiesAfter = new TreeMap<String, Object>(after.get(index));
+			for (String key : entitiesBefore.keySet())
+				if (!entitiesAfter.containsKey(key))
+					delta.changes.add(new Change(Kind.REMOVED, index, key));
+			entitiesAfter.forEach((key, entity) -> {
+				if (!entitiesBefore.containsKey(key))
+					delta.changes.add(new Change(Kind.ADDED, index, key));
+				else if (isAnchoredIn(entity, changedFileNames))
+					delta.changes.add(new Change(Kind.CHANGED, index, key));
+			});
+		}
+		return delta;
+	}
+
+	private static boolean isAnchoredIn(Object entity, Set<String> fileNames) {
+		if (!(entity instanceof SourcedEntity))
+			return false;
+		Object anchor = ((SourcedEntity) entity).getSourceAnchor();
+		return anchor instanceof AbstractFileAnchor && fileNames.contains(((AbstractFileAnchor) anchor).getFileName());
+	}
+
+	public List<Change> changes() {
+		return Collections.unmodifiableList(changes);
+	}
+
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	public void exportCSV(String fileName) {
+		try (Writer writer = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8)) {
+			writer.write("change,index,key\n");
+			for (Change change : changes)
+				writer.write(change.kind.name().toLowerCase() + "," + change.index + "," + quoted(change.key) + "\n");
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String quoted(String value) {
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+}
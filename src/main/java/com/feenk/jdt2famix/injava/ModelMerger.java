@@ -0,0 +1,179 @@
+package com.feenk.jdt2famix.injava;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.feenk.jdt2famix.model.famix.Enum;
+import com.feenk.jdt2famix.model.famix.EnumValue;
+import com.feenk.jdt2famix.model.famix.JavaSourceLanguage;
+import com.feenk.jdt2famix.model.famix.UnknownVariable;
+
+import ch.akuhn.fame.Repository;
+import ch.akuhn.fame.fm3.PropertyDescription;
+
+/**
+ * Merges the model of one importer into the model of another one, for example
+ * the models of shards of the same sources that were imported separately.
+ *
+ * The entities of the indexes are unified by their key, such as the qualified
+ * name of a type, and enum values by their enum and name. When a shard declares
+ * an entity that the model only has as a stub, the declaration wins: its
+ * properties replace those of the stub, and what belonged to the stub, such as
+ * the inheritances taken from a binding, is replaced by what belongs to the
+ * declaration. What belongs to a stub of the shard is dropped when the model
+ * already has the entity. All other entities are copied, with their references
+ * rewired to the entities of the model.
+ */
+class ModelMerger {
+
+	private static final String[] INDEXES = { "namespaces", "types", "methods", "attributes", "parameters" };
+
+	private final InJavaImporter target;
+	private final InJavaImporter source;
+	private final Map<Object, Object> counterparts = new IdentityHashMap<Object, Object>();
+	private final Map<Object, String[]> keys = new IdentityHashMap<Object, String[]>();
+	private final Set<Object> created = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+	private final Set<Object> declaredOverStubs = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+	private final Map<Object, Boolean> dropped = new IdentityHashMap<Object, Boolean>();
+
+	private ModelMerger(InJavaImporter target, InJavaImporter source) {
+		this.target = target;
+		this.source = source;
+	}
+
+	static void merge(InJavaImporter target, InJavaImporter source) {
+		new ModelMerger(target, source).merge();
+	}
+
+	private void merge() {
+		Repository sourceRepository = source.repository();
+		for (String index : INDEXES)
+			source.index(index).entries().forEach((key, element) -> keys.put(element, new String[] { index, key }));
+		List<Object> elements = new ArrayList<Object>(elementsOf(sourceRepository));
+		/*
+		 * Enum values are found through their enum, so the enums come first
+		 */
+		for (Object element : elements)
+			if (!(element instanceof EnumValue))
+				findCounterpart(element);
+		for (Object element : elements)
+			if (element instanceof EnumValue)
+				findCounterpart(element);
+		replaceWhatBelongsToStubs();
+		for (Object element : elements)
+			if ((created.contains(element) && !isDropped(element)) || declaredOverStubs.contains(element))
+				copyProperties(element);
+		for (Object element : elements) {
+			if (!created.contains(element) || isDropped(element))
+				continue;
+			Object counterpart = counterparts.get(element);
+			String[] key = keys.get(element);
+			if (key != null)
+				target.index(key[0]).add(key[1], counterpart);
+			else
+				target.repository().add(counterpart);
+			if (counterpart instanceof EnumValue)
+				target.rememberEnumValue((EnumValue) counterpart);
+		}
+	}
+
+	private void findCounterpart(Object element) {
+		Object existing = null;
+		String[] key = keys.get(element);
+		if (key != null)
+			existing = target.index(key[0]).named(key[1]);
+		else if (element instanceof UnknownVariable)
+			existing = target.unknownVariable();
+		else if (element instanceof JavaSourceLanguage)
+			existing = target.repository().all(JavaSourceLanguage.class).stream().findFirst().orElse(null);
+		else if (element instanceof EnumValue) {
+			Object parentEnum = counterparts.get(((EnumValue) element).getParentEnum());
+			if (parentEnum instanceof Enum)
+				existing = target.existingEnumValue((Enum) parentEnum, ((EnumValue) element).getName());
+		}
+		if (existing == null) {
+			counterparts.put(element, source.repository().descriptionOf(element).newInstance());
+			created.add(element);
+		} else {
+			counterparts.put(element, existing);
+			if (!InJavaImporter.isDeclared(existing) && InJavaImporter.isDeclared(element))
+				declaredOverStubs.add(element);
+		}
+	}
+
+	/**
+	 * An entity of the shard is dropped when it belongs to an entity that the
+	 * model already has, unless the shard declares that entity over a stub
+	 */
+	private boolean isDropped(Object element) {
+		Boolean isDropped = dropped.get(element);
+		if (isDropped != null)
+			return isDropped;
+		Object owner = isShared(element) ? null : source.ownerOf(element, null);
+		if (owner == null || !counterparts.containsKey(owner))
+			isDropped = false;
+		else if (created.contains(owner))
+			isDropped = isDropped(owner);
+		else
+			isDropped = !declaredOverStubs.contains(owner);
+		dropped.put(element, isDropped);
+		return isDropped;
+	}
+
+	private void replaceWhatBelongsToStubs() {
+		Set<Object> stubs = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		declaredOverStubs.forEach(element -> stubs.add(counterparts.get(element)));
+		if (stubs.isEmpty())
+			return;
+		Set<Object> owned = target.ownedBy(stubs, target.sharedEntities());
+		target.removeElements(owned);
+	}
+
+	private void copyProperties(Object element) {
+		Object counterpart = counterparts.get(element);
+		for (PropertyDescription property : source.repository().descriptionOf(element).allAttributes()) {
+			if (property.isDerived())
+				continue;
+			List<Object> values = new ArrayList<Object>();
+			for (Object value : property.readAll(element))
+				if (property.isPrimitive())
+					values.add(value);
+				else if (value != null && counterparts.containsKey(value) && !isDropped(value))
+					values.add(counterparts.get(value));
+			if (property.isMultivalued())
+				write(property, counterpart, values);
+			else if (!values.isEmpty() || !created.contains(element))
+				property.writeAll(counterpart, values.isEmpty() ? Collections.singletonList(null) : values);
+		}
+	}
+
+	private static void write(PropertyDescription property, Object element, List<Object> values) {
+		Collection<Object> current = property.readAll(element);
+		List<Object> union = new ArrayList<Object>(current);
+		for (Object each : values)
+			if (!current.contains(each))
+				union.add(each);
+		property.writeAll(element, union);
+	}
+
+	/**
+	 * Fame answers the elements as a raw collection
+	 */
+	@SuppressWarnings("unchecked")
+	private static Collection<Object> elementsOf(Repository repository) {
+		return repository.getElements();
+	}
+
+	/**
+	 * Entities that are unified by key never belong to another one
+	 */
+	private boolean isShared(Object element) {
+		return keys.containsKey(element) || element instanceof EnumValue || element instanceof UnknownVariable;
+	}
+
+}
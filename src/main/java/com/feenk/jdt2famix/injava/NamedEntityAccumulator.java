@@ -1,8 +1,11 @@
 package com.feenk.jdt2famix.injava;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -17,6 +20,11 @@ public class NamedEntityAccumulator<T> {
 	private Repository repository;
 
 	private Map<String,T> entities;
+
+	/**
+	 * Told about each entity that is added or looked up, with its qualified name
+	 */
+	private BiConsumer<String, Object> observer;
 	
 	public NamedEntityAccumulator(Repository repository) {
 		this.repository = repository;
@@ -39,17 +47,49 @@ public class NamedEntityAccumulator<T> {
 	}
 	
 	public T add(String qualifiedName, T entity) {
+		if (observer != null)
+			observer.accept(qualifiedName, entity);
 		entities.put(qualifiedName, entity);
 		repository.add(entity);
 		return entity;
 	}
 	public T named(String qualifiedName) {
-		return entities.get(qualifiedName);
+		T entity = entities.get(qualifiedName);
+		if (observer != null && entity != null)
+			observer.accept(qualifiedName, entity);
+		return entity;
+	}
+
+	public void observeWith(BiConsumer<String, Object> observer) {
+		this.observer = observer;
 	}
 	public boolean has(String qualifiedName) {
 		return entities.containsKey(qualifiedName);
 	}
 
+	/**
+	 * The entities by qualified name, for saving them in a checkpoint
+	 */
+	public Map<String, T> entries() {
+		return Collections.unmodifiableMap(entities);
+	}
+
+	/**
+	 * Puts back entries saved in a checkpoint. The entities are already in the
+	 * restored repository
+	 */
+	@SuppressWarnings("unchecked")
+	public void restore(Map<String, ?> restoredEntities) {
+		restoredEntities.forEach((qualifiedName, entity) -> entities.put(qualifiedName, (T) entity));
+	}
+
+	/**
+	 * Forgets the entities that were taken out of the repository
+	 */
+	public void discard(Set<Object> discardedEntities) {
+		entities.values().removeIf(discardedEntities::contains);
+	}
+
 	public int size() {
 		return entities.size();
 	}
@@ -0,0 +1,76 @@
+package com.feenk.jdt2famix.injava;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The files that the {@link InJavaImporter} could not import, either because
+ * the visit of the file failed or because it took longer than the time budget.
+ * The model does not contain anything from these files
+ */
+public class ProblemReport {
+
+	public enum Kind {
+		FAILED, TIMED_OUT
+	}
+
+	public static class Problem {
+		private final String fileName;
+		private final Kind kind;
+		private final String message;
+
+		Problem(String fileName, Kind kind, String message) {
+			this.fileName = fileName;
+			this.kind = kind;
+			this.message = message;
+		}
+
+		public String fileName() {
+			return fileName;
+		}
+
+		public Kind kind() {
+			return kind;
+		}
+
+		public String message() {
+			return message;
+		}
+	}
+
+	private final List<Problem> problems = new ArrayList<Problem>();
+
+	public void add(String fileName, Kind kind, String message) {
+		problems.add(new Problem(fileName, kind, message));
+	}
+
+	public List<Problem> problems() {
+		return Collections.unmodifiableList(problems);
+	}
+
+	public boolean isEmpty() {
+		return problems.isEmpty();
+	}
+
+	public void exportCSV(String fileName) {
+		try (Writer writer = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8)) {
+			writer.write("file,kind,message\n");
+			for (Problem problem : problems)
+				writer.write(quoted(problem.fileName) + "," + problem.kind.name().toLowerCase() + ","
+						+ quoted(problem.message) + "\n");
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String quoted(String value) {
+		return '"' + String.valueOf(value).replace("\"", "\"\"") + '"';
+	}
+
+}
@@ -0,0 +1,163 @@
+package com.feenk.jdt2famix.injava;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+import com.feenk.jdt2famix.Classpath;
+import com.feenk.jdt2famix.GitRepository;
+import com.feenk.jdt2famix.JavaFiles;
+
+/**
+ * Imports several revisions of a git repository into one model, one after the
+ * other. The first revision is imported completely, and each next one only
+ * imports the java files that differ from the previous one, as a
+ * {@link InJavaImporter#patch}. What the other files contributed stays in the
+ * model, so importing many revisions costs about one import plus the changes.
+ * Files that change back to contents seen before are replayed from the
+ * extraction cache of the importer, when it has one.
+ *
+ * The files are kept in a folder that always holds the java files of the
+ * current revision, so the parser resolves the types of the unchanged files at
+ * the right revision and the working tree of the repository is not touched.
+ *
+ * Along the way we keep the revisions in which each declared entity exists.
+ */
+public class RevisionHistory {
+
+	private final InJavaImporter importer;
+	private final GitRepository git;
+	private final List<String> revisions = new ArrayList<String>();
+	private final Map<String, Map<String, List<Lifetime>>> lifetimes = new TreeMap<String, Map<String, List<Lifetime>>>();
+
+	public RevisionHistory(InJavaImporter importer, GitRepository git) {
+		this.importer = importer;
+		this.git = git;
+	}
+
+	/**
+	 * The revisions in which an entity exists without interruption
+	 */
+	public static class Lifetime {
+		private final String firstRevision;
+		private String lastRevision;
+
+		Lifetime(String firstRevision) {
+			this.firstRevision = firstRevision;
+		}
+
+		public String firstRevision() {
+			return firstRevision;
+		}
+
+		/**
+		 * Null while the entity exists in the last imported revision
+		 */
+		public String lastRevision() {
+			return lastRevision;
+		}
+	}
+
+	/**
+	 * Imports the revisions in the given order, and passes each revision with the
+	 * importer, whose model is then at that revision, to the consumer
+	 */
+	public void importRevisions(List<String> revisionsInOrder, Classpath classpath,
+			BiConsumer<String, InJavaImporter> eachRevision) {
+		Path folder = null;
+		try {
+			folder = Files.createTempDirectory("jdt2famix-history");
+			for (String revision : revisionsInOrder) {
+				if (revisions.isEmpty())
+					importFirst(revision, folder, classpath);
+				else
+					importNext(revision, folder, classpath);
+				revisions.add(revision);
+				eachRevision.accept(revision, importer);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		} finally {
+			InJavaImporter.deleteFolder(folder);
+		}
+	}
+
+	private void importFirst(String revision, Path folder, Classpath classpath) {
+		git.writeFilesAt(revision, git.filesAt(revision, ".java"), folder);
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.deepJavaFiles(folder.toString());
+		importer.run(javaFiles, classpath);
+		importer.declaredEntities().forEach((index, entities) -> entities.keySet()
+				.forEach(key -> lifetimesOf(index, key).add(new Lifetime(revision))));
+	}
+
+	private void importNext(String revision, Path folder, Classpath classpath) throws IOException {
+		String previousRevision = revisions.get(revisions.size() - 1);
+		List<GitRepository.Change> changes = git.changedFiles(previousRevision, revision, ".java");
+		List<String> presentNames = new ArrayList<String>();
+		for (GitRepository.Change change : changes)
+			if (change.kind() == GitRepository.Change.Kind.DELETED)
+				Files.deleteIfExists(folder.resolve(change.path()));
+			else
+				presentNames.add(change.path());
+		git.writeFilesAt(revision, presentNames, folder);
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.someJavaFiles(folder.toString(), presentNames);
+		ModelDelta delta = importer.patch(changes, javaFiles, classpath);
+		for (ModelDelta.Change change : delta.changes())
+			if (change.kind() == ModelDelta.Kind.ADDED)
+				lifetimesOf(change.index(), change.key()).add(new Lifetime(revision));
+			else if (change.kind() == ModelDelta.Kind.REMOVED) {
+				List<Lifetime> entityLifetimes = lifetimesOf(change.index(), change.key());
+				entityLifetimes.get(entityLifetimes.size() - 1).lastRevision = previousRevision;
+			}
+	}
+
+	private List<Lifetime> lifetimesOf(String index, String key) {
+		return lifetimes.computeIfAbsent(index, name -> new TreeMap<String, List<Lifetime>>()).computeIfAbsent(key,
+				name -> new ArrayList<Lifetime>());
+	}
+
+	/**
+	 * The lifetimes of the entity with the key in the index, such as types or
+	 * methods, or an empty list when it was never declared
+	 */
+	public List<Lifetime> lifetimesOfEntity(String index, String key) {
+		return lifetimes.getOrDefault(index, new TreeMap<String, List<Lifetime>>()).getOrDefault(key,
+				new ArrayList<Lifetime>());
+	}
+
+	public List<String> revisions() {
+		return revisions;
+	}
+
+	/**
+	 * Writes one row per lifetime of each declared entity. The last revision is
+	 * empty while the entity still exists
+	 */
+	public void exportCSV(String fileName) {
+		try (Writer writer = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8)) {
+			writer.write("index,key,first,last\n");
+			for (Map.Entry<String, Map<String, List<Lifetime>>> index : lifetimes.entrySet())
+				for (Map.Entry<String, List<Lifetime>> entity : index.getValue().entrySet())
+					for (Lifetime lifetime : entity.getValue())
+						writer.write(index.getKey() + "," + quoted(entity.getKey()) + "," + quoted(lifetime.firstRevision)
+								+ "," + (lifetime.lastRevision == null ? "" : quoted(lifetime.lastRevision)) + "\n");
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String quoted(String value) {
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+}
@@ -0,0 +1,191 @@
+package com.feenk.jdt2famix.injava;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.feenk.jdt2famix.Classpath;
+import com.feenk.jdt2famix.FileCosts;
+import com.feenk.jdt2famix.JavaFiles;
+
+/**
+ * Imports the files in shards, each in its own process, when one process
+ * cannot hold them all. The coordinator splits the files into shards of about
+ * the same cost, and writes the files of each shard into a folder of its own.
+ * A worker imports the files of one shard, with the other files on the
+ * sourcepath so that their types resolve, and saves its model into the folder
+ * of the shard, like a checkpoint. The merge then unifies the models of the
+ * shards.
+ *
+ * Everything goes through the folders, so the workers can run as local
+ * processes started by the coordinator, or on other machines that share the
+ * folder and see the sources at the same paths.
+ */
+public class ShardedImport {
+
+	private static final Logger logger = LogManager.getLogger(ShardedImport.class);
+
+	static final String FILES_FILE_NAME = "files.txt";
+	static final String MODEL_FOLDER_NAME = "model";
+	private static final String LOG_FILE_NAME = "worker.log";
+	private static final String SHARD_PREFIX = "shard-";
+
+	private final Path folder;
+
+	public ShardedImport(Path folder) {
+		this.folder = folder;
+	}
+
+	/**
+	 * Splits the files into shards, the largest files first, each to the shard
+	 * with the lowest cost so far, and answers the folders of the shards
+	 */
+	public List<Path> plan(String[] paths, int shards, FileCosts costs) {
+		List<List<String>> filesOfShards = new ArrayList<List<String>>();
+		long[] costsOfShards = new long[shards];
+		for (int i = 0; i < shards; i++)
+			filesOfShards.add(new ArrayList<String>());
+		String[] sorted = paths.clone();
+		Arrays.sort(sorted, Comparator.comparingLong(costs::estimateOf).reversed());
+		for (String path : sorted) {
+			int cheapest = 0;
+			for (int i = 1; i < shards; i++)
+				if (costsOfShards[i] < costsOfShards[cheapest])
+					cheapest = i;
+			filesOfShards.get(cheapest).add(path);
+			costsOfShards[cheapest] += costs.estimateOf(path);
+		}
+		List<Path> shardFolders = new ArrayList<Path>();
+		try {
+			for (int i = 0; i < shards; i++) {
+				Path shardFolder = folder.resolve(SHARD_PREFIX + i);
+				Files.createDirectories(shardFolder);
+				Files.write(shardFolder.resolve(FILES_FILE_NAME), filesOfShards.get(i), StandardCharsets.UTF_8);
+				shardFolders.add(shardFolder);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return shardFolders;
+	}
+
+	/**
+	 * Starts one worker process per shard, with the same java and classpath as
+	 * this one, and waits for all of them. The arguments go to the {@link Main}
+	 * of each worker, which also gets the folder of its shard. The output of a
+	 * worker goes to a log file in the folder of its shard
+	 */
+	public void runWorkers(List<Path> shardFolders, List<String> jvmArguments, List<String> arguments) {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		List<Process> workers = new ArrayList<Process>();
+		try {
+			for (Path shardFolder : shardFolders) {
+				List<String> command = new ArrayList<String>();
+				command.add(java);
+				command.addAll(jvmArguments);
+				command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), Main.class.getName(),
+						"--shard=" + shardFolder.toAbsolutePath()));
+				command.addAll(arguments);
+				logger.trace("starting worker - " + shardFolder);
+				workers.add(new ProcessBuilder(command).redirectErrorStream(true)
+						.redirectOutput(shardFolder.resolve(LOG_FILE_NAME).toFile()).start());
+			}
+			for (int i = 0; i < workers.size(); i++) {
+				int exitCode = workers.get(i).waitFor();
+				if (exitCode != 0)
+					throw new IllegalStateException("worker failed with exit code " + exitCode + " - see "
+							+ shardFolders.get(i).resolve(LOG_FILE_NAME));
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} finally {
+			workers.forEach(Process::destroy);
+		}
+	}
+
+	/**
+	 * Imports the files of the shard, out of the given files, with the types keyed
+	 * for merging, and saves the model into the folder of the shard
+	 */
+	public static void importShard(InJavaImporter importer, Path shardFolder, JavaFiles javaFiles,
+			Classpath classpath) {
+		Set<String> filesOfShard;
+		try {
+			filesOfShard = new HashSet<String>(
+					Files.readAllLines(shardFolder.resolve(FILES_FILE_NAME), StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		javaFiles.skip(Arrays.stream(javaFiles.paths()).filter(path -> !filesOfShard.contains(path))
+				.collect(Collectors.toList()));
+		Path modelFolder = shardFolder.resolve(MODEL_FOLDER_NAME);
+		deleteModelIn(modelFolder);
+		importer.keyTypesForMerging();
+		importer.checkpointTo(modelFolder, Integer.MAX_VALUE);
+		importer.run(javaFiles, classpath);
+		if (javaFiles.size() == 0)
+			importer.checkpoint();
+	}
+
+	/**
+	 * The folders of the shards that were planned in the folder
+	 */
+	public List<Path> shardFolders() {
+		try (Stream<Path> children = Files.list(folder)) {
+			return children.filter(child -> child.getFileName().toString().startsWith(SHARD_PREFIX))
+					.sorted(Comparator.comparingInt(child -> Integer
+							.parseInt(child.getFileName().toString().substring(SHARD_PREFIX.length()))))
+					.collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Merges the models of the shards into the model of the first one. Only one
+	 * other shard is in memory at a time
+	 */
+	public static InJavaImporter merge(List<Path> shardFolders, Supplier<InJavaImporter> newImporter) {
+		InJavaImporter merged = newImporter.get();
+		merged.startFrom(shardFolders.get(0).resolve(MODEL_FOLDER_NAME));
+		for (Path shardFolder : shardFolders.subList(1, shardFolders.size())) {
+			logger.trace("merging - " + shardFolder);
+			InJavaImporter shard = newImporter.get();
+			shard.startFrom(shardFolder.resolve(MODEL_FOLDER_NAME));
+			merged.mergeFrom(shard);
+		}
+		return merged;
+	}
+
+	/**
+	 * A worker that runs again must not resume from the model of its previous run
+	 */
+	private static void deleteModelIn(Path modelFolder) {
+		if (!Files.isDirectory(modelFolder))
+			return;
+		try (Stream<Path> files = Files.list(modelFolder)) {
+			for (Path file : files.collect(Collectors.toList()))
+				Files.delete(file);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.feenk.jdt2famix.injava;
+
+/**
+ * Thrown by the {@link AstVisitor} when the parse and the visit of a file take
+ * longer than the time budget of the {@link InJavaImporter}
+ */
+public class TimeBudgetExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public TimeBudgetExceededException(long budgetMillis) {
+		super("the file took longer than " + budgetMillis + " ms");
+	}
+
+}
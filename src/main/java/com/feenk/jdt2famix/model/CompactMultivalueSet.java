@@ -0,0 +1,309 @@
+package com.feenk.jdt2famix.model;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A drop-in replacement for Fame's MultivalueSet that is used by the generated
+ * FAMIX classes for multivalued properties. It keeps the same contract: null
+ * elements are rejected, and adding or removing an element updates the
+ * opposite property through {@link #setOpposite(Object)} and
+ * {@link #clearOpposite(Object)}.
+ *
+ * Most entities hold zero, one or two elements in a property, so we do not want
+ * to pay for a HashSet each time. The elements are stored:
+ * <ul>
+ * <li>inline in two fields for up to two elements,</li>
+ * <li>in an array (with linear lookup) up to {@link #PROMOTION_THRESHOLD}
+ * elements,</li>
+ * <li>in a HashSet above that.</li>
+ * </ul>
+ * An empty set has no storage at all, and an untouched property has no set:
+ * the generated getters answer the shared {@link #empty()} instead.
+ *
+ * The generated classes answer the entity that holds the set in
+ * {@link #owner()}, so that changing the set passes the {@link WriteBarrier} of
+ * the entity.
+ *
+ * When the elements are moved out of the model, {@link #movedTo(String)} makes
+ * the set refuse to be read, instead of answering what is left.
+ */
+public abstract class CompactMultivalueSet<T> extends AbstractSet<T> {
+
+	static final int PROMOTION_THRESHOLD = 16;
+
+	private static final Object[] EMPTY_ARRAY = new Object[0];
+
+	private static final Collection<Object> EMPTY = new Empty();
+
+	private Object first;
+	private Object second;
+	private Object[] array = EMPTY_ARRAY;
+	private HashSet<T> set;
+	private int size;
+	private String movedTo;
+
+	/**
+	 * The set that the generated getters answer while a property is untouched.
+	 * It is shared by all entities, so it cannot be changed: the generated add...
+	 * methods switch to a real set on the first add
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Collection<T> empty() {
+		return (Collection<T>) EMPTY;
+	}
+
+	protected abstract void clearOpposite(T e);
+
+	protected abstract void setOpposite(T e);
+
+	/**
+	 * The entity that holds the set, or null when nobody listens to its writes
+	 */
+	protected Object owner() {
+		return null;
+	}
+
+	/**
+	 * The elements now live elsewhere, for example in columns outside of the
+	 * heap. Reading the set fails from now on. Adding and removing still work, so
+	 * that later elements can be moved out the same way
+	 */
+	public void movedTo(String where) {
+		movedTo = where;
+	}
+
+	private void checkReadable() {
+		if (movedTo != null)
+			throw new IllegalStateException("the elements were moved to " + movedTo);
+	}
+
+	private void beforeWrite() {
+		Object owner = owner();
+		if (owner != null)
+			WriteBarrier.beforeWrite(owner);
+	}
+
+	@Override
+	public boolean add(T e) {
+		if (null == e)
+			throw new IllegalArgumentException("Element must not be null.");
+		if (has(e))
+			return false;
+		beforeWrite();
+		if (set != null)
+			set.add(e);
+		else if (size == 0)
+			first = e;
+		else if (size == 1)
+			second = e;
+		else if (size < PROMOTION_THRESHOLD)
+			addToArray(e);
+		else
+			promoteToSet(e);
+		size++;
+		this.setOpposite(e);
+		return true;
+	}
+
+	private void addToArray(Object e) {
+		if (size == 2) {
+			array = new Object[4];
+			array[0] = first;
+			array[1] = second;
+			first = null;
+			second = null;
+		} else if (size == array.length)
+			array = Arrays.copyOf(array, size * 2);
+		array[size] = e;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void promoteToSet(T e) {
+		set = new HashSet<T>(size * 2);
+		for (int i = 0; i < size; i++)
+			set.add((T) array[i]);
+		set.add(e);
+		array = EMPTY_ARRAY;
+	}
+
+	/**
+	 * Null is never an element, which Fame asserts while exporting
+	 */
+	@Override
+	public boolean contains(Object o) {
+		if (o == null)
+			return false;
+		checkReadable();
+		return has(o);
+	}
+
+	private boolean has(Object o) {
+		if (set != null)
+			return set.contains(o);
+		return indexOf(o) >= 0;
+	}
+
+	private int indexOf(Object o) {
+		if (o == null)
+			return -1;
+		for (int i = 0; i < size; i++)
+			if (o.equals(elementAt(i)))
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Only valid while the elements are not in the set
+	 */
+	@SuppressWarnings("unchecked")
+	private T elementAt(int index) {
+		if (size <= 2)
+			return (T) (index == 0 ? first : second);
+		return (T) array[index];
+	}
+
+	/**
+	 * Only valid while the elements are not in the set
+	 */
+	private void removeAt(int index) {
+		if (size <= 2) {
+			if (index == 0)
+				first = second;
+			second = null;
+		} else {
+			System.arraycopy(array, index + 1, array, index, size - index - 1);
+			array[size - 1] = null;
+			if (size == 3) {
+				first = array[0];
+				second = array[1];
+				array = EMPTY_ARRAY;
+			}
+		}
+		size--;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean remove(Object o) {
+		if (null == o)
+			throw new IllegalArgumentException("Element must not be null.");
+		if (set != null) {
+			if (!set.contains(o))
+				return false;
+			beforeWrite();
+			set.remove(o);
+			size--;
+		} else {
+			int index = indexOf(o);
+			if (index < 0)
+				return false;
+			beforeWrite();
+			removeAt(index);
+		}
+		this.clearOpposite((T) o);
+		return true;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		checkReadable();
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		checkReadable();
+		return size;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		checkReadable();
+		if (set != null)
+			return new SetIterator(set.iterator());
+		return new InlineIterator();
+	}
+
+	private class SetIterator implements Iterator<T> {
+		private final Iterator<T> iterator;
+		private T current;
+
+		SetIterator(Iterator<T> iterator) {
+			this.iterator = iterator;
+		}
+
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		public T next() {
+			return current = iterator.next();
+		}
+
+		public void remove() {
+			beforeWrite();
+			iterator.remove();
+			size--;
+			clearOpposite(current);
+		}
+	}
+
+	private class InlineIterator implements Iterator<T> {
+		private int next = 0;
+		private T current;
+
+		public boolean hasNext() {
+			return next < size;
+		}
+
+		public T next() {
+			if (next >= size)
+				throw new NoSuchElementException();
+			return current = elementAt(next++);
+		}
+
+		public void remove() {
+			if (current == null)
+				throw new IllegalStateException();
+			beforeWrite();
+			removeAt(--next);
+			T removed = current;
+			current = null;
+			clearOpposite(removed);
+		}
+	}
+
+	private static class Empty extends AbstractSet<Object> {
+
+		@Override
+		public boolean add(Object e) {
+			if (null == e)
+				throw new IllegalArgumentException("Element must not be null.");
+			throw new UnsupportedOperationException("the property is untouched, add through its entity");
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (null == o)
+				throw new IllegalArgumentException("Element must not be null.");
+			return false;
+		}
+
+		@Override
+		public Iterator<Object> iterator() {
+			return Collections.emptyIterator();
+		}
+
+		@Override
+		public int size() {
+			return 0;
+		}
+	}
+
+}
@@ -0,0 +1,200 @@
+package com.feenk.jdt2famix.model;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The modifiers of a named entity are kept as an int bitmask instead of a set of
+ * strings. The bits are the same as the ones of the JDT (and JVM) modifier
+ * flags, so that the importer can copy JDT flags by masking them, plus one bit
+ * for the package visibility that has no keyword in Java. Modifiers without a
+ * bit, which can only come from an imported MSE, are kept as strings.
+ *
+ * For Fame and for existing callers, {@link #view(Holder)} answers the modifiers
+ * as a set of strings that reads and writes the bitmask of the entity.
+ *
+ * The list of other modifiers is never changed in place, but replaced through
+ * the setter, so that each change passes the {@link WriteBarrier}.
+ */
+public class Modifiers {
+
+	public static final int PUBLIC = 0x0001;
+	public static final int PRIVATE = 0x0002;
+	public static final int PROTECTED = 0x0004;
+	public static final int STATIC = 0x0008;
+	public static final int FINAL = 0x0010;
+	public static final int SYNCHRONIZED = 0x0020;
+	public static final int VOLATILE = 0x0040;
+	public static final int TRANSIENT = 0x0080;
+	public static final int NATIVE = 0x0100;
+	public static final int ABSTRACT = 0x0400;
+	public static final int STRICTFP = 0x0800;
+	public static final int DEFAULT = 0x10000;
+	public static final int PACKAGE = 0x40000000;
+
+	public static final int ALL = PUBLIC | PRIVATE | PROTECTED | STATIC | FINAL | SYNCHRONIZED | VOLATILE | TRANSIENT
+			| NATIVE | ABSTRACT | STRICTFP | DEFAULT | PACKAGE;
+
+	private static final int[] FLAGS = { PUBLIC, PROTECTED, PRIVATE, PACKAGE, STATIC, FINAL, ABSTRACT, NATIVE,
+			SYNCHRONIZED, TRANSIENT, VOLATILE, STRICTFP, DEFAULT };
+	private static final String[] NAMES = { "public", "protected", "private", "package", "static", "final",
+			"abstract", "native", "synchronized", "transient", "volatile", "strictfp", "default" };
+
+	/**
+	 * The entity that stores the modifiers. The generated NamedEntity implements
+	 * it
+	 */
+	public interface Holder {
+		int getModifierFlags();
+
+		void setModifierFlags(int modifierFlags);
+
+		/**
+		 * The modifiers that have no bit, or null when there are none
+		 */
+		List<String> getOtherModifiers();
+
+		void setOtherModifiers(List<String> otherModifiers);
+	}
+
+	/**
+	 * Answers 0 when the name has no bit, in which case the entity keeps it as a
+	 * string
+	 */
+	public static int flagNamed(String name) {
+		for (int i = 0; i < NAMES.length; i++)
+			if (NAMES[i].equals(name))
+				return FLAGS[i];
+		return 0;
+	}
+
+	public static Collection<String> view(Holder holder) {
+		return new View(holder);
+	}
+
+	public static boolean add(Holder holder, String name) {
+		if (name == null)
+			throw new IllegalArgumentException("Element must not be null.");
+		int flag = flagNamed(name);
+		if (flag != 0) {
+			int flags = holder.getModifierFlags();
+			holder.setModifierFlags(flags | flag);
+			return (flags & flag) == 0;
+		}
+		List<String> others = holder.getOtherModifiers();
+		if (others != null && others.contains(name))
+			return false;
+		List<String> changed = others == null ? new ArrayList<String>(1) : new ArrayList<String>(others);
+		changed.add(name);
+		holder.setOtherModifiers(changed);
+		return true;
+	}
+
+	public static boolean remove(Holder holder, String name) {
+		int flag = flagNamed(name);
+		if (flag != 0) {
+			int flags = holder.getModifierFlags();
+			holder.setModifierFlags(flags & ~flag);
+			return (flags & flag) != 0;
+		}
+		List<String> others = holder.getOtherModifiers();
+		if (others == null || !others.contains(name))
+			return false;
+		List<String> changed = new ArrayList<String>(others);
+		changed.remove(name);
+		holder.setOtherModifiers(changed.isEmpty() ? null : changed);
+		return true;
+	}
+
+	public static int size(Holder holder) {
+		List<String> others = holder.getOtherModifiers();
+		return Integer.bitCount(holder.getModifierFlags()) + (others == null ? 0 : others.size());
+	}
+
+	private static class View extends AbstractSet<String> {
+		private final Holder holder;
+
+		View(Holder holder) {
+			this.holder = holder;
+		}
+
+		@Override
+		public int size() {
+			return Modifiers.size(holder);
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof String))
+				return false;
+			int flag = flagNamed((String) o);
+			if (flag != 0)
+				return (holder.getModifierFlags() & flag) != 0;
+			List<String> others = holder.getOtherModifiers();
+			return others != null && others.contains(o);
+		}
+
+		@Override
+		public boolean add(String name) {
+			return Modifiers.add(holder, name);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return o instanceof String && Modifiers.remove(holder, (String) o);
+		}
+
+		@Override
+		public void clear() {
+			holder.setModifierFlags(0);
+			holder.setOtherModifiers(null);
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			List<String> others = holder.getOtherModifiers();
+			Iterator<String> otherIterator = others == null ? Collections.<String>emptyIterator()
+					: new ArrayList<String>(others).iterator();
+			int flags = holder.getModifierFlags();
+			return new Iterator<String>() {
+				private int index = nextIndexFrom(0);
+				private String last;
+
+				private int nextIndexFrom(int start) {
+					int i = start;
+					while (i < FLAGS.length && (flags & FLAGS[i]) == 0)
+						i++;
+					return i;
+				}
+
+				public boolean hasNext() {
+					return index < FLAGS.length || otherIterator.hasNext();
+				}
+
+				public String next() {
+					if (index < FLAGS.length) {
+						last = NAMES[index];
+						index = nextIndexFrom(index + 1);
+					} else if (otherIterator.hasNext())
+						last = otherIterator.next();
+					else
+						throw new NoSuchElementException();
+					return last;
+				}
+
+				public void remove() {
+					if (last == null)
+						throw new IllegalStateException();
+					Modifiers.remove(holder, last);
+					last = null;
+				}
+			};
+		}
+	}
+
+}
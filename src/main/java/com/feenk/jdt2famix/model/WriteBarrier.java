@@ -0,0 +1,39 @@
+package com.feenk.jdt2famix.model;
+
+import java.util.Arrays;
+
+/**
+ * The generated FAMIX classes call {@link #beforeWrite(Object)} before they
+ * change a property of an entity, so that the importer learns which entities
+ * changed without comparing the whole model.
+ *
+ * The entities do not know their repository, so the listeners are global. A
+ * listener only cares about the entities of its own repository and ignores the
+ * others. Without listeners, a write only costs reading an empty array.
+ */
+public class WriteBarrier {
+
+	public interface Listener {
+		void beforeWrite(Object element);
+	}
+
+	private static final Listener[] NO_LISTENERS = new Listener[0];
+
+	private static volatile Listener[] listeners = NO_LISTENERS;
+
+	public static void beforeWrite(Object element) {
+		for (Listener listener : listeners)
+			listener.beforeWrite(element);
+	}
+
+	public static synchronized void addListener(Listener listener) {
+		Listener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+		newListeners[listeners.length] = listener;
+		listeners = newListeners;
+	}
+
+	public static synchronized void removeListener(Listener listener) {
+		listeners = Arrays.stream(listeners).filter(each -> each != listener).toArray(Listener[]::new);
+	}
+
+}
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class Access extends Association {
     }
 
     public void setAccessor(BehaviouralEntity accessor) {
+        WriteBarrier.beforeWrite(this);
         if (this.accessor != null) {
             if (this.accessor.equals(accessor)) return;
             this.accessor.getAccesses().remove(this);
         }
         this.accessor = accessor;
         if (accessor == null) return;
-        accessor.getAccesses().add(this);
+        accessor.addAccesses(this);
     }
     
     private StructuralEntity variable;
@@ -37,13 +39,14 @@ public class Access extends Association {
     }
 
     public void setVariable(StructuralEntity variable) {
+        WriteBarrier.beforeWrite(this);
         if (this.variable != null) {
             if (this.variable.equals(variable)) return;
             this.variable.getIncomingAccesses().remove(this);
         }
         this.variable = variable;
         if (variable == null) return;
-        variable.getIncomingAccesses().add(this);
+        variable.addIncomingAccesses(this);
     }
     
     private Boolean isWrite;
@@ -54,6 +57,7 @@ public class Access extends Association {
     }
 
     public void setIsWrite(Boolean isWrite) {
+        WriteBarrier.beforeWrite(this);
         this.isWrite = isWrite;
     }
     
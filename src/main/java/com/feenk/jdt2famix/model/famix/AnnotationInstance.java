@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -22,13 +23,14 @@ public class AnnotationInstance extends BehaviouralEntity {
     }
 
     public void setAnnotatedEntity(NamedEntity annotatedEntity) {
+        WriteBarrier.beforeWrite(this);
         if (this.annotatedEntity != null) {
             if (this.annotatedEntity.equals(annotatedEntity)) return;
             this.annotatedEntity.getAnnotationInstances().remove(this);
         }
         this.annotatedEntity = annotatedEntity;
         if (annotatedEntity == null) return;
-        annotatedEntity.getAnnotationInstances().add(this);
+        annotatedEntity.addAnnotationInstances(this);
     }
     
     private AnnotationType annotationType;
@@ -39,21 +41,27 @@ public class AnnotationInstance extends BehaviouralEntity {
     }
 
     public void setAnnotationType(AnnotationType annotationType) {
+        WriteBarrier.beforeWrite(this);
         if (this.annotationType != null) {
             if (this.annotationType.equals(annotationType)) return;
             this.annotationType.getInstances().remove(this);
         }
         this.annotationType = annotationType;
         if (annotationType == null) return;
-        annotationType.getInstances().add(this);
+        annotationType.addInstances(this);
     }
     
     private Collection<AnnotationInstanceAttribute> attributes; 
 
     @FameProperty(name = "attributes", opposite = "parentAnnotationInstance", derived = true)
     public Collection<AnnotationInstanceAttribute> getAttributes() {
+        if (attributes == null) return CompactMultivalueSet.<AnnotationInstanceAttribute>empty();
+        return attributes;
+    }
+
+    private Collection<AnnotationInstanceAttribute> mutableAttributes() {
         if (attributes == null) {
-            attributes = new MultivalueSet<AnnotationInstanceAttribute>() {
+            attributes = new CompactMultivalueSet<AnnotationInstanceAttribute>() {
                 @Override
                 protected void clearOpposite(AnnotationInstanceAttribute e) {
                     e.setParentAnnotationInstance(null);
@@ -62,43 +70,48 @@ public class AnnotationInstance extends BehaviouralEntity {
                 protected void setOpposite(AnnotationInstanceAttribute e) {
                     e.setParentAnnotationInstance(AnnotationInstance.this);
                 }
+                @Override
+                protected Object owner() {
+                    return AnnotationInstance.this;
+                }
             };
         }
         return attributes;
     }
     
     public void setAttributes(Collection<? extends AnnotationInstanceAttribute> attributes) {
+        WriteBarrier.beforeWrite(this);
         this.getAttributes().clear();
-        this.getAttributes().addAll(attributes);
+        this.mutableAttributes().addAll(attributes);
     }                    
     
         
     public void addAttributes(AnnotationInstanceAttribute one) {
-        this.getAttributes().add(one);
+        this.mutableAttributes().add(one);
     }   
     
     public void addAttributes(AnnotationInstanceAttribute one, AnnotationInstanceAttribute... many) {
-        this.getAttributes().add(one);
+        this.mutableAttributes().add(one);
         for (AnnotationInstanceAttribute each : many)
-            this.getAttributes().add(each);
+            this.mutableAttributes().add(each);
     }   
     
     public void addAttributes(Iterable<? extends AnnotationInstanceAttribute> many) {
         for (AnnotationInstanceAttribute each : many)
-            this.getAttributes().add(each);
+            this.mutableAttributes().add(each);
     }   
                 
     public void addAttributes(AnnotationInstanceAttribute[] many) {
         for (AnnotationInstanceAttribute each : many)
-            this.getAttributes().add(each);
+            this.mutableAttributes().add(each);
     }
     
     public int numberOfAttributes() {
-        return getAttributes().size();
+        return attributes == null ? 0 : attributes.size();
     }
 
     public boolean hasAttributes() {
-        return !getAttributes().isEmpty();
+        return attributes != null && !attributes.isEmpty();
     }
     
                 
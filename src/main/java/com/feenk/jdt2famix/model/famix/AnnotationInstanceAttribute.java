@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class AnnotationInstanceAttribute extends SourcedEntity {
     }
 
     public void setAnnotationTypeAttribute(AnnotationTypeAttribute annotationTypeAttribute) {
+        WriteBarrier.beforeWrite(this);
         if (this.annotationTypeAttribute != null) {
             if (this.annotationTypeAttribute.equals(annotationTypeAttribute)) return;
             this.annotationTypeAttribute.getAnnotationAttributeInstances().remove(this);
         }
         this.annotationTypeAttribute = annotationTypeAttribute;
         if (annotationTypeAttribute == null) return;
-        annotationTypeAttribute.getAnnotationAttributeInstances().add(this);
+        annotationTypeAttribute.addAnnotationAttributeInstances(this);
     }
     
     private AnnotationInstance parentAnnotationInstance;
@@ -37,13 +39,14 @@ public class AnnotationInstanceAttribute extends SourcedEntity {
     }
 
     public void setParentAnnotationInstance(AnnotationInstance parentAnnotationInstance) {
+        WriteBarrier.beforeWrite(this);
         if (this.parentAnnotationInstance != null) {
             if (this.parentAnnotationInstance.equals(parentAnnotationInstance)) return;
             this.parentAnnotationInstance.getAttributes().remove(this);
         }
         this.parentAnnotationInstance = parentAnnotationInstance;
         if (parentAnnotationInstance == null) return;
-        parentAnnotationInstance.getAttributes().add(this);
+        parentAnnotationInstance.addAttributes(this);
     }
     
     private String value;
@@ -54,6 +57,7 @@ public class AnnotationInstanceAttribute extends SourcedEntity {
     }
 
     public void setValue(String value) {
+        WriteBarrier.beforeWrite(this);
         this.value = value;
     }
     
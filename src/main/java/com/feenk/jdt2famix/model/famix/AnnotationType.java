@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -22,21 +23,27 @@ public class AnnotationType extends Type {
     }
 
     public void setContainer(ContainerEntity container) {
+        WriteBarrier.beforeWrite(this);
         if (this.container != null) {
             if (this.container.equals(container)) return;
             this.container.getDefinedAnnotationTypes().remove(this);
         }
         this.container = container;
         if (container == null) return;
-        container.getDefinedAnnotationTypes().add(this);
+        container.addDefinedAnnotationTypes(this);
     }
     
     private Collection<AnnotationInstance> instances; 
 
     @FameProperty(name = "instances", opposite = "annotationType", derived = true)
     public Collection<AnnotationInstance> getInstances() {
+        if (instances == null) return CompactMultivalueSet.<AnnotationInstance>empty();
+        return instances;
+    }
+
+    private Collection<AnnotationInstance> mutableInstances() {
         if (instances == null) {
-            instances = new MultivalueSet<AnnotationInstance>() {
+            instances = new CompactMultivalueSet<AnnotationInstance>() {
                 @Override
                 protected void clearOpposite(AnnotationInstance e) {
                     e.setAnnotationType(null);
@@ -45,43 +52,48 @@ public class AnnotationType extends Type {
                 protected void setOpposite(AnnotationInstance e) {
                     e.setAnnotationType(AnnotationType.this);
                 }
+                @Override
+                protected Object owner() {
+                    return AnnotationType.this;
+                }
             };
         }
         return instances;
     }
     
     public void setInstances(Collection<? extends AnnotationInstance> instances) {
+        WriteBarrier.beforeWrite(this);
         this.getInstances().clear();
-        this.getInstances().addAll(instances);
+        this.mutableInstances().addAll(instances);
     }                    
     
         
     public void addInstances(AnnotationInstance one) {
-        this.getInstances().add(one);
+        this.mutableInstances().add(one);
     }   
     
     public void addInstances(AnnotationInstance one, AnnotationInstance... many) {
-        this.getInstances().add(one);
+        this.mutableInstances().add(one);
         for (AnnotationInstance each : many)
-            this.getInstances().add(each);
+            this.mutableInstances().add(each);
     }   
     
     public void addInstances(Iterable<? extends AnnotationInstance> many) {
         for (AnnotationInstance each : many)
-            this.getInstances().add(each);
+            this.mutableInstances().add(each);
     }   
                 
     public void addInstances(AnnotationInstance[] many) {
         for (AnnotationInstance each : many)
-            this.getInstances().add(each);
+            this.mutableInstances().add(each);
     }
     
     public int numberOfInstances() {
-        return getInstances().size();
+        return instances == null ? 0 : instances.size();
     }
 
     public boolean hasInstances() {
-        return !getInstances().isEmpty();
+        return instances != null && !instances.isEmpty();
     }
     
                 
@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -18,8 +19,13 @@ public class AnnotationTypeAttribute extends Attribute {
 
     @FameProperty(name = "annotationAttributeInstances", opposite = "annotationTypeAttribute", derived = true)
     public Collection<AnnotationInstanceAttribute> getAnnotationAttributeInstances() {
+        if (annotationAttributeInstances == null) return CompactMultivalueSet.<AnnotationInstanceAttribute>empty();
+        return annotationAttributeInstances;
+    }
+
+    private Collection<AnnotationInstanceAttribute> mutableAnnotationAttributeInstances() {
         if (annotationAttributeInstances == null) {
-            annotationAttributeInstances = new MultivalueSet<AnnotationInstanceAttribute>() {
+            annotationAttributeInstances = new CompactMultivalueSet<AnnotationInstanceAttribute>() {
                 @Override
                 protected void clearOpposite(AnnotationInstanceAttribute e) {
                     e.setAnnotationTypeAttribute(null);
@@ -28,43 +34,48 @@ public class AnnotationTypeAttribute extends Attribute {
                 protected void setOpposite(AnnotationInstanceAttribute e) {
                     e.setAnnotationTypeAttribute(AnnotationTypeAttribute.this);
                 }
+                @Override
+                protected Object owner() {
+                    return AnnotationTypeAttribute.this;
+                }
             };
         }
         return annotationAttributeInstances;
     }
     
     public void setAnnotationAttributeInstances(Collection<? extends AnnotationInstanceAttribute> annotationAttributeInstances) {
+        WriteBarrier.beforeWrite(this);
         this.getAnnotationAttributeInstances().clear();
-        this.getAnnotationAttributeInstances().addAll(annotationAttributeInstances);
+        this.mutableAnnotationAttributeInstances().addAll(annotationAttributeInstances);
     }                    
     
         
     public void addAnnotationAttributeInstances(AnnotationInstanceAttribute one) {
-        this.getAnnotationAttributeInstances().add(one);
+        this.mutableAnnotationAttributeInstances().add(one);
     }   
     
     public void addAnnotationAttributeInstances(AnnotationInstanceAttribute one, AnnotationInstanceAttribute... many) {
-        this.getAnnotationAttributeInstances().add(one);
+        this.mutableAnnotationAttributeInstances().add(one);
         for (AnnotationInstanceAttribute each : many)
-            this.getAnnotationAttributeInstances().add(each);
+            this.mutableAnnotationAttributeInstances().add(each);
     }   
     
     public void addAnnotationAttributeInstances(Iterable<? extends AnnotationInstanceAttribute> many) {
         for (AnnotationInstanceAttribute each : many)
-            this.getAnnotationAttributeInstances().add(each);
+            this.mutableAnnotationAttributeInstances().add(each);
     }   
                 
     public void addAnnotationAttributeInstances(AnnotationInstanceAttribute[] many) {
         for (AnnotationInstanceAttribute each : many)
-            this.getAnnotationAttributeInstances().add(each);
+            this.mutableAnnotationAttributeInstances().add(each);
     }
     
     public int numberOfAnnotationAttributeInstances() {
-        return getAnnotationAttributeInstances().size();
+        return annotationAttributeInstances == null ? 0 : annotationAttributeInstances.size();
     }
 
     public boolean hasAnnotationAttributeInstances() {
-        return !getAnnotationAttributeInstances().isEmpty();
+        return annotationAttributeInstances != null && !annotationAttributeInstances.isEmpty();
     }
     
                 
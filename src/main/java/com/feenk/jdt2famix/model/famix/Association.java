@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,6 +21,7 @@ public class Association extends SourcedEntity {
     }
 
     public void setNext(Association next) {
+        WriteBarrier.beforeWrite(this);
         if (this.next == null ? next != null : !this.next.equals(next)) {
             Association old_next = this.next;
             this.next = next;
@@ -36,6 +38,7 @@ public class Association extends SourcedEntity {
     }
 
     public void setPrevious(Association previous) {
+        WriteBarrier.beforeWrite(this);
         if (this.previous == null ? previous != null : !this.previous.equals(previous)) {
             Association old_previous = this.previous;
             this.previous = previous;
@@ -44,6 +47,27 @@ public class Association extends SourcedEntity {
         }
     }
     
+    private int occurrences = Integer.MIN_VALUE;
+    
+    @FameProperty(name = "occurrences")
+    public Number getOccurrences() {
+        return occurrences == Integer.MIN_VALUE ? null : Integer.valueOf(occurrences);
+    }
+
+    public int getOccurrencesAsInt() {
+        return occurrences;
+    }
+
+    public void setOccurrences(Number occurrences) {
+        WriteBarrier.beforeWrite(this);
+        this.occurrences = occurrences == null ? Integer.MIN_VALUE : occurrences.intValue();
+    }
+
+    public void setOccurrences(int occurrences) {
+        WriteBarrier.beforeWrite(this);
+        this.occurrences = occurrences;
+    }
+    
 
 
 }
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,6 +21,7 @@ public class Attribute extends StructuralEntity {
     }
 
     public void setHasClassScope(Boolean hasClassScope) {
+        WriteBarrier.beforeWrite(this);
         this.hasClassScope = hasClassScope;
     }
     
@@ -31,13 +33,14 @@ public class Attribute extends StructuralEntity {
     }
 
     public void setParentType(Type parentType) {
+        WriteBarrier.beforeWrite(this);
         if (this.parentType != null) {
             if (this.parentType.equals(parentType)) return;
             this.parentType.getAttributes().remove(this);
         }
         this.parentType = parentType;
         if (parentType == null) return;
-        parentType.getAttributes().add(this);
+        parentType.addAttributes(this);
     }
     
 
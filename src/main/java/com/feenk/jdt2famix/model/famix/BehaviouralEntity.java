@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -14,6 +15,18 @@ public class BehaviouralEntity extends ContainerEntity {
 
 
 
+    private Boolean isBodyIgnored;
+    
+    @FameProperty(name = "isBodyIgnored")
+    public Boolean getIsBodyIgnored() {
+        return isBodyIgnored;
+    }
+
+    public void setIsBodyIgnored(Boolean isBodyIgnored) {
+        WriteBarrier.beforeWrite(this);
+        this.isBodyIgnored = isBodyIgnored;
+    }
+    
     private String signature;
     
     @FameProperty(name = "signature")
@@ -22,6 +35,7 @@ public class BehaviouralEntity extends ContainerEntity {
     }
 
     public void setSignature(String signature) {
+        WriteBarrier.beforeWrite(this);
         this.signature = signature;
     }
     
@@ -33,6 +47,7 @@ public class BehaviouralEntity extends ContainerEntity {
     }
 
     public void setNumberOfParameters(Number numberOfParameters) {
+        WriteBarrier.beforeWrite(this);
         this.numberOfParameters = numberOfParameters;
     }
     
@@ -44,28 +59,40 @@ public class BehaviouralEntity extends ContainerEntity {
     }
 
     public void setDeclaredType(Type declaredType) {
+        WriteBarrier.beforeWrite(this);
         if (this.declaredType != null) {
             if (this.declaredType.equals(declaredType)) return;
             this.declaredType.getBehavioursWithDeclaredType().remove(this);
         }
         this.declaredType = declaredType;
         if (declaredType == null) return;
-        declaredType.getBehavioursWithDeclaredType().add(this);
+        declaredType.addBehavioursWithDeclaredType(this);
     }
     
-    private Number cyclomaticComplexity = 1;
+    private int cyclomaticComplexity = 1;
     
     @FameProperty(name = "cyclomaticComplexity")
     public Number getCyclomaticComplexity() {
+        return cyclomaticComplexity == Integer.MIN_VALUE ? null : Integer.valueOf(cyclomaticComplexity);
+    }
+
+    public int getCyclomaticComplexityAsInt() {
         return cyclomaticComplexity;
     }
 
     public void setCyclomaticComplexity(Number cyclomaticComplexity) {
+        WriteBarrier.beforeWrite(this);
+        this.cyclomaticComplexity = cyclomaticComplexity == null ? Integer.MIN_VALUE : cyclomaticComplexity.intValue();
+    }
+
+    public void setCyclomaticComplexity(int cyclomaticComplexity) {
+        WriteBarrier.beforeWrite(this);
         this.cyclomaticComplexity = cyclomaticComplexity;
     }
     
     public void incCyclomaticComplexity() {
-    	cyclomaticComplexity = cyclomaticComplexity.intValue() + 1 ;
+        WriteBarrier.beforeWrite(this);
+        cyclomaticComplexity++;
     }
     
     private Number numberOfComments;
@@ -76,6 +103,7 @@ public class BehaviouralEntity extends ContainerEntity {
     }
 
     public void setNumberOfComments(Number numberOfComments) {
+        WriteBarrier.beforeWrite(this);
         this.numberOfComments = numberOfComments;
     }
     
@@ -83,8 +111,13 @@ public class BehaviouralEntity extends ContainerEntity {
 
     @FameProperty(name = "implicitVariables", opposite = "parentBehaviouralEntity", derived = true)
     public Collection<ImplicitVariable> getImplicitVariables() {
+        if (implicitVariables == null) return CompactMultivalueSet.<ImplicitVariable>empty();
+        return implicitVariables;
+    }
+
+    private Collection<ImplicitVariable> mutableImplicitVariables() {
         if (implicitVariables == null) {
-            implicitVariables = new MultivalueSet<ImplicitVariable>() {
+            implicitVariables = new CompactMultivalueSet<ImplicitVariable>() {
                 @Override
                 protected void clearOpposite(ImplicitVariable e) {
                     e.setParentBehaviouralEntity(null);
@@ -93,43 +126,48 @@ public class BehaviouralEntity extends ContainerEntity {
                 protected void setOpposite(ImplicitVariable e) {
                     e.setParentBehaviouralEntity(BehaviouralEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return BehaviouralEntity.this;
+                }
             };
         }
         return implicitVariables;
     }
     
     public void setImplicitVariables(Collection<? extends ImplicitVariable> implicitVariables) {
+        WriteBarrier.beforeWrite(this);
         this.getImplicitVariables().clear();
-        this.getImplicitVariables().addAll(implicitVariables);
+        this.mutableImplicitVariables().addAll(implicitVariables);
     }                    
     
         
     public void addImplicitVariables(ImplicitVariable one) {
-        this.getImplicitVariables().add(one);
+        this.mutableImplicitVariables().add(one);
     }   
     
     public void addImplicitVariables(ImplicitVariable one, ImplicitVariable... many) {
-        this.getImplicitVariables().add(one);
+        this.mutableImplicitVariables().add(one);
         for (ImplicitVariable each : many)
-            this.getImplicitVariables().add(each);
+            this.mutableImplicitVariables().add(each);
     }   
     
     public void addImplicitVariables(Iterable<? extends ImplicitVariable> many) {
         for (ImplicitVariable each : many)
-            this.getImplicitVariables().add(each);
+            this.mutableImplicitVariables().add(each);
     }   
                 
     public void addImplicitVariables(ImplicitVariable[] many) {
         for (ImplicitVariable each : many)
-            this.getImplicitVariables().add(each);
+            this.mutableImplicitVariables().add(each);
     }
     
     public int numberOfImplicitVariables() {
-        return getImplicitVariables().size();
+        return implicitVariables == null ? 0 : implicitVariables.size();
     }
 
     public boolean hasImplicitVariables() {
-        return !getImplicitVariables().isEmpty();
+        return implicitVariables != null && !implicitVariables.isEmpty();
     }
     
                 
@@ -141,6 +179,7 @@ public class BehaviouralEntity extends ContainerEntity {
     }
 
     public void setNumberOfStatements(Number numberOfStatements) {
+        WriteBarrier.beforeWrite(this);
         this.numberOfStatements = numberOfStatements;
     }
     
@@ -148,8 +187,13 @@ public class BehaviouralEntity extends ContainerEntity {
 
     @FameProperty(name = "localVariables", opposite = "parentBehaviouralEntity", derived = true)
     public Collection<LocalVariable> getLocalVariables() {
+        if (localVariables == null) return CompactMultivalueSet.<LocalVariable>empty();
+        return localVariables;
+    }
+
+    private Collection<LocalVariable> mutableLocalVariables() {
         if (localVariables == null) {
-            localVariables = new MultivalueSet<LocalVariable>() {
+            localVariables = new CompactMultivalueSet<LocalVariable>() {
                 @Override
                 protected void clearOpposite(LocalVariable e) {
                     e.setParentBehaviouralEntity(null);
@@ -158,43 +202,48 @@ public class BehaviouralEntity extends ContainerEntity {
                 protected void setOpposite(LocalVariable e) {
                     e.setParentBehaviouralEntity(BehaviouralEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return BehaviouralEntity.this;
+                }
             };
         }
         return localVariables;
     }
     
     public void setLocalVariables(Collection<? extends LocalVariable> localVariables) {
+        WriteBarrier.beforeWrite(this);
         this.getLocalVariables().clear();
-        this.getLocalVariables().addAll(localVariables);
+        this.mutableLocalVariables().addAll(localVariables);
     }                    
     
         
     public void addLocalVariables(LocalVariable one) {
-        this.getLocalVariables().add(one);
+        this.mutableLocalVariables().add(one);
     }   
     
     public void addLocalVariables(LocalVariable one, LocalVariable... many) {
-        this.getLocalVariables().add(one);
+        this.mutableLocalVariables().add(one);
         for (LocalVariable each : many)
-            this.getLocalVariables().add(each);
+            this.mutableLocalVariables().add(each);
     }   
     
     public void addLocalVariables(Iterable<? extends LocalVariable> many) {
         for (LocalVariable each : many)
-            this.getLocalVariables().add(each);
+            this.mutableLocalVariables().add(each);
     }   
                 
     public void addLocalVariables(LocalVariable[] many) {
         for (LocalVariable each : many)
-            this.getLocalVariables().add(each);
+            this.mutableLocalVariables().add(each);
     }
     
     public int numberOfLocalVariables() {
-        return getLocalVariables().size();
+        return localVariables == null ? 0 : localVariables.size();
     }
 
     public boolean hasLocalVariables() {
-        return !getLocalVariables().isEmpty();
+        return localVariables != null && !localVariables.isEmpty();
     }
     
                 
@@ -206,6 +255,7 @@ public class BehaviouralEntity extends ContainerEntity {
     }
 
     public void setNumberOfLinesOfCode(Number numberOfLinesOfCode) {
+        WriteBarrier.beforeWrite(this);
         this.numberOfLinesOfCode = numberOfLinesOfCode;
     }
     
@@ -213,8 +263,13 @@ public class BehaviouralEntity extends ContainerEntity {
 
     @FameProperty(name = "outgoingReferences", opposite = "source", derived = true)
     public Collection<Reference> getOutgoingReferences() {
+        if (outgoingReferences == null) return CompactMultivalueSet.<Reference>empty();
+        return outgoingReferences;
+    }
+
+    private Collection<Reference> mutableOutgoingReferences() {
         if (outgoingReferences == null) {
-            outgoingReferences = new MultivalueSet<Reference>() {
+            outgoingReferences = new CompactMultivalueSet<Reference>() {
                 @Override
                 protected void clearOpposite(Reference e) {
                     e.setSource(null);
@@ -223,43 +278,48 @@ public class BehaviouralEntity extends ContainerEntity {
                 protected void setOpposite(Reference e) {
                     e.setSource(BehaviouralEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return BehaviouralEntity.this;
+                }
             };
         }
         return outgoingReferences;
     }
     
     public void setOutgoingReferences(Collection<? extends Reference> outgoingReferences) {
+        WriteBarrier.beforeWrite(this);
         this.getOutgoingReferences().clear();
-        this.getOutgoingReferences().addAll(outgoingReferences);
+        this.mutableOutgoingReferences().addAll(outgoingReferences);
     }                    
     
         
     public void addOutgoingReferences(Reference one) {
-        this.getOutgoingReferences().add(one);
+        this.mutableOutgoingReferences().add(one);
     }   
     
     public void addOutgoingReferences(Reference one, Reference... many) {
-        this.getOutgoingReferences().add(one);
+        this.mutableOutgoingReferences().add(one);
         for (Reference each : many)
-            this.getOutgoingReferences().add(each);
+            this.mutableOutgoingReferences().add(each);
     }   
     
     public void addOutgoingReferences(Iterable<? extends Reference> many) {
         for (Reference each : many)
-            this.getOutgoingReferences().add(each);
+            this.mutableOutgoingReferences().add(each);
     }   
                 
     public void addOutgoingReferences(Reference[] many) {
         for (Reference each : many)
-            this.getOutgoingReferences().add(each);
+            this.mutableOutgoingReferences().add(each);
     }
     
     public int numberOfOutgoingReferences() {
-        return getOutgoingReferences().size();
+        return outgoingReferences == null ? 0 : outgoingReferences.size();
     }
 
     public boolean hasOutgoingReferences() {
-        return !getOutgoingReferences().isEmpty();
+        return outgoingReferences != null && !outgoingReferences.isEmpty();
     }
     
                 
@@ -267,8 +327,13 @@ public class BehaviouralEntity extends ContainerEntity {
 
     @FameProperty(name = "outgoingInvocations", opposite = "sender", derived = true)
     public Collection<Invocation> getOutgoingInvocations() {
+        if (outgoingInvocations == null) return CompactMultivalueSet.<Invocation>empty();
+        return outgoingInvocations;
+    }
+
+    private Collection<Invocation> mutableOutgoingInvocations() {
         if (outgoingInvocations == null) {
-            outgoingInvocations = new MultivalueSet<Invocation>() {
+            outgoingInvocations = new CompactMultivalueSet<Invocation>() {
                 @Override
                 protected void clearOpposite(Invocation e) {
                     e.setSender(null);
@@ -277,43 +342,48 @@ public class BehaviouralEntity extends ContainerEntity {
                 protected void setOpposite(Invocation e) {
                     e.setSender(BehaviouralEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return BehaviouralEntity.this;
+                }
             };
         }
         return outgoingInvocations;
     }
     
     public void setOutgoingInvocations(Collection<? extends Invocation> outgoingInvocations) {
+        WriteBarrier.beforeWrite(this);
         this.getOutgoingInvocations().clear();
-        this.getOutgoingInvocations().addAll(outgoingInvocations);
+        this.mutableOutgoingInvocations().addAll(outgoingInvocations);
     }                    
     
         
     public void addOutgoingInvocations(Invocation one) {
-        this.getOutgoingInvocations().add(one);
+        this.mutableOutgoingInvocations().add(one);
     }   
     
     public void addOutgoingInvocations(Invocation one, Invocation... many) {
-        this.getOutgoingInvocations().add(one);
+        this.mutableOutgoingInvocations().add(one);
         for (Invocation each : many)
-            this.getOutgoingInvocations().add(each);
+            this.mutableOutgoingInvocations().add(each);
     }   
     
     public void addOutgoingInvocations(Iterable<? extends Invocation> many) {
         for (Invocation each : many)
-            this.getOutgoingInvocations().add(each);
+            this.mutableOutgoingInvocations().add(each);
     }   
                 
     public void addOutgoingInvocations(Invocation[] many) {
         for (Invocation each : many)
-            this.getOutgoingInvocations().add(each);
+            this.mutableOutgoingInvocations().add(each);
     }
     
     public int numberOfOutgoingInvocations() {
-        return getOutgoingInvocations().size();
+        return outgoingInvocations == null ? 0 : outgoingInvocations.size();
     }
 
     public boolean hasOutgoingInvocations() {
-        return !getOutgoingInvocations().isEmpty();
+        return outgoingInvocations != null && !outgoingInvocations.isEmpty();
     }
     
                 
@@ -325,6 +395,7 @@ public class BehaviouralEntity extends ContainerEntity {
     }
 
     public void setNumberOfConditionals(Number numberOfConditionals) {
+        WriteBarrier.beforeWrite(this);
         this.numberOfConditionals = numberOfConditionals;
     }
     
@@ -332,15 +403,24 @@ public class BehaviouralEntity extends ContainerEntity {
 
     @FameProperty(name = "incomingInvocations", opposite = "candidates", derived = true)
     public Collection<Invocation> getIncomingInvocations() {
+        if (incomingInvocations == null) return CompactMultivalueSet.<Invocation>empty();
+        return incomingInvocations;
+    }
+
+    private Collection<Invocation> mutableIncomingInvocations() {
         if (incomingInvocations == null) {
-            incomingInvocations = new MultivalueSet<Invocation>() {
+            incomingInvocations = new CompactMultivalueSet<Invocation>() {
                 @Override
                 protected void clearOpposite(Invocation e) {
                     e.getCandidates().remove(BehaviouralEntity.this);
                 }
                 @Override
                 protected void setOpposite(Invocation e) {
-                    e.getCandidates().add(BehaviouralEntity.this);
+                    e.addCandidates(BehaviouralEntity.this);
+                }
+                @Override
+                protected Object owner() {
+                    return BehaviouralEntity.this;
                 }
             };
         }
@@ -348,36 +428,37 @@ public class BehaviouralEntity extends ContainerEntity {
     }
     
     public void setIncomingInvocations(Collection<? extends Invocation> incomingInvocations) {
+        WriteBarrier.beforeWrite(this);
         this.getIncomingInvocations().clear();
-        this.getIncomingInvocations().addAll(incomingInvocations);
+        this.mutableIncomingInvocations().addAll(incomingInvocations);
     }
     
     public void addIncomingInvocations(Invocation one) {
-        this.getIncomingInvocations().add(one);
+        this.mutableIncomingInvocations().add(one);
     }   
     
     public void addIncomingInvocations(Invocation one, Invocation... many) {
-        this.getIncomingInvocations().add(one);
+        this.mutableIncomingInvocations().add(one);
         for (Invocation each : many)
-            this.getIncomingInvocations().add(each);
+            this.mutableIncomingInvocations().add(each);
     }   
     
     public void addIncomingInvocations(Iterable<? extends Invocation> many) {
         for (Invocation each : many)
-            this.getIncomingInvocations().add(each);
+            this.mutableIncomingInvocations().add(each);
     }   
                 
     public void addIncomingInvocations(Invocation[] many) {
         for (Invocation each : many)
-            this.getIncomingInvocations().add(each);
+            this.mutableIncomingInvocations().add(each);
     }
     
     public int numberOfIncomingInvocations() {
-        return getIncomingInvocations().size();
+        return incomingInvocations == null ? 0 : incomingInvocations.size();
     }
 
     public boolean hasIncomingInvocations() {
-        return !getIncomingInvocations().isEmpty();
+        return incomingInvocations != null && !incomingInvocations.isEmpty();
     }
     
                 
@@ -385,8 +466,13 @@ public class BehaviouralEntity extends ContainerEntity {
 
     @FameProperty(name = "parameters", opposite = "parentBehaviouralEntity", derived = true)
     public Collection<Parameter> getParameters() {
+        if (parameters == null) return CompactMultivalueSet.<Parameter>empty();
+        return parameters;
+    }
+
+    private Collection<Parameter> mutableParameters() {
         if (parameters == null) {
-            parameters = new MultivalueSet<Parameter>() {
+            parameters = new CompactMultivalueSet<Parameter>() {
                 @Override
                 protected void clearOpposite(Parameter e) {
                     e.setParentBehaviouralEntity(null);
@@ -395,43 +481,48 @@ public class BehaviouralEntity extends ContainerEntity {
                 protected void setOpposite(Parameter e) {
                     e.setParentBehaviouralEntity(BehaviouralEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return BehaviouralEntity.this;
+                }
             };
         }
         return parameters;
     }
     
     public void setParameters(Collection<? extends Parameter> parameters) {
+        WriteBarrier.beforeWrite(this);
         this.getParameters().clear();
-        this.getParameters().addAll(parameters);
+        this.mutableParameters().addAll(parameters);
     }                    
     
         
     public void addParameters(Parameter one) {
-        this.getParameters().add(one);
+        this.mutableParameters().add(one);
     }   
     
     public void addParameters(Parameter one, Parameter... many) {
-        this.getParameters().add(one);
+        this.mutableParameters().add(one);
         for (Parameter each : many)
-            this.getParameters().add(each);
+            this.mutableParameters().add(each);
     }   
     
     public void addParameters(Iterable<? extends Parameter> many) {
         for (Parameter each : many)
-            this.getParameters().add(each);
+            this.mutableParameters().add(each);
     }   
                 
     public void addParameters(Parameter[] many) {
         for (Parameter each : many)
-            this.getParameters().add(each);
+            this.mutableParameters().add(each);
     }
     
     public int numberOfParameters() {
-        return getParameters().size();
+        return parameters == null ? 0 : parameters.size();
     }
 
     public boolean hasParameters() {
-        return !getParameters().isEmpty();
+        return parameters != null && !parameters.isEmpty();
     }
     
                 
@@ -439,8 +530,13 @@ public class BehaviouralEntity extends ContainerEntity {
 
     @FameProperty(name = "accesses", opposite = "accessor", derived = true)
     public Collection<Access> getAccesses() {
+        if (accesses == null) return CompactMultivalueSet.<Access>empty();
+        return accesses;
+    }
+
+    private Collection<Access> mutableAccesses() {
         if (accesses == null) {
-            accesses = new MultivalueSet<Access>() {
+            accesses = new CompactMultivalueSet<Access>() {
                 @Override
                 protected void clearOpposite(Access e) {
                     e.setAccessor(null);
@@ -449,43 +545,48 @@ public class BehaviouralEntity extends ContainerEntity {
                 protected void setOpposite(Access e) {
                     e.setAccessor(BehaviouralEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return BehaviouralEntity.this;
+                }
             };
         }
         return accesses;
     }
     
     public void setAccesses(Collection<? extends Access> accesses) {
+        WriteBarrier.beforeWrite(this);
         this.getAccesses().clear();
-        this.getAccesses().addAll(accesses);
+        this.mutableAccesses().addAll(accesses);
     }                    
     
         
     public void addAccesses(Access one) {
-        this.getAccesses().add(one);
+        this.mutableAccesses().add(one);
     }   
     
     public void addAccesses(Access one, Access... many) {
-        this.getAccesses().add(one);
+        this.mutableAccesses().add(one);
         for (Access each : many)
-            this.getAccesses().add(each);
+            this.mutableAccesses().add(each);
     }   
     
     public void addAccesses(Iterable<? extends Access> many) {
         for (Access each : many)
-            this.getAccesses().add(each);
+            this.mutableAccesses().add(each);
     }   
                 
     public void addAccesses(Access[] many) {
         for (Access each : many)
-            this.getAccesses().add(each);
+            this.mutableAccesses().add(each);
     }
     
     public int numberOfAccesses() {
-        return getAccesses().size();
+        return accesses == null ? 0 : accesses.size();
     }
 
     public boolean hasAccesses() {
-        return !getAccesses().isEmpty();
+        return accesses != null && !accesses.isEmpty();
     }
     
                 
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class CaughtException extends Exception {
     }
 
     public void setDefiningMethod(Method definingMethod) {
+        WriteBarrier.beforeWrite(this);
         if (this.definingMethod != null) {
             if (this.definingMethod.equals(definingMethod)) return;
             this.definingMethod.getCaughtExceptions().remove(this);
         }
         this.definingMethod = definingMethod;
         if (definingMethod == null) return;
-        definingMethod.getCaughtExceptions().add(this);
+        definingMethod.addCaughtExceptions(this);
     }
     
 
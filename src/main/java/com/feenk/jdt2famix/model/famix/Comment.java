@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class Comment extends SourcedEntity {
     }
 
     public void setContainer(SourcedEntity container) {
+        WriteBarrier.beforeWrite(this);
         if (this.container != null) {
             if (this.container.equals(container)) return;
             this.container.getComments().remove(this);
         }
         this.container = container;
         if (container == null) return;
-        container.getComments().add(this);
+        container.addComments(this);
     }
     
     private String content;
@@ -37,6 +39,7 @@ public class Comment extends SourcedEntity {
     }
 
     public void setContent(String content) {
+        WriteBarrier.beforeWrite(this);
         this.content = content;
     }
     
@@ -3,6 +3,7 @@ package com.feenk.jdt2famix.model.famix;
 
 import com.feenk.jdt2famix.model.file.File;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -21,6 +22,7 @@ public class CompilationUnit extends File {
     }
 
     public void setModule(Module module) {
+        WriteBarrier.beforeWrite(this);
         if (this.module == null ? module != null : !this.module.equals(module)) {
             Module old_module = this.module;
             this.module = module;
@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -18,8 +19,13 @@ public class ContainerEntity extends NamedEntity {
 
     @FameProperty(name = "types", opposite = "container", derived = true)
     public Collection<Type> getTypes() {
+        if (types == null) return CompactMultivalueSet.<Type>empty();
+        return types;
+    }
+
+    private Collection<Type> mutableTypes() {
         if (types == null) {
-            types = new MultivalueSet<Type>() {
+            types = new CompactMultivalueSet<Type>() {
                 @Override
                 protected void clearOpposite(Type e) {
                     e.setContainer(null);
@@ -28,43 +34,48 @@ public class ContainerEntity extends NamedEntity {
                 protected void setOpposite(Type e) {
                     e.setContainer(ContainerEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return ContainerEntity.this;
+                }
             };
         }
         return types;
     }
     
     public void setTypes(Collection<? extends Type> types) {
+        WriteBarrier.beforeWrite(this);
         this.getTypes().clear();
-        this.getTypes().addAll(types);
+        this.mutableTypes().addAll(types);
     }                    
     
         
     public void addTypes(Type one) {
-        this.getTypes().add(one);
+        this.mutableTypes().add(one);
     }   
     
     public void addTypes(Type one, Type... many) {
-        this.getTypes().add(one);
+        this.mutableTypes().add(one);
         for (Type each : many)
-            this.getTypes().add(each);
+            this.mutableTypes().add(each);
     }   
     
     public void addTypes(Iterable<? extends Type> many) {
         for (Type each : many)
-            this.getTypes().add(each);
+            this.mutableTypes().add(each);
     }   
                 
     public void addTypes(Type[] many) {
         for (Type each : many)
-            this.getTypes().add(each);
+            this.mutableTypes().add(each);
     }
     
     public int numberOfTypes() {
-        return getTypes().size();
+        return types == null ? 0 : types.size();
     }
 
     public boolean hasTypes() {
-        return !getTypes().isEmpty();
+        return types != null && !types.isEmpty();
     }
     
                 
@@ -72,8 +83,13 @@ public class ContainerEntity extends NamedEntity {
 
     @FameProperty(name = "functions", opposite = "container", derived = true)
     public Collection<Function> getFunctions() {
+        if (functions == null) return CompactMultivalueSet.<Function>empty();
+        return functions;
+    }
+
+    private Collection<Function> mutableFunctions() {
         if (functions == null) {
-            functions = new MultivalueSet<Function>() {
+            functions = new CompactMultivalueSet<Function>() {
                 @Override
                 protected void clearOpposite(Function e) {
                     e.setContainer(null);
@@ -82,43 +98,48 @@ public class ContainerEntity extends NamedEntity {
                 protected void setOpposite(Function e) {
                     e.setContainer(ContainerEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return ContainerEntity.this;
+                }
             };
         }
         return functions;
     }
     
     public void setFunctions(Collection<? extends Function> functions) {
+        WriteBarrier.beforeWrite(this);
         this.getFunctions().clear();
-        this.getFunctions().addAll(functions);
+        this.mutableFunctions().addAll(functions);
     }                    
     
         
     public void addFunctions(Function one) {
-        this.getFunctions().add(one);
+        this.mutableFunctions().add(one);
     }   
     
     public void addFunctions(Function one, Function... many) {
-        this.getFunctions().add(one);
+        this.mutableFunctions().add(one);
         for (Function each : many)
-            this.getFunctions().add(each);
+            this.mutableFunctions().add(each);
     }   
     
     public void addFunctions(Iterable<? extends Function> many) {
         for (Function each : many)
-            this.getFunctions().add(each);
+            this.mutableFunctions().add(each);
     }   
                 
     public void addFunctions(Function[] many) {
         for (Function each : many)
-            this.getFunctions().add(each);
+            this.mutableFunctions().add(each);
     }
     
     public int numberOfFunctions() {
-        return getFunctions().size();
+        return functions == null ? 0 : functions.size();
     }
 
     public boolean hasFunctions() {
-        return !getFunctions().isEmpty();
+        return functions != null && !functions.isEmpty();
     }
     
                 
@@ -126,8 +147,13 @@ public class ContainerEntity extends NamedEntity {
 
     @FameProperty(name = "definedAnnotationTypes", opposite = "container", derived = true)
     public Collection<AnnotationType> getDefinedAnnotationTypes() {
+        if (definedAnnotationTypes == null) return CompactMultivalueSet.<AnnotationType>empty();
+        return definedAnnotationTypes;
+    }
+
+    private Collection<AnnotationType> mutableDefinedAnnotationTypes() {
         if (definedAnnotationTypes == null) {
-            definedAnnotationTypes = new MultivalueSet<AnnotationType>() {
+            definedAnnotationTypes = new CompactMultivalueSet<AnnotationType>() {
                 @Override
                 protected void clearOpposite(AnnotationType e) {
                     e.setContainer(null);
@@ -136,43 +162,48 @@ public class ContainerEntity extends NamedEntity {
                 protected void setOpposite(AnnotationType e) {
                     e.setContainer(ContainerEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return ContainerEntity.this;
+                }
             };
         }
         return definedAnnotationTypes;
     }
     
     public void setDefinedAnnotationTypes(Collection<? extends AnnotationType> definedAnnotationTypes) {
+        WriteBarrier.beforeWrite(this);
         this.getDefinedAnnotationTypes().clear();
-        this.getDefinedAnnotationTypes().addAll(definedAnnotationTypes);
+        this.mutableDefinedAnnotationTypes().addAll(definedAnnotationTypes);
     }                    
     
         
     public void addDefinedAnnotationTypes(AnnotationType one) {
-        this.getDefinedAnnotationTypes().add(one);
+        this.mutableDefinedAnnotationTypes().add(one);
     }   
     
     public void addDefinedAnnotationTypes(AnnotationType one, AnnotationType... many) {
-        this.getDefinedAnnotationTypes().add(one);
+        this.mutableDefinedAnnotationTypes().add(one);
         for (AnnotationType each : many)
-            this.getDefinedAnnotationTypes().add(each);
+            this.mutableDefinedAnnotationTypes().add(each);
     }   
     
     public void addDefinedAnnotationTypes(Iterable<? extends AnnotationType> many) {
         for (AnnotationType each : many)
-            this.getDefinedAnnotationTypes().add(each);
+            this.mutableDefinedAnnotationTypes().add(each);
     }   
                 
     public void addDefinedAnnotationTypes(AnnotationType[] many) {
         for (AnnotationType each : many)
-            this.getDefinedAnnotationTypes().add(each);
+            this.mutableDefinedAnnotationTypes().add(each);
     }
     
     public int numberOfDefinedAnnotationTypes() {
-        return getDefinedAnnotationTypes().size();
+        return definedAnnotationTypes == null ? 0 : definedAnnotationTypes.size();
     }
 
     public boolean hasDefinedAnnotationTypes() {
-        return !getDefinedAnnotationTypes().isEmpty();
+        return definedAnnotationTypes != null && !definedAnnotationTypes.isEmpty();
     }
     
                 
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,6 +21,7 @@ public class CustomSourceLanguage extends SourceLanguage {
     }
 
     public void setName(String name) {
+        WriteBarrier.beforeWrite(this);
         this.name = name;
     }
     
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class DereferencedInvocation extends Invocation {
     }
 
     public void setReferencer(StructuralEntity referencer) {
+        WriteBarrier.beforeWrite(this);
         if (this.referencer != null) {
             if (this.referencer.equals(referencer)) return;
             this.referencer.getDereferencedInvocations().remove(this);
         }
         this.referencer = referencer;
         if (referencer == null) return;
-        referencer.getDereferencedInvocations().add(this);
+        referencer.addDereferencedInvocations(this);
     }
     
 
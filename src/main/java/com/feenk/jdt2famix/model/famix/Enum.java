@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -18,8 +19,13 @@ public class Enum extends Type {
 
     @FameProperty(name = "values", opposite = "parentEnum", derived = true)
     public Collection<EnumValue> getValues() {
+        if (values == null) return CompactMultivalueSet.<EnumValue>empty();
+        return values;
+    }
+
+    private Collection<EnumValue> mutableValues() {
         if (values == null) {
-            values = new MultivalueSet<EnumValue>() {
+            values = new CompactMultivalueSet<EnumValue>() {
                 @Override
                 protected void clearOpposite(EnumValue e) {
                     e.setParentEnum(null);
@@ -28,43 +34,48 @@ public class Enum extends Type {
                 protected void setOpposite(EnumValue e) {
                     e.setParentEnum(Enum.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Enum.this;
+                }
             };
         }
         return values;
     }
     
     public void setValues(Collection<? extends EnumValue> values) {
+        WriteBarrier.beforeWrite(this);
         this.getValues().clear();
-        this.getValues().addAll(values);
+        this.mutableValues().addAll(values);
     }                    
     
         
     public void addValues(EnumValue one) {
-        this.getValues().add(one);
+        this.mutableValues().add(one);
     }   
     
     public void addValues(EnumValue one, EnumValue... many) {
-        this.getValues().add(one);
+        this.mutableValues().add(one);
         for (EnumValue each : many)
-            this.getValues().add(each);
+            this.mutableValues().add(each);
     }   
     
     public void addValues(Iterable<? extends EnumValue> many) {
         for (EnumValue each : many)
-            this.getValues().add(each);
+            this.mutableValues().add(each);
     }   
                 
     public void addValues(EnumValue[] many) {
         for (EnumValue each : many)
-            this.getValues().add(each);
+            this.mutableValues().add(each);
     }
     
     public int numberOfValues() {
-        return getValues().size();
+        return values == null ? 0 : values.size();
     }
 
     public boolean hasValues() {
-        return !getValues().isEmpty();
+        return values != null && !values.isEmpty();
     }
     
                 
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class EnumValue extends StructuralEntity {
     }
 
     public void setParentEnum(Enum parentEnum) {
+        WriteBarrier.beforeWrite(this);
         if (this.parentEnum != null) {
             if (this.parentEnum.equals(parentEnum)) return;
             this.parentEnum.getValues().remove(this);
         }
         this.parentEnum = parentEnum;
         if (parentEnum == null) return;
-        parentEnum.getValues().add(this);
+        parentEnum.addValues(this);
     }
     
 
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,6 +21,7 @@ public class FileAnchor extends AbstractFileAnchor {
     }
 
     public void setEndLine(Number endLine) {
+        WriteBarrier.beforeWrite(this);
         this.endLine = endLine;
     }
     
@@ -31,6 +33,7 @@ public class FileAnchor extends AbstractFileAnchor {
     }
 
     public void setEndColumn(Number endColumn) {
+        WriteBarrier.beforeWrite(this);
         this.endColumn = endColumn;
     }
     
@@ -42,6 +45,7 @@ public class FileAnchor extends AbstractFileAnchor {
     }
 
     public void setStartColumn(Number startColumn) {
+        WriteBarrier.beforeWrite(this);
         this.startColumn = startColumn;
     }
     
@@ -53,6 +57,7 @@ public class FileAnchor extends AbstractFileAnchor {
     }
 
     public void setStartLine(Number startLine) {
+        WriteBarrier.beforeWrite(this);
         this.startLine = startLine;
     }
     
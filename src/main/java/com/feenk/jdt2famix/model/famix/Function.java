@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class Function extends BehaviouralEntity {
     }
 
     public void setContainer(ContainerEntity container) {
+        WriteBarrier.beforeWrite(this);
         if (this.container != null) {
             if (this.container.equals(container)) return;
             this.container.getFunctions().remove(this);
         }
         this.container = container;
         if (container == null) return;
-        container.getFunctions().add(this);
+        container.addFunctions(this);
     }
     
     private Module parentModule;
@@ -37,6 +39,7 @@ public class Function extends BehaviouralEntity {
     }
 
     public void setParentModule(Module parentModule) {
+        WriteBarrier.beforeWrite(this);
         this.parentModule = parentModule;
     }
     
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class GlobalVariable extends StructuralEntity {
     }
 
     public void setParentScope(ScopingEntity parentScope) {
+        WriteBarrier.beforeWrite(this);
         if (this.parentScope != null) {
             if (this.parentScope.equals(parentScope)) return;
             this.parentScope.getGlobalVariables().remove(this);
         }
         this.parentScope = parentScope;
         if (parentScope == null) return;
-        parentScope.getGlobalVariables().add(this);
+        parentScope.addGlobalVariables(this);
     }
     
     private Module parentModule;
@@ -37,6 +39,7 @@ public class GlobalVariable extends StructuralEntity {
     }
 
     public void setParentModule(Module parentModule) {
+        WriteBarrier.beforeWrite(this);
         this.parentModule = parentModule;
     }
     
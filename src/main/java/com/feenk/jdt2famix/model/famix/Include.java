@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,6 +21,7 @@ public class Include extends Association {
     }
 
     public void setSource(Object source) {
+        WriteBarrier.beforeWrite(this);
         this.source = source;
     }
     
@@ -31,6 +33,7 @@ public class Include extends Association {
     }
 
     public void setTarget(Object target) {
+        WriteBarrier.beforeWrite(this);
         this.target = target;
     }
     
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -12,25 +13,45 @@ public class IndexedFileAnchor extends AbstractFileAnchor {
 
 
 
-    private Number startPos;
+    private int startPos = Integer.MIN_VALUE;
     
     @FameProperty(name = "startPos")
     public Number getStartPos() {
+        return startPos == Integer.MIN_VALUE ? null : Integer.valueOf(startPos);
+    }
+
+    public int getStartPosAsInt() {
         return startPos;
     }
 
     public void setStartPos(Number startPos) {
+        WriteBarrier.beforeWrite(this);
+        this.startPos = startPos == null ? Integer.MIN_VALUE : startPos.intValue();
+    }
+
+    public void setStartPos(int startPos) {
+        WriteBarrier.beforeWrite(this);
         this.startPos = startPos;
     }
     
-    private Number endPos;
+    private int endPos = Integer.MIN_VALUE;
     
     @FameProperty(name = "endPos")
     public Number getEndPos() {
+        return endPos == Integer.MIN_VALUE ? null : Integer.valueOf(endPos);
+    }
+
+    public int getEndPosAsInt() {
         return endPos;
     }
 
     public void setEndPos(Number endPos) {
+        WriteBarrier.beforeWrite(this);
+        this.endPos = endPos == null ? Integer.MIN_VALUE : endPos.intValue();
+    }
+
+    public void setEndPos(int endPos) {
+        WriteBarrier.beforeWrite(this);
         this.endPos = endPos;
     }
     
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class Inheritance extends Association {
     }
 
     public void setSuperclass(Type superclass) {
+        WriteBarrier.beforeWrite(this);
         if (this.superclass != null) {
             if (this.superclass.equals(superclass)) return;
             this.superclass.getSubInheritances().remove(this);
         }
         this.superclass = superclass;
         if (superclass == null) return;
-        superclass.getSubInheritances().add(this);
+        superclass.addSubInheritances(this);
     }
     
     private Type subclass;
@@ -37,13 +39,14 @@ public class Inheritance extends Association {
     }
 
     public void setSubclass(Type subclass) {
+        WriteBarrier.beforeWrite(this);
         if (this.subclass != null) {
             if (this.subclass.equals(subclass)) return;
             this.subclass.getSuperInheritances().remove(this);
         }
         this.subclass = subclass;
         if (subclass == null) return;
-        subclass.getSuperInheritances().add(this);
+        subclass.addSuperInheritances(this);
     }
     
 
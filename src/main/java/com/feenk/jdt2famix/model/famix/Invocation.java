@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -18,15 +19,24 @@ public class Invocation extends Association {
 
     @FameProperty(name = "candidates", opposite = "incomingInvocations")
     public Collection<BehaviouralEntity> getCandidates() {
+        if (candidates == null) return CompactMultivalueSet.<BehaviouralEntity>empty();
+        return candidates;
+    }
+
+    private Collection<BehaviouralEntity> mutableCandidates() {
         if (candidates == null) {
-            candidates = new MultivalueSet<BehaviouralEntity>() {
+            candidates = new CompactMultivalueSet<BehaviouralEntity>() {
                 @Override
                 protected void clearOpposite(BehaviouralEntity e) {
                     e.getIncomingInvocations().remove(Invocation.this);
                 }
                 @Override
                 protected void setOpposite(BehaviouralEntity e) {
-                    e.getIncomingInvocations().add(Invocation.this);
+                    e.addIncomingInvocations(Invocation.this);
+                }
+                @Override
+                protected Object owner() {
+                    return Invocation.this;
                 }
             };
         }
@@ -34,36 +44,37 @@ public class Invocation extends Association {
     }
     
     public void setCandidates(Collection<? extends BehaviouralEntity> candidates) {
+        WriteBarrier.beforeWrite(this);
         this.getCandidates().clear();
-        this.getCandidates().addAll(candidates);
+        this.mutableCandidates().addAll(candidates);
     }
     
     public void addCandidates(BehaviouralEntity one) {
-        this.getCandidates().add(one);
+        this.mutableCandidates().add(one);
     }   
     
     public void addCandidates(BehaviouralEntity one, BehaviouralEntity... many) {
-        this.getCandidates().add(one);
+        this.mutableCandidates().add(one);
         for (BehaviouralEntity each : many)
-            this.getCandidates().add(each);
+            this.mutableCandidates().add(each);
     }   
     
     public void addCandidates(Iterable<? extends BehaviouralEntity> many) {
         for (BehaviouralEntity each : many)
-            this.getCandidates().add(each);
+            this.mutableCandidates().add(each);
     }   
                 
     public void addCandidates(BehaviouralEntity[] many) {
         for (BehaviouralEntity each : many)
-            this.getCandidates().add(each);
+            this.mutableCandidates().add(each);
     }
     
     public int numberOfCandidates() {
-        return getCandidates().size();
+        return candidates == null ? 0 : candidates.size();
     }
 
     public boolean hasCandidates() {
-        return !getCandidates().isEmpty();
+        return candidates != null && !candidates.isEmpty();
     }
     
                 
@@ -75,13 +86,14 @@ public class Invocation extends Association {
     }
 
     public void setReceiver(NamedEntity receiver) {
+        WriteBarrier.beforeWrite(this);
         if (this.receiver != null) {
             if (this.receiver.equals(receiver)) return;
             this.receiver.getReceivingInvocations().remove(this);
         }
         this.receiver = receiver;
         if (receiver == null) return;
-        receiver.getReceivingInvocations().add(this);
+        receiver.addReceivingInvocations(this);
     }
     
     private String signature;
@@ -92,6 +104,7 @@ public class Invocation extends Association {
     }
 
     public void setSignature(String signature) {
+        WriteBarrier.beforeWrite(this);
         this.signature = signature;
     }
     
@@ -103,13 +116,14 @@ public class Invocation extends Association {
     }
 
     public void setSender(BehaviouralEntity sender) {
+        WriteBarrier.beforeWrite(this);
         if (this.sender != null) {
             if (this.sender.equals(sender)) return;
             this.sender.getOutgoingInvocations().remove(this);
         }
         this.sender = sender;
         if (sender == null) return;
-        sender.getOutgoingInvocations().add(this);
+        sender.addOutgoingInvocations(this);
     }
     
     private String receiverSourceCode;
@@ -120,6 +134,7 @@ public class Invocation extends Association {
     }
 
     public void setReceiverSourceCode(String receiverSourceCode) {
+        WriteBarrier.beforeWrite(this);
         this.receiverSourceCode = receiverSourceCode;
     }
     
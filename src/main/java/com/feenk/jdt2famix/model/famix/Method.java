@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -22,6 +23,7 @@ public class Method extends BehaviouralEntity {
     }
 
     public void setKind(String kind) {
+        WriteBarrier.beforeWrite(this);
         this.kind = kind;
     }
     
@@ -29,8 +31,13 @@ public class Method extends BehaviouralEntity {
 
     @FameProperty(name = "thrownExceptions", opposite = "definingMethod", derived = true)
     public Collection<ThrownException> getThrownExceptions() {
+        if (thrownExceptions == null) return CompactMultivalueSet.<ThrownException>empty();
+        return thrownExceptions;
+    }
+
+    private Collection<ThrownException> mutableThrownExceptions() {
         if (thrownExceptions == null) {
-            thrownExceptions = new MultivalueSet<ThrownException>() {
+            thrownExceptions = new CompactMultivalueSet<ThrownException>() {
                 @Override
                 protected void clearOpposite(ThrownException e) {
                     e.setDefiningMethod(null);
@@ -39,43 +46,48 @@ public class Method extends BehaviouralEntity {
                 protected void setOpposite(ThrownException e) {
                     e.setDefiningMethod(Method.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Method.this;
+                }
             };
         }
         return thrownExceptions;
     }
     
     public void setThrownExceptions(Collection<? extends ThrownException> thrownExceptions) {
+        WriteBarrier.beforeWrite(this);
         this.getThrownExceptions().clear();
-        this.getThrownExceptions().addAll(thrownExceptions);
+        this.mutableThrownExceptions().addAll(thrownExceptions);
     }                    
     
         
     public void addThrownExceptions(ThrownException one) {
-        this.getThrownExceptions().add(one);
+        this.mutableThrownExceptions().add(one);
     }   
     
     public void addThrownExceptions(ThrownException one, ThrownException... many) {
-        this.getThrownExceptions().add(one);
+        this.mutableThrownExceptions().add(one);
         for (ThrownException each : many)
-            this.getThrownExceptions().add(each);
+            this.mutableThrownExceptions().add(each);
     }   
     
     public void addThrownExceptions(Iterable<? extends ThrownException> many) {
         for (ThrownException each : many)
-            this.getThrownExceptions().add(each);
+            this.mutableThrownExceptions().add(each);
     }   
                 
     public void addThrownExceptions(ThrownException[] many) {
         for (ThrownException each : many)
-            this.getThrownExceptions().add(each);
+            this.mutableThrownExceptions().add(each);
     }
     
     public int numberOfThrownExceptions() {
-        return getThrownExceptions().size();
+        return thrownExceptions == null ? 0 : thrownExceptions.size();
     }
 
     public boolean hasThrownExceptions() {
-        return !getThrownExceptions().isEmpty();
+        return thrownExceptions != null && !thrownExceptions.isEmpty();
     }
     
                 
@@ -83,8 +95,13 @@ public class Method extends BehaviouralEntity {
 
     @FameProperty(name = "caughtExceptions", opposite = "definingMethod", derived = true)
     public Collection<CaughtException> getCaughtExceptions() {
+        if (caughtExceptions == null) return CompactMultivalueSet.<CaughtException>empty();
+        return caughtExceptions;
+    }
+
+    private Collection<CaughtException> mutableCaughtExceptions() {
         if (caughtExceptions == null) {
-            caughtExceptions = new MultivalueSet<CaughtException>() {
+            caughtExceptions = new CompactMultivalueSet<CaughtException>() {
                 @Override
                 protected void clearOpposite(CaughtException e) {
                     e.setDefiningMethod(null);
@@ -93,43 +110,48 @@ public class Method extends BehaviouralEntity {
                 protected void setOpposite(CaughtException e) {
                     e.setDefiningMethod(Method.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Method.this;
+                }
             };
         }
         return caughtExceptions;
     }
     
     public void setCaughtExceptions(Collection<? extends CaughtException> caughtExceptions) {
+        WriteBarrier.beforeWrite(this);
         this.getCaughtExceptions().clear();
-        this.getCaughtExceptions().addAll(caughtExceptions);
+        this.mutableCaughtExceptions().addAll(caughtExceptions);
     }                    
     
         
     public void addCaughtExceptions(CaughtException one) {
-        this.getCaughtExceptions().add(one);
+        this.mutableCaughtExceptions().add(one);
     }   
     
     public void addCaughtExceptions(CaughtException one, CaughtException... many) {
-        this.getCaughtExceptions().add(one);
+        this.mutableCaughtExceptions().add(one);
         for (CaughtException each : many)
-            this.getCaughtExceptions().add(each);
+            this.mutableCaughtExceptions().add(each);
     }   
     
     public void addCaughtExceptions(Iterable<? extends CaughtException> many) {
         for (CaughtException each : many)
-            this.getCaughtExceptions().add(each);
+            this.mutableCaughtExceptions().add(each);
     }   
                 
     public void addCaughtExceptions(CaughtException[] many) {
         for (CaughtException each : many)
-            this.getCaughtExceptions().add(each);
+            this.mutableCaughtExceptions().add(each);
     }
     
     public int numberOfCaughtExceptions() {
-        return getCaughtExceptions().size();
+        return caughtExceptions == null ? 0 : caughtExceptions.size();
     }
 
     public boolean hasCaughtExceptions() {
-        return !getCaughtExceptions().isEmpty();
+        return caughtExceptions != null && !caughtExceptions.isEmpty();
     }
     
                 
@@ -141,6 +163,7 @@ public class Method extends BehaviouralEntity {
     }
 
     public void setHasClassScope(Boolean hasClassScope) {
+        WriteBarrier.beforeWrite(this);
         this.hasClassScope = hasClassScope;
     }
     
@@ -152,13 +175,14 @@ public class Method extends BehaviouralEntity {
     }
 
     public void setParentType(Type parentType) {
+        WriteBarrier.beforeWrite(this);
         if (this.parentType != null) {
             if (this.parentType.equals(parentType)) return;
             this.parentType.getMethods().remove(this);
         }
         this.parentType = parentType;
         if (parentType == null) return;
-        parentType.getMethods().add(this);
+        parentType.addMethods(this);
     }
     
     private String timeStamp;
@@ -169,6 +193,7 @@ public class Method extends BehaviouralEntity {
     }
 
     public void setTimeStamp(String timeStamp) {
+        WriteBarrier.beforeWrite(this);
         this.timeStamp = timeStamp;
     }
     
@@ -176,8 +201,13 @@ public class Method extends BehaviouralEntity {
 
     @FameProperty(name = "declaredExceptions", opposite = "definingMethod", derived = true)
     public Collection<DeclaredException> getDeclaredExceptions() {
+        if (declaredExceptions == null) return CompactMultivalueSet.<DeclaredException>empty();
+        return declaredExceptions;
+    }
+
+    private Collection<DeclaredException> mutableDeclaredExceptions() {
         if (declaredExceptions == null) {
-            declaredExceptions = new MultivalueSet<DeclaredException>() {
+            declaredExceptions = new CompactMultivalueSet<DeclaredException>() {
                 @Override
                 protected void clearOpposite(DeclaredException e) {
                     e.setDefiningMethod(null);
@@ -186,43 +216,48 @@ public class Method extends BehaviouralEntity {
                 protected void setOpposite(DeclaredException e) {
                     e.setDefiningMethod(Method.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Method.this;
+                }
             };
         }
         return declaredExceptions;
     }
     
     public void setDeclaredExceptions(Collection<? extends DeclaredException> declaredExceptions) {
+        WriteBarrier.beforeWrite(this);
         this.getDeclaredExceptions().clear();
-        this.getDeclaredExceptions().addAll(declaredExceptions);
+        this.mutableDeclaredExceptions().addAll(declaredExceptions);
     }                    
     
         
     public void addDeclaredExceptions(DeclaredException one) {
-        this.getDeclaredExceptions().add(one);
+        this.mutableDeclaredExceptions().add(one);
     }   
     
     public void addDeclaredExceptions(DeclaredException one, DeclaredException... many) {
-        this.getDeclaredExceptions().add(one);
+        this.mutableDeclaredExceptions().add(one);
         for (DeclaredException each : many)
-            this.getDeclaredExceptions().add(each);
+            this.mutableDeclaredExceptions().add(each);
     }   
     
     public void addDeclaredExceptions(Iterable<? extends DeclaredException> many) {
         for (DeclaredException each : many)
-            this.getDeclaredExceptions().add(each);
+            this.mutableDeclaredExceptions().add(each);
     }   
                 
     public void addDeclaredExceptions(DeclaredException[] many) {
         for (DeclaredException each : many)
-            this.getDeclaredExceptions().add(each);
+            this.mutableDeclaredExceptions().add(each);
     }
     
     public int numberOfDeclaredExceptions() {
-        return getDeclaredExceptions().size();
+        return declaredExceptions == null ? 0 : declaredExceptions.size();
     }
 
     public boolean hasDeclaredExceptions() {
-        return !getDeclaredExceptions().isEmpty();
+        return declaredExceptions != null && !declaredExceptions.isEmpty();
     }
     
                 
@@ -234,6 +269,7 @@ public class Method extends BehaviouralEntity {
     }
 
     public void setCategory(String category) {
+        WriteBarrier.beforeWrite(this);
         this.category = category;
     }
     
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,6 +21,7 @@ public class Module extends ScopingEntity {
     }
 
     public void setCompilationUnit(CompilationUnit compilationUnit) {
+        WriteBarrier.beforeWrite(this);
         if (this.compilationUnit == null ? compilationUnit != null : !this.compilationUnit.equals(compilationUnit)) {
             CompilationUnit old_compilationUnit = this.compilationUnit;
             this.compilationUnit = compilationUnit;
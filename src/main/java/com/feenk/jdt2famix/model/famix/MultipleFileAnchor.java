@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -22,6 +23,7 @@ public class MultipleFileAnchor extends SourceAnchor {
     }
     
     public void setAllFiles(Collection<? extends FileAnchor> allFiles) {
+        WriteBarrier.beforeWrite(this);
         this.getAllFiles().clear();
         this.getAllFiles().addAll(allFiles);
     }                    
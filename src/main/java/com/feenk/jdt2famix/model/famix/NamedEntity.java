@@ -1,8 +1,10 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.Modifiers;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -10,7 +12,7 @@ import ch.akuhn.fame.FamePackage;
 
 @FamePackage("FAMIX")
 @FameDescription("NamedEntity")
-public class NamedEntity extends SourcedEntity {
+public class NamedEntity extends SourcedEntity implements Modifiers.Holder {
 
 
 
@@ -18,8 +20,13 @@ public class NamedEntity extends SourcedEntity {
 
     @FameProperty(name = "receivingInvocations", opposite = "receiver", derived = true)
     public Collection<Invocation> getReceivingInvocations() {
+        if (receivingInvocations == null) return CompactMultivalueSet.<Invocation>empty();
+        return receivingInvocations;
+    }
+
+    private Collection<Invocation> mutableReceivingInvocations() {
         if (receivingInvocations == null) {
-            receivingInvocations = new MultivalueSet<Invocation>() {
+            receivingInvocations = new CompactMultivalueSet<Invocation>() {
                 @Override
                 protected void clearOpposite(Invocation e) {
                     e.setReceiver(null);
@@ -28,85 +35,118 @@ public class NamedEntity extends SourcedEntity {
                 protected void setOpposite(Invocation e) {
                     e.setReceiver(NamedEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return NamedEntity.this;
+                }
             };
         }
         return receivingInvocations;
     }
     
     public void setReceivingInvocations(Collection<? extends Invocation> receivingInvocations) {
+        WriteBarrier.beforeWrite(this);
         this.getReceivingInvocations().clear();
-        this.getReceivingInvocations().addAll(receivingInvocations);
+        this.mutableReceivingInvocations().addAll(receivingInvocations);
     }                    
     
         
     public void addReceivingInvocations(Invocation one) {
-        this.getReceivingInvocations().add(one);
+        this.mutableReceivingInvocations().add(one);
     }   
     
     public void addReceivingInvocations(Invocation one, Invocation... many) {
-        this.getReceivingInvocations().add(one);
+        this.mutableReceivingInvocations().add(one);
         for (Invocation each : many)
-            this.getReceivingInvocations().add(each);
+            this.mutableReceivingInvocations().add(each);
     }   
     
     public void addReceivingInvocations(Iterable<? extends Invocation> many) {
         for (Invocation each : many)
-            this.getReceivingInvocations().add(each);
+            this.mutableReceivingInvocations().add(each);
     }   
                 
     public void addReceivingInvocations(Invocation[] many) {
         for (Invocation each : many)
-            this.getReceivingInvocations().add(each);
+            this.mutableReceivingInvocations().add(each);
     }
     
     public int numberOfReceivingInvocations() {
-        return getReceivingInvocations().size();
+        return receivingInvocations == null ? 0 : receivingInvocations.size();
     }
 
     public boolean hasReceivingInvocations() {
-        return !getReceivingInvocations().isEmpty();
+        return receivingInvocations != null && !receivingInvocations.isEmpty();
     }
     
                 
-    private Collection<String> modifiers; 
+    private int modifierFlags;
+
+    private List<String> otherModifiers;
 
     @FameProperty(name = "modifiers")
     public Collection<String> getModifiers() {
-        if (modifiers == null) modifiers = new HashSet<String>();
-        return modifiers;
+        return Modifiers.view(this);
     }
     
     public void setModifiers(Collection<? extends String> modifiers) {
-        this.getModifiers().clear();
-        this.getModifiers().addAll(modifiers);
+        WriteBarrier.beforeWrite(this);
+        this.modifierFlags = 0;
+        this.otherModifiers = null;
+        this.addModifiers(modifiers);
     }                    
 
     public void addModifiers(String one) {
-        this.getModifiers().add(one);
+        Modifiers.add(this, one);
     }   
     
     public void addModifiers(String one, String... many) {
-        this.getModifiers().add(one);
+        this.addModifiers(one);
         for (String each : many)
-            this.getModifiers().add(each);
+            this.addModifiers(each);
     }   
     
     public void addModifiers(Iterable<? extends String> many) {
         for (String each : many)
-            this.getModifiers().add(each);
+            this.addModifiers(each);
     }   
                 
     public void addModifiers(String[] many) {
         for (String each : many)
-            this.getModifiers().add(each);
+            this.addModifiers(each);
     }
     
     public int numberOfModifiers() {
-        return getModifiers().size();
+        return Modifiers.size(this);
     }
 
     public boolean hasModifiers() {
-        return !getModifiers().isEmpty();
+        return modifierFlags != 0 || otherModifiers != null;
+    }
+    
+    public int getModifierFlags() {
+        return modifierFlags;
+    }
+
+    /**
+     * The flags use the bits of {@link Modifiers}, which are the ones of the JDT modifier flags
+     */
+    public void setModifierFlags(int modifierFlags) {
+        WriteBarrier.beforeWrite(this);
+        this.modifierFlags = modifierFlags & Modifiers.ALL;
+    }
+
+    public void addModifierFlags(int modifierFlags) {
+        this.setModifierFlags(this.modifierFlags | modifierFlags);
+    }
+
+    public List<String> getOtherModifiers() {
+        return otherModifiers;
+    }
+
+    public void setOtherModifiers(List<String> otherModifiers) {
+        WriteBarrier.beforeWrite(this);
+        this.otherModifiers = otherModifiers;
     }
     
                 
@@ -118,6 +158,7 @@ public class NamedEntity extends SourcedEntity {
     }
 
     public void setIsStub(Boolean isStub) {
+        WriteBarrier.beforeWrite(this);
         this.isStub = isStub;
     }
     
@@ -129,6 +170,7 @@ public class NamedEntity extends SourcedEntity {
     }
 
     public void setName(String name) {
+        WriteBarrier.beforeWrite(this);
         this.name = name;
     }
     
@@ -140,21 +182,27 @@ public class NamedEntity extends SourcedEntity {
     }
 
     public void setParentPackage(Package parentPackage) {
+        WriteBarrier.beforeWrite(this);
         if (this.parentPackage != null) {
             if (this.parentPackage.equals(parentPackage)) return;
             this.parentPackage.getChildNamedEntities().remove(this);
         }
         this.parentPackage = parentPackage;
         if (parentPackage == null) return;
-        parentPackage.getChildNamedEntities().add(this);
+        parentPackage.addChildNamedEntities(this);
     }
     
     private Collection<AnnotationInstance> annotationInstances; 
 
     @FameProperty(name = "annotationInstances", opposite = "annotatedEntity", derived = true)
     public Collection<AnnotationInstance> getAnnotationInstances() {
+        if (annotationInstances == null) return CompactMultivalueSet.<AnnotationInstance>empty();
+        return annotationInstances;
+    }
+
+    private Collection<AnnotationInstance> mutableAnnotationInstances() {
         if (annotationInstances == null) {
-            annotationInstances = new MultivalueSet<AnnotationInstance>() {
+            annotationInstances = new CompactMultivalueSet<AnnotationInstance>() {
                 @Override
                 protected void clearOpposite(AnnotationInstance e) {
                     e.setAnnotatedEntity(null);
@@ -163,43 +211,48 @@ public class NamedEntity extends SourcedEntity {
                 protected void setOpposite(AnnotationInstance e) {
                     e.setAnnotatedEntity(NamedEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return NamedEntity.this;
+                }
             };
         }
         return annotationInstances;
     }
     
     public void setAnnotationInstances(Collection<? extends AnnotationInstance> annotationInstances) {
+        WriteBarrier.beforeWrite(this);
         this.getAnnotationInstances().clear();
-        this.getAnnotationInstances().addAll(annotationInstances);
+        this.mutableAnnotationInstances().addAll(annotationInstances);
     }                    
     
         
     public void addAnnotationInstances(AnnotationInstance one) {
-        this.getAnnotationInstances().add(one);
+        this.mutableAnnotationInstances().add(one);
     }   
     
     public void addAnnotationInstances(AnnotationInstance one, AnnotationInstance... many) {
-        this.getAnnotationInstances().add(one);
+        this.mutableAnnotationInstances().add(one);
         for (AnnotationInstance each : many)
-            this.getAnnotationInstances().add(each);
+            this.mutableAnnotationInstances().add(each);
     }   
     
     public void addAnnotationInstances(Iterable<? extends AnnotationInstance> many) {
         for (AnnotationInstance each : many)
-            this.getAnnotationInstances().add(each);
+            this.mutableAnnotationInstances().add(each);
     }   
                 
     public void addAnnotationInstances(AnnotationInstance[] many) {
         for (AnnotationInstance each : many)
-            this.getAnnotationInstances().add(each);
+            this.mutableAnnotationInstances().add(each);
     }
     
     public int numberOfAnnotationInstances() {
-        return getAnnotationInstances().size();
+        return annotationInstances == null ? 0 : annotationInstances.size();
     }
 
     public boolean hasAnnotationInstances() {
-        return !getAnnotationInstances().isEmpty();
+        return annotationInstances != null && !annotationInstances.isEmpty();
     }
     
                 
@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -22,6 +23,7 @@ public class Package extends ScopingEntity {
     }
 
     public void setNumberOfClientPackages(Number numberOfClientPackages) {
+        WriteBarrier.beforeWrite(this);
         this.numberOfClientPackages = numberOfClientPackages;
     }
     
@@ -29,8 +31,13 @@ public class Package extends ScopingEntity {
 
     @FameProperty(name = "childNamedEntities", opposite = "parentPackage", derived = true)
     public Collection<NamedEntity> getChildNamedEntities() {
+        if (childNamedEntities == null) return CompactMultivalueSet.<NamedEntity>empty();
+        return childNamedEntities;
+    }
+
+    private Collection<NamedEntity> mutableChildNamedEntities() {
         if (childNamedEntities == null) {
-            childNamedEntities = new MultivalueSet<NamedEntity>() {
+            childNamedEntities = new CompactMultivalueSet<NamedEntity>() {
                 @Override
                 protected void clearOpposite(NamedEntity e) {
                     e.setParentPackage(null);
@@ -39,43 +46,48 @@ public class Package extends ScopingEntity {
                 protected void setOpposite(NamedEntity e) {
                     e.setParentPackage(Package.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Package.this;
+                }
             };
         }
         return childNamedEntities;
     }
     
     public void setChildNamedEntities(Collection<? extends NamedEntity> childNamedEntities) {
+        WriteBarrier.beforeWrite(this);
         this.getChildNamedEntities().clear();
-        this.getChildNamedEntities().addAll(childNamedEntities);
+        this.mutableChildNamedEntities().addAll(childNamedEntities);
     }                    
     
         
     public void addChildNamedEntities(NamedEntity one) {
-        this.getChildNamedEntities().add(one);
+        this.mutableChildNamedEntities().add(one);
     }   
     
     public void addChildNamedEntities(NamedEntity one, NamedEntity... many) {
-        this.getChildNamedEntities().add(one);
+        this.mutableChildNamedEntities().add(one);
         for (NamedEntity each : many)
-            this.getChildNamedEntities().add(each);
+            this.mutableChildNamedEntities().add(each);
     }   
     
     public void addChildNamedEntities(Iterable<? extends NamedEntity> many) {
         for (NamedEntity each : many)
-            this.getChildNamedEntities().add(each);
+            this.mutableChildNamedEntities().add(each);
     }   
                 
     public void addChildNamedEntities(NamedEntity[] many) {
         for (NamedEntity each : many)
-            this.getChildNamedEntities().add(each);
+            this.mutableChildNamedEntities().add(each);
     }
     
     public int numberOfChildNamedEntities() {
-        return getChildNamedEntities().size();
+        return childNamedEntities == null ? 0 : childNamedEntities.size();
     }
 
     public boolean hasChildNamedEntities() {
-        return !getChildNamedEntities().isEmpty();
+        return childNamedEntities != null && !childNamedEntities.isEmpty();
     }
     
                 
@@ -87,6 +99,7 @@ public class Package extends ScopingEntity {
     }
 
     public void setNumberOfMethods(Number numberOfMethods) {
+        WriteBarrier.beforeWrite(this);
         this.numberOfMethods = numberOfMethods;
     }
     
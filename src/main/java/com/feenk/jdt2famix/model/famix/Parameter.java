@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class Parameter extends StructuralEntity {
     }
 
     public void setParentBehaviouralEntity(BehaviouralEntity parentBehaviouralEntity) {
+        WriteBarrier.beforeWrite(this);
         if (this.parentBehaviouralEntity != null) {
             if (this.parentBehaviouralEntity.equals(parentBehaviouralEntity)) return;
             this.parentBehaviouralEntity.getParameters().remove(this);
         }
         this.parentBehaviouralEntity = parentBehaviouralEntity;
         if (parentBehaviouralEntity == null) return;
-        parentBehaviouralEntity.getParameters().add(this);
+        parentBehaviouralEntity.addParameters(this);
     }
     
 
@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -18,8 +19,13 @@ public class ParameterizableClass extends Class {
 
     @FameProperty(name = "parameterizedTypes", opposite = "parameterizableClass", derived = true)
     public Collection<ParameterizedType> getParameterizedTypes() {
+        if (parameterizedTypes == null) return CompactMultivalueSet.<ParameterizedType>empty();
+        return parameterizedTypes;
+    }
+
+    private Collection<ParameterizedType> mutableParameterizedTypes() {
         if (parameterizedTypes == null) {
-            parameterizedTypes = new MultivalueSet<ParameterizedType>() {
+            parameterizedTypes = new CompactMultivalueSet<ParameterizedType>() {
                 @Override
                 protected void clearOpposite(ParameterizedType e) {
                     e.setParameterizableClass(null);
@@ -28,43 +34,48 @@ public class ParameterizableClass extends Class {
                 protected void setOpposite(ParameterizedType e) {
                     e.setParameterizableClass(ParameterizableClass.this);
                 }
+                @Override
+                protected Object owner() {
+                    return ParameterizableClass.this;
+                }
             };
         }
         return parameterizedTypes;
     }
     
     public void setParameterizedTypes(Collection<? extends ParameterizedType> parameterizedTypes) {
+        WriteBarrier.beforeWrite(this);
         this.getParameterizedTypes().clear();
-        this.getParameterizedTypes().addAll(parameterizedTypes);
+        this.mutableParameterizedTypes().addAll(parameterizedTypes);
     }                    
     
         
     public void addParameterizedTypes(ParameterizedType one) {
-        this.getParameterizedTypes().add(one);
+        this.mutableParameterizedTypes().add(one);
     }   
     
     public void addParameterizedTypes(ParameterizedType one, ParameterizedType... many) {
-        this.getParameterizedTypes().add(one);
+        this.mutableParameterizedTypes().add(one);
         for (ParameterizedType each : many)
-            this.getParameterizedTypes().add(each);
+            this.mutableParameterizedTypes().add(each);
     }   
     
     public void addParameterizedTypes(Iterable<? extends ParameterizedType> many) {
         for (ParameterizedType each : many)
-            this.getParameterizedTypes().add(each);
+            this.mutableParameterizedTypes().add(each);
     }   
                 
     public void addParameterizedTypes(ParameterizedType[] many) {
         for (ParameterizedType each : many)
-            this.getParameterizedTypes().add(each);
+            this.mutableParameterizedTypes().add(each);
     }
     
     public int numberOfParameterizedTypes() {
-        return getParameterizedTypes().size();
+        return parameterizedTypes == null ? 0 : parameterizedTypes.size();
     }
 
     public boolean hasParameterizedTypes() {
-        return !getParameterizedTypes().isEmpty();
+        return parameterizedTypes != null && !parameterizedTypes.isEmpty();
     }
     
                 
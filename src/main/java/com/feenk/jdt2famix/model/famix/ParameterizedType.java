@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -22,28 +23,38 @@ public class ParameterizedType extends Type {
     }
 
     public void setParameterizableClass(ParameterizableClass parameterizableClass) {
+        WriteBarrier.beforeWrite(this);
         if (this.parameterizableClass != null) {
             if (this.parameterizableClass.equals(parameterizableClass)) return;
             this.parameterizableClass.getParameterizedTypes().remove(this);
         }
         this.parameterizableClass = parameterizableClass;
         if (parameterizableClass == null) return;
-        parameterizableClass.getParameterizedTypes().add(this);
+        parameterizableClass.addParameterizedTypes(this);
     }
     
     private Collection<Type> arguments; 
 
     @FameProperty(name = "arguments", opposite = "argumentsInParameterizedTypes")
     public Collection<Type> getArguments() {
+        if (arguments == null) return CompactMultivalueSet.<Type>empty();
+        return arguments;
+    }
+
+    private Collection<Type> mutableArguments() {
         if (arguments == null) {
-            arguments = new MultivalueSet<Type>() {
+            arguments = new CompactMultivalueSet<Type>() {
                 @Override
                 protected void clearOpposite(Type e) {
                     e.getArgumentsInParameterizedTypes().remove(ParameterizedType.this);
                 }
                 @Override
                 protected void setOpposite(Type e) {
-                    e.getArgumentsInParameterizedTypes().add(ParameterizedType.this);
+                    e.addArgumentsInParameterizedTypes(ParameterizedType.this);
+                }
+                @Override
+                protected Object owner() {
+                    return ParameterizedType.this;
                 }
             };
         }
@@ -51,36 +62,37 @@ public class ParameterizedType extends Type {
     }
     
     public void setArguments(Collection<? extends Type> arguments) {
+        WriteBarrier.beforeWrite(this);
         this.getArguments().clear();
-        this.getArguments().addAll(arguments);
+        this.mutableArguments().addAll(arguments);
     }
     
     public void addArguments(Type one) {
-        this.getArguments().add(one);
+        this.mutableArguments().add(one);
     }   
     
     public void addArguments(Type one, Type... many) {
-        this.getArguments().add(one);
+        this.mutableArguments().add(one);
         for (Type each : many)
-            this.getArguments().add(each);
+            this.mutableArguments().add(each);
     }   
     
     public void addArguments(Iterable<? extends Type> many) {
         for (Type each : many)
-            this.getArguments().add(each);
+            this.mutableArguments().add(each);
     }   
                 
     public void addArguments(Type[] many) {
         for (Type each : many)
-            this.getArguments().add(each);
+            this.mutableArguments().add(each);
     }
     
     public int numberOfArguments() {
-        return getArguments().size();
+        return arguments == null ? 0 : arguments.size();
     }
 
     public boolean hasArguments() {
-        return !getArguments().isEmpty();
+        return arguments != null && !arguments.isEmpty();
     }
     
                 
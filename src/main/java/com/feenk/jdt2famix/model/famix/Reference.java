@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class Reference extends Association {
     }
 
     public void setSource(BehaviouralEntity source) {
+        WriteBarrier.beforeWrite(this);
         if (this.source != null) {
             if (this.source.equals(source)) return;
             this.source.getOutgoingReferences().remove(this);
         }
         this.source = source;
         if (source == null) return;
-        source.getOutgoingReferences().add(this);
+        source.addOutgoingReferences(this);
     }
     
     private Type target;
@@ -37,13 +39,14 @@ public class Reference extends Association {
     }
 
     public void setTarget(Type target) {
+        WriteBarrier.beforeWrite(this);
         if (this.target != null) {
             if (this.target.equals(target)) return;
             this.target.getIncomingReferences().remove(this);
         }
         this.target = target;
         if (target == null) return;
-        target.getIncomingReferences().add(this);
+        target.addIncomingReferences(this);
     }
     
 
@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -18,8 +19,13 @@ public class ScopingEntity extends ContainerEntity {
 
     @FameProperty(name = "globalVariables", opposite = "parentScope", derived = true)
     public Collection<GlobalVariable> getGlobalVariables() {
+        if (globalVariables == null) return CompactMultivalueSet.<GlobalVariable>empty();
+        return globalVariables;
+    }
+
+    private Collection<GlobalVariable> mutableGlobalVariables() {
         if (globalVariables == null) {
-            globalVariables = new MultivalueSet<GlobalVariable>() {
+            globalVariables = new CompactMultivalueSet<GlobalVariable>() {
                 @Override
                 protected void clearOpposite(GlobalVariable e) {
                     e.setParentScope(null);
@@ -28,43 +34,48 @@ public class ScopingEntity extends ContainerEntity {
                 protected void setOpposite(GlobalVariable e) {
                     e.setParentScope(ScopingEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return ScopingEntity.this;
+                }
             };
         }
         return globalVariables;
     }
     
     public void setGlobalVariables(Collection<? extends GlobalVariable> globalVariables) {
+        WriteBarrier.beforeWrite(this);
         this.getGlobalVariables().clear();
-        this.getGlobalVariables().addAll(globalVariables);
+        this.mutableGlobalVariables().addAll(globalVariables);
     }                    
     
         
     public void addGlobalVariables(GlobalVariable one) {
-        this.getGlobalVariables().add(one);
+        this.mutableGlobalVariables().add(one);
     }   
     
     public void addGlobalVariables(GlobalVariable one, GlobalVariable... many) {
-        this.getGlobalVariables().add(one);
+        this.mutableGlobalVariables().add(one);
         for (GlobalVariable each : many)
-            this.getGlobalVariables().add(each);
+            this.mutableGlobalVariables().add(each);
     }   
     
     public void addGlobalVariables(Iterable<? extends GlobalVariable> many) {
         for (GlobalVariable each : many)
-            this.getGlobalVariables().add(each);
+            this.mutableGlobalVariables().add(each);
     }   
                 
     public void addGlobalVariables(GlobalVariable[] many) {
         for (GlobalVariable each : many)
-            this.getGlobalVariables().add(each);
+            this.mutableGlobalVariables().add(each);
     }
     
     public int numberOfGlobalVariables() {
-        return getGlobalVariables().size();
+        return globalVariables == null ? 0 : globalVariables.size();
     }
 
     public boolean hasGlobalVariables() {
-        return !getGlobalVariables().isEmpty();
+        return globalVariables != null && !globalVariables.isEmpty();
     }
     
                 
@@ -76,21 +87,27 @@ public class ScopingEntity extends ContainerEntity {
     }
 
     public void setParentScope(ScopingEntity parentScope) {
+        WriteBarrier.beforeWrite(this);
         if (this.parentScope != null) {
             if (this.parentScope.equals(parentScope)) return;
             this.parentScope.getChildScopes().remove(this);
         }
         this.parentScope = parentScope;
         if (parentScope == null) return;
-        parentScope.getChildScopes().add(this);
+        parentScope.addChildScopes(this);
     }
     
     private Collection<ScopingEntity> childScopes; 
 
     @FameProperty(name = "childScopes", opposite = "parentScope", derived = true)
     public Collection<ScopingEntity> getChildScopes() {
+        if (childScopes == null) return CompactMultivalueSet.<ScopingEntity>empty();
+        return childScopes;
+    }
+
+    private Collection<ScopingEntity> mutableChildScopes() {
         if (childScopes == null) {
-            childScopes = new MultivalueSet<ScopingEntity>() {
+            childScopes = new CompactMultivalueSet<ScopingEntity>() {
                 @Override
                 protected void clearOpposite(ScopingEntity e) {
                     e.setParentScope(null);
@@ -99,43 +116,48 @@ public class ScopingEntity extends ContainerEntity {
                 protected void setOpposite(ScopingEntity e) {
                     e.setParentScope(ScopingEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return ScopingEntity.this;
+                }
             };
         }
         return childScopes;
     }
     
     public void setChildScopes(Collection<? extends ScopingEntity> childScopes) {
+        WriteBarrier.beforeWrite(this);
         this.getChildScopes().clear();
-        this.getChildScopes().addAll(childScopes);
+        this.mutableChildScopes().addAll(childScopes);
     }                    
     
         
     public void addChildScopes(ScopingEntity one) {
-        this.getChildScopes().add(one);
+        this.mutableChildScopes().add(one);
     }   
     
     public void addChildScopes(ScopingEntity one, ScopingEntity... many) {
-        this.getChildScopes().add(one);
+        this.mutableChildScopes().add(one);
         for (ScopingEntity each : many)
-            this.getChildScopes().add(each);
+            this.mutableChildScopes().add(each);
     }   
     
     public void addChildScopes(Iterable<? extends ScopingEntity> many) {
         for (ScopingEntity each : many)
-            this.getChildScopes().add(each);
+            this.mutableChildScopes().add(each);
     }   
                 
     public void addChildScopes(ScopingEntity[] many) {
         for (ScopingEntity each : many)
-            this.getChildScopes().add(each);
+            this.mutableChildScopes().add(each);
     }
     
     public int numberOfChildScopes() {
-        return getChildScopes().size();
+        return childScopes == null ? 0 : childScopes.size();
     }
 
     public boolean hasChildScopes() {
-        return !getChildScopes().isEmpty();
+        return childScopes != null && !childScopes.isEmpty();
     }
     
                 
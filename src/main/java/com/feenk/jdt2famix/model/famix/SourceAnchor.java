@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,6 +21,7 @@ public class SourceAnchor extends Entity {
     }
 
     public void setElement(SourcedEntity element) {
+        WriteBarrier.beforeWrite(this);
         if (this.element == null ? element != null : !this.element.equals(element)) {
             SourcedEntity old_element = this.element;
             this.element = element;
@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -18,8 +19,13 @@ public class SourceLanguage extends Entity {
 
     @FameProperty(name = "sourcedEntities", opposite = "declaredSourceLanguage", derived = true)
     public Collection<SourcedEntity> getSourcedEntities() {
+        if (sourcedEntities == null) return CompactMultivalueSet.<SourcedEntity>empty();
+        return sourcedEntities;
+    }
+
+    private Collection<SourcedEntity> mutableSourcedEntities() {
         if (sourcedEntities == null) {
-            sourcedEntities = new MultivalueSet<SourcedEntity>() {
+            sourcedEntities = new CompactMultivalueSet<SourcedEntity>() {
                 @Override
                 protected void clearOpposite(SourcedEntity e) {
                     e.setDeclaredSourceLanguage(null);
@@ -28,43 +34,48 @@ public class SourceLanguage extends Entity {
                 protected void setOpposite(SourcedEntity e) {
                     e.setDeclaredSourceLanguage(SourceLanguage.this);
                 }
+                @Override
+                protected Object owner() {
+                    return SourceLanguage.this;
+                }
             };
         }
         return sourcedEntities;
     }
     
     public void setSourcedEntities(Collection<? extends SourcedEntity> sourcedEntities) {
+        WriteBarrier.beforeWrite(this);
         this.getSourcedEntities().clear();
-        this.getSourcedEntities().addAll(sourcedEntities);
+        this.mutableSourcedEntities().addAll(sourcedEntities);
     }                    
     
         
     public void addSourcedEntities(SourcedEntity one) {
-        this.getSourcedEntities().add(one);
+        this.mutableSourcedEntities().add(one);
     }   
     
     public void addSourcedEntities(SourcedEntity one, SourcedEntity... many) {
-        this.getSourcedEntities().add(one);
+        this.mutableSourcedEntities().add(one);
         for (SourcedEntity each : many)
-            this.getSourcedEntities().add(each);
+            this.mutableSourcedEntities().add(each);
     }   
     
     public void addSourcedEntities(Iterable<? extends SourcedEntity> many) {
         for (SourcedEntity each : many)
-            this.getSourcedEntities().add(each);
+            this.mutableSourcedEntities().add(each);
     }   
                 
     public void addSourcedEntities(SourcedEntity[] many) {
         for (SourcedEntity each : many)
-            this.getSourcedEntities().add(each);
+            this.mutableSourcedEntities().add(each);
     }
     
     public int numberOfSourcedEntities() {
-        return getSourcedEntities().size();
+        return sourcedEntities == null ? 0 : sourcedEntities.size();
     }
 
     public boolean hasSourcedEntities() {
-        return !getSourcedEntities().isEmpty();
+        return sourcedEntities != null && !sourcedEntities.isEmpty();
     }
     
                 
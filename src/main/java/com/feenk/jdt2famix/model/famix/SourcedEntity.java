@@ -1,9 +1,10 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import com.feenk.jdt2famix.model.file.File;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -23,6 +24,7 @@ public class SourcedEntity extends Entity {
     }
 
     public void setSourceAnchor(SourceAnchor sourceAnchor) {
+        WriteBarrier.beforeWrite(this);
         if (this.sourceAnchor == null ? sourceAnchor != null : !this.sourceAnchor.equals(sourceAnchor)) {
             SourceAnchor old_sourceAnchor = this.sourceAnchor;
             this.sourceAnchor = sourceAnchor;
@@ -39,23 +41,34 @@ public class SourcedEntity extends Entity {
     }
 
     public void setDeclaredSourceLanguage(SourceLanguage declaredSourceLanguage) {
+        WriteBarrier.beforeWrite(this);
         if (this.declaredSourceLanguage != null) {
             if (this.declaredSourceLanguage.equals(declaredSourceLanguage)) return;
             this.declaredSourceLanguage.getSourcedEntities().remove(this);
         }
         this.declaredSourceLanguage = declaredSourceLanguage;
         if (declaredSourceLanguage == null) return;
-        declaredSourceLanguage.getSourcedEntities().add(this);
+        declaredSourceLanguage.addSourcedEntities(this);
     }
     
-    private Number astStartPosition;
+    private int astStartPosition = Integer.MIN_VALUE;
     
     @FameProperty(name = "astStartPosition")
     public Number getAstStartPosition() {
+        return astStartPosition == Integer.MIN_VALUE ? null : Integer.valueOf(astStartPosition);
+    }
+
+    public int getAstStartPositionAsInt() {
         return astStartPosition;
     }
 
     public void setAstStartPosition(Number astStartPosition) {
+        WriteBarrier.beforeWrite(this);
+        this.astStartPosition = astStartPosition == null ? Integer.MIN_VALUE : astStartPosition.intValue();
+    }
+
+    public void setAstStartPosition(int astStartPosition) {
+        WriteBarrier.beforeWrite(this);
         this.astStartPosition = astStartPosition;
     }
     
@@ -63,8 +76,13 @@ public class SourcedEntity extends Entity {
 
     @FameProperty(name = "comments", opposite = "container", derived = true)
     public Collection<Comment> getComments() {
+        if (comments == null) return CompactMultivalueSet.<Comment>empty();
+        return comments;
+    }
+
+    private Collection<Comment> mutableComments() {
         if (comments == null) {
-            comments = new MultivalueSet<Comment>() {
+            comments = new CompactMultivalueSet<Comment>() {
                 @Override
                 protected void clearOpposite(Comment e) {
                     e.setContainer(null);
@@ -73,43 +91,48 @@ public class SourcedEntity extends Entity {
                 protected void setOpposite(Comment e) {
                     e.setContainer(SourcedEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return SourcedEntity.this;
+                }
             };
         }
         return comments;
     }
     
     public void setComments(Collection<? extends Comment> comments) {
+        WriteBarrier.beforeWrite(this);
         this.getComments().clear();
-        this.getComments().addAll(comments);
+        this.mutableComments().addAll(comments);
     }                    
     
         
     public void addComments(Comment one) {
-        this.getComments().add(one);
+        this.mutableComments().add(one);
     }   
     
     public void addComments(Comment one, Comment... many) {
-        this.getComments().add(one);
+        this.mutableComments().add(one);
         for (Comment each : many)
-            this.getComments().add(each);
+            this.mutableComments().add(each);
     }   
     
     public void addComments(Iterable<? extends Comment> many) {
         for (Comment each : many)
-            this.getComments().add(each);
+            this.mutableComments().add(each);
     }   
                 
     public void addComments(Comment[] many) {
         for (Comment each : many)
-            this.getComments().add(each);
+            this.mutableComments().add(each);
     }
     
     public int numberOfComments() {
-        return getComments().size();
+        return comments == null ? 0 : comments.size();
     }
 
     public boolean hasComments() {
-        return !getComments().isEmpty();
+        return comments != null && !comments.isEmpty();
     }
     
                 
@@ -117,15 +140,24 @@ public class SourcedEntity extends Entity {
 
     @FameProperty(name = "containerFiles", opposite = "entities")
     public Collection<File> getContainerFiles() {
+        if (containerFiles == null) return CompactMultivalueSet.<File>empty();
+        return containerFiles;
+    }
+
+    private Collection<File> mutableContainerFiles() {
         if (containerFiles == null) {
-            containerFiles = new MultivalueSet<File>() {
+            containerFiles = new CompactMultivalueSet<File>() {
                 @Override
                 protected void clearOpposite(File e) {
                     e.getEntities().remove(SourcedEntity.this);
                 }
                 @Override
                 protected void setOpposite(File e) {
-                    e.getEntities().add(SourcedEntity.this);
+                    e.addEntities(SourcedEntity.this);
+                }
+                @Override
+                protected Object owner() {
+                    return SourcedEntity.this;
                 }
             };
         }
@@ -133,47 +165,58 @@ public class SourcedEntity extends Entity {
     }
     
     public void setContainerFiles(Collection<? extends File> containerFiles) {
+        WriteBarrier.beforeWrite(this);
         this.getContainerFiles().clear();
-        this.getContainerFiles().addAll(containerFiles);
+        this.mutableContainerFiles().addAll(containerFiles);
     }
     
     public void addContainerFiles(File one) {
-        this.getContainerFiles().add(one);
+        this.mutableContainerFiles().add(one);
     }   
     
     public void addContainerFiles(File one, File... many) {
-        this.getContainerFiles().add(one);
+        this.mutableContainerFiles().add(one);
         for (File each : many)
-            this.getContainerFiles().add(each);
+            this.mutableContainerFiles().add(each);
     }   
     
     public void addContainerFiles(Iterable<? extends File> many) {
         for (File each : many)
-            this.getContainerFiles().add(each);
+            this.mutableContainerFiles().add(each);
     }   
                 
     public void addContainerFiles(File[] many) {
         for (File each : many)
-            this.getContainerFiles().add(each);
+            this.mutableContainerFiles().add(each);
     }
     
     public int numberOfContainerFiles() {
-        return getContainerFiles().size();
+        return containerFiles == null ? 0 : containerFiles.size();
     }
 
     public boolean hasContainerFiles() {
-        return !getContainerFiles().isEmpty();
+        return containerFiles != null && !containerFiles.isEmpty();
     }
     
                 
-    private Number astStopPosition;
+    private int astStopPosition = Integer.MIN_VALUE;
     
     @FameProperty(name = "astStopPosition")
     public Number getAstStopPosition() {
+        return astStopPosition == Integer.MIN_VALUE ? null : Integer.valueOf(astStopPosition);
+    }
+
+    public int getAstStopPositionAsInt() {
         return astStopPosition;
     }
 
     public void setAstStopPosition(Number astStopPosition) {
+        WriteBarrier.beforeWrite(this);
+        this.astStopPosition = astStopPosition == null ? Integer.MIN_VALUE : astStopPosition.intValue();
+    }
+
+    public void setAstStopPosition(int astStopPosition) {
+        WriteBarrier.beforeWrite(this);
         this.astStopPosition = astStopPosition;
     }
     
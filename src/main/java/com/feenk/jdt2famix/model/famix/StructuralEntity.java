@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -18,8 +19,13 @@ public class StructuralEntity extends LeafEntity {
 
     @FameProperty(name = "incomingAccesses", opposite = "variable", derived = true)
     public Collection<Access> getIncomingAccesses() {
+        if (incomingAccesses == null) return CompactMultivalueSet.<Access>empty();
+        return incomingAccesses;
+    }
+
+    private Collection<Access> mutableIncomingAccesses() {
         if (incomingAccesses == null) {
-            incomingAccesses = new MultivalueSet<Access>() {
+            incomingAccesses = new CompactMultivalueSet<Access>() {
                 @Override
                 protected void clearOpposite(Access e) {
                     e.setVariable(null);
@@ -28,43 +34,48 @@ public class StructuralEntity extends LeafEntity {
                 protected void setOpposite(Access e) {
                     e.setVariable(StructuralEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return StructuralEntity.this;
+                }
             };
         }
         return incomingAccesses;
     }
     
     public void setIncomingAccesses(Collection<? extends Access> incomingAccesses) {
+        WriteBarrier.beforeWrite(this);
         this.getIncomingAccesses().clear();
-        this.getIncomingAccesses().addAll(incomingAccesses);
+        this.mutableIncomingAccesses().addAll(incomingAccesses);
     }                    
     
         
     public void addIncomingAccesses(Access one) {
-        this.getIncomingAccesses().add(one);
+        this.mutableIncomingAccesses().add(one);
     }   
     
     public void addIncomingAccesses(Access one, Access... many) {
-        this.getIncomingAccesses().add(one);
+        this.mutableIncomingAccesses().add(one);
         for (Access each : many)
-            this.getIncomingAccesses().add(each);
+            this.mutableIncomingAccesses().add(each);
     }   
     
     public void addIncomingAccesses(Iterable<? extends Access> many) {
         for (Access each : many)
-            this.getIncomingAccesses().add(each);
+            this.mutableIncomingAccesses().add(each);
     }   
                 
     public void addIncomingAccesses(Access[] many) {
         for (Access each : many)
-            this.getIncomingAccesses().add(each);
+            this.mutableIncomingAccesses().add(each);
     }
     
     public int numberOfIncomingAccesses() {
-        return getIncomingAccesses().size();
+        return incomingAccesses == null ? 0 : incomingAccesses.size();
     }
 
     public boolean hasIncomingAccesses() {
-        return !getIncomingAccesses().isEmpty();
+        return incomingAccesses != null && !incomingAccesses.isEmpty();
     }
     
                 
@@ -76,21 +87,27 @@ public class StructuralEntity extends LeafEntity {
     }
 
     public void setDeclaredType(Type declaredType) {
+        WriteBarrier.beforeWrite(this);
         if (this.declaredType != null) {
             if (this.declaredType.equals(declaredType)) return;
             this.declaredType.getStructuresWithDeclaredType().remove(this);
         }
         this.declaredType = declaredType;
         if (declaredType == null) return;
-        declaredType.getStructuresWithDeclaredType().add(this);
+        declaredType.addStructuresWithDeclaredType(this);
     }
     
     private Collection<DereferencedInvocation> dereferencedInvocations; 
 
     @FameProperty(name = "dereferencedInvocations", opposite = "referencer", derived = true)
     public Collection<DereferencedInvocation> getDereferencedInvocations() {
+        if (dereferencedInvocations == null) return CompactMultivalueSet.<DereferencedInvocation>empty();
+        return dereferencedInvocations;
+    }
+
+    private Collection<DereferencedInvocation> mutableDereferencedInvocations() {
         if (dereferencedInvocations == null) {
-            dereferencedInvocations = new MultivalueSet<DereferencedInvocation>() {
+            dereferencedInvocations = new CompactMultivalueSet<DereferencedInvocation>() {
                 @Override
                 protected void clearOpposite(DereferencedInvocation e) {
                     e.setReferencer(null);
@@ -99,43 +116,48 @@ public class StructuralEntity extends LeafEntity {
                 protected void setOpposite(DereferencedInvocation e) {
                     e.setReferencer(StructuralEntity.this);
                 }
+                @Override
+                protected Object owner() {
+                    return StructuralEntity.this;
+                }
             };
         }
         return dereferencedInvocations;
     }
     
     public void setDereferencedInvocations(Collection<? extends DereferencedInvocation> dereferencedInvocations) {
+        WriteBarrier.beforeWrite(this);
         this.getDereferencedInvocations().clear();
-        this.getDereferencedInvocations().addAll(dereferencedInvocations);
+        this.mutableDereferencedInvocations().addAll(dereferencedInvocations);
     }                    
     
         
     public void addDereferencedInvocations(DereferencedInvocation one) {
-        this.getDereferencedInvocations().add(one);
+        this.mutableDereferencedInvocations().add(one);
     }   
     
     public void addDereferencedInvocations(DereferencedInvocation one, DereferencedInvocation... many) {
-        this.getDereferencedInvocations().add(one);
+        this.mutableDereferencedInvocations().add(one);
         for (DereferencedInvocation each : many)
-            this.getDereferencedInvocations().add(each);
+            this.mutableDereferencedInvocations().add(each);
     }   
     
     public void addDereferencedInvocations(Iterable<? extends DereferencedInvocation> many) {
         for (DereferencedInvocation each : many)
-            this.getDereferencedInvocations().add(each);
+            this.mutableDereferencedInvocations().add(each);
     }   
                 
     public void addDereferencedInvocations(DereferencedInvocation[] many) {
         for (DereferencedInvocation each : many)
-            this.getDereferencedInvocations().add(each);
+            this.mutableDereferencedInvocations().add(each);
     }
     
     public int numberOfDereferencedInvocations() {
-        return getDereferencedInvocations().size();
+        return dereferencedInvocations == null ? 0 : dereferencedInvocations.size();
     }
 
     public boolean hasDereferencedInvocations() {
-        return !getDereferencedInvocations().isEmpty();
+        return dereferencedInvocations != null && !dereferencedInvocations.isEmpty();
     }
     
                 
@@ -1,8 +1,9 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.famix;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -22,21 +23,27 @@ public class Type extends ContainerEntity {
     }
 
     public void setContainer(ContainerEntity container) {
+        WriteBarrier.beforeWrite(this);
         if (this.container != null) {
             if (this.container.equals(container)) return;
             this.container.getTypes().remove(this);
         }
         this.container = container;
         if (container == null) return;
-        container.getTypes().add(this);
+        container.addTypes(this);
     }
     
     private Collection<Reference> incomingReferences; 
 
     @FameProperty(name = "incomingReferences", opposite = "target", derived = true)
     public Collection<Reference> getIncomingReferences() {
+        if (incomingReferences == null) return CompactMultivalueSet.<Reference>empty();
+        return incomingReferences;
+    }
+
+    private Collection<Reference> mutableIncomingReferences() {
         if (incomingReferences == null) {
-            incomingReferences = new MultivalueSet<Reference>() {
+            incomingReferences = new CompactMultivalueSet<Reference>() {
                 @Override
                 protected void clearOpposite(Reference e) {
                     e.setTarget(null);
@@ -45,43 +52,48 @@ public class Type extends ContainerEntity {
                 protected void setOpposite(Reference e) {
                     e.setTarget(Type.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Type.this;
+                }
             };
         }
         return incomingReferences;
     }
     
     public void setIncomingReferences(Collection<? extends Reference> incomingReferences) {
+        WriteBarrier.beforeWrite(this);
         this.getIncomingReferences().clear();
-        this.getIncomingReferences().addAll(incomingReferences);
+        this.mutableIncomingReferences().addAll(incomingReferences);
     }                    
     
         
     public void addIncomingReferences(Reference one) {
-        this.getIncomingReferences().add(one);
+        this.mutableIncomingReferences().add(one);
     }   
     
     public void addIncomingReferences(Reference one, Reference... many) {
-        this.getIncomingReferences().add(one);
+        this.mutableIncomingReferences().add(one);
         for (Reference each : many)
-            this.getIncomingReferences().add(each);
+            this.mutableIncomingReferences().add(each);
     }   
     
     public void addIncomingReferences(Iterable<? extends Reference> many) {
         for (Reference each : many)
-            this.getIncomingReferences().add(each);
+            this.mutableIncomingReferences().add(each);
     }   
                 
     public void addIncomingReferences(Reference[] many) {
         for (Reference each : many)
-            this.getIncomingReferences().add(each);
+            this.mutableIncomingReferences().add(each);
     }
     
     public int numberOfIncomingReferences() {
-        return getIncomingReferences().size();
+        return incomingReferences == null ? 0 : incomingReferences.size();
     }
 
     public boolean hasIncomingReferences() {
-        return !getIncomingReferences().isEmpty();
+        return incomingReferences != null && !incomingReferences.isEmpty();
     }
     
                 
@@ -89,8 +101,13 @@ public class Type extends ContainerEntity {
 
     @FameProperty(name = "structuresWithDeclaredType", opposite = "declaredType", derived = true)
     public Collection<StructuralEntity> getStructuresWithDeclaredType() {
+        if (structuresWithDeclaredType == null) return CompactMultivalueSet.<StructuralEntity>empty();
+        return structuresWithDeclaredType;
+    }
+
+    private Collection<StructuralEntity> mutableStructuresWithDeclaredType() {
         if (structuresWithDeclaredType == null) {
-            structuresWithDeclaredType = new MultivalueSet<StructuralEntity>() {
+            structuresWithDeclaredType = new CompactMultivalueSet<StructuralEntity>() {
                 @Override
                 protected void clearOpposite(StructuralEntity e) {
                     e.setDeclaredType(null);
@@ -99,43 +116,48 @@ public class Type extends ContainerEntity {
                 protected void setOpposite(StructuralEntity e) {
                     e.setDeclaredType(Type.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Type.this;
+                }
             };
         }
         return structuresWithDeclaredType;
     }
     
     public void setStructuresWithDeclaredType(Collection<? extends StructuralEntity> structuresWithDeclaredType) {
+        WriteBarrier.beforeWrite(this);
         this.getStructuresWithDeclaredType().clear();
-        this.getStructuresWithDeclaredType().addAll(structuresWithDeclaredType);
+        this.mutableStructuresWithDeclaredType().addAll(structuresWithDeclaredType);
     }                    
     
         
     public void addStructuresWithDeclaredType(StructuralEntity one) {
-        this.getStructuresWithDeclaredType().add(one);
+        this.mutableStructuresWithDeclaredType().add(one);
     }   
     
     public void addStructuresWithDeclaredType(StructuralEntity one, StructuralEntity... many) {
-        this.getStructuresWithDeclaredType().add(one);
+        this.mutableStructuresWithDeclaredType().add(one);
         for (StructuralEntity each : many)
-            this.getStructuresWithDeclaredType().add(each);
+            this.mutableStructuresWithDeclaredType().add(each);
     }   
     
     public void addStructuresWithDeclaredType(Iterable<? extends StructuralEntity> many) {
         for (StructuralEntity each : many)
-            this.getStructuresWithDeclaredType().add(each);
+            this.mutableStructuresWithDeclaredType().add(each);
     }   
                 
     public void addStructuresWithDeclaredType(StructuralEntity[] many) {
         for (StructuralEntity each : many)
-            this.getStructuresWithDeclaredType().add(each);
+            this.mutableStructuresWithDeclaredType().add(each);
     }
     
     public int numberOfStructuresWithDeclaredType() {
-        return getStructuresWithDeclaredType().size();
+        return structuresWithDeclaredType == null ? 0 : structuresWithDeclaredType.size();
     }
 
     public boolean hasStructuresWithDeclaredType() {
-        return !getStructuresWithDeclaredType().isEmpty();
+        return structuresWithDeclaredType != null && !structuresWithDeclaredType.isEmpty();
     }
     
                 
@@ -143,8 +165,13 @@ public class Type extends ContainerEntity {
 
     @FameProperty(name = "typeAliases", opposite = "aliasedType", derived = true)
     public Collection<TypeAlias> getTypeAliases() {
+        if (typeAliases == null) return CompactMultivalueSet.<TypeAlias>empty();
+        return typeAliases;
+    }
+
+    private Collection<TypeAlias> mutableTypeAliases() {
         if (typeAliases == null) {
-            typeAliases = new MultivalueSet<TypeAlias>() {
+            typeAliases = new CompactMultivalueSet<TypeAlias>() {
                 @Override
                 protected void clearOpposite(TypeAlias e) {
                     e.setAliasedType(null);
@@ -153,43 +180,48 @@ public class Type extends ContainerEntity {
                 protected void setOpposite(TypeAlias e) {
                     e.setAliasedType(Type.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Type.this;
+                }
             };
         }
         return typeAliases;
     }
     
     public void setTypeAliases(Collection<? extends TypeAlias> typeAliases) {
+        WriteBarrier.beforeWrite(this);
         this.getTypeAliases().clear();
-        this.getTypeAliases().addAll(typeAliases);
+        this.mutableTypeAliases().addAll(typeAliases);
     }                    
     
         
     public void addTypeAliases(TypeAlias one) {
-        this.getTypeAliases().add(one);
+        this.mutableTypeAliases().add(one);
     }   
     
     public void addTypeAliases(TypeAlias one, TypeAlias... many) {
-        this.getTypeAliases().add(one);
+        this.mutableTypeAliases().add(one);
         for (TypeAlias each : many)
-            this.getTypeAliases().add(each);
+            this.mutableTypeAliases().add(each);
     }   
     
     public void addTypeAliases(Iterable<? extends TypeAlias> many) {
         for (TypeAlias each : many)
-            this.getTypeAliases().add(each);
+            this.mutableTypeAliases().add(each);
     }   
                 
     public void addTypeAliases(TypeAlias[] many) {
         for (TypeAlias each : many)
-            this.getTypeAliases().add(each);
+            this.mutableTypeAliases().add(each);
     }
     
     public int numberOfTypeAliases() {
-        return getTypeAliases().size();
+        return typeAliases == null ? 0 : typeAliases.size();
     }
 
     public boolean hasTypeAliases() {
-        return !getTypeAliases().isEmpty();
+        return typeAliases != null && !typeAliases.isEmpty();
     }
     
                 
@@ -197,8 +229,13 @@ public class Type extends ContainerEntity {
 
     @FameProperty(name = "subInheritances", opposite = "superclass", derived = true)
     public Collection<Inheritance> getSubInheritances() {
+        if (subInheritances == null) return CompactMultivalueSet.<Inheritance>empty();
+        return subInheritances;
+    }
+
+    private Collection<Inheritance> mutableSubInheritances() {
         if (subInheritances == null) {
-            subInheritances = new MultivalueSet<Inheritance>() {
+            subInheritances = new CompactMultivalueSet<Inheritance>() {
                 @Override
                 protected void clearOpposite(Inheritance e) {
                     e.setSuperclass(null);
@@ -207,43 +244,48 @@ public class Type extends ContainerEntity {
                 protected void setOpposite(Inheritance e) {
                     e.setSuperclass(Type.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Type.this;
+                }
             };
         }
         return subInheritances;
     }
     
     public void setSubInheritances(Collection<? extends Inheritance> subInheritances) {
+        WriteBarrier.beforeWrite(this);
         this.getSubInheritances().clear();
-        this.getSubInheritances().addAll(subInheritances);
+        this.mutableSubInheritances().addAll(subInheritances);
     }                    
     
         
     public void addSubInheritances(Inheritance one) {
-        this.getSubInheritances().add(one);
+        this.mutableSubInheritances().add(one);
     }   
     
     public void addSubInheritances(Inheritance one, Inheritance... many) {
-        this.getSubInheritances().add(one);
+        this.mutableSubInheritances().add(one);
         for (Inheritance each : many)
-            this.getSubInheritances().add(each);
+            this.mutableSubInheritances().add(each);
     }   
     
     public void addSubInheritances(Iterable<? extends Inheritance> many) {
         for (Inheritance each : many)
-            this.getSubInheritances().add(each);
+            this.mutableSubInheritances().add(each);
     }   
                 
     public void addSubInheritances(Inheritance[] many) {
         for (Inheritance each : many)
-            this.getSubInheritances().add(each);
+            this.mutableSubInheritances().add(each);
     }
     
     public int numberOfSubInheritances() {
-        return getSubInheritances().size();
+        return subInheritances == null ? 0 : subInheritances.size();
     }
 
     public boolean hasSubInheritances() {
-        return !getSubInheritances().isEmpty();
+        return subInheritances != null && !subInheritances.isEmpty();
     }
     
                 
@@ -251,8 +293,13 @@ public class Type extends ContainerEntity {
 
     @FameProperty(name = "superInheritances", opposite = "subclass", derived = true)
     public Collection<Inheritance> getSuperInheritances() {
+        if (superInheritances == null) return CompactMultivalueSet.<Inheritance>empty();
+        return superInheritances;
+    }
+
+    private Collection<Inheritance> mutableSuperInheritances() {
         if (superInheritances == null) {
-            superInheritances = new MultivalueSet<Inheritance>() {
+            superInheritances = new CompactMultivalueSet<Inheritance>() {
                 @Override
                 protected void clearOpposite(Inheritance e) {
                     e.setSubclass(null);
@@ -261,43 +308,48 @@ public class Type extends ContainerEntity {
                 protected void setOpposite(Inheritance e) {
                     e.setSubclass(Type.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Type.this;
+                }
             };
         }
         return superInheritances;
     }
     
     public void setSuperInheritances(Collection<? extends Inheritance> superInheritances) {
+        WriteBarrier.beforeWrite(this);
         this.getSuperInheritances().clear();
-        this.getSuperInheritances().addAll(superInheritances);
+        this.mutableSuperInheritances().addAll(superInheritances);
     }                    
     
         
     public void addSuperInheritances(Inheritance one) {
-        this.getSuperInheritances().add(one);
+        this.mutableSuperInheritances().add(one);
     }   
     
     public void addSuperInheritances(Inheritance one, Inheritance... many) {
-        this.getSuperInheritances().add(one);
+        this.mutableSuperInheritances().add(one);
         for (Inheritance each : many)
-            this.getSuperInheritances().add(each);
+            this.mutableSuperInheritances().add(each);
     }   
     
     public void addSuperInheritances(Iterable<? extends Inheritance> many) {
         for (Inheritance each : many)
-            this.getSuperInheritances().add(each);
+            this.mutableSuperInheritances().add(each);
     }   
                 
     public void addSuperInheritances(Inheritance[] many) {
         for (Inheritance each : many)
-            this.getSuperInheritances().add(each);
+            this.mutableSuperInheritances().add(each);
     }
     
     public int numberOfSuperInheritances() {
-        return getSuperInheritances().size();
+        return superInheritances == null ? 0 : superInheritances.size();
     }
 
     public boolean hasSuperInheritances() {
-        return !getSuperInheritances().isEmpty();
+        return superInheritances != null && !superInheritances.isEmpty();
     }
     
                 
@@ -305,8 +357,13 @@ public class Type extends ContainerEntity {
 
     @FameProperty(name = "behavioursWithDeclaredType", opposite = "declaredType", derived = true)
     public Collection<BehaviouralEntity> getBehavioursWithDeclaredType() {
+        if (behavioursWithDeclaredType == null) return CompactMultivalueSet.<BehaviouralEntity>empty();
+        return behavioursWithDeclaredType;
+    }
+
+    private Collection<BehaviouralEntity> mutableBehavioursWithDeclaredType() {
         if (behavioursWithDeclaredType == null) {
-            behavioursWithDeclaredType = new MultivalueSet<BehaviouralEntity>() {
+            behavioursWithDeclaredType = new CompactMultivalueSet<BehaviouralEntity>() {
                 @Override
                 protected void clearOpposite(BehaviouralEntity e) {
                     e.setDeclaredType(null);
@@ -315,43 +372,48 @@ public class Type extends ContainerEntity {
                 protected void setOpposite(BehaviouralEntity e) {
                     e.setDeclaredType(Type.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Type.this;
+                }
             };
         }
         return behavioursWithDeclaredType;
     }
     
     public void setBehavioursWithDeclaredType(Collection<? extends BehaviouralEntity> behavioursWithDeclaredType) {
+        WriteBarrier.beforeWrite(this);
         this.getBehavioursWithDeclaredType().clear();
-        this.getBehavioursWithDeclaredType().addAll(behavioursWithDeclaredType);
+        this.mutableBehavioursWithDeclaredType().addAll(behavioursWithDeclaredType);
     }                    
     
         
     public void addBehavioursWithDeclaredType(BehaviouralEntity one) {
-        this.getBehavioursWithDeclaredType().add(one);
+        this.mutableBehavioursWithDeclaredType().add(one);
     }   
     
     public void addBehavioursWithDeclaredType(BehaviouralEntity one, BehaviouralEntity... many) {
-        this.getBehavioursWithDeclaredType().add(one);
+        this.mutableBehavioursWithDeclaredType().add(one);
         for (BehaviouralEntity each : many)
-            this.getBehavioursWithDeclaredType().add(each);
+            this.mutableBehavioursWithDeclaredType().add(each);
     }   
     
     public void addBehavioursWithDeclaredType(Iterable<? extends BehaviouralEntity> many) {
         for (BehaviouralEntity each : many)
-            this.getBehavioursWithDeclaredType().add(each);
+            this.mutableBehavioursWithDeclaredType().add(each);
     }   
                 
     public void addBehavioursWithDeclaredType(BehaviouralEntity[] many) {
         for (BehaviouralEntity each : many)
-            this.getBehavioursWithDeclaredType().add(each);
+            this.mutableBehavioursWithDeclaredType().add(each);
     }
     
     public int numberOfBehavioursWithDeclaredType() {
-        return getBehavioursWithDeclaredType().size();
+        return behavioursWithDeclaredType == null ? 0 : behavioursWithDeclaredType.size();
     }
 
     public boolean hasBehavioursWithDeclaredType() {
-        return !getBehavioursWithDeclaredType().isEmpty();
+        return behavioursWithDeclaredType != null && !behavioursWithDeclaredType.isEmpty();
     }
     
                 
@@ -359,8 +421,13 @@ public class Type extends ContainerEntity {
 
     @FameProperty(name = "methods", opposite = "parentType", derived = true)
     public Collection<Method> getMethods() {
+        if (methods == null) return CompactMultivalueSet.<Method>empty();
+        return methods;
+    }
+
+    private Collection<Method> mutableMethods() {
         if (methods == null) {
-            methods = new MultivalueSet<Method>() {
+            methods = new CompactMultivalueSet<Method>() {
                 @Override
                 protected void clearOpposite(Method e) {
                     e.setParentType(null);
@@ -369,43 +436,48 @@ public class Type extends ContainerEntity {
                 protected void setOpposite(Method e) {
                     e.setParentType(Type.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Type.this;
+                }
             };
         }
         return methods;
     }
     
     public void setMethods(Collection<? extends Method> methods) {
+        WriteBarrier.beforeWrite(this);
         this.getMethods().clear();
-        this.getMethods().addAll(methods);
+        this.mutableMethods().addAll(methods);
     }                    
     
         
     public void addMethods(Method one) {
-        this.getMethods().add(one);
+        this.mutableMethods().add(one);
     }   
     
     public void addMethods(Method one, Method... many) {
-        this.getMethods().add(one);
+        this.mutableMethods().add(one);
         for (Method each : many)
-            this.getMethods().add(each);
+            this.mutableMethods().add(each);
     }   
     
     public void addMethods(Iterable<? extends Method> many) {
         for (Method each : many)
-            this.getMethods().add(each);
+            this.mutableMethods().add(each);
     }   
                 
     public void addMethods(Method[] many) {
         for (Method each : many)
-            this.getMethods().add(each);
+            this.mutableMethods().add(each);
     }
     
     public int numberOfMethods() {
-        return getMethods().size();
+        return methods == null ? 0 : methods.size();
     }
 
     public boolean hasMethods() {
-        return !getMethods().isEmpty();
+        return methods != null && !methods.isEmpty();
     }
     
                 
@@ -413,8 +485,13 @@ public class Type extends ContainerEntity {
 
     @FameProperty(name = "attributes", opposite = "parentType", derived = true)
     public Collection<Attribute> getAttributes() {
+        if (attributes == null) return CompactMultivalueSet.<Attribute>empty();
+        return attributes;
+    }
+
+    private Collection<Attribute> mutableAttributes() {
         if (attributes == null) {
-            attributes = new MultivalueSet<Attribute>() {
+            attributes = new CompactMultivalueSet<Attribute>() {
                 @Override
                 protected void clearOpposite(Attribute e) {
                     e.setParentType(null);
@@ -423,43 +500,48 @@ public class Type extends ContainerEntity {
                 protected void setOpposite(Attribute e) {
                     e.setParentType(Type.this);
                 }
+                @Override
+                protected Object owner() {
+                    return Type.this;
+                }
             };
         }
         return attributes;
     }
     
     public void setAttributes(Collection<? extends Attribute> attributes) {
+        WriteBarrier.beforeWrite(this);
         this.getAttributes().clear();
-        this.getAttributes().addAll(attributes);
+        this.mutableAttributes().addAll(attributes);
     }                    
     
         
     public void addAttributes(Attribute one) {
-        this.getAttributes().add(one);
+        this.mutableAttributes().add(one);
     }   
     
     public void addAttributes(Attribute one, Attribute... many) {
-        this.getAttributes().add(one);
+        this.mutableAttributes().add(one);
         for (Attribute each : many)
-            this.getAttributes().add(each);
+            this.mutableAttributes().add(each);
     }   
     
     public void addAttributes(Iterable<? extends Attribute> many) {
         for (Attribute each : many)
-            this.getAttributes().add(each);
+            this.mutableAttributes().add(each);
     }   
                 
     public void addAttributes(Attribute[] many) {
         for (Attribute each : many)
-            this.getAttributes().add(each);
+            this.mutableAttributes().add(each);
     }
     
     public int numberOfAttributes() {
-        return getAttributes().size();
+        return attributes == null ? 0 : attributes.size();
     }
 
     public boolean hasAttributes() {
-        return !getAttributes().isEmpty();
+        return attributes != null && !attributes.isEmpty();
     }
     
                 
@@ -467,15 +549,24 @@ public class Type extends ContainerEntity {
 
     @FameProperty(name = "argumentsInParameterizedTypes", opposite = "arguments", derived = true)
     public Collection<ParameterizedType> getArgumentsInParameterizedTypes() {
+        if (argumentsInParameterizedTypes == null) return CompactMultivalueSet.<ParameterizedType>empty();
+        return argumentsInParameterizedTypes;
+    }
+
+    private Collection<ParameterizedType> mutableArgumentsInParameterizedTypes() {
         if (argumentsInParameterizedTypes == null) {
-            argumentsInParameterizedTypes = new MultivalueSet<ParameterizedType>() {
+            argumentsInParameterizedTypes = new CompactMultivalueSet<ParameterizedType>() {
                 @Override
                 protected void clearOpposite(ParameterizedType e) {
                     e.getArguments().remove(Type.this);
                 }
                 @Override
                 protected void setOpposite(ParameterizedType e) {
-                    e.getArguments().add(Type.this);
+                    e.addArguments(Type.this);
+                }
+                @Override
+                protected Object owner() {
+                    return Type.this;
                 }
             };
         }
@@ -483,36 +574,37 @@ public class Type extends ContainerEntity {
     }
     
     public void setArgumentsInParameterizedTypes(Collection<? extends ParameterizedType> argumentsInParameterizedTypes) {
+        WriteBarrier.beforeWrite(this);
         this.getArgumentsInParameterizedTypes().clear();
-        this.getArgumentsInParameterizedTypes().addAll(argumentsInParameterizedTypes);
+        this.mutableArgumentsInParameterizedTypes().addAll(argumentsInParameterizedTypes);
     }
     
     public void addArgumentsInParameterizedTypes(ParameterizedType one) {
-        this.getArgumentsInParameterizedTypes().add(one);
+        this.mutableArgumentsInParameterizedTypes().add(one);
     }   
     
     public void addArgumentsInParameterizedTypes(ParameterizedType one, ParameterizedType... many) {
-        this.getArgumentsInParameterizedTypes().add(one);
+        this.mutableArgumentsInParameterizedTypes().add(one);
         for (ParameterizedType each : many)
-            this.getArgumentsInParameterizedTypes().add(each);
+            this.mutableArgumentsInParameterizedTypes().add(each);
     }   
     
     public void addArgumentsInParameterizedTypes(Iterable<? extends ParameterizedType> many) {
         for (ParameterizedType each : many)
-            this.getArgumentsInParameterizedTypes().add(each);
+            this.mutableArgumentsInParameterizedTypes().add(each);
     }   
                 
     public void addArgumentsInParameterizedTypes(ParameterizedType[] many) {
         for (ParameterizedType each : many)
-            this.getArgumentsInParameterizedTypes().add(each);
+            this.mutableArgumentsInParameterizedTypes().add(each);
     }
     
     public int numberOfArgumentsInParameterizedTypes() {
-        return getArgumentsInParameterizedTypes().size();
+        return argumentsInParameterizedTypes == null ? 0 : argumentsInParameterizedTypes.size();
     }
 
     public boolean hasArgumentsInParameterizedTypes() {
-        return !getArgumentsInParameterizedTypes().isEmpty();
+        return argumentsInParameterizedTypes != null && !argumentsInParameterizedTypes.isEmpty();
     }
     
                 
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.famix;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,13 +21,14 @@ public class TypeAlias extends Type {
     }
 
     public void setAliasedType(Type aliasedType) {
+        WriteBarrier.beforeWrite(this);
         if (this.aliasedType != null) {
             if (this.aliasedType.equals(aliasedType)) return;
             this.aliasedType.getTypeAliases().remove(this);
         }
         this.aliasedType = aliasedType;
         if (aliasedType == null) return;
-        aliasedType.getTypeAliases().add(this);
+        aliasedType.addTypeAliases(this);
     }
     
 
@@ -3,6 +3,7 @@ package com.feenk.jdt2famix.model.file;
 
 import com.feenk.jdt2famix.model.famix.Entity;
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -21,6 +22,7 @@ public class AbstractFile extends Entity {
     }
 
     public void setName(String name) {
+        WriteBarrier.beforeWrite(this);
         this.name = name;
     }
     
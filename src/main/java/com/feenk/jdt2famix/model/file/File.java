@@ -1,9 +1,10 @@
 // Automagically generated code, please do not change
 package com.feenk.jdt2famix.model.file;
 
-import ch.akuhn.fame.internal.MultivalueSet;
+import com.feenk.jdt2famix.model.CompactMultivalueSet;
 import ch.akuhn.fame.FameProperty;
 import com.feenk.jdt2famix.model.famix.SourcedEntity;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import java.util.*;
 import ch.akuhn.fame.FamePackage;
@@ -19,15 +20,24 @@ public class File extends AbstractFile {
 
     @FameProperty(name = "entities", opposite = "containerFiles")
     public Collection<SourcedEntity> getEntities() {
+        if (entities == null) return CompactMultivalueSet.<SourcedEntity>empty();
+        return entities;
+    }
+
+    private Collection<SourcedEntity> mutableEntities() {
         if (entities == null) {
-            entities = new MultivalueSet<SourcedEntity>() {
+            entities = new CompactMultivalueSet<SourcedEntity>() {
                 @Override
                 protected void clearOpposite(SourcedEntity e) {
                     e.getContainerFiles().remove(File.this);
                 }
                 @Override
                 protected void setOpposite(SourcedEntity e) {
-                    e.getContainerFiles().add(File.this);
+                    e.addContainerFiles(File.this);
+                }
+                @Override
+                protected Object owner() {
+                    return File.this;
                 }
             };
         }
@@ -35,36 +45,37 @@ public class File extends AbstractFile {
     }
     
     public void setEntities(Collection<? extends SourcedEntity> entities) {
+        WriteBarrier.beforeWrite(this);
         this.getEntities().clear();
-        this.getEntities().addAll(entities);
+        this.mutableEntities().addAll(entities);
     }
     
     public void addEntities(SourcedEntity one) {
-        this.getEntities().add(one);
+        this.mutableEntities().add(one);
     }   
     
     public void addEntities(SourcedEntity one, SourcedEntity... many) {
-        this.getEntities().add(one);
+        this.mutableEntities().add(one);
         for (SourcedEntity each : many)
-            this.getEntities().add(each);
+            this.mutableEntities().add(each);
     }   
     
     public void addEntities(Iterable<? extends SourcedEntity> many) {
         for (SourcedEntity each : many)
-            this.getEntities().add(each);
+            this.mutableEntities().add(each);
     }   
                 
     public void addEntities(SourcedEntity[] many) {
         for (SourcedEntity each : many)
-            this.getEntities().add(each);
+            this.mutableEntities().add(each);
     }
     
     public int numberOfEntities() {
-        return getEntities().size();
+        return entities == null ? 0 : entities.size();
     }
 
     public boolean hasEntities() {
-        return !getEntities().isEmpty();
+        return entities != null && !entities.isEmpty();
     }
     
                 
@@ -2,6 +2,7 @@
 package com.feenk.jdt2famix.model.file;
 
 import ch.akuhn.fame.FameProperty;
+import com.feenk.jdt2famix.model.WriteBarrier;
 import ch.akuhn.fame.FameDescription;
 import ch.akuhn.fame.FamePackage;
 
@@ -20,6 +21,7 @@ public class Folder extends AbstractFile {
     }
 
     public void setNumberOfFiles(Number numberOfFiles) {
+        WriteBarrier.beforeWrite(this);
         this.numberOfFiles = numberOfFiles;
     }
     
@@ -31,6 +33,7 @@ public class Folder extends AbstractFile {
     }
 
     public void setNumberOfFolders(Number numberOfFolders) {
+        WriteBarrier.beforeWrite(this);
         this.numberOfFolders = numberOfFolders;
     }
     
@@ -42,6 +45,7 @@ public class Folder extends AbstractFile {
     }
 
     public void setTotalNumberOfLinesOfText(Number totalNumberOfLinesOfText) {
+        WriteBarrier.beforeWrite(this);
         this.totalNumberOfLinesOfText = totalNumberOfLinesOfText;
     }
     
@@ -53,6 +57,7 @@ public class Folder extends AbstractFile {
     }
 
     public void setNumberOfLinesOfText(Number numberOfLinesOfText) {
+        WriteBarrier.beforeWrite(this);
         this.numberOfLinesOfText = numberOfLinesOfText;
     }
     
@@ -64,6 +69,7 @@ public class Folder extends AbstractFile {
     }
 
     public void setNumberOfEmptyLinesOfText(Number numberOfEmptyLinesOfText) {
+        WriteBarrier.beforeWrite(this);
         this.numberOfEmptyLinesOfText = numberOfEmptyLinesOfText;
     }
     
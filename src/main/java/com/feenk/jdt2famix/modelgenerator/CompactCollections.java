@@ -0,0 +1,82 @@
+package com.feenk.jdt2famix.modelgenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fame generates multivalued properties as a MultivalueSet, which allocates a
+ * HashSet for every entity, even when it stays empty or holds one element. This
+ * post-processes the generated classes to use
+ * {@link com.feenk.jdt2famix.model.CompactMultivalueSet} instead.
+ *
+ * An untouched property does not allocate its set either. The getters answer
+ * the shared {@link com.feenk.jdt2famix.model.CompactMultivalueSet#empty()}, and
+ * the numberOf... and has... methods read the field. The set is created on the
+ * first add, which goes through mutable... in the class itself and through
+ * add... from the opposite side of the property.
+ *
+ * The rewrite also applies to classes that were already compacted.
+ */
+public class CompactCollections {
+
+	private static final String FAME_SET = "ch.akuhn.fame.internal.MultivalueSet";
+	private static final String COMPACT_SET = "com.feenk.jdt2famix.model.CompactMultivalueSet";
+
+	private static final Pattern NUMBER_OF = Pattern.compile("    public int numberOf(\\w+)\\(\\) \\{\\n"
+			+ "        return get\\1\\(\\)\\.size\\(\\);\\n");
+	private static final Pattern HAS = Pattern.compile("    public boolean has(\\w+)\\(\\) \\{\\n"
+			+ "        return !get\\1\\(\\)\\.isEmpty\\(\\);\\n");
+	private static final Pattern GETTER = Pattern.compile("    public Collection<(\\w+)> get(\\w+)\\(\\) \\{\\n"
+			+ "        if \\((\\w+) == null\\) \\{\\n");
+	private static final Pattern OPPOSITE_ADD = Pattern
+			.compile("(?<![\\w.])(?!this\\b)(\\w+)\\.get(\\w+)\\(\\)\\.add\\(");
+
+	public String rewrite(String source) {
+		String result = OPPOSITE_ADD.matcher(source).replaceAll("$1.add$2(");
+		if (!result.contains("new MultivalueSet<") && !result.contains("new CompactMultivalueSet<"))
+			return result;
+		result = result.replace("import " + FAME_SET + ";", "import " + COMPACT_SET + ";")
+				.replace("new MultivalueSet<", "new CompactMultivalueSet<");
+		result = replaceAll(NUMBER_OF, result, field -> "    public int numberOf%1$s() {\n"
+				+ "        return " + field + " == null ? 0 : " + field + ".size();\n");
+		result = replaceAll(HAS, result, field -> "    public boolean has%1$s() {\n"
+				+ "        return " + field + " != null && !" + field + ".isEmpty();\n");
+		Matcher getters = GETTER.matcher(result);
+		List<String> properties = new ArrayList<String>();
+		while (getters.find())
+			properties.add(getters.group(2));
+		for (String property : properties)
+			result = result.replace("this.get" + property + "().add", "this.mutable" + property + "().add");
+		return GETTER.matcher(result).replaceAll("    public Collection<$1> get$2() {\n"
+				+ "        if ($3 == null) return CompactMultivalueSet.<$1>empty();\n"
+				+ "        return $3;\n"
+				+ "    }\n"
+				+ "\n"
+				+ "    private Collection<$1> mutable$2() {\n"
+				+ "        if ($3 == null) {\n");
+	}
+
+	private interface Template {
+		String forField(String field);
+	}
+
+	private String replaceAll(Pattern pattern, String source, Template template) {
+		Matcher matcher = pattern.matcher(source);
+		StringBuffer result = new StringBuffer();
+		while (matcher.find()) {
+			String property = matcher.group(1);
+			String field = Character.toLowerCase(property.charAt(0)) + property.substring(1);
+			if (!source.contains("> " + field + ";")) {
+				matcher.appendReplacement(result, Matcher.quoteReplacement(matcher.group()));
+				continue;
+			}
+			matcher.appendReplacement(result,
+					Matcher.quoteReplacement(String.format(template.forField(field), property)));
+		}
+		matcher.appendTail(result);
+		return result.toString();
+	}
+
+}
@@ -4,8 +4,13 @@ import static ch.akuhn.util.Out.puts;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
 
 import ch.akuhn.fame.MetaRepository;
 import ch.akuhn.fame.Repository;
@@ -30,9 +35,45 @@ public class FamixGenerator {
 			Repository famix = builder.getResult();
 			CodeGeneration gen = new CodeGeneration("com.feenk.jdt2famix.model", "gen", "");
 			gen.accept(famix);
+			rewriteGeneratedClasses(Paths.get("gen"));
 			puts("done");
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
+
+	/**
+	 * Post-processes the classes generated below the folder, because the templates
+	 * of Fame's CodeGeneration cannot be extended
+	 */
+	static void rewriteGeneratedClasses(Path folder) throws IOException {
+		PrimitiveProperties primitiveProperties = primitiveProperties();
+		CompactCollections compactCollections = new CompactCollections();
+		ModifierFlags modifierFlags = new ModifierFlags();
+		WriteBarriers writeBarriers = new WriteBarriers();
+		try (Stream<Path> files = Files.walk(folder)) {
+			for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".java"))::iterator) {
+				String className = file.getFileName().toString().replaceFirst("\\.java$", "");
+				String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+				String rewritten = writeBarriers.rewrite(className, modifierFlags.rewrite(className,
+						compactCollections.rewrite(primitiveProperties.rewrite(className, source))));
+				if (!rewritten.equals(source))
+					Files.write(file, rewritten.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	/**
+	 * Properties that we set for (almost) every entity, and for which we do not
+	 * want to allocate a Number each time
+	 */
+	static PrimitiveProperties primitiveProperties() {
+		return new PrimitiveProperties()
+				.addIntCounter("BehaviouralEntity", "cyclomaticComplexity")
+				.addInt("SourcedEntity", "astStartPosition")
+				.addInt("SourcedEntity", "astStopPosition")
+				.addInt("IndexedFileAnchor", "startPos")
+				.addInt("IndexedFileAnchor", "endPos")
+				.addInt("Association", "occurrences");
+	}
 }
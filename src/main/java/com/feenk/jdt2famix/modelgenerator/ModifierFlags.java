@@ -0,0 +1,104 @@
+package com.feenk.jdt2famix.modelgenerator;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fame generates the modifiers of NamedEntity as a HashSet of strings for every
+ * entity. This post-processes the generated class to keep them as an int
+ * bitmask instead, see {@link com.feenk.jdt2famix.model.Modifiers}.
+ *
+ * The getModifiers accessor stays for Fame and answers a set of strings that
+ * reads and writes the bitmask, so callers can still change it. Next to it we
+ * generate accessors for the flags, which the importer uses to set all
+ * modifiers at once.
+ */
+public class ModifierFlags {
+
+	private static final String CLASS_NAME = "NamedEntity";
+
+	private static final Pattern GENERATED = Pattern.compile("    private Collection<String> modifiers; \\n"
+			+ ".*?    public boolean hasModifiers\\(\\) \\{\\n[^}]*\\}\\n", Pattern.DOTALL);
+
+	private static final String CODE = ""
+			+ "    private int modifierFlags;\n"
+			+ "\n"
+			+ "    private List<String> otherModifiers;\n"
+			+ "\n"
+			+ "    @FameProperty(name = \"modifiers\")\n"
+			+ "    public Collection<String> getModifiers() {\n"
+			+ "        return Modifiers.view(this);\n"
+			+ "    }\n"
+			+ "    \n"
+			+ "    public void setModifiers(Collection<? extends String> modifiers) {\n"
+			+ "        this.modifierFlags = 0;\n"
+			+ "        this.otherModifiers = null;\n"
+			+ "        this.addModifiers(modifiers);\n"
+			+ "    }                    \n"
+			+ "\n"
+			+ "    public void addModifiers(String one) {\n"
+			+ "        Modifiers.add(this, one);\n"
+			+ "    }   \n"
+			+ "    \n"
+			+ "    public void addModifiers(String one, String... many) {\n"
+			+ "        this.addModifiers(one);\n"
+			+ "        for (String each : many)\n"
+			+ "            this.addModifiers(each);\n"
+			+ "    }   \n"
+			+ "    \n"
+			+ "    public void addModifiers(Iterable<? extends String> many) {\n"
+			+ "        for (String each : many)\n"
+			+ "            this.addModifiers(each);\n"
+			+ "    }   \n"
+			+ "                \n"
+			+ "    public void addModifiers(String[] many) {\n"
+			+ "        for (String each : many)\n"
+			+ "            this.addModifiers(each);\n"
+			+ "    }\n"
+			+ "    \n"
+			+ "    public int numberOfModifiers() {\n"
+			+ "        return Modifiers.size(this);\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    public boolean hasModifiers() {\n"
+			+ "        return modifierFlags != 0 || otherModifiers != null;\n"
+			+ "    }\n"
+			+ "    \n"
+			+ "    public int getModifierFlags() {\n"
+			+ "        return modifierFlags;\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    /**\n"
+			+ "     * The flags use the bits of {@link Modifiers}, which are the ones of the JDT modifier flags\n"
+			+ "     */\n"
+			+ "    public void setModifierFlags(int modifierFlags) {\n"
+			+ "        this.modifierFlags = modifierFlags & Modifiers.ALL;\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    public void addModifierFlags(int modifierFlags) {\n"
+			+ "        this.setModifierFlags(this.modifierFlags | modifierFlags);\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    public List<String> getOtherModifiers() {\n"
+			+ "        return otherModifiers;\n"
+			+ "    }\n"
+			+ "\n"
+			+ "    public void setOtherModifiers(List<String> otherModifiers) {\n"
+			+ "        this.otherModifiers = otherModifiers;\n"
+			+ "    }\n";
+
+	public String rewrite(String className, String source) {
+		if (!className.equals(CLASS_NAME))
+			return source;
+		Matcher matcher = GENERATED.matcher(source);
+		if (!matcher.find())
+			return source;
+		String result = source.substring(0, matcher.start()) + CODE + source.substring(matcher.end());
+		return result
+				.replace("import ch.akuhn.fame.FameDescription;",
+						"import com.feenk.jdt2famix.model.Modifiers;\nimport ch.akuhn.fame.FameDescription;")
+				.replace("public class NamedEntity extends SourcedEntity {",
+						"public class NamedEntity extends SourcedEntity implements Modifiers.Holder {");
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.feenk.jdt2famix.modelgenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fame generates numeric FM3 properties as boxed Number fields, so each set
+ * allocates. This post-processes the generated classes and stores the selected
+ * properties in a primitive int or long field instead.
+ *
+ * The Number accessors stay, because Fame uses them for export. An unset value
+ * is kept as the MIN_VALUE of the primitive type and is still answered as null,
+ * so the exported MSE does not change. Next to them we generate a primitive
+ * setter overload, a primitive getter (get...AsInt or get...AsLong) and, for
+ * counters, an inc... method.
+ */
+public class PrimitiveProperties {
+
+	private static class PrimitiveProperty {
+		final String className;
+		final String name;
+		final String type;
+		final boolean isCounter;
+
+		PrimitiveProperty(String className, String name, String type, boolean isCounter) {
+			this.className = className;
+			this.name = name;
+			this.type = type;
+			this.isCounter = isCounter;
+		}
+
+		String boxedType() {
+			return type.equals("long") ? "Long" : "Integer";
+		}
+
+		String unset() {
+			return boxedType() + ".MIN_VALUE";
+		}
+	}
+
+	private final List<PrimitiveProperty> properties = new ArrayList<PrimitiveProperty>();
+
+	public PrimitiveProperties addInt(String className, String propertyName) {
+		properties.add(new PrimitiveProperty(className, propertyName, "int", false));
+		return this;
+	}
+
+	public PrimitiveProperties addLong(String className, String propertyName) {
+		properties.add(new PrimitiveProperty(className, propertyName, "long", false));
+		return this;
+	}
+
+	/**
+	 * An int property that also gets an inc... method
+	 */
+	public PrimitiveProperties addIntCounter(String className, String propertyName) {
+		properties.add(new PrimitiveProperty(className, propertyName, "int", true));
+		return this;
+	}
+
+	public String rewrite(String className, String source) {
+		String result = source;
+		for (PrimitiveProperty property : properties)
+			if (property.className.equals(className))
+				result = rewrite(property, result);
+		return result;
+	}
+
+	private String rewrite(PrimitiveProperty property, String source) {
+		String name = property.name;
+		String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+		Pattern generated = Pattern.compile("    private Number " + name + "( = ([^;]+))?;\\n"
+				+ "    \\n"
+				+ "    @FameProperty\\(name = \"" + name + "\"\\)\\n"
+				+ "    public Number get" + capitalized + "\\(\\) \\{\\n"
+				+ "        return " + name + ";\\n"
+				+ "    \\}\\n"
+				+ "\\n"
+				+ "    public void set" + capitalized + "\\(Number " + name + "\\) \\{\\n"
+				+ "        this\\." + name + " = " + name + ";\\n"
+				+ "    \\}\\n");
+		Matcher matcher = generated.matcher(source);
+		if (!matcher.find())
+			return source;
+		String initialValue = matcher.group(2) == null ? property.unset() : matcher.group(2);
+		String asType = property.type.equals("long") ? "AsLong" : "AsInt";
+		StringBuilder code = new StringBuilder();
+		code.append("    private " + property.type + " " + name + " = " + initialValue + ";\n");
+		code.append("    \n");
+		code.append("    @FameProperty(name = \"" + name + "\")\n");
+		code.append("    public Number get" + capitalized + "() {\n");
+		code.append("        return " + name + " == " + property.unset() + " ? null : " + property.boxedType()
+				+ ".valueOf(" + name + ");\n");
+		code.append("    }\n");
+		code.append("\n");
+		code.append("    public " + property.type + " get" + capitalized + asType + "() {\n");
+		code.append("        return " + name + ";\n");
+		code.append("    }\n");
+		code.append("\n");
+		code.append("    public void set" + capitalized + "(Number " + name + ") {\n");
+		code.append("        this." + name + " = " + name + " == null ? " + property.unset() + " : " + name + "."
+				+ property.type + "Value();\n");
+		code.append("    }\n");
+		code.append("\n");
+		code.append("    public void set" + capitalized + "(" + property.type + " " + name + ") {\n");
+		code.append("        this." + name + " = " + name + ";\n");
+		code.append("    }\n");
+		if (property.isCounter) {
+			code.append("    \n");
+			code.append("    public void inc" + capitalized + "() {\n");
+			code.append("        " + name + "++;\n");
+			code.append("    }\n");
+		}
+		return source.substring(0, matcher.start()) + code + source.substring(matcher.end());
+	}
+
+}
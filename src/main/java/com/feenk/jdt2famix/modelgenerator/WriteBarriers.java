@@ -0,0 +1,39 @@
+package com.feenk.jdt2famix.modelgenerator;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Post-processes the generated classes so that every write to an entity passes
+ * the {@link com.feenk.jdt2famix.model.WriteBarrier}. The setters and inc...
+ * methods call it first, and the multivalued properties answer the entity as
+ * the owner of their {@link com.feenk.jdt2famix.model.CompactMultivalueSet}.
+ *
+ * It has to run after the other post-processors, which add setters.
+ */
+public class WriteBarriers {
+
+	private static final String BARRIER = "com.feenk.jdt2famix.model.WriteBarrier";
+
+	private static final Pattern WRITER = Pattern.compile("(?m)^    public void (set|inc)\\w+\\([^)]*\\) \\{\\n");
+	private static final Pattern SET_OPPOSITE = Pattern.compile("(                protected void setOpposite\\(\\w+ e\\) \\{\\n"
+			+ "[^}]*\\}\\n)(            \\};)");
+
+	public String rewrite(String className, String source) {
+		if (!source.contains("@FameDescription(") || source.contains("import " + BARRIER + ";"))
+			return source;
+		Matcher writers = WRITER.matcher(source);
+		if (!writers.find())
+			return source;
+		String result = writers.replaceAll("$0        WriteBarrier.beforeWrite(this);\n");
+		result = SET_OPPOSITE.matcher(result).replaceAll("$1"
+				+ "                @Override\n"
+				+ "                protected Object owner() {\n"
+				+ "                    return " + className + ".this;\n"
+				+ "                }\n"
+				+ "$2");
+		return result.replace("import ch.akuhn.fame.FameDescription;",
+				"import " + BARRIER + ";\nimport ch.akuhn.fame.FameDescription;");
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.feenk.jdt2famix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContentAddressedCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = folder.newFolder("cache").toPath();
+	}
+
+	private static byte[] bytes(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testKeysDependOnTheBoundariesOfTheParts() {
+		assertEquals(ContentAddressedCache.keyOf(bytes("ab"), bytes("c")),
+				ContentAddressedCache.keyOf(bytes("ab"), bytes("c")));
+		assertNotEquals(ContentAddressedCache.keyOf(bytes("ab"), bytes("c")),
+				ContentAddressedCache.keyOf(bytes("a"), bytes("bc")));
+	}
+
+	@Test
+	public void testEntriesAreSharedBetweenInstances() {
+		String key = ContentAddressedCache.keyOf(bytes("source"));
+		new ContentAddressedCache(directory, 1000).put(key, bytes("facts"));
+		ContentAddressedCache other = new ContentAddressedCache(directory, 1000);
+		assertArrayEquals(bytes("facts"), other.get(key));
+		assertNull(other.get(ContentAddressedCache.keyOf(bytes("other source"))));
+		assertEquals(1, other.hits());
+		assertEquals(1, other.misses());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+		ContentAddressedCache cache = new ContentAddressedCache(directory, 280);
+		String first = ContentAddressedCache.keyOf(bytes("first"));
+		String second = ContentAddressedCache.keyOf(bytes("second"));
+		String third = ContentAddressedCache.keyOf(bytes("third"));
+		cache.put(first, new byte[100]);
+		cache.put(second, new byte[100]);
+		Thread.sleep(20);
+		cache.get(first);
+		Thread.sleep(20);
+		cache.put(third, new byte[100]);
+		assertNull(cache.get(second));
+		assertEquals(100, cache.get(first).length);
+		assertEquals(100, cache.get(third).length);
+		assertEquals(200, cache.sizeInBytes());
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.feenk.jdt2famix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CostOrderedSchedulerTest {
+
+	private FileCosts costs;
+
+	@Before
+	public void setUp() {
+		costs = new FileCosts();
+		costs.record("small1", 10);
+		costs.record("huge", 1000);
+		costs.record("small2", 20);
+		costs.record("medium", 300);
+	}
+
+	@Test
+	public void testLargestFilesComeFirst() {
+		List<String[]> batches = new CostOrderedScheduler(1, costs).batchesOf(
+				new String[] { "small1", "huge", "small2", "medium" }, Integer.MAX_VALUE);
+		assertArrayEquals(new String[] { "huge" }, batches.get(0));
+		assertArrayEquals(new String[] { "medium", "small2", "small1" }, batches.get(1));
+	}
+
+	@Test
+	public void testBatchesDoNotExceedTheBatchSize() {
+		List<String[]> batches = new CostOrderedScheduler(1, costs).batchesOf(
+				new String[] { "small1", "huge", "small2", "medium" }, 2);
+		assertEquals(3, batches.size());
+		assertArrayEquals(new String[] { "small1" }, batches.get(2));
+	}
+
+	@Test
+	public void testTimingsAreSavedAndLoaded() throws Exception {
+		Path file = Files.createTempFile("costs", ".tsv");
+		costs.save(file);
+		assertEquals(1000, new FileCosts().load(file).estimateOf("huge"));
+		Files.delete(file);
+	}
+
+}
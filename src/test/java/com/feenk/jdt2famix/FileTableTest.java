@@ -0,0 +1,49 @@
+package com.feenk.jdt2famix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class FileTableTest {
+
+	@Test
+	public void testRelativePath() {
+		FileTable table = new FileTable("/home/user/project");
+		assertEquals("src/A.java", table.relativePathOf("/home/user/project/src/A.java"));
+		assertEquals("/elsewhere/A.java", table.relativePathOf("/elsewhere/A.java"));
+	}
+
+	@Test
+	public void testRootPathIsNotARegularExpression() {
+		FileTable table = new FileTable("/home/user/my.project");
+		assertEquals("src/A.java", table.relativePathOf("/home/user/my.project/src/A.java"));
+		assertEquals("/home/user/myXproject/src/A.java", table.relativePathOf("/home/user/myXproject/src/A.java"));
+	}
+
+	@Test
+	public void testBackslashes() {
+		FileTable table = new FileTable("C:\\project");
+		assertEquals("src/A.java", table.relativePathOf("C:\\project\\src\\A.java"));
+	}
+
+	@Test
+	public void testEmptyRootPathStripsLeadingSeparator() {
+		FileTable table = new FileTable("");
+		assertEquals("src/A.java", table.relativePathOf("/src/A.java"));
+		assertEquals("src/A.java", table.relativePathOf("src/A.java"));
+	}
+
+	@Test
+	public void testIdsAndSharedNames() {
+		FileTable table = new FileTable("/project");
+		int a = table.idOf("/project/A.java");
+		int b = table.idOf("/project/B.java");
+		assertNotEquals(a, b);
+		assertEquals(a, table.idOf("/project/A.java"));
+		assertSame(table.nameOf(a), table.nameOfPath("/project/A.java"));
+		assertEquals(2, table.size());
+	}
+
+}
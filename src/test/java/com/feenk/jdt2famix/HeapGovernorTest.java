@@ -0,0 +1,87 @@
+package com.feenk.jdt2famix;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import javax.management.Notification;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HeapGovernorTest {
+
+	private HeapGovernor governor;
+	private int actionRuns;
+
+	@Before
+	public void setUp() {
+		governor = new HeapGovernor(0.99, 10, 80);
+		governor.onPressure(() -> actionRuns++);
+	}
+
+	@After
+	public void tearDown() {
+		governor.close();
+	}
+
+	private void signalPressure() {
+		governor.handleNotification(
+				new Notification(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED, this, 0), null);
+	}
+
+	@Test
+	public void testBatchesStartAtTheMaximum() {
+		assertEquals(80, governor.nextBatchSize());
+		assertEquals(80, governor.nextBatchSize());
+		assertEquals(0, actionRuns);
+	}
+
+	@Test
+	public void testPressureHalvesTheBatchesDownToTheMinimum() {
+		signalPressure();
+		assertEquals(40, governor.nextBatchSize());
+		signalPressure();
+		governor.relieve();
+		assertEquals(20, governor.batchSize());
+		signalPressure();
+		assertEquals(10, governor.nextBatchSize());
+		signalPressure();
+		assertEquals(10, governor.nextBatchSize());
+		assertEquals(4, actionRuns);
+		assertEquals(4, governor.pressureCount());
+	}
+
+	@Test
+	public void testOtherNotificationsAreIgnored() {
+		governor.handleNotification(new Notification(MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED, this, 0),
+				null);
+		governor.relieve();
+		assertEquals(0, actionRuns);
+	}
+
+	@Test
+	public void testCloseRestoresThePreviousThresholds() {
+		MemoryPoolMXBean pool = ManagementFactory.getMemoryPoolMXBeans().stream()
+				.filter(each -> each.getType() == MemoryType.HEAP && each.isCollectionUsageThresholdSupported()
+						&& each.getUsage().getMax() > 0)
+				.findFirst().get();
+		long threshold = pool.getCollectionUsageThreshold();
+		new HeapGovernor(0.5, 10, 80).close();
+		assertEquals(threshold, pool.getCollectionUsageThreshold());
+	}
+
+	@Test
+	public void testBatchesGrowBackWhenTheHeapIsAvailable() {
+		signalPressure();
+		signalPressure();
+		governor.relieve();
+		assertEquals(40, governor.batchSize());
+		assertEquals(80, governor.nextBatchSize());
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.feenk.jdt2famix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.feenk.jdt2famix.injava.InJavaImporter;
+import com.feenk.jdt2famix.model.famix.Class;
+import com.feenk.jdt2famix.model.famix.Type;
+
+public class JavaFilesTest {
+
+	private static final String SAMPLES = "src/test/java/com/feenk/jdt2famix/samples/basic/";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File sourceWith(String contents) throws IOException {
+		File file = folder.newFile();
+		Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void testResolveOnDemandAddsTheSourceFolder() {
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.oneJavaFile(SAMPLES + "VariousAttributeAccessesSubclass.java");
+		javaFiles.oneJavaFile(SAMPLES + "EmptyClass.java");
+		javaFiles.resolveOnDemand();
+		assertArrayEquals(new String[] { new File("src/test/java").getAbsolutePath() }, javaFiles.sourcepathEntries());
+	}
+
+	@Test
+	public void testTypesOfOtherSourcesAreResolvedWithoutVisitingThem() {
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.oneJavaFile(SAMPLES + "VariousAttributeAccessesSubclass.java");
+		javaFiles.resolveOnDemand();
+		InJavaImporter importer = new InJavaImporter();
+		importer.run(javaFiles);
+		Type superclass = importer.types().named("com.feenk.jdt2famix.samples.basic.VariousAttributeAccesses");
+		assertTrue(superclass instanceof Class);
+		assertTrue(superclass.getIsStub());
+		assertEquals(1, importer.fileTable().size());
+	}
+
+	@Test
+	public void testThePackageIsFoundAfterAByteOrderMark() throws IOException {
+		assertEquals("p.q", JavaFiles.packageDeclaredIn(sourceWith("\uFEFFpackage p.q;\n\npublic class A {}\n")));
+	}
+
+	@Test
+	public void testThePackageIsFoundAfterComments() throws IOException {
+		assertEquals("p.q", JavaFiles.packageDeclaredIn(sourceWith("/* license */ package p.q;\n")));
+		assertEquals("p.q", JavaFiles.packageDeclaredIn(
+				sourceWith("/*\n * package x;\n */\n// package y;\npackage /* z */ p.q; // w\n")));
+	}
+
+	@Test
+	public void testTheDefaultPackageEndsAtTheFirstDeclaration() throws IOException {
+		assertEquals("", JavaFiles.packageDeclaredIn(sourceWith("// package x;\nimport p.B;\n")));
+		assertEquals("", JavaFiles.packageDeclaredIn(sourceWith("\uFEFFpublic class A {\n}\npackage x;\n")));
+	}
+
+}
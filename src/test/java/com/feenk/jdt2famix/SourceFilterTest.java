@@ -0,0 +1,71 @@
+package com.feenk.jdt2famix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.feenk.jdt2famix.injava.InJavaImporter;
+import com.feenk.jdt2famix.model.famix.Class;
+import com.feenk.jdt2famix.model.famix.Type;
+
+public class SourceFilterTest {
+
+	private static final String SAMPLES = "src/test/java/com/feenk/jdt2famix/samples/basic/";
+
+	@Test
+	public void testEmptyFilterSelectsEverything() {
+		assertTrue(new SourceFilter().selects("src/A.java", "a"));
+		assertTrue(new SourceFilter().isEmpty());
+	}
+
+	@Test
+	public void testPackagesIncludeTheirSubpackages() {
+		SourceFilter filter = new SourceFilter().includePackages("com.acme.billing").excludePackages("com.acme.billing.legacy");
+		assertTrue(filter.selects("A.java", "com.acme.billing"));
+		assertTrue(filter.selects("A.java", "com.acme.billing.invoices"));
+		assertFalse(filter.selects("A.java", "com.acme.billingx"));
+		assertFalse(filter.selects("A.java", "com.acme.billing.legacy.old"));
+		assertFalse(filter.selects("A.java", ""));
+	}
+
+	@Test
+	public void testPaths() {
+		SourceFilter filter = new SourceFilter().includePaths("billing/**").excludePaths("**/test/**");
+		assertTrue(filter.selects("billing/src/A.java", null));
+		assertFalse(filter.selects("billing/src/test/A.java", null));
+		assertFalse(filter.selects("shipping/src/A.java", null));
+	}
+
+	@Test
+	public void testPackageDeclaration() {
+		assertEquals("com.feenk.jdt2famix.samples.basic", JavaFiles.packageDeclaredIn(new File(SAMPLES + "EmptyClass.java")));
+	}
+
+	@Test
+	public void testFilteredSourcesGoToTheSourcepath() {
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.deepJavaFiles(SAMPLES, new SourceFilter().includePaths("VariousAttributeAccessesSubclass.java"));
+		assertEquals(1, javaFiles.size());
+		assertArrayEquals(new String[] { new File("src/test/java").getAbsolutePath() }, javaFiles.sourcepathEntries());
+	}
+
+	@Test
+	public void testTypesOfFilteredSourcesAreResolved() {
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.deepJavaFiles(SAMPLES, new SourceFilter().includePaths("VariousAttributeAccessesSubclass.java"));
+		InJavaImporter importer = new InJavaImporter();
+		importer.run(javaFiles);
+		Type subclass = importer.types().named("com.feenk.jdt2famix.samples.basic.VariousAttributeAccessesSubclass");
+		assertFalse(subclass.getIsStub());
+		Type superclass = importer.types().named("com.feenk.jdt2famix.samples.basic.VariousAttributeAccesses");
+		assertTrue(superclass instanceof Class);
+		assertEquals(superclass, subclass.getSuperInheritances().iterator().next().getSuperclass());
+		assertTrue(importer.types().stream().noneMatch(t -> t.getName().equals("EmptyClass")));
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.feenk.jdt2famix;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SourcePrefetcherTest {
+
+	private Path folder;
+	private String[] paths;
+
+	@Before
+	public void setUp() throws Exception {
+		folder = Files.createTempDirectory("prefetch");
+		paths = new String[5];
+		for (int i = 0; i < paths.length; i++) {
+			Path file = folder.resolve("A" + i + ".java");
+			Files.write(file, ("class A" + i + " { String s = \"é\"; }").getBytes(StandardCharsets.UTF_8));
+			paths[i] = file.toString();
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (String path : paths)
+			Files.delete(folder.resolve(path));
+		Files.delete(folder);
+	}
+
+	@Test
+	public void testReadsAWindowAheadAndSlidesItOnEachTake() {
+		try (SourcePrefetcher prefetcher = new SourcePrefetcher(2, 3, Long.MAX_VALUE)) {
+			prefetcher.prefetch(paths);
+			assertEquals(3, prefetcher.prefetchedCount());
+			assertEquals("class A0 { String s = \"é\"; }", new String(prefetcher.take(paths[0])));
+			assertEquals(3, prefetcher.prefetchedCount());
+			prefetcher.take(paths[1]);
+			prefetcher.take(paths[2]);
+			assertEquals(2, prefetcher.prefetchedCount());
+		}
+	}
+
+	@Test
+	public void testFilesTakenBeforeTheirTurnAreNotReadAgain() {
+		try (SourcePrefetcher prefetcher = new SourcePrefetcher(2, 1, Long.MAX_VALUE)) {
+			prefetcher.prefetch(paths);
+			prefetcher.take(paths[2]);
+			prefetcher.take(paths[0]);
+			prefetcher.take(paths[1]);
+			assertEquals(1, prefetcher.prefetchedCount());
+			assertEquals("class A3 { String s = \"é\"; }", new String(prefetcher.take(paths[3])));
+		}
+	}
+
+	@Test
+	public void testLargeFilesAreMappedAndDecoded() {
+		try (SourcePrefetcher prefetcher = new SourcePrefetcher(1, 5, 0)) {
+			prefetcher.prefetch(paths);
+			for (int i = 0; i < paths.length; i++)
+				assertEquals("class A" + i + " { String s = \"é\"; }", new String(prefetcher.take(paths[i])));
+			assertEquals(0, prefetcher.prefetchedCount());
+		}
+	}
+
+	@Test
+	public void testFilesOutsideTheOrderAreReadWhenTaken() throws Exception {
+		try (SourcePrefetcher prefetcher = new SourcePrefetcher(1, 1, Long.MAX_VALUE)) {
+			prefetcher.prefetch(new String[] { paths[0] });
+			assertEquals("class A3 { String s = \"é\"; }", new String(prefetcher.take(paths[3])));
+		}
+	}
+
+}
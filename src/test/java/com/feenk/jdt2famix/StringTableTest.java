@@ -0,0 +1,43 @@
+package com.feenk.jdt2famix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StringTableTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testEachStringIsKeptOnce() {
+		StringTable table = new StringTable();
+		int id = table.idOf("m(String)");
+		assertEquals(id, table.idOf(new String("m(String)")));
+		assertEquals(1, table.size());
+		assertEquals("m(String)", table.stringAt(id));
+		assertEquals(StringTable.NO_STRING, table.idOf(null));
+		assertNull(table.stringAt(StringTable.NO_STRING));
+	}
+
+	@Test
+	public void testManyAndLargeStringsInMappedFiles() throws Exception {
+		StringTable table = new StringTable("signatures", folder.newFolder("strings").toPath());
+		char[] large = new char[(1 << 20) + 1];
+		Arrays.fill(large, 'é');
+		String largeString = new String(large);
+		int largeId = table.idOf(largeString);
+		for (int i = 0; i < 10000; i++)
+			assertEquals(i + 1, table.idOf("method" + i + "()"));
+		for (int i = 0; i < 10000; i++)
+			assertEquals("method" + i + "()", table.stringAt(table.idOf("method" + i + "()")));
+		assertEquals(largeString, table.stringAt(largeId));
+		assertEquals(10001, table.size());
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.feenk.jdt2famix.injava;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.feenk.jdt2famix.model.famix.Access;
+import com.feenk.jdt2famix.model.famix.Invocation;
+import com.feenk.jdt2famix.model.famix.Method;
+
+public class AssociationAggregatorTest extends InJavaTestCase {
+
+	private static final String SAMPLE = "src/test/java/com/feenk/jdt2famix/samples/basic/RepeatedInvocationsAndAccesses.java";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSitesAreSeparateByDefault() {
+		importer = new InJavaImporter();
+		importer.runOne(SAMPLE);
+		Method method = methodNamed("incrementThreeTimes");
+		assertEquals(3, method.getOutgoingInvocations().size());
+		assertEquals(3, method.getAccesses().size());
+		assertNull(method.getOutgoingInvocations().iterator().next().getOccurrences());
+	}
+
+	@Test
+	public void testInvocationsAreAggregated() {
+		importer = new InJavaImporter();
+		importer.aggregateAssociations(true);
+		importer.runOne(SAMPLE);
+		Method method = methodNamed("incrementThreeTimes");
+		assertEquals(1, method.getOutgoingInvocations().size());
+		Invocation invocation = method.getOutgoingInvocations().iterator().next();
+		assertEquals(3, invocation.getOccurrencesAsInt());
+		assertEquals(methodNamed("increment"), invocation.getCandidates().iterator().next());
+		int[] sites = importer.associationAggregator().sitesOf(invocation);
+		assertEquals(6, sites.length);
+		assertEquals(invocation.getAstStartPositionAsInt(), sites[0]);
+		assertEquals(invocation.getAstStopPositionAsInt(), sites[1]);
+	}
+
+	@Test
+	public void testConstructorInvocationsAreAggregated() {
+		importer = new InJavaImporter();
+		importer.aggregateAssociations(true);
+		importer.runOne(SAMPLE);
+		Method constructor = importer.methods().stream()
+				.filter(m -> m.getSignature().equals("RepeatedInvocationsAndAccesses()")).findAny().get();
+		assertEquals(1, constructor.getOutgoingInvocations().size());
+		Invocation invocation = constructor.getOutgoingInvocations().iterator().next();
+		assertEquals(2, invocation.getOccurrencesAsInt());
+		int[] sites = importer.associationAggregator().sitesOf(invocation);
+		assertEquals(4, sites.length);
+		assertEquals(invocation.getAstStartPositionAsInt(), sites[0]);
+		assertEquals(invocation.getAstStopPositionAsInt(), sites[1]);
+	}
+
+	@Test
+	public void testReadsAndWritesAreAggregatedSeparately() {
+		importer = new InJavaImporter();
+		importer.aggregateAssociations(false);
+		importer.runOne(SAMPLE);
+		Method method = methodNamed("incrementThreeTimes");
+		assertEquals(2, method.getAccesses().size());
+		for (Access access : method.getAccesses())
+			assertEquals(access.getIsWrite() ? 1 : 2, access.getOccurrencesAsInt());
+		Access access = method.getAccesses().iterator().next();
+		assertArrayEquals(new int[0], importer.associationAggregator().sitesOf(access));
+	}
+
+	@Test
+	public void testSitesAreExportedOnePerRow() throws Exception {
+		importer = new InJavaImporter();
+		importer.aggregateAssociations(true);
+		importer.runOne(SAMPLE);
+		File sites = folder.newFile("sites.csv");
+		importer.associationAggregator().exportSitesCSV(sites.getPath());
+		List<String> rows = Files.readAllLines(sites.toPath());
+		assertEquals("kind,source,target,start,stop", rows.get(0));
+		String increment = "\"com.feenk.jdt2famix.samples.basic.RepeatedInvocationsAndAccesses.increment()\"";
+		String incrementThreeTimes = increment.replace("increment()", "incrementThreeTimes()");
+		String invocations = "invocation," + incrementThreeTimes + "," + increment;
+		assertEquals(3, rows.stream().filter(row -> row.startsWith(invocations)).count());
+		assertEquals(2, rows.stream().filter(row -> row.startsWith("read," + incrementThreeTimes)).count());
+		assertTrue(rows.stream().skip(1).allMatch(row -> row.matches(".*,\\d+,\\d+")));
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.feenk.jdt2famix.injava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.feenk.jdt2famix.JavaFiles;
+import com.feenk.jdt2famix.model.famix.Attribute;
+import com.feenk.jdt2famix.model.famix.Type;
+import com.feenk.jdt2famix.samples.basic.ClassWithSuperClass;
+import com.feenk.jdt2famix.samples.basic.VariousAttributeAccesses;
+import com.feenk.jdt2famix.samples.basic.VariousAttributeAccessesSubclass;
+
+public class CheckpointTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path checkpoints;
+
+	@Before
+	public void setUp() throws IOException {
+		checkpoints = folder.newFolder("checkpoints").toPath();
+	}
+
+	private String samplePathFor(Class<?> clazz) {
+		return "src/test/java/com/feenk/jdt2famix/samples/basic/" + clazz.getSimpleName() + ".java";
+	}
+
+	private JavaFiles javaFiles(Class<?>... classes) {
+		JavaFiles javaFiles = new JavaFiles();
+		Arrays.stream(classes).forEach(clazz -> javaFiles.oneJavaFile(samplePathFor(clazz)));
+		return javaFiles;
+	}
+
+	private JavaFiles javaFilesWithSourcepath(Class<?> clazz) {
+		JavaFiles javaFiles = javaFiles(clazz);
+		javaFiles.sourcepathEntry("src/test/java");
+		return javaFiles;
+	}
+
+	private Map<String, Long> elementCountsOf(InJavaImporter importer) {
+		return importer.repository().all(Object.class).stream()
+				.collect(Collectors.groupingBy(element -> element.getClass().getSimpleName(), Collectors.counting()));
+	}
+
+	@Test
+	public void testResumeSkipsVisitedFilesAndBuildsTheSameModel() {
+		InJavaImporter crashed = new InJavaImporter();
+		crashed.checkpointTo(checkpoints, 1);
+		crashed.run(javaFiles(ClassWithSuperClass.class));
+
+		InJavaImporter resumed = new InJavaImporter();
+		resumed.checkpointTo(checkpoints, 1);
+		List<String> visitedPaths = resumed.resume();
+		assertEquals(Arrays.asList(samplePathFor(ClassWithSuperClass.class)), visitedPaths);
+		JavaFiles remaining = javaFiles(ClassWithSuperClass.class, VariousAttributeAccesses.class);
+		remaining.skip(visitedPaths);
+		assertEquals(1, remaining.size());
+		resumed.run(remaining);
+
+		InJavaImporter full = new InJavaImporter();
+		full.run(javaFiles(ClassWithSuperClass.class, VariousAttributeAccesses.class));
+
+		assertEquals(elementCountsOf(full), elementCountsOf(resumed));
+		Type restoredType = resumed.types().named(ClassWithSuperClass.class.getName());
+		assertFalse(restoredType.getIsStub());
+		assertEquals(1, restoredType.getSuperInheritances().size());
+		assertEquals(full.types().size(), resumed.types().size());
+		assertEquals(full.methods().size(), resumed.methods().size());
+	}
+
+	@Test
+	public void testCheckpointsOnlyWriteChanges() throws IOException {
+		InJavaImporter importer = new InJavaImporter();
+		importer.checkpointTo(checkpoints, 1);
+		importer.run(javaFiles(VariousAttributeAccesses.class));
+		importer.checkpoint();
+		List<Path> segments = Files.list(checkpoints).sorted().collect(Collectors.toList());
+		assertEquals(2, segments.size());
+		assertTrue(Files.size(segments.get(1)) * 10 < Files.size(segments.get(0)));
+	}
+
+	@Test
+	public void testResumeFromAnEmptyFolderKeepsTheModel() {
+		InJavaImporter importer = new InJavaImporter();
+		importer.checkpointTo(checkpoints, 1);
+		assertTrue(importer.resume().isEmpty());
+		assertEquals(1, importer.repository().getElements().size());
+	}
+
+	@Test
+	public void testCheckpointsKeepTheChangesToSavedEntities() {
+		InJavaImporter importer = new InJavaImporter();
+		importer.checkpointTo(checkpoints, 1);
+		importer.run(javaFilesWithSourcepath(VariousAttributeAccessesSubclass.class));
+		assertTrue(importer.types().named(VariousAttributeAccesses.class.getName()).getIsStub());
+		importer.run(javaFilesWithSourcepath(VariousAttributeAccesses.class));
+
+		InJavaImporter resumed = new InJavaImporter();
+		resumed.checkpointTo(checkpoints, 1);
+		resumed.resume();
+
+		assertEquals(elementCountsOf(importer), elementCountsOf(resumed));
+		Type superclass = importer.types().named(VariousAttributeAccesses.class.getName());
+		Type restoredSuperclass = resumed.types().named(VariousAttributeAccesses.class.getName());
+		assertFalse(restoredSuperclass.getIsStub());
+		assertEquals(superclass.getSourceAnchor().getClass(), restoredSuperclass.getSourceAnchor().getClass());
+		assertEquals(superclass.getAttributes().size(), restoredSuperclass.getAttributes().size());
+		assertEquals(superclass.getMethods().size(), restoredSuperclass.getMethods().size());
+	}
+
+	@Test
+	public void testRemovedEntitiesStayRemovedAfterResume() {
+		InJavaImporter importer = new InJavaImporter();
+		importer.checkpointTo(checkpoints, 1);
+		importer.run(javaFiles(VariousAttributeAccesses.class));
+		Attribute attribute = importer.attributes().named(VariousAttributeAccesses.class.getName() + ".attribute");
+		Set<Object> removed = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		removed.add(attribute);
+		importer.removeElements(removed);
+		importer.checkpoint();
+
+		InJavaImporter resumed = new InJavaImporter();
+		resumed.checkpointTo(checkpoints, 1);
+		resumed.resume();
+
+		assertEquals(elementCountsOf(importer), elementCountsOf(resumed));
+		assertFalse(resumed.attributes().has(VariousAttributeAccesses.class.getName() + ".attribute"));
+		Type restoredType = resumed.types().named(VariousAttributeAccesses.class.getName());
+		assertEquals(importer.types().named(VariousAttributeAccesses.class.getName()).getAttributes().size(),
+				restoredType.getAttributes().size());
+	}
+
+}
@@ -0,0 +1,189 @@
+package com.feenk.jdt2famix.injava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.MemoryNotificationInfo;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.management.Notification;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.feenk.jdt2famix.Famix;
+import com.feenk.jdt2famix.HeapGovernor;
+
+import com.feenk.jdt2famix.model.famix.Access;
+import com.feenk.jdt2famix.model.famix.Attribute;
+import com.feenk.jdt2famix.model.famix.Invocation;
+import com.feenk.jdt2famix.model.famix.Method;
+import com.feenk.jdt2famix.model.famix.NamedEntity;
+
+import ch.akuhn.fame.Repository;
+
+public class ColumnarAssociationsTest {
+
+	private static final String SAMPLE = "src/test/java/com/feenk/jdt2famix/samples/basic/VariousAttributeAccesses.java";
+	private static final String OTHER_SAMPLE = SAMPLE.replace("VariousAttributeAccesses", "ClassWithComplexMethods");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private InJavaImporter objects;
+
+	@Before
+	public void setUp() {
+		objects = new InJavaImporter();
+		objects.runOne(SAMPLE);
+	}
+
+	private InJavaImporter importerWithColumnsIn(boolean memoryMapped) throws Exception {
+		InJavaImporter importer = new InJavaImporter();
+		importer.storeAssociationsInColumns(memoryMapped ? folder.newFolder("columns").toPath() : null);
+		importer.runOne(SAMPLE);
+		return importer;
+	}
+
+	private List<String> signaturesIn(ColumnarAssociations columns) {
+		List<String> signatures = new ArrayList<String>();
+		columns.forEachInvocation(invocation -> signatures.add(invocation.getSignature()));
+		return signatures.stream().sorted().collect(Collectors.toList());
+	}
+
+	@Test
+	public void testAssociationsMoveToTheColumns() throws Exception {
+		InJavaImporter columnar = importerWithColumnsIn(false);
+		assertTrue(columnar.repository().all(Invocation.class).isEmpty());
+		assertTrue(columnar.repository().all(Access.class).isEmpty());
+		ColumnarAssociations columns = columnar.columnarAssociations();
+		assertEquals(objects.repository().all(Invocation.class).size(), columns.invocationCount());
+		assertEquals(objects.repository().all(Access.class).size(), columns.accessCount());
+		assertEquals(objects.repository().all(Invocation.class).stream().map(Invocation::getSignature).sorted()
+				.collect(Collectors.toList()), signaturesIn(columns));
+		assertEquals(objects.repository().size() - columns.invocationCount() - columns.accessCount(),
+				columnar.repository().size());
+	}
+
+	@Test
+	public void testViewsAnswerTheEntitiesOfTheRepository() throws Exception {
+		InJavaImporter columnar = importerWithColumnsIn(true);
+		long writes = objects.repository().all(Access.class).stream().filter(Access::getIsWrite).count();
+		long[] columnWrites = { 0 };
+		columnar.columnarAssociations().forEachAccess(access -> {
+			assertTrue(columnar.repository().getElements().contains(access.getAccessor()));
+			assertTrue(columnar.repository().getElements().contains(access.getVariable()));
+			if (access.getIsWrite())
+				columnWrites[0]++;
+		});
+		assertEquals(writes, columnWrites[0]);
+		columnar.columnarAssociations().forEachInvocation(invocation -> {
+			assertTrue(columnar.repository().getElements().contains(invocation.getSender()));
+			if (invocation.getAstStopPosition() != null)
+				assertTrue(invocation.getAstStartPosition().intValue() < invocation.getAstStopPosition().intValue());
+		});
+	}
+
+	@Test
+	public void testExportedMSEHasTheAssociations() throws Exception {
+		InJavaImporter columnar = importerWithColumnsIn(false);
+		StringBuilder mse = new StringBuilder();
+		columnar.exportMSEWithColumns(mse);
+		Repository imported = new Repository(columnar.repository().getMetamodel());
+		imported.importMSE(mse.toString());
+		assertEquals(objects.repository().size(), imported.size());
+		assertEquals(objects.repository().all(Invocation.class).size(), imported.all(Invocation.class).size());
+		assertTrue(imported.all(Invocation.class).stream().allMatch(invocation -> invocation.getSender() != null));
+		assertTrue(imported.all(Access.class).stream().allMatch(access -> access.getVariable() != null));
+	}
+
+	@Test
+	public void testAssociationsSpillToTheColumnsUnderHeapPressure() throws Exception {
+		InJavaImporter plain = new InJavaImporter();
+		plain.runOne(SAMPLE);
+		plain.runOne(OTHER_SAMPLE);
+		InJavaImporter spilling = new InJavaImporter();
+		try (HeapGovernor governor = new HeapGovernor(0.99, 10, 80)) {
+			spilling.governHeap(governor);
+			spilling.spillAssociationsUnderPressure(null);
+			spilling.runOne(SAMPLE);
+			assertEquals(null, spilling.columnarAssociations());
+			governor.handleNotification(
+					new Notification(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED, this, 0), null);
+			spilling.runOne(OTHER_SAMPLE);
+		}
+		assertTrue(spilling.repository().all(Invocation.class).isEmpty());
+		assertTrue(spilling.repository().all(Access.class).isEmpty());
+		ColumnarAssociations columns = spilling.columnarAssociations();
+		assertEquals(plain.repository().all(Invocation.class).size(), columns.invocationCount());
+		assertEquals(plain.repository().all(Access.class).size(), columns.accessCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSpilledAssociationsCannotBeCheckpointed() throws Exception {
+		InJavaImporter importer = new InJavaImporter();
+		importer.spillAssociationsUnderPressure(null);
+		importer.checkpointTo(folder.newFolder("checkpoints").toPath(), 10);
+	}
+
+	private static String nameOf(Object entity) {
+		if (entity instanceof Method)
+			return Famix.qualifiedNameOf((Method) entity);
+		if (entity instanceof Attribute)
+			return Famix.qualifiedNameOf((Attribute) entity);
+		if (entity instanceof NamedEntity)
+			return entity.getClass().getSimpleName() + " " + ((NamedEntity) entity).getName();
+		return String.valueOf(entity);
+	}
+
+	/**
+	 * The associations of the MSE file, by the entities they refer to
+	 */
+	private List<String> associationsInMSE(Repository metamodelOf, CharSequence mse) {
+		Repository imported = new Repository(metamodelOf.getMetamodel());
+		imported.importMSE(mse.toString());
+		List<String> associations = new ArrayList<String>();
+		for (Invocation invocation : imported.all(Invocation.class))
+			associations.add(nameOf(invocation.getSender()) + " invokes " + invocation.getSignature() + " on "
+					+ nameOf(invocation.getReceiver()) + " at " + invocation.getAstStartPosition() + " candidates "
+					+ invocation.getCandidates().stream().map(ColumnarAssociationsTest::nameOf).sorted()
+							.collect(Collectors.toList()));
+		for (Access access : imported.all(Access.class))
+			associations.add(nameOf(access.getAccessor())
+					+ (Boolean.TRUE.equals(access.getIsWrite()) ? " writes " : " reads ")
+					+ nameOf(access.getVariable()) + " at " + access.getAstStartPosition());
+		return associations.stream().sorted().collect(Collectors.toList());
+	}
+
+	@Test
+	public void testExportedMSERefersToTheSameEntitiesAsAnExportFromTheHeap() throws Exception {
+		InJavaImporter heap = new InJavaImporter();
+		heap.runOne(SAMPLE);
+		heap.runOne(OTHER_SAMPLE);
+		InJavaImporter columnar = new InJavaImporter();
+		columnar.storeAssociationsInColumns(null);
+		columnar.runOne(SAMPLE);
+		columnar.runOne(OTHER_SAMPLE);
+		StringBuilder heapMSE = new StringBuilder();
+		heap.repository().exportMSE(heapMSE);
+		StringBuilder columnarMSE = new StringBuilder();
+		columnar.exportMSEWithColumns(columnarMSE);
+		List<String> expected = associationsInMSE(heap.repository(), heapMSE);
+		assertTrue(expected.size() > 20);
+		assertEquals(expected, associationsInMSE(columnar.repository(), columnarMSE));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testEntitiesRefuseToAnswerTheAssociationsThatMoved() throws Exception {
+		InJavaImporter columnar = importerWithColumnsIn(false);
+		Method method = columnar.repository().all(Method.class).stream()
+				.filter(each -> "readAccessThroughReceiverOfMethodInvocation()".equals(each.getSignature()))
+				.findFirst().get();
+		method.getOutgoingInvocations().size();
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.feenk.jdt2famix.injava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.feenk.jdt2famix.JavaFiles;
+import com.feenk.jdt2famix.injava.DependencyGraph.Kind;
+import com.feenk.jdt2famix.model.famix.Namespace;
+import com.feenk.jdt2famix.model.famix.Type;
+import com.feenk.jdt2famix.samples.basic.AnnotationTypeWithoutAttributesForType;
+import com.feenk.jdt2famix.samples.basic.ClassWithAnnotationsForType;
+import com.feenk.jdt2famix.samples.basic.ClassWithSuperClass;
+import com.feenk.jdt2famix.samples.basic.VariousAttributeAccesses;
+
+public class DependencyGraphTest extends InJavaTestCase {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private DependencyGraph graph;
+
+	@Before
+	public void setUp() {
+		importer = new InJavaImporter();
+		graph = importer.trackDependencies();
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.oneJavaFile(samplePathFor(ClassWithSuperClass.class));
+		javaFiles.oneJavaFile(samplePathFor(VariousAttributeAccesses.class));
+		javaFiles.oneJavaFile(samplePathFor(ClassWithAnnotationsForType.class));
+		javaFiles.oneJavaFile(samplePathFor(AnnotationTypeWithoutAttributesForType.class));
+		importer.run(javaFiles);
+	}
+
+	private String samplePathFor(Class<?> clazz) {
+		return "src/test/java/com/feenk/jdt2famix/samples/basic/" + clazz.getSimpleName() + ".java";
+	}
+
+	private Type typeNamed(String qualifiedName) {
+		return importer.types().named(qualifiedName);
+	}
+
+	@Test
+	public void testInheritance() {
+		Type subclass = typeNamed(ClassWithSuperClass.class.getName());
+		Type superclass = typeNamed("com.feenk.jdt2famix.samples.basic.ClassWithSubClass");
+		assertEquals(1, graph.count(subclass, superclass, Kind.INHERITANCE));
+		assertEquals(0, graph.count(superclass, subclass, Kind.INHERITANCE));
+	}
+
+	@Test
+	public void testInvocation() {
+		Type accesses = typeNamed(VariousAttributeAccesses.class.getName());
+		assertEquals(3, graph.count(accesses, typeNamed("java.lang.String"), Kind.INVOCATION));
+		assertEquals(1, graph.count(accesses, accesses, Kind.INVOCATION));
+	}
+
+	@Test
+	public void testAccess() {
+		Type accesses = typeNamed(VariousAttributeAccesses.class.getName());
+		assertTrue(graph.count(accesses, accesses, Kind.ACCESS) > 0);
+	}
+
+	@Test
+	public void testDeclaredType() {
+		Type accesses = typeNamed(VariousAttributeAccesses.class.getName());
+		assertTrue(graph.count(accesses, typeNamed("java.lang.String"), Kind.DECLARED_TYPE) > 0);
+	}
+
+	@Test
+	public void testParameterizedTypesCountForTheirParameterizableClass() {
+		Type accesses = typeNamed(VariousAttributeAccesses.class.getName());
+		assertEquals(1, graph.count(accesses, typeNamed("java.util.List"), Kind.DECLARED_TYPE));
+	}
+
+	@Test
+	public void testAnnotation() {
+		Type annotated = typeNamed(ClassWithAnnotationsForType.class.getName());
+		Type annotationType = typeNamed(AnnotationTypeWithoutAttributesForType.class.getName());
+		assertEquals(1, graph.count(annotated, annotationType, Kind.ANNOTATION));
+	}
+
+	@Test
+	public void testPackageLevel() {
+		Namespace basic = importer.namespaces().named("com.feenk.jdt2famix.samples.basic");
+		Namespace lang = importer.namespaces().named("java.lang");
+		assertEquals(3, graph.count(basic, lang, Kind.INVOCATION));
+		assertEquals(1, graph.count(basic, basic, Kind.INHERITANCE));
+	}
+
+	@Test
+	public void testExportCSV() throws IOException {
+		File file = folder.newFile("dependencies.csv");
+		graph.exportCSV(file.getPath());
+		List<String> lines = Files.readAllLines(file.toPath());
+		assertEquals("level,source,target,inheritance,invocation,access,declaredType,annotation", lines.get(0));
+		assertEquals(1 + graph.numberOfTypeDependencies() + graph.numberOfNamespaceDependencies(), lines.size());
+		assertTrue(lines.contains(
+				"type,\"com.feenk.jdt2famix.samples.basic.ClassWithSuperClass\",\"com.feenk.jdt2famix.samples.basic.ClassWithSubClass\",1,0,0,0,0"));
+	}
+
+	@Test
+	public void testExportBinary() throws IOException {
+		File file = folder.newFile("dependencies.bin");
+		graph.exportBinary(file.getPath());
+		assertTrue(file.length() > 0);
+	}
+
+}
@@ -0,0 +1,146 @@
+package com.feenk.jdt2famix.injava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.feenk.jdt2famix.ContentAddressedCache;
+import com.feenk.jdt2famix.JavaFiles;
+import com.feenk.jdt2famix.model.famix.Type;
+import com.feenk.jdt2famix.samples.basic.ClassWithSuperClass;
+import com.feenk.jdt2famix.samples.basic.VariousAttributeAccesses;
+import com.feenk.jdt2famix.samples.basic.VariousAttributeAccessesSubclass;
+
+public class ExtractionCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ContentAddressedCache cache;
+
+	@Before
+	public void setUp() throws IOException {
+		cache = new ContentAddressedCache(folder.newFolder("cache").toPath(), Long.MAX_VALUE);
+	}
+
+	private JavaFiles javaFiles(Class<?>... classes) {
+		JavaFiles javaFiles = new JavaFiles();
+		Arrays.stream(classes).forEach(clazz -> javaFiles
+				.oneJavaFile("src/test/java/com/feenk/jdt2famix/samples/basic/" + clazz.getSimpleName() + ".java"));
+		return javaFiles;
+	}
+
+	/**
+	 * The other samples are on the sourcepath, so that the types of the file
+	 * resolve as when all files are imported
+	 */
+	private JavaFiles javaFilesWithSourcepath(Class<?> clazz) {
+		JavaFiles javaFiles = javaFiles(clazz);
+		javaFiles.sourcepathEntry("src/test/java");
+		return javaFiles;
+	}
+
+	private JavaFiles javaFilesWithSourcepath(Path file, Path sourceFolder) {
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.oneJavaFile(file.toString());
+		javaFiles.sourcepathEntry(sourceFolder.toString());
+		return javaFiles;
+	}
+
+	private InJavaImporter cachingImporter() {
+		InJavaImporter importer = new InJavaImporter();
+		importer.cacheExtractionsIn(cache);
+		return importer;
+	}
+
+	private Map<String, Long> elementCountsOf(InJavaImporter importer) {
+		return importer.repository().all(Object.class).stream()
+				.collect(Collectors.groupingBy(element -> element.getClass().getSimpleName(), Collectors.counting()));
+	}
+
+	@Test
+	public void testCachedFilesAreReplayedIntoTheSameModel() {
+		InJavaImporter parsed = cachingImporter();
+		parsed.run(javaFiles(ClassWithSuperClass.class, VariousAttributeAccesses.class));
+		assertEquals(2, cache.misses());
+
+		InJavaImporter replayed = cachingImporter();
+		replayed.run(javaFiles(ClassWithSuperClass.class, VariousAttributeAccesses.class));
+		assertEquals(2, cache.hits());
+
+		assertEquals(elementCountsOf(parsed), elementCountsOf(replayed));
+		assertEquals(parsed.types().size(), replayed.types().size());
+		assertEquals(parsed.methods().size(), replayed.methods().size());
+		Type type = replayed.types().named(ClassWithSuperClass.class.getName());
+		assertFalse(type.getIsStub());
+		assertEquals(1, type.getSuperInheritances().size());
+		assertEquals(parsed.types().named(ClassWithSuperClass.class.getName()).getMethods().size(),
+				type.getMethods().size());
+	}
+
+	@Test
+	public void testReplayedFilesMergeWithParsedFiles() {
+		cachingImporter().run(javaFilesWithSourcepath(VariousAttributeAccessesSubclass.class));
+
+		InJavaImporter mixed = cachingImporter();
+		mixed.run(javaFiles(VariousAttributeAccessesSubclass.class, VariousAttributeAccesses.class));
+		assertEquals(1, cache.hits());
+
+		InJavaImporter full = new InJavaImporter();
+		full.run(javaFiles(VariousAttributeAccessesSubclass.class, VariousAttributeAccesses.class));
+		assertEquals(elementCountsOf(full), elementCountsOf(mixed));
+		Type superclass = mixed.types().named(VariousAttributeAccesses.class.getName());
+		assertFalse(superclass.getIsStub());
+		assertEquals(1, superclass.getSubInheritances().size());
+	}
+
+	@Test
+	public void testReplayedStubsAreCompletedByParsedFiles() {
+		cachingImporter().run(javaFilesWithSourcepath(VariousAttributeAccesses.class));
+
+		InJavaImporter mixed = cachingImporter();
+		mixed.run(javaFiles(VariousAttributeAccessesSubclass.class, VariousAttributeAccesses.class));
+		assertEquals(1, cache.hits());
+
+		InJavaImporter full = new InJavaImporter();
+		full.run(javaFiles(VariousAttributeAccessesSubclass.class, VariousAttributeAccesses.class));
+		assertEquals(elementCountsOf(full), elementCountsOf(mixed));
+		assertEquals(full.types().size(), mixed.types().size());
+		Type superclass = mixed.types().named(VariousAttributeAccesses.class.getName());
+		assertFalse(superclass.getIsStub());
+		assertEquals(1, superclass.getSubInheritances().size());
+	}
+
+	@Test
+	public void testFilesAreParsedAgainWhenTheTypesTheyReferToChanged() throws IOException {
+		Path sources = folder.newFolder("src").toPath();
+		Path p = Files.createDirectory(sources.resolve("p"));
+		Files.write(p.resolve("A.java"), "package p;\nclass A { void m() { new B().o(); } }\n"
+				.getBytes(StandardCharsets.UTF_8));
+		Path b = p.resolve("B.java");
+		Files.write(b, "package p;\nclass B { void o() {} }\n".getBytes(StandardCharsets.UTF_8));
+		cachingImporter().run(javaFilesWithSourcepath(p.resolve("A.java"), sources));
+
+		Files.write(b, "package p;\nclass B { int o() { return 0; } }\n".getBytes(StandardCharsets.UTF_8));
+		InJavaImporter cached = cachingImporter();
+		cached.run(javaFilesWithSourcepath(p.resolve("A.java"), sources));
+		InJavaImporter fresh = new InJavaImporter();
+		fresh.run(javaFilesWithSourcepath(p.resolve("A.java"), sources));
+		assertEquals(elementCountsOf(fresh), elementCountsOf(cached));
+		assertEquals(fresh.methods().named("p.B.o()").getDeclaredType().getName(),
+				cached.methods().named("p.B.o()").getDeclaredType().getName());
+	}
+
+}
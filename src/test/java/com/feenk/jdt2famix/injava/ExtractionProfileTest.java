@@ -0,0 +1,96 @@
+package com.feenk.jdt2famix.injava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.Test;
+
+import com.feenk.jdt2famix.injava.ExtractionProfile.Facet;
+import com.feenk.jdt2famix.model.famix.Access;
+import com.feenk.jdt2famix.model.famix.Comment;
+import com.feenk.jdt2famix.model.famix.IndexedFileAnchor;
+import com.feenk.jdt2famix.model.famix.Invocation;
+import com.feenk.jdt2famix.model.famix.Method;
+
+public class ExtractionProfileTest extends InJavaTestCase {
+
+	private static final String SAMPLES = "src/test/java/com/feenk/jdt2famix/samples/basic/";
+
+	@Test
+	public void testNamedProfiles() {
+		assertEquals(EnumSet.allOf(Facet.class), ExtractionProfile.named("full").facets());
+		assertEquals(EnumSet.of(Facet.INVOCATIONS, Facet.METHOD_BODIES), ExtractionProfile.named("CallGraph").facets());
+		assertFalse(ExtractionProfile.named("architecture").has(Facet.COMMENTS));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownProfile() {
+		ExtractionProfile.named("everything");
+	}
+
+	@Test
+	public void testSwitchingFacets() {
+		ExtractionProfile profile = ExtractionProfile.CALLGRAPH.with(Facet.named("source-anchors"))
+				.without(Facet.INVOCATIONS, Facet.METHOD_BODIES);
+		assertEquals(EnumSet.of(Facet.SOURCE_ANCHORS), profile.facets());
+		assertTrue(ExtractionProfile.CALLGRAPH.has(Facet.INVOCATIONS));
+		assertTrue(profile.without(Facet.SOURCE_ANCHORS).facets().isEmpty());
+	}
+
+	@Test
+	public void testCallgraphProfile() {
+		importer = new InJavaImporter();
+		importer.setExtractionProfile(ExtractionProfile.CALLGRAPH);
+		importer.runOne(SAMPLES + "VariousAttributeAccesses.java");
+		assertTrue(importer.repository().all(Access.class).isEmpty());
+		assertTrue(importer.repository().all(IndexedFileAnchor.class).isEmpty());
+		assertFalse(importer.repository().all(Invocation.class).isEmpty());
+		Method method = methodNamed("readAccessThroughReceiverOfMethodInvocation");
+		assertNull(method.getSourceAnchor());
+		assertTrue(method.getAstStartPositionAsInt() > 0);
+		assertEquals(1, method.getOutgoingInvocations().size());
+		assertEquals(attributeNamed("attribute"), method.getOutgoingInvocations().iterator().next().getReceiver());
+	}
+
+	@Test
+	public void testCommentsAndJavadocParsingAreSwitchedOff() {
+		importer = new InJavaImporter();
+		importer.setExtractionProfile(ExtractionProfile.FULL.without(Facet.COMMENTS));
+		Map<String, String> options = new HashMap<String, String>();
+		importer.configureCompilerOptions(options);
+		assertEquals(JavaCore.DISABLED, options.get(JavaCore.COMPILER_DOC_COMMENT_SUPPORT));
+		importer.runOne(SAMPLES + "ClassWithComments.java");
+		assertTrue(importer.repository().all(Comment.class).isEmpty());
+		assertFalse(methodNamed("methodWithJavadoc").hasComments());
+	}
+
+	@Test
+	public void testDeclarationsProfileIgnoresMethodBodies() {
+		importer = new InJavaImporter();
+		importer.setExtractionProfile(ExtractionProfile.DECLARATIONS);
+		importer.runOne(SAMPLES + "VariousAttributeAccesses.java");
+		assertTrue(importer.repository().all(Invocation.class).isEmpty());
+		Method method = methodNamed("readAccessThroughReceiverOfMethodInvocation");
+		assertTrue(method.getIsBodyIgnored());
+		assertNull(method.getCyclomaticComplexity());
+		assertTrue(method.getSourceAnchor() instanceof IndexedFileAnchor);
+	}
+
+	@Test
+	public void testMethodsWithoutBodyAreNotMarked() {
+		importer = new InJavaImporter();
+		importer.setExtractionProfile(ExtractionProfile.DECLARATIONS);
+		importer.runOne(SAMPLES + "SimpleInterface.java");
+		Method method = importer.methods().stream().findAny().get();
+		assertNull(method.getIsBodyIgnored());
+		assertEquals(1, method.getCyclomaticComplexityAsInt());
+	}
+
+}
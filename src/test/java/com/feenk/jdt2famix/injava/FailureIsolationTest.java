@@ -0,0 +1,182 @@
+package com.feenk.jdt2famix.injava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.feenk.jdt2famix.JavaFiles;
+import com.feenk.jdt2famix.model.famix.Method;
+import com.feenk.jdt2famix.model.famix.NamedEntity;
+import com.feenk.jdt2famix.model.famix.SourcedEntity;
+import com.feenk.jdt2famix.model.famix.Type;
+import com.feenk.jdt2famix.samples.basic.ClassWithSuperClass;
+import com.feenk.jdt2famix.samples.basic.VariousAttributeAccesses;
+import com.feenk.jdt2famix.samples.basic.VariousAttributeAccessesSubclass;
+
+public class FailureIsolationTest {
+
+	private static final String FAILING_METHOD = "readAccessThroughReceiverOfMethodInvocation";
+
+	/**
+	 * The budget counts the parse, so it leaves room for parsing a file once the
+	 * parser is warm, and a stall is well over it
+	 */
+	private static final long BUDGET_MILLIS = 1000;
+	private static final long STALL_MILLIS = 1500;
+
+	/**
+	 * Fails or stalls in the middle of the file of {@link VariousAttributeAccesses},
+	 * after a good part of its model was created
+	 */
+	private static class TroubledImporter extends InJavaImporter {
+		private final boolean stalls;
+
+		TroubledImporter(boolean stalls) {
+			this.stalls = stalls;
+		}
+
+		@Override
+		public void ensureCommentFromBodyDeclaration(SourcedEntity entity, BodyDeclaration node) {
+			if (entity instanceof Method && ((Method) entity).getName().equals(FAILING_METHOD)) {
+				if (!stalls)
+					throw new ClassCastException("troubled");
+				try {
+					Thread.sleep(STALL_MILLIS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			super.ensureCommentFromBodyDeclaration(entity, node);
+		}
+	}
+
+	/**
+	 * Stalls while it prepares the parser of the second file, after the clock of
+	 * its time budget started
+	 */
+	private static class SlowParsingImporter extends InJavaImporter {
+		private int parsers;
+
+		@Override
+		protected void configureParser(ASTParser parser) {
+			if (++parsers == 2)
+				try {
+					Thread.sleep(STALL_MILLIS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			super.configureParser(parser);
+		}
+	}
+
+	private static String samplePathFor(Class<?> clazz) {
+		return "src/test/java/com/feenk/jdt2famix/samples/basic/" + clazz.getSimpleName() + ".java";
+	}
+
+	/**
+	 * The first parse loads the classes of the parser and of the JRE
+	 */
+	@BeforeClass
+	public static void warmUpTheParser() {
+		new InJavaImporter().runOne(samplePathFor(ClassWithSuperClass.class));
+	}
+
+	private JavaFiles javaFiles(Class<?>... classes) {
+		JavaFiles javaFiles = new JavaFiles();
+		Arrays.stream(classes).forEach(clazz -> javaFiles.oneJavaFile(samplePathFor(clazz)));
+		return javaFiles;
+	}
+
+	private Map<String, Long> elementCountsOf(InJavaImporter importer) {
+		return importer.repository().all(Object.class).stream()
+				.collect(Collectors.groupingBy(element -> element.getClass().getSimpleName(), Collectors.counting()));
+	}
+
+	private void assertOnlyTheGoodFileIsInTheModel(InJavaImporter importer) {
+		InJavaImporter good = new InJavaImporter();
+		good.run(javaFiles(ClassWithSuperClass.class));
+		assertEquals(elementCountsOf(good), elementCountsOf(importer));
+		assertNull(importer.types().named(VariousAttributeAccesses.class.getName()));
+		assertFalse(importer.repository().all(NamedEntity.class).stream()
+				.anyMatch(entity -> FAILING_METHOD.equals(entity.getName())));
+		Type object = importer.types().named("java.lang.Object");
+		assertTrue(importer.repository().getElements().contains(object));
+		assertTrue(object.getMethods().stream().allMatch(importer.repository().getElements()::contains));
+	}
+
+	@Test
+	public void testAFailingFileIsDiscardedAndReported() {
+		InJavaImporter importer = new TroubledImporter(false);
+		importer.run(javaFiles(ClassWithSuperClass.class, VariousAttributeAccesses.class));
+		assertOnlyTheGoodFileIsInTheModel(importer);
+		assertEquals(1, importer.problemReport().problems().size());
+		ProblemReport.Problem problem = importer.problemReport().problems().get(0);
+		assertEquals(samplePathFor(VariousAttributeAccesses.class), problem.fileName());
+		assertEquals(ProblemReport.Kind.FAILED, problem.kind());
+		assertTrue(problem.message().contains("troubled"));
+	}
+
+	@Test
+	public void testAFileOverTheTimeBudgetIsSkippedAndReported() {
+		InJavaImporter importer = new TroubledImporter(true);
+		importer.setTimeBudgetPerFile(BUDGET_MILLIS);
+		importer.run(javaFiles(ClassWithSuperClass.class, VariousAttributeAccesses.class));
+		assertOnlyTheGoodFileIsInTheModel(importer);
+		assertEquals(1, importer.problemReport().problems().size());
+		assertEquals(ProblemReport.Kind.TIMED_OUT, importer.problemReport().problems().get(0).kind());
+	}
+
+	@Test
+	public void testAFileWhoseParseIsOverTheTimeBudgetIsSkippedAndReported() {
+		InJavaImporter importer = new SlowParsingImporter();
+		importer.setTimeBudgetPerFile(BUDGET_MILLIS);
+		importer.run(javaFiles(ClassWithSuperClass.class, VariousAttributeAccesses.class));
+		assertOnlyTheGoodFileIsInTheModel(importer);
+		assertEquals(1, importer.problemReport().problems().size());
+		ProblemReport.Problem problem = importer.problemReport().problems().get(0);
+		assertEquals(samplePathFor(VariousAttributeAccesses.class), problem.fileName());
+		assertEquals(ProblemReport.Kind.TIMED_OUT, problem.kind());
+	}
+
+	@Test
+	public void testAStubDeclaredByAFailingFileIsAStubAgain() {
+		InJavaImporter importer = new TroubledImporter(false);
+		importer.trackDependencies();
+		importer.run(javaFiles(VariousAttributeAccessesSubclass.class, VariousAttributeAccesses.class));
+		JavaFiles onlySubclass = javaFiles(VariousAttributeAccessesSubclass.class);
+		onlySubclass.resolveOnDemand();
+		InJavaImporter good = new InJavaImporter();
+		good.trackDependencies();
+		good.run(onlySubclass);
+		assertEquals(elementCountsOf(good), elementCountsOf(importer));
+		Type stub = importer.types().named(VariousAttributeAccesses.class.getName());
+		Type goodStub = good.types().named(VariousAttributeAccesses.class.getName());
+		assertEquals(goodStub.getIsStub(), stub.getIsStub());
+		assertEquals(goodStub.getModifiers(), stub.getModifiers());
+		assertEquals(goodStub.getContainer().getName(), stub.getContainer().getName());
+		assertEquals(good.dependencyGraph().numberOfTypeDependencies(),
+				importer.dependencyGraph().numberOfTypeDependencies());
+		assertEquals(good.dependencyGraph().numberOfNamespaceDependencies(),
+				importer.dependencyGraph().numberOfNamespaceDependencies());
+	}
+
+	@Test
+	public void testWithoutProblemsNothingIsReported() {
+		InJavaImporter importer = new InJavaImporter();
+		importer.setTimeBudgetPerFile(60000);
+		importer.run(javaFiles(ClassWithSuperClass.class, VariousAttributeAccesses.class));
+		assertTrue(importer.problemReport().isEmpty());
+		assertTrue(importer.types().has(VariousAttributeAccesses.class.getName()));
+	}
+
+}
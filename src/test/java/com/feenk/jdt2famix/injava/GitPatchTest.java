@@ -0,0 +1,173 @@
+package com.feenk.jdt2famix.injava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.feenk.jdt2famix.Classpath;
+import com.feenk.jdt2famix.GitRepository;
+import com.feenk.jdt2famix.JavaFiles;
+
+public class GitPatchTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path root;
+	private Path checkpoints;
+
+	@Before
+	public void setUp() throws IOException {
+		root = folder.newFolder("repository").toPath();
+		checkpoints = folder.newFolder("checkpoints").toPath();
+		git("init", "-q", "-b", "main");
+		write("src/p/A.java", "package p;\npublic class A {\n\tpublic void m() {}\n}\n");
+		write("src/p/B.java", "package p;\npublic class B {\n\tpublic void n(A a) { a.m(); }\n}\n");
+		write("src/p/D.java", "package p;\npublic class D {\n\tint d;\n}\n");
+		commit("first");
+		write("src/p/A.java", "package p;\npublic class A {\n\tpublic void m() {}\n\tpublic void o() { m(); }\n}\n");
+		write("src/p/C.java", "package p;\npublic class C extends A {\n}\n");
+		Files.delete(root.resolve("src/p/D.java"));
+		commit("second");
+	}
+
+	private void write(String name, String contents) throws IOException {
+		Path file = root.resolve(name);
+		Files.createDirectories(file.getParent());
+		Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void commit(String message) {
+		git("add", "-A");
+		git("-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "-m", message);
+	}
+
+	private void git(String... arguments) {
+		List<String> command = new ArrayList<String>(Arrays.asList("git", "-C", root.toString()));
+		command.addAll(Arrays.asList(arguments));
+		try {
+			assertEquals(0, new ProcessBuilder(command).inheritIO().start().waitFor());
+		} catch (IOException | InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private InJavaImporter importedAt(String revision) throws IOException {
+		git("checkout", "-q", revision);
+		InJavaImporter importer = new InJavaImporter();
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.deepJavaFiles(root.toString());
+		importer.run(javaFiles);
+		return importer;
+	}
+
+	private Map<String, Long> elementCountsOf(InJavaImporter importer) {
+		return importer.repository().all(Object.class).stream()
+				.collect(Collectors.groupingBy(element -> element.getClass().getSimpleName(), Collectors.counting()));
+	}
+
+	private List<String> keysOf(ModelDelta delta, ModelDelta.Kind kind, String index) {
+		return delta.changes().stream().filter(change -> change.kind() == kind && change.index().equals(index))
+				.map(ModelDelta.Change::key).sorted().collect(Collectors.toList());
+	}
+
+	@Test
+	public void testChangedFilesBetweenRevisions() {
+		List<GitRepository.Change> changes = new GitRepository(root).changedFiles("HEAD~1", "HEAD", ".java");
+		Map<String, GitRepository.Change.Kind> kinds = changes.stream()
+				.collect(Collectors.toMap(GitRepository.Change::path, GitRepository.Change::kind));
+		assertEquals(3, kinds.size());
+		assertEquals(GitRepository.Change.Kind.MODIFIED, kinds.get("src/p/A.java"));
+		assertEquals(GitRepository.Change.Kind.ADDED, kinds.get("src/p/C.java"));
+		assertEquals(GitRepository.Change.Kind.DELETED, kinds.get("src/p/D.java"));
+	}
+
+	@Test
+	public void testPatchBuildsTheSameModelAsAFullImport() throws IOException {
+		InJavaImporter base = new InJavaImporter();
+		base.checkpointTo(checkpoints, 1);
+		git("checkout", "-q", "HEAD~1");
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.deepJavaFiles(root.toString());
+		base.run(javaFiles);
+		base.checkpoint();
+		git("checkout", "-q", "main");
+
+		InJavaImporter patched = new InJavaImporter();
+		patched.startFrom(checkpoints);
+		ModelDelta delta = patched.patch(new GitRepository(root), "HEAD~1", "HEAD", new Classpath());
+
+		InJavaImporter full = importedAt("main");
+		assertEquals(elementCountsOf(full), elementCountsOf(patched));
+		assertFalse(patched.types().named("p.A").getIsStub());
+		assertFalse(patched.types().named("p.B").getIsStub());
+		assertEquals(1, patched.types().named("p.C").getSuperInheritances().size());
+		assertNull(patched.types().named("p.D"));
+
+		assertEquals(Arrays.asList("p.C"), keysOf(delta, ModelDelta.Kind.ADDED, "types"));
+		assertEquals(Arrays.asList("p.D"), keysOf(delta, ModelDelta.Kind.REMOVED, "types"));
+		assertEquals(Arrays.asList("p.A"), keysOf(delta, ModelDelta.Kind.CHANGED, "types"));
+		assertTrue(keysOf(delta, ModelDelta.Kind.ADDED, "methods").stream().anyMatch(key -> key.startsWith("p.A.o")));
+		assertTrue(keysOf(delta, ModelDelta.Kind.REMOVED, "attributes").stream().anyMatch(key -> key.startsWith("p.D")));
+	}
+
+	@Test
+	public void testPatchResolvesTheTypesAtTheNewRevisionWhateverTheWorkingTree() throws IOException {
+		write("src/p/C.java", "package p;\npublic class C extends A {\n\tpublic void c() { o(); }\n}\n");
+		commit("third");
+		write("src/p/A.java", "package p;\npublic class A {\n\tpublic void m() {}\n\tpublic void p() { m(); }\n}\n");
+		write("src/p/C.java", "package p;\npublic class C extends A {\n\tpublic void c() { p(); }\n}\n");
+		commit("fourth");
+		InJavaImporter base = new InJavaImporter();
+		base.checkpointTo(checkpoints, 1);
+		git("checkout", "-q", "main~2");
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.deepJavaFiles(root.toString());
+		base.run(javaFiles);
+		base.checkpoint();
+		git("checkout", "-q", "main");
+
+		InJavaImporter patched = new InJavaImporter();
+		patched.startFrom(checkpoints);
+		patched.patch(new GitRepository(root), "main~2", "main~1", new Classpath());
+
+		InJavaImporter full = importedAt("main~1");
+		assertEquals(elementCountsOf(full), elementCountsOf(patched));
+		assertEquals(1, patched.methods().named("p.A.o()").getIncomingInvocations().size());
+	}
+
+	@Test
+	public void testHistoryBuildsTheModelOfEachRevision() throws IOException {
+		List<String> revisions = Arrays.asList("HEAD~1", "HEAD");
+		List<Map<String, Long>> counts = new ArrayList<Map<String, Long>>();
+		InJavaImporter importer = new InJavaImporter();
+		RevisionHistory history = new RevisionHistory(importer, new GitRepository(root));
+		history.importRevisions(revisions, new Classpath(),
+				(revision, revisionImporter) -> counts.add(elementCountsOf(revisionImporter)));
+
+		assertEquals(elementCountsOf(importedAt("HEAD~1")), counts.get(0));
+		assertEquals(elementCountsOf(importedAt("main")), counts.get(1));
+		assertEquals(1, importer.types().named("p.C").getSuperInheritances().size());
+		assertEquals("HEAD~1", history.lifetimesOfEntity("types", "p.A").get(0).firstRevision());
+		assertNull(history.lifetimesOfEntity("types", "p.A").get(0).lastRevision());
+		assertEquals("HEAD", history.lifetimesOfEntity("types", "p.C").get(0).firstRevision());
+		assertEquals("HEAD~1", history.lifetimesOfEntity("types", "p.D").get(0).lastRevision());
+	}
+
+}
@@ -2,14 +2,35 @@ package com.feenk.jdt2famix.injava;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import com.feenk.jdt2famix.FileCosts;
+import com.feenk.jdt2famix.JavaFiles;
+import com.feenk.jdt2famix.SourcePrefetcher;
 import com.feenk.jdt2famix.injava.InJavaImporter;
+import com.feenk.jdt2famix.model.famix.IndexedFileAnchor;
+import com.feenk.jdt2famix.model.famix.Invocation;
 import com.feenk.jdt2famix.model.famix.JavaSourceLanguage;
 import com.feenk.jdt2famix.model.famix.Namespace;
+import com.feenk.jdt2famix.model.famix.Type;
+import com.feenk.jdt2famix.model.file.File;
 
 public class InJavaImporterTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Test
 	public void testRepositoryMetaModel() {
 		InJavaImporter importer = new InJavaImporter();
@@ -23,4 +44,122 @@ public class InJavaImporterTest {
 		assertEquals(JavaSourceLanguage.class, importer.repository().getElements().stream().findAny().get().getClass());
 	}
 
+	@Test
+	public void testAnchorsShareTheFileName() {
+		InJavaImporter importer = new InJavaImporter();
+		importer.runOne("src/test/java/com/feenk/jdt2famix/samples/basic/VariousAttributeAccesses.java");
+		List<String> fileNames = importer.repository().all(IndexedFileAnchor.class).stream()
+				.map(a -> a.getFileName()).collect(Collectors.toList());
+		assertEquals("src/test/java/com/feenk/jdt2famix/samples/basic/VariousAttributeAccesses.java", fileNames.get(0));
+		assertTrue(fileNames.stream().allMatch(name -> name == fileNames.get(0)));
+	}
+
+	@Test
+	public void testFiles() {
+		InJavaImporter importer = new InJavaImporter();
+		importer.runOne("src/test/java/com/feenk/jdt2famix/samples/basic/VariousAttributeAccesses.java");
+		Collection<File> files = importer.ensureFiles();
+		assertEquals(1, files.size());
+		File file = files.iterator().next();
+		assertEquals("src/test/java/com/feenk/jdt2famix/samples/basic/VariousAttributeAccesses.java", file.getName());
+		Type type = importer.types().named("com.feenk.jdt2famix.samples.basic.VariousAttributeAccesses");
+		assertTrue(file.getEntities().contains(type));
+		assertTrue(type.getContainerFiles().contains(file));
+		assertEquals(files, importer.ensureFiles());
+	}
+
+	@Test
+	public void testTypesInUnknownNamespaceAreOnlyCreatedOnce() {
+		InJavaImporter importer = new InJavaImporter();
+		Type type = importer.ensureTypeNamedInUnknownNamespace("Missing");
+		assertSame(type, importer.ensureTypeNamedInUnknownNamespace("Missing"));
+		assertEquals(1, importer.unknownNamespace().getTypes().size());
+	}
+
+	private static final String ANONYMOUS_TYPE_SAMPLE = "src/test/java/com/feenk/jdt2famix/samples/basic/"
+			+ "SimpleClassWithAnnonymousClass.java";
+
+	private List<String> anonymousTypeNamesIn(InJavaImporter importer) {
+		return importer.repository().all(Type.class).stream().map(Type::getName)
+				.filter(name -> name.isEmpty() || name.contains("$")).sorted().collect(Collectors.toList());
+	}
+
+	@Test
+	public void testAnonymousTypesAreNamedByTheirPositionAndReferencesShareOneStub() {
+		InJavaImporter importer = new InJavaImporter();
+		importer.runOne(ANONYMOUS_TYPE_SAMPLE);
+		assertEquals(Arrays.asList("", "$1"), anonymousTypeNamesIn(importer));
+	}
+
+	@Test
+	public void testAnonymousTypesKeyedForMergingAreNamedByTheirBinaryNameAndReferencedAsDeclared() {
+		InJavaImporter importer = new InJavaImporter();
+		importer.keyTypesForMerging();
+		importer.runOne(ANONYMOUS_TYPE_SAMPLE);
+		assertEquals(Arrays.asList("SimpleClassWithAnnonymousClass$1"), anonymousTypeNamesIn(importer));
+		Type anonymous = importer.types().named("com.feenk.jdt2famix.samples.basic.SimpleClassWithAnnonymousClass$1");
+		assertFalse(anonymous.getIsStub());
+		assertEquals(1, anonymous.getSuperInheritances().size());
+	}
+
+	@Test
+	public void testBatchesBuildTheSameModelAsOneRun() {
+		InJavaImporter batched = new InJavaImporter();
+		batched.setBatchSize(1);
+		batched.run(subclassAndSuperclassFiles());
+		InJavaImporter whole = new InJavaImporter();
+		whole.run(subclassAndSuperclassFiles());
+		assertEquals(whole.repository().size(), batched.repository().size());
+		assertEquals(whole.types().size(), batched.types().size());
+		Type superclass = batched.types().named("com.feenk.jdt2famix.samples.basic.VariousAttributeAccesses");
+		assertFalse(superclass.getIsStub());
+		assertEquals(1, superclass.getSubInheritances().size());
+	}
+
+	@Test
+	public void testParallelParsingBuildsTheSameModelAsOneRun() {
+		FileCosts costs = new FileCosts();
+		InJavaImporter parallel = new InJavaImporter();
+		parallel.parseInParallel(2, costs);
+		parallel.run(subclassAndSuperclassFiles());
+		InJavaImporter whole = new InJavaImporter();
+		whole.run(subclassAndSuperclassFiles());
+		assertEquals(whole.repository().size(), parallel.repository().size());
+		assertEquals(whole.types().size(), parallel.types().size());
+		assertEquals(2, costs.timings().size());
+		assertEquals(2, parallel.schedulingReport().threads());
+	}
+
+	@Test
+	public void testPrefetchedSourcesBuildTheSameModel() {
+		InJavaImporter prefetched = new InJavaImporter();
+		try (SourcePrefetcher prefetcher = new SourcePrefetcher(2, 1, 0)) {
+			prefetched.prefetchSources(prefetcher);
+			prefetched.run(subclassAndSuperclassFiles());
+		}
+		InJavaImporter whole = new InJavaImporter();
+		whole.run(subclassAndSuperclassFiles());
+		assertEquals(whole.repository().size(), prefetched.repository().size());
+		assertEquals(whole.types().size(), prefetched.types().size());
+	}
+
+	@Test
+	public void testSignaturesAreSlicedAfterTheByteOrderMark() throws IOException {
+		Path file = folder.newFolder("p").toPath().resolve("A.java");
+		Files.write(file, "\uFEFFpackage p;\nclass A {\n\tvoid m() {}\n\tvoid n() { m(); }\n}\n"
+				.getBytes(StandardCharsets.UTF_8));
+		InJavaImporter importer = new InJavaImporter();
+		importer.runOne(file.toString());
+		List<String> signatures = importer.repository().all(Invocation.class).stream()
+				.map(Invocation::getSignature).collect(Collectors.toList());
+		assertEquals(Arrays.asList("m()"), signatures);
+	}
+
+	private JavaFiles subclassAndSuperclassFiles() {
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.oneJavaFile("src/test/java/com/feenk/jdt2famix/samples/basic/VariousAttributeAccessesSubclass.java");
+		javaFiles.oneJavaFile("src/test/java/com/feenk/jdt2famix/samples/basic/VariousAttributeAccesses.java");
+		return javaFiles;
+	}
+
 }
@@ -0,0 +1,86 @@
+package com.feenk.jdt2famix.injava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.feenk.jdt2famix.JavaFiles;
+import com.feenk.jdt2famix.samples.basic.ClassWithSuperClass;
+import com.feenk.jdt2famix.samples.basic.VariousAttributeAccesses;
+
+public class MetricsWriterTest extends InJavaTestCase {
+
+	private List<String> streamMetrics(MetricsWriter.Format format) {
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.oneJavaFile(samplePathFor(VariousAttributeAccesses.class));
+		javaFiles.oneJavaFile(samplePathFor(ClassWithSuperClass.class));
+		return streamMetrics(javaFiles, format, Integer.MAX_VALUE);
+	}
+
+	private List<String> streamMetrics(JavaFiles javaFiles, MetricsWriter.Format format, int fanInsInMemory) {
+		StringWriter output = new StringWriter();
+		importer = new InJavaImporter();
+		try (MetricsWriter metricsWriter = new MetricsWriter(output, format, fanInsInMemory)) {
+			importer.streamMetricsTo(metricsWriter);
+			importer.run(javaFiles);
+		}
+		return Arrays.asList(output.toString().split("\n"));
+	}
+
+	private JavaFiles allSamples() {
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.deepJavaFiles("src/test/java/com/feenk/jdt2famix/samples/basic");
+		return javaFiles;
+	}
+
+	private String samplePathFor(java.lang.Class<?> clazz) {
+		return "src/test/java/com/feenk/jdt2famix/samples/basic/" + clazz.getSimpleName() + ".java";
+	}
+
+	@Test
+	public void testCSV() {
+		List<String> lines = streamMetrics(MetricsWriter.Format.CSV);
+		assertEquals("kind,name,file,lines,cyclomaticComplexity,parameters,methods,attributes,fanOut,fanIn",
+				lines.get(0));
+		String prefix = "com.feenk.jdt2famix.samples.basic.VariousAttributeAccesses";
+		assertTrue(lines.contains("\"method\",\"" + prefix + ".readAccessThroughIfLeftCondition()\","
+				+ "\"src/test/java/com/feenk/jdt2famix/samples/basic/VariousAttributeAccesses.java\",4,2,0,,,0,"));
+		assertTrue(lines.contains("\"method\",\"" + prefix + ".VariousAttributeAccesses(java.lang.String)\","
+				+ "\"src/test/java/com/feenk/jdt2famix/samples/basic/VariousAttributeAccesses.java\",3,1,1,,,1,"));
+		assertTrue(lines.contains("\"methodFanIn\",\"" + prefix + ".VariousAttributeAccesses(java.lang.String, java.lang.String)\",,,,,,,,1"));
+	}
+
+	@Test
+	public void testTypeRecord() {
+		List<String> lines = streamMetrics(MetricsWriter.Format.NDJSON);
+		assertTrue(lines.contains("{\"kind\":\"type\",\"name\":\"com.feenk.jdt2famix.samples.basic.VariousAttributeAccesses\","
+				+ "\"file\":\"src/test/java/com/feenk/jdt2famix/samples/basic/VariousAttributeAccesses.java\","
+				+ "\"lines\":108,\"cyclomaticComplexity\":38,\"methods\":25,\"attributes\":6,\"fanOut\":1}"));
+	}
+
+	@Test
+	public void testModelIsNotKept() {
+		streamMetrics(MetricsWriter.Format.NDJSON);
+		assertEquals(0, importer.types().stream().filter(t -> !t.getIsStub()).count());
+	}
+
+	@Test
+	public void testFanInsWrittenToDiskAreMergedByName() {
+		List<String> inMemory = fanInRecordsIn(
+				streamMetrics(allSamples(), MetricsWriter.Format.CSV, Integer.MAX_VALUE));
+		List<String> onDisk = fanInRecordsIn(streamMetrics(allSamples(), MetricsWriter.Format.CSV, 2));
+		assertEquals(inMemory, onDisk);
+		assertTrue(onDisk.stream().anyMatch(record -> !record.endsWith(",1")));
+	}
+
+	private List<String> fanInRecordsIn(List<String> lines) {
+		return lines.stream().filter(line -> line.contains("FanIn\",")).sorted().collect(Collectors.toList());
+	}
+
+}
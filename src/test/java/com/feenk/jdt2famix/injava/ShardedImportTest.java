@@ -0,0 +1,102 @@
+package com.feenk.jdt2famix.injava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.feenk.jdt2famix.Classpath;
+import com.feenk.jdt2famix.FileCosts;
+import com.feenk.jdt2famix.JavaFiles;
+import com.feenk.jdt2famix.SourceFilter;
+import com.feenk.jdt2famix.model.famix.Type;
+
+public class ShardedImportTest {
+
+	private static final String ROOT = "src/test/java";
+	private static final String SAMPLES = "com/feenk/jdt2famix/samples/basic/*";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private JavaFiles samples() {
+		JavaFiles javaFiles = new JavaFiles();
+		javaFiles.deepJavaFiles(ROOT, new SourceFilter().includePaths(SAMPLES));
+		return javaFiles;
+	}
+
+	private Map<String, Long> elementCountsOf(InJavaImporter importer) {
+		return importer.repository().all(Object.class).stream()
+				.collect(Collectors.groupingBy(element -> element.getClass().getSimpleName(), Collectors.counting()));
+	}
+
+	private void assertSameModel(InJavaImporter expected, InJavaImporter actual) {
+		assertEquals(elementCountsOf(expected), elementCountsOf(actual));
+		expected.types().entries().forEach((key, type) -> {
+			if (!InJavaImporter.isDeclared(type))
+				return;
+			Type merged = actual.types().named(key);
+			assertEquals(key, type.getClass(), merged.getClass());
+			assertEquals(key, type.getIsStub(), merged.getIsStub());
+			assertEquals(key, type.getSuperInheritances().size(), merged.getSuperInheritances().size());
+			assertEquals(key, type.getMethods().size(), merged.getMethods().size());
+			assertEquals(key, type.getAttributes().size(), merged.getAttributes().size());
+		});
+	}
+
+	@Test
+	public void testPlanBalancesTheShards() throws IOException {
+		ShardedImport sharded = new ShardedImport(folder.getRoot().toPath());
+		List<Path> shardFolders = sharded.plan(samples().paths(), 3, new FileCosts());
+		assertEquals(shardFolders, sharded.shardFolders());
+		int files = 0;
+		for (Path shardFolder : shardFolders) {
+			List<String> paths = Files.readAllLines(shardFolder.resolve(ShardedImport.FILES_FILE_NAME));
+			assertFalse(paths.isEmpty());
+			files += paths.size();
+		}
+		assertEquals(samples().size(), files);
+	}
+
+	@Test
+	public void testMergedShardsBuildTheSameModelAsOneImport() {
+		InJavaImporter full = new InJavaImporter();
+		full.keyTypesForMerging();
+		full.run(samples());
+
+		ShardedImport sharded = new ShardedImport(folder.getRoot().toPath());
+		List<Path> shardFolders = sharded.plan(samples().paths(), 3, new FileCosts());
+		for (Path shardFolder : shardFolders)
+			ShardedImport.importShard(new InJavaImporter(), shardFolder, samples(), new Classpath());
+		InJavaImporter merged = ShardedImport.merge(shardFolders, InJavaImporter::new);
+
+		assertSameModel(full, merged);
+	}
+
+	@Test
+	public void testWorkersRunInTheirOwnProcesses() {
+		InJavaImporter full = new InJavaImporter();
+		full.keyTypesForMerging();
+		full.run(samples());
+
+		ShardedImport sharded = new ShardedImport(folder.getRoot().toPath());
+		List<Path> shardFolders = sharded.plan(samples().paths(), 2, new FileCosts());
+		sharded.runWorkers(shardFolders, Collections.<String>emptyList(),
+				Arrays.asList("--include-paths=" + SAMPLES, ROOT));
+		InJavaImporter merged = ShardedImport.merge(sharded.shardFolders(), InJavaImporter::new);
+
+		assertSameModel(full, merged);
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.feenk.jdt2famix.injava.oneSample;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.feenk.jdt2famix.injava.InJavaImporter;
+import com.feenk.jdt2famix.samples.basic.AttributeFragmentsSharingAnInitializer;
+
+public class AttributeFragmentsSharingAnInitializerTest extends OneSampleTestCase {
+
+	@Override
+	protected Class<?> sampleClass() {
+		return AttributeFragmentsSharingAnInitializer.class;
+	}
+
+	@Test
+	public void testAccesses() {
+		assertEquals(5, methodNamed(InJavaImporter.INITIALIZER_NAME).getAccesses().size());
+	}
+
+	@Test
+	public void testInitializerIsReadOnlyOnce() {
+		assertEquals(2, attributeNamed("CONSTANT").getIncomingAccesses().size());
+		assertEquals(1, attributeNamed("CONSTANT").getIncomingAccesses().stream().filter(a -> !a.getIsWrite()).count());
+	}
+}
@@ -4,6 +4,7 @@ import static org.junit.Assert.*;
 
 import org.junit.Test;
 
+import com.feenk.jdt2famix.model.famix.Invocation;
 import com.feenk.jdt2famix.samples.basic.ClassWithSuperConstructorInvocation;
 
 public class ClassWithSuperConstructorInvocationTest extends
@@ -25,4 +26,12 @@ public class ClassWithSuperConstructorInvocationTest extends
 	public void testSuperConstructorInvocation() {
 		assertEquals(1, type.getMethods().stream().findAny().get().getOutgoingInvocations().size());
 	}
+
+	@Test
+	public void testSuperConstructorInvocationOnlyHasAStartPosition() {
+		Invocation invocation = type.getMethods().stream().findAny().get().getOutgoingInvocations().stream()
+				.findAny().get();
+		assertNotNull(invocation.getAstStartPosition());
+		assertNull(invocation.getAstStopPosition());
+	}
 }
@@ -0,0 +1,113 @@
+package com.feenk.jdt2famix.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.feenk.jdt2famix.model.famix.Attribute;
+import com.feenk.jdt2famix.model.famix.Class;
+
+public class CompactMultivalueSetTest {
+
+	private List<Attribute> attributes(int count) {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		for (int i = 0; i < count; i++) {
+			Attribute attribute = new Attribute();
+			attribute.setName("attribute" + i);
+			attributes.add(attribute);
+		}
+		return attributes;
+	}
+
+	@Test
+	public void testUntouchedPropertyIsEmpty() {
+		Class type = new Class();
+		assertFalse(type.hasAttributes());
+		assertEquals(0, type.numberOfAttributes());
+		assertTrue(type.getAttributes().isEmpty());
+	}
+
+	@Test
+	public void testUntouchedPropertiesShareOneEmptySet() {
+		Class type = new Class();
+		assertSame(CompactMultivalueSet.empty(), type.getAttributes());
+		assertSame(type.getAttributes(), new Class().getMethods());
+		Attribute attribute = attributes(1).get(0);
+		attribute.setParentType(type);
+		assertTrue(type.getAttributes() instanceof CompactMultivalueSet);
+		assertEquals(new HashSet<Attribute>(Arrays.asList(attribute)), type.getAttributes());
+		assertTrue(new Class().getAttributes().isEmpty());
+	}
+
+	@Test
+	public void testOppositeIsMaintained() {
+		Class type = new Class();
+		Attribute attribute = attributes(1).get(0);
+		type.addAttributes(attribute);
+		assertSame(type, attribute.getParentType());
+		type.getAttributes().remove(attribute);
+		assertNull(attribute.getParentType());
+		attribute.setParentType(type);
+		assertTrue(type.getAttributes().contains(attribute));
+	}
+
+	@Test
+	public void testGrowAndShrinkAcrossAllStorages() {
+		Class type = new Class();
+		List<Attribute> attributes = attributes(CompactMultivalueSet.PROMOTION_THRESHOLD * 2);
+		for (int i = 0; i < attributes.size(); i++) {
+			type.addAttributes(attributes.get(i));
+			type.addAttributes(attributes.get(i));
+			assertEquals(i + 1, type.numberOfAttributes());
+			assertEquals(new HashSet<Attribute>(attributes.subList(0, i + 1)), type.getAttributes());
+		}
+		for (int i = attributes.size() - 1; i >= 0; i--) {
+			attributes.get(i).setParentType(null);
+			assertEquals(i, type.numberOfAttributes());
+			assertEquals(new HashSet<Attribute>(attributes.subList(0, i)), type.getAttributes());
+		}
+	}
+
+	@Test
+	public void testIteratorRemoveClearsOpposite() {
+		for (int count : new int[] { 2, 5, CompactMultivalueSet.PROMOTION_THRESHOLD + 3 }) {
+			Class type = new Class();
+			List<Attribute> attributes = attributes(count);
+			type.addAttributes(attributes);
+			for (Iterator<Attribute> iterator = type.getAttributes().iterator(); iterator.hasNext();) {
+				iterator.next();
+				iterator.remove();
+			}
+			assertFalse(type.hasAttributes());
+			for (Attribute attribute : attributes)
+				assertNull(attribute.getParentType());
+		}
+	}
+
+	@Test
+	public void testSetterReplacesElements() {
+		Class type = new Class();
+		List<Attribute> attributes = attributes(4);
+		type.setAttributes(attributes.subList(0, 3));
+		type.setAttributes(attributes.subList(2, 4));
+		assertEquals(new HashSet<Attribute>(attributes.subList(2, 4)), type.getAttributes());
+		assertNull(attributes.get(0).getParentType());
+		assertSame(type, attributes.get(3).getParentType());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullIsRejected() {
+		new Class().getAttributes().add(null);
+	}
+
+}
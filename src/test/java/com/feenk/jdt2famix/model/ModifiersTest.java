@@ -0,0 +1,77 @@
+package com.feenk.jdt2famix.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.eclipse.jdt.core.dom.Modifier;
+import org.junit.Test;
+
+import com.feenk.jdt2famix.model.famix.Method;
+
+public class ModifiersTest {
+
+	@Test
+	public void testFlagsMatchJdtModifiers() {
+		assertEquals(Modifier.PUBLIC, Modifiers.PUBLIC);
+		assertEquals(Modifier.PRIVATE, Modifiers.PRIVATE);
+		assertEquals(Modifier.PROTECTED, Modifiers.PROTECTED);
+		assertEquals(Modifier.STATIC, Modifiers.STATIC);
+		assertEquals(Modifier.FINAL, Modifiers.FINAL);
+		assertEquals(Modifier.SYNCHRONIZED, Modifiers.SYNCHRONIZED);
+		assertEquals(Modifier.VOLATILE, Modifiers.VOLATILE);
+		assertEquals(Modifier.TRANSIENT, Modifiers.TRANSIENT);
+		assertEquals(Modifier.NATIVE, Modifiers.NATIVE);
+		assertEquals(Modifier.ABSTRACT, Modifiers.ABSTRACT);
+		assertEquals(Modifier.STRICTFP, Modifiers.STRICTFP);
+		assertEquals(Modifier.DEFAULT, Modifiers.DEFAULT);
+	}
+
+	@Test
+	public void testFlagsAreAnsweredAsStrings() {
+		Method method = new Method();
+		method.setModifierFlags(Modifier.PUBLIC | Modifier.FINAL);
+		assertEquals(Arrays.asList("public", "final"), new ArrayList<String>(method.getModifiers()));
+		assertTrue(method.getModifiers().contains("final"));
+		assertFalse(method.getModifiers().contains("static"));
+		assertEquals(2, method.numberOfModifiers());
+	}
+
+	@Test
+	public void testStringsAreStoredAsFlags() {
+		Method method = new Method();
+		method.addModifiers("private", "abstract", "private");
+		assertEquals(Modifiers.PRIVATE | Modifiers.ABSTRACT, method.getModifierFlags());
+		assertEquals(2, method.getModifiers().size());
+	}
+
+	@Test
+	public void testUnknownModifiersAreKept() {
+		Method method = new Method();
+		method.setModifiers(Arrays.asList("package", "sealed"));
+		assertEquals(Modifiers.PACKAGE, method.getModifierFlags());
+		assertEquals(Arrays.asList("package", "sealed"), new ArrayList<String>(method.getModifiers()));
+		method.setModifiers(Arrays.asList("public"));
+		assertEquals(Arrays.asList("public"), new ArrayList<String>(method.getModifiers()));
+	}
+
+	@Test
+	public void testChangingTheCollectionChangesTheFlags() {
+		Method method = new Method();
+		method.getModifiers().add("public");
+		method.getModifiers().add("sealed");
+		assertEquals(Modifiers.PUBLIC, method.getModifierFlags());
+		assertTrue(method.getModifiers().remove("public"));
+		assertFalse(method.getModifiers().remove("static"));
+		assertEquals(0, method.getModifierFlags());
+		method.getModifiers().removeIf(modifier -> modifier.equals("sealed"));
+		assertFalse(method.hasModifiers());
+		method.addModifiers("final", "static");
+		method.getModifiers().clear();
+		assertEquals(0, method.numberOfModifiers());
+	}
+
+}
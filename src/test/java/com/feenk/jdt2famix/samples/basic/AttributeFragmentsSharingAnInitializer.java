@@ -0,0 +1,6 @@
+package com.feenk.jdt2famix.samples.basic;
+
+public class AttributeFragmentsSharingAnInitializer {
+	static String CONSTANT = "constant";
+	String firstFragment, secondFragment, thirdFragment = CONSTANT;
+}
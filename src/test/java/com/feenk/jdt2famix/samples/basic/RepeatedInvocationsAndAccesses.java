@@ -0,0 +1,25 @@
+package com.feenk.jdt2famix.samples.basic;
+
+public class RepeatedInvocationsAndAccesses {
+	private int counter;
+
+	public RepeatedInvocationsAndAccesses() {
+		this(0);
+		new RepeatedInvocationsAndAccesses(1);
+	}
+
+	public RepeatedInvocationsAndAccesses(int counter) {
+		this.counter = counter;
+	}
+
+	public void increment() {
+		counter = counter + 1;
+	}
+
+	public void incrementThreeTimes() {
+		increment();
+		increment();
+		increment();
+		counter = counter + counter;
+	}
+}